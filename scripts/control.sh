@@ -4,8 +4,12 @@ set -u -e
 
 SRC_DIR="src/main/*.java"
 TEST_DIR="src/test/*.java"
+BENCH_DIR="src/bench/*.java"
+VECTOR_DIR="src/vector/*.java"
 BUILD_DIR_CLASS="build/class"
 BUILD_DIR_TEST="build/test"
+BUILD_DIR_BENCH="build/bench"
+BUILD_DIR_VECTOR="build/vector"
 LIB_DIR="lib"
 SOURCE=21
 TARGET=21
@@ -21,7 +25,7 @@ compile_source() {
 }
 
 compile_test() {
-    cmd="javac -source \"${SOURCE}\" -target \"${TARGET}\" -cp \"${LIB_DIR}/junit-platform-console-standalone-1.10.0.jar\" -d \"${BUILD_DIR_TEST}\" \"${TEST_DIR}\""
+    cmd="javac -source \"${SOURCE}\" -target \"${TARGET}\" -cp \"${BUILD_DIR_CLASS}:${LIB_DIR}/junit-platform-console-standalone-1.10.0.jar\" -d \"${BUILD_DIR_TEST}\" \"${TEST_DIR}\""
     if "$VERBOSE"; then
         cmd="${cmd} -verbose"
     fi
@@ -29,7 +33,31 @@ compile_test() {
 }
 
 run_tests() {
-    cmd="java -jar \"${LIB_DIR}/junit-platform-console-standalone-1.10.0.jar\" --class-path \"${BUILD_DIR_TEST}\" --scan-class-path"
+    cmd="java -jar \"${LIB_DIR}/junit-platform-console-standalone-1.10.0.jar\" --class-path \"${BUILD_DIR_CLASS}:${BUILD_DIR_TEST}\" --scan-class-path"
+    if "$VERBOSE"; then
+        cmd="${cmd} -verbose"
+    fi
+    echo $cmd
+}
+
+compile_bench() {
+    cmd="javac -source \"${SOURCE}\" -target \"${TARGET}\" -cp \"${BUILD_DIR_CLASS}\" -d \"${BUILD_DIR_BENCH}\" \"${BENCH_DIR}\""
+    if "$VERBOSE"; then
+        cmd="${cmd} -verbose"
+    fi
+    echo $cmd
+}
+
+compile_vector() {
+    cmd="javac -source \"${SOURCE}\" -target \"${TARGET}\" --add-modules jdk.incubator.vector -cp \"${BUILD_DIR_CLASS}\" -d \"${BUILD_DIR_VECTOR}\" \"${VECTOR_DIR}\""
+    if "$VERBOSE"; then
+        cmd="${cmd} -verbose"
+    fi
+    echo $cmd
+}
+
+run_bench() {
+    cmd="java --add-modules jdk.incubator.vector -cp \"${BUILD_DIR_CLASS}:${BUILD_DIR_BENCH}:${BUILD_DIR_VECTOR}\" sim.bench.Benchmarks"
     if "$VERBOSE"; then
         cmd="${cmd} -verbose"
     fi
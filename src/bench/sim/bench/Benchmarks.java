@@ -0,0 +1,43 @@
+package sim.bench;
+
+/**
+ * Entry point running the benchmarks of the simulator.
+ *
+ * <pre>
+ * java -cp build/class:build/bench sim.bench.Benchmarks [-wi N] [-i N] [-t millis] [regex]
+ * </pre>
+ * <ul>
+ *  <li>{@code -wi} warmup iterations per benchmark, default 3
+ *  <li>{@code -i} measured iterations per benchmark, default 5
+ *  <li>{@code -t} length of an iteration in milliseconds, default 1000
+ *  <li>{@code regex} only run benchmarks whose name contains a match, for example {@code "^gate\."}
+ * </ul>
+ * The {@code flat.grouped-vector} benchmarks only run with the {@code src/vector} classes on the class path, in
+ * {@code build/vector}, and {@code --add-modules jdk.incubator.vector}.
+ */
+public final class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        final Harness harness = new Harness();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi" -> harness.warmupIterations(Integer.parseInt(args[++i]));
+                case "-i"  -> harness.measureIterations(Integer.parseInt(args[++i]));
+                case "-t"  -> harness.iterationMillis(Long.parseLong(args[++i]));
+                default    -> harness.filter(args[i]);
+            }
+        }
+
+        GateBenchmarks.add(harness);
+        CircuitBenchmarks.add(harness);
+        BiMapBenchmarks.add(harness);
+        TokenizerBenchmarks.add(harness);
+        BlueprintBenchmarks.add(harness);
+        FlatBenchmarks.add(harness);
+
+        harness.run(System.out);
+    }
+
+    private Benchmarks() {}
+}
@@ -0,0 +1,37 @@
+package sim.bench;
+
+import sim.adt.BiMap;
+
+/**
+ * {@link BiMap} lookups in both directions, as done by every alias conversion of a system.
+ */
+final class BiMapBenchmarks {
+
+    static void add(Harness harness) {
+        for (int size : new int[] {4, 64, 4096}) {
+            final BiMap<Integer, String> map = new BiMap<>();
+            final Integer[] keys = new Integer[size];
+            final String[] values = new String[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = i;
+                values[i] = "bus" + i;
+                map.put(keys[i], values[i]);
+            }
+
+            harness.add("bimap.getValue:" + size, "lookups", blackhole -> {
+                for (Integer key : keys) {
+                    blackhole.consume(map.getValue(key));
+                }
+                return size;
+            });
+            harness.add("bimap.getKey:" + size, "lookups", blackhole -> {
+                for (String value : values) {
+                    blackhole.consume(map.getKey(value));
+                }
+                return size;
+            });
+        }
+    }
+
+    private BiMapBenchmarks() {}
+}
@@ -0,0 +1,121 @@
+package sim.bench;
+
+import java.util.SplittableRandom;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.CircuitBlueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.component.Circuit;
+import sim.component.SignalSource;
+
+/**
+ * {@link Blueprint#build(String)} of ripple-carry adders declared as blueprints, in systems built per second. The
+ * adders are full adders of truth table devices. A built adder is checked once before measuring.
+ */
+final class BlueprintBenchmarks {
+
+    private static final String AND = "Bench-And";
+    private static final String XOR = "Bench-Xor";
+    private static final String OR = "Bench-Or";
+    private static final String FULL_ADDER = "Bench-Full-Adder";
+
+    /** Systems making up a full adder, itself included */
+    private static final int FULL_ADDER_SYSTEMS = 6;
+
+    static void add(Harness harness) {
+        register();
+
+        for (int bits : new int[] {8, 64}) {
+            final String type = "Bench-Adder-" + bits;
+            if (!Blueprint.hasType(type)) {
+                Blueprint.register(rippleCarryAdder(type, bits));
+            }
+            check(type, bits);
+
+            final int systems = bits * FULL_ADDER_SYSTEMS + 1;
+            harness.add("blueprint.build:adder-" + bits, "systems", blackhole -> {
+                blackhole.consume(Blueprint.build(type));
+                return systems;
+            });
+        }
+    }
+
+    private static void register() {
+        if (Blueprint.hasType(FULL_ADDER)) {
+            return;
+        }
+        final String[] in = {"a", "b"};
+        final String[] out = {"o"};
+        Blueprint.register(new DeviceBlueprint(AND, in, out, new long[] {0b1000}));
+        Blueprint.register(new DeviceBlueprint(XOR, in, out, new long[] {0b0110}));
+        Blueprint.register(new DeviceBlueprint(OR, in, out, new long[] {0b1110}));
+
+        final int self = CircuitBlueprint.SELF;
+        Blueprint.register(new CircuitBlueprint(FULL_ADDER,
+            new String[] {"a", "b", "cin"}, new String[] {"s", "cout"},
+            new String[] {XOR, XOR, AND, AND, OR}, new String[] {"x1", "x2", "n1", "n2", "o"},
+            new int[] {
+                0, 0, self, 0,      0, 1, self, 1,      // x1 = a ^ b
+                1, 0, 0, 0,         1, 1, self, 2,      // x2 = x1 ^ cin
+                2, 0, self, 0,      2, 1, self, 1,      // n1 = a & b
+                3, 0, 0, 0,         3, 1, self, 2,      // n2 = x1 & cin
+                4, 0, 2, 0,         4, 1, 3, 0,         // o = n1 | n2
+                self, 0, 1, 0,      self, 1, 4, 0,      // s = x2, cout = o
+            }));
+    }
+
+    /**
+     * A ripple-carry adder blueprint, inputs {@code a[bits], b[bits], cin} and outputs {@code s[bits + 1]}.
+     */
+    private static CircuitBlueprint rippleCarryAdder(String type, int bits) {
+        final String[] types = new String[bits];
+        final String[] aliases = new String[bits];
+        final int[] connections = new int[(4 * bits + 1) * CircuitBlueprint.CONNECTION_SIZE];
+        final int self = CircuitBlueprint.SELF;
+
+        int c = 0;
+        for (int i = 0; i < bits; i++) {
+            types[i] = FULL_ADDER;
+            aliases[i] = "fa" + i;
+            for (int[] connection : new int[][] {
+                    {i, 0, self, i},
+                    {i, 1, self, bits + i},
+                    i == 0 ? new int[] {i, 2, self, 2 * bits} : new int[] {i, 2, i - 1, 1},
+                    {self, i, i, 0}}) {
+                java.lang.System.arraycopy(connection, 0, connections, c, connection.length);
+                c += connection.length;
+            }
+        }
+        java.lang.System.arraycopy(new int[] {self, bits, bits - 1, 1}, 0, connections, c, 4);
+
+        return new CircuitBlueprint(type, Circuit.generateDefaultPinAliases(2 * bits + 1),
+                                    Circuit.generateDefaultPinAliases(bits + 1), types, aliases, connections);
+    }
+
+    private static void check(String type, int bits) {
+        final Circuit adder = (Circuit) Blueprint.build(type);
+        final SignalSource[] sources = Circuits.drive(adder, 2 * bits + 1);
+        final SplittableRandom random = new SplittableRandom(bits);
+        final long mask = bits == 64 ? -1L : (1L << bits) - 1;
+
+        for (int i = 0; i < 64; i++) {
+            final long a = random.nextLong() & mask;
+            final long b = random.nextLong() & mask;
+            final boolean carry = random.nextBoolean();
+            Circuits.set(sources, 0, bits, a);
+            Circuits.set(sources, bits, bits, b);
+            Circuits.set(sources, 2 * bits, 1, carry ? 1 : 0);
+            adder.update();
+
+            // Compare the low bits and the carry out separately, the sum of 64 bit operands needs 65 bits
+            final long sum = a + b + (carry ? 1 : 0);
+            final boolean carryOut = Long.compareUnsigned(sum & mask, a) < 0
+                                     || (carry && (sum & mask) == a);
+            if (Circuits.read(adder, bits) != (sum & mask) || adder.getOut(bits) != carryOut) {
+                throw new IllegalStateException(type + " computed the wrong sum of " + a + " and " + b);
+            }
+        }
+    }
+
+    private BlueprintBenchmarks() {}
+}
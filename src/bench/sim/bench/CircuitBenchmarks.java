@@ -0,0 +1,73 @@
+package sim.bench;
+
+import java.util.SplittableRandom;
+
+import sim.component.Circuit;
+import sim.component.SignalSource;
+import sim.generator.CircuitGenerator;
+
+/**
+ * {@code Circuit.update()} propagating random operands through generated adders and multipliers, built from gates or
+ * from the truth table devices of {@link CircuitGenerator}. Every result is checked once before measuring, so a
+ * benchmark never measures a broken circuit.
+ */
+final class CircuitBenchmarks {
+
+    /** Operand pairs per benchmark invocation */
+    private static final int OPERATIONS = 16;
+
+    static void add(Harness harness) {
+        for (int bits : new int[] {8, 32}) {
+            add(harness, "circuit.adder:" + bits, Circuits.rippleCarryAdder(bits), bits, Long::sum);
+        }
+        for (int bits : new int[] {4, 16}) {
+            add(harness, "circuit.multiplier:" + bits, Circuits.arrayMultiplier(bits), bits, (a, b) -> a * b);
+        }
+
+        // Generated adders have a carry in, left false
+        for (int bits : new int[] {8, 32}) {
+            final Circuit ripple = CircuitGenerator.circuit(g -> g.rippleCarryAdder(bits));
+            add(harness, "circuit.generated-ripple:" + bits, ripple, bits, Long::sum);
+            final Circuit lookahead = CircuitGenerator.circuit(g -> g.carryLookaheadAdder(bits));
+            add(harness, "circuit.generated-lookahead:" + bits, lookahead, bits, Long::sum);
+        }
+        add(harness, "circuit.generated-multiplier:16", CircuitGenerator.circuit(g -> g.arrayMultiplier(16)), 16,
+            (a, b) -> a * b);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        long apply(long a, long b);
+    }
+
+    private static void add(Harness harness, String name, Circuit circuit, int bits, Operation expected) {
+        final int numOutputs = circuit.getOut().length;
+        final SignalSource[] sources = Circuits.drive(circuit, circuit.getAllInputAlias().length);
+        final SplittableRandom random = new SplittableRandom(bits);
+        final long mask = (1L << bits) - 1;
+
+        for (int i = 0; i < 64; i++) {
+            final long a = random.nextLong() & mask;
+            final long b = random.nextLong() & mask;
+            Circuits.set(sources, 0, bits, a);
+            Circuits.set(sources, bits, bits, b);
+            circuit.update();
+            if (Circuits.read(circuit, numOutputs) != expected.apply(a, b)) {
+                throw new IllegalStateException(name + " computed " + Circuits.read(circuit, numOutputs) + " for " +
+                                                a + " and " + b + ", expected " + expected.apply(a, b));
+            }
+        }
+
+        harness.add(name, "operations", blackhole -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                Circuits.set(sources, 0, bits, random.nextLong());
+                Circuits.set(sources, bits, bits, random.nextLong());
+                blackhole.consume(circuit.update());
+                blackhole.consume(circuit.getOut(0));
+            }
+            return OPERATIONS;
+        });
+    }
+
+    private CircuitBenchmarks() {}
+}
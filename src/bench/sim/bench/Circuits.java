@@ -0,0 +1,172 @@
+package sim.bench;
+
+import sim.component.Circuit;
+import sim.component.SignalSource;
+import sim.component.System;
+import sim.component.gates.AndGate;
+import sim.component.gates.OrGate;
+import sim.component.gates.XorGate;
+
+/**
+ * Generators of arithmetic circuits built from gates, and helpers driving and reading them.
+ *
+ * <p>Multi-bit operands are little endian, bit 0 is the lowest indexed bus of the operand.
+ */
+final class Circuits {
+
+    /** An output bus of a system, inside the circuit being generated */
+    private record Signal(System system, int bus) {}
+
+    /**
+     * A full adder, inputs {@code a, b, cin} and outputs {@code s, cout}, made of 5 gates.
+     */
+    static Circuit fullAdder() {
+        final Circuit circuit = new Circuit("Full-Adder", 3, 2, null,
+                                            new String[] {"a", "b", "cin"}, new String[] {"s", "cout"});
+        final XorGate x1 = new XorGate(2);
+        final XorGate x2 = new XorGate(2);
+        final AndGate a1 = new AndGate(2);
+        final AndGate a2 = new AndGate(2);
+        final OrGate o = new OrGate(2);
+        circuit.addInternalSystem("x1", x1);
+        circuit.addInternalSystem("x2", x2);
+        circuit.addInternalSystem("a1", a1);
+        circuit.addInternalSystem("a2", a2);
+        circuit.addInternalSystem("o", o);
+
+        circuit.connectInternal(circuit, 0, x1, 0);
+        circuit.connectInternal(circuit, 1, x1, 1);
+        circuit.connectInternal(x1, 0, x2, 0);
+        circuit.connectInternal(circuit, 2, x2, 1);
+        circuit.connectInternal(circuit, 0, a1, 0);
+        circuit.connectInternal(circuit, 1, a1, 1);
+        circuit.connectInternal(x1, 0, a2, 0);
+        circuit.connectInternal(circuit, 2, a2, 1);
+        circuit.connectInternal(a1, 0, o, 0);
+        circuit.connectInternal(a2, 0, o, 1);
+        circuit.connectInternal(x2, 0, circuit, 0);
+        circuit.connectInternal(o, 0, circuit, 1);
+        return circuit;
+    }
+
+    /**
+     * A ripple-carry adder of nested full adders, inputs {@code a[bits], b[bits]} and outputs {@code s[bits + 1]}.
+     */
+    static Circuit rippleCarryAdder(int bits) {
+        final Circuit circuit = new Circuit("Ripple-Carry-Adder-" + bits, 2 * bits, bits + 1, null, null, null);
+        final SignalSource zero = new SignalSource();
+        circuit.addInternalSystem("zero", zero);
+
+        Signal carry = new Signal(zero, 0);
+        for (int i = 0; i < bits; i++) {
+            final Circuit adder = fullAdder();
+            circuit.addInternalSystem("fa" + i, adder);
+            circuit.connectInternal(circuit, i, adder, 0);
+            circuit.connectInternal(circuit, bits + i, adder, 1);
+            circuit.connectInternal(carry.system, carry.bus, adder, 2);
+            circuit.connectInternal(adder, 0, circuit, i);
+            carry = new Signal(adder, 1);
+        }
+        circuit.connectInternal(carry.system, carry.bus, circuit, bits);
+        return circuit;
+    }
+
+    /**
+     * An array multiplier, inputs {@code a[bits], b[bits]} and outputs {@code p[2 * bits]}. Partial products are
+     * and-gates, summed row by row with nested full adders.
+     */
+    static Circuit arrayMultiplier(int bits) {
+        final Circuit circuit = new Circuit("Array-Multiplier-" + bits, 2 * bits, 2 * bits, null, null, null);
+        final SignalSource zero = new SignalSource();
+        circuit.addInternalSystem("zero", zero);
+
+        //>> Row i of the partial products is a[j] & b[i]
+
+        final Signal[][] partial = new Signal[bits][bits];
+        for (int i = 0; i < bits; i++) {
+            for (int j = 0; j < bits; j++) {
+                final AndGate and = new AndGate(2);
+                circuit.addInternalSystem("pp" + i + "_" + j, and);
+                circuit.connectInternal(circuit, j, and, 0);
+                circuit.connectInternal(circuit, bits + i, and, 1);
+                partial[i][j] = new Signal(and, 0);
+            }
+        }
+
+        //>> Accumulate the rows, the lowest bit of the running sum is final after every row
+
+        Signal[] sum = new Signal[bits + 1];
+        java.lang.System.arraycopy(partial[0], 0, sum, 0, bits);
+        sum[bits] = new Signal(zero, 0);
+        connect(circuit, sum[0], 0);
+
+        for (int i = 1; i < bits; i++) {
+            final Signal[] next = new Signal[bits + 1];
+            Signal carry = new Signal(zero, 0);
+            for (int j = 0; j < bits; j++) {
+                final Circuit adder = fullAdder();
+                circuit.addInternalSystem("fa" + i + "_" + j, adder);
+                connect(sum[j + 1], adder, 0, circuit);
+                connect(partial[i][j], adder, 1, circuit);
+                connect(carry, adder, 2, circuit);
+                next[j] = new Signal(adder, 0);
+                carry = new Signal(adder, 1);
+            }
+            next[bits] = carry;
+            sum = next;
+            connect(circuit, sum[0], i);
+        }
+
+        for (int j = 1; j <= bits; j++) {
+            connect(circuit, sum[j], bits - 1 + j);
+        }
+        return circuit;
+    }
+
+    private static void connect(Signal source, System target, int targetBus, Circuit circuit) {
+        circuit.connectInternal(source.system, source.bus, target, targetBus);
+    }
+
+    private static void connect(Circuit circuit, Signal source, int output) {
+        circuit.connectInternal(source.system, source.bus, circuit, output);
+    }
+
+    /**
+     * Connect a signal source to every input bus of the system.
+     *
+     * @return the sources, index {@code i} drives input bus {@code i}
+     */
+    static SignalSource[] drive(System system, int numInputs) {
+        final SignalSource[] sources = new SignalSource[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            sources[i] = new SignalSource();
+            system.connectInput(sources[i], 0, i);
+        }
+        return sources;
+    }
+
+    /**
+     * Set {@code bits} sources starting at {@code from} to the value, and update them.
+     */
+    static void set(SignalSource[] sources, int from, int bits, long value) {
+        for (int i = 0; i < bits; i++) {
+            sources[from + i].set(((value >>> i) & 1) != 0);
+            sources[from + i].update();
+        }
+    }
+
+    /**
+     * @return the value of the output buses of the system, read as a little endian number
+     */
+    static long read(System system, int numOutputs) {
+        long value = 0;
+        for (int i = 0; i < numOutputs; i++) {
+            if (system.getOut(i)) {
+                value |= 1L << i;
+            }
+        }
+        return value;
+    }
+
+    private Circuits() {}
+}
@@ -0,0 +1,72 @@
+package sim.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.flat.FlatNetlist;
+import sim.flat.GroupedNetlist;
+import sim.generator.CircuitGenerator;
+
+/**
+ * Evaluation of generated designs as a {@link FlatNetlist}, a cell at a time, and as a {@link GroupedNetlist} with
+ * the scalar and, when available, the Vector API kernel. Every evaluation covers 64 random input patterns. The grouped
+ * netlists are checked against the flat netlist once before measuring.
+ */
+final class FlatBenchmarks {
+
+    static void add(Harness harness) {
+        add(harness, "lookahead:1024", g -> g.carryLookaheadAdder(1024));
+        add(harness, "multiplier:32", g -> g.arrayMultiplier(32));
+        add(harness, "dag:100000", g -> g.randomDag(100_000, 64, 64, CircuitGenerator.RandomDagShape.DEFAULT, 1));
+    }
+
+    private static void add(Harness harness, String design, Function<CircuitGenerator, String> family) {
+        final String type = family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType));
+        final FlatNetlist netlist = FlatNetlist.of(type);
+        final int numCells = netlist.getNumCells();
+        final long[] values = random(netlist.getNumNets(), netlist.getNumInputs());
+
+        harness.add("flat.evaluate:" + design, "cells", blackhole -> {
+            netlist.evaluate(values);
+            blackhole.consume((int) values[netlist.getOutputNet(0)]);
+            return numCells;
+        });
+
+        for (boolean vector : GroupedNetlist.isVectorAvailable() ? new boolean[] {false, true} : new boolean[1]) {
+            final GroupedNetlist grouped = new GroupedNetlist(netlist, vector);
+            final long[] groupedValues = Arrays.copyOf(values, grouped.getNumNets());
+            check(netlist, grouped, values.clone(), groupedValues);
+            harness.add("flat.grouped-" + (vector ? "vector:" : "scalar:") + design, "cells", blackhole -> {
+                grouped.evaluate(groupedValues);
+                blackhole.consume((int) groupedValues[grouped.getOutputNet(0)]);
+                return numCells;
+            });
+        }
+    }
+
+    /** @return values of every net, the input nets random */
+    private static long[] random(int numNets, int numInputs) {
+        final SplittableRandom random = new SplittableRandom(numNets);
+        final long[] values = new long[numNets];
+        for (int i = 0; i < numInputs; i++) {
+            values[i] = random.nextLong();
+        }
+        return values;
+    }
+
+    private static void check(FlatNetlist netlist, GroupedNetlist grouped, long[] values, long[] groupedValues) {
+        netlist.evaluate(values);
+        grouped.evaluate(groupedValues);
+        for (int o = 0; o < netlist.getNumOutputs(); o++) {
+            if (values[netlist.getOutputNet(o)] != groupedValues[grouped.getOutputNet(o)]) {
+                throw new IllegalStateException(grouped + " computed " + groupedValues[grouped.getOutputNet(o)] +
+                                                " for output " + o + ", expected " + values[netlist.getOutputNet(o)]);
+            }
+        }
+    }
+
+    private FlatBenchmarks() {}
+}
@@ -0,0 +1,160 @@
+package sim.bench;
+
+import java.io.PrintStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.component.Circuit;
+import sim.flat.CompactNetlist;
+import sim.flat.FlatNetlist;
+import sim.flat.OffHeapSimulator;
+import sim.generator.CircuitGenerator;
+
+/**
+ * Entry point reporting the memory taken per gate by each representation of a circuit, on generated designs.
+ *
+ * <pre>
+ * java -cp build/class:build/bench sim.bench.Footprint [-s scale]
+ * </pre>
+ * <ul>
+ *  <li>{@code -s} multiplies the size of every design, default 1
+ * </ul>
+ *
+ * <p>Every design is built in each representation in turn and measured as the growth of the used heap, after
+ * collecting garbage, while only that representation is reachable. Direct buffers are measured the same way from the
+ * direct buffer pool. Results are written as one line per design and representation:
+ * <ul>
+ *  <li>{@code gates} a {@link Circuit} built from gate objects, see {@link Circuits}, per device
+ *  <li>{@code circuit} a {@link Circuit} built from the truth table devices of {@link CircuitGenerator}, per cell
+ *  <li>{@code flat} a {@link FlatNetlist}, per cell
+ *  <li>{@code compact} a {@link CompactNetlist}, per cell
+ *  <li>{@code off-heap} an {@link OffHeapSimulator}, per cell, state included
+ * </ul>
+ * The {@code peak} column is the most heap in use at once while building, above the heap in use before, summed over
+ * the heap pools. It includes garbage not collected yet, so it is an upper bound, but shows what building costs on
+ * top of what is kept: the compact netlist and the off-heap simulator are copied from a flat netlist, flattened on
+ * the heap first. A cell is an output of a device of the flattened circuit, a single gate for every generated design. Run with a
+ * fixed heap, for example {@code -Xms2g -Xmx2g}, so measurements are not disturbed by the heap resizing.
+ */
+public final class Footprint {
+
+    /** Garbage collections requested per measurement, a single one may leave garbage behind */
+    private static final int COLLECTIONS = 4;
+
+    /** Time given to cleaners after every collection */
+    private static final long CLEANER_NANOS = 20_000_000;
+
+    public static void main(String[] args) {
+        int scale = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-s" -> scale = Integer.parseInt(args[++i]);
+                default   -> throw new IllegalArgumentException("Unknown option, received " + args[i]);
+            }
+        }
+
+        final PrintStream out = System.out;
+        out.printf("%-34s %-9s %10s %14s %14s %10s %14s%n", "design", "form", "gates", "heap", "off-heap",
+                   "bytes/gate", "peak");
+
+        final int adderBits = 1024 * scale;
+        final int multiplierBits = 32 * scale;
+        gates(out, "adder:" + adderBits, () -> Circuits.rippleCarryAdder(adderBits));
+        gates(out, "multiplier:" + multiplierBits, () -> Circuits.arrayMultiplier(multiplierBits));
+
+        generated(out, g -> g.rippleCarryAdder(adderBits));
+        generated(out, g -> g.arrayMultiplier(multiplierBits));
+        final int dagGates = 100_000 * scale;
+        generated(out, g -> g.randomDag(dagGates, 64, 64, CircuitGenerator.RandomDagShape.DEFAULT, 1));
+    }
+
+    /** Report a circuit built from gate objects, per device */
+    private static void gates(PrintStream out, String design, Supplier<Circuit> circuit) {
+        measure(out, design, "gates", circuit.get().countDevices(), circuit);
+    }
+
+    /** Report a generated circuit in every representation but gates, per cell */
+    private static void generated(PrintStream out, Function<CircuitGenerator, String> family) {
+        final String type = family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType));
+        final long cells = FlatNetlist.of(type).getNumCells();
+
+        measure(out, type, "circuit", cells, () -> Blueprint.build(type));
+        measure(out, type, "flat", cells, () -> FlatNetlist.of(type));
+        measure(out, type, "compact", cells, () -> CompactNetlist.of(type));
+        measure(out, type, "off-heap", cells, () -> OffHeapSimulator.of(type));
+    }
+
+    /**
+     * Build a representation once to load the classes and fill the caches it needs, then measure a second build.
+     */
+    private static void measure(PrintStream out, String design, String form, long cells, Supplier<?> representation) {
+        Reference.reachabilityFence(representation.get());
+        final long heap = usedHeap();
+        final long direct = usedDirect();
+        resetPeakHeap();
+        final Object built = representation.get();
+        final long peakBytes = peakHeap() - heap;
+        final long heapBytes = usedHeap() - heap;
+        final long directBytes = usedDirect() - direct;
+        report(out, design, form, cells, heapBytes, directBytes, peakBytes);
+        Reference.reachabilityFence(built);
+    }
+
+    private static void report(PrintStream out, String design, String form, long gates, long heap, long direct,
+                               long peak) {
+        out.printf("%-34s %-9s %10d %14d %14d %10.1f %14d%n", design, form, gates, heap, direct,
+                   (double) (heap + direct) / gates, peak);
+    }
+
+    /**
+     * @return the bytes of heap in use once garbage is collected. Collections are spaced out so the cleaners of
+     *         unreachable direct buffers get to release them in between
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < COLLECTIONS; i++) {
+            System.gc();
+            LockSupport.parkNanos(CLEANER_NANOS);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /** @return the bytes of heap in use at the peak of every heap pool since {@link #resetPeakHeap()} */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /** @return the bytes of direct buffers in use, see {@link #usedHeap()} */
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    private Footprint() {}
+}
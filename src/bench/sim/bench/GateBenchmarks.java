@@ -0,0 +1,70 @@
+package sim.bench;
+
+import sim.component.LogicValue;
+import sim.component.SignalSource;
+import sim.component.gates.AndGate;
+import sim.component.gates.BufferGate;
+import sim.component.gates.Gate;
+import sim.component.gates.InverterGate;
+import sim.component.gates.OrGate;
+import sim.component.gates.XorGate;
+
+/**
+ * {@code Device.update()} of a single gate, for every gate type. The inputs of the gate are driven by signal sources
+ * which change between invocations, so every input combination is measured. The {@code gate.update-4state} variants
+ * run the gates in four-state mode, cycling every input through 0, 1, X and Z, to compare against two-state.
+ */
+final class GateBenchmarks {
+
+    /** Gate updates per benchmark invocation */
+    private static final int UPDATES = 1024;
+
+    static void add(Harness harness) {
+        for (boolean fourState : new boolean[] {false, true}) {
+            add(harness, fourState, "and", new AndGate(2));
+            add(harness, fourState, "or", new OrGate(2));
+            add(harness, fourState, "xor", new XorGate(2));
+            add(harness, fourState, "buffer", new BufferGate());
+            add(harness, fourState, "nand", new InverterGate(new AndGate(2)));
+            add(harness, fourState, "not", new InverterGate(new BufferGate()));
+            add(harness, fourState, "and:8", new AndGate(8));
+            add(harness, fourState, "xor:8", new XorGate(8));
+        }
+    }
+
+    private static void add(Harness harness, boolean fourState, String name, Gate gate) {
+        final int numInputs = gate.getInputBus().length;
+        final SignalSource[] sources = new SignalSource[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            sources[i] = new SignalSource();
+            sources[i].setFourState(fourState);
+            gate.connectInput(sources[i], 0, i);
+        }
+        gate.setFourState(fourState);
+
+        final LogicValue[] values = LogicValue.values();
+        final int bitsPerInput = fourState ? 2 : 1;
+        final int[] pattern = {0};
+        harness.add((fourState ? "gate.update-4state:" : "gate.update:") + name, "updates", blackhole -> {
+            final int p = pattern[0]++;
+            for (int i = 0; i < numInputs; i++) {
+                final int digit = (p >>> i * bitsPerInput) & (1 << bitsPerInput) - 1;
+                if (fourState) {
+                    sources[i].set(values[digit]);
+                }
+                else {
+                    sources[i].set(digit != 0);
+                }
+                sources[i].update();
+            }
+
+            for (int i = 0; i < UPDATES; i++) {
+                gate.update();
+                blackhole.consume(gate.getOut(0));
+            }
+            return UPDATES;
+        });
+    }
+
+    private GateBenchmarks() {}
+}
@@ -0,0 +1,155 @@
+package sim.bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal benchmark harness: every benchmark is run for a number of timed warmup iterations, letting the JIT
+ * compile it, then for a number of timed measurement iterations whose throughput is reported as the mean and
+ * standard deviation.
+ *
+ * <p>Results are written as one line per benchmark, {@code name  mean +- stddev  unit}. The harness runs everything in
+ * the current JVM, comparing runs is only meaningful with the same JVM flags.
+ */
+public final class Harness {
+
+    /**
+     * A benchmarked operation. One invocation may perform many operations, so the overhead of the harness is not
+     * measured.
+     */
+    @FunctionalInterface
+    public interface Benchmark {
+
+        /**
+         * @param blackhole consumes results, so the JIT cannot remove the code computing them
+         * @return the number of operations performed
+         */
+        long run(Blackhole blackhole);
+    }
+
+    /**
+     * Consumes values so they appear used to the JIT.
+     */
+    public static final class Blackhole {
+
+        private int sink;
+        private volatile int published;
+
+        public void consume(boolean value) {
+            sink += value ? 1 : 0;
+        }
+
+        public void consume(int value) {
+            sink += value;
+        }
+
+        public void consume(Object value) {
+            sink += System.identityHashCode(value);
+        }
+
+        /** Publish the consumed values, called once per iteration */
+        void publish() {
+            published = sink;
+        }
+    }
+
+    private record Entry(String name, String unit, Benchmark benchmark) {}
+
+    private final List<Entry> benchmarks = new ArrayList<>();
+
+    private int warmupIterations = 3;
+    private int measureIterations = 5;
+    private long iterationMillis = 1000;
+    private Pattern filter = Pattern.compile(".*");
+
+
+    //*>> -------------------- Options -------------------- */
+
+    public Harness warmupIterations(int iterations) {
+        this.warmupIterations = iterations;
+        return this;
+    }
+
+    public Harness measureIterations(int iterations) {
+        this.measureIterations = iterations;
+        return this;
+    }
+
+    public Harness iterationMillis(long millis) {
+        this.iterationMillis = millis;
+        return this;
+    }
+
+    /**
+     * @param regex only benchmarks whose name contains a match are run
+     */
+    public Harness filter(String regex) {
+        this.filter = Pattern.compile(regex);
+        return this;
+    }
+
+
+    //*>> -------------------- Running -------------------- */
+
+    /**
+     * Add a benchmark.
+     *
+     * @param name name of the benchmark, by convention {@code group.benchmark:parameters}
+     * @param unit what an operation is, reported as {@code unit/s}
+     * @param benchmark the benchmark
+     */
+    public void add(String name, String unit, Benchmark benchmark) {
+        benchmarks.add(new Entry(name, unit, benchmark));
+    }
+
+    /**
+     * Run all benchmarks matching the filter, in the order they were added.
+     *
+     * @param out where results are written
+     */
+    public void run(PrintStream out) {
+        final Blackhole blackhole = new Blackhole();
+
+        for (Entry entry : benchmarks) {
+            if (!filter.matcher(entry.name).find()) {
+                continue;
+            }
+
+            for (int i = 0; i < warmupIterations; i++) {
+                iteration(entry.benchmark, blackhole);
+            }
+
+            final double[] scores = new double[measureIterations];
+            double mean = 0;
+            for (int i = 0; i < measureIterations; i++) {
+                scores[i] = iteration(entry.benchmark, blackhole);
+                mean += scores[i] / measureIterations;
+            }
+
+            double variance = 0;
+            for (double score : scores) {
+                variance += (score - mean) * (score - mean);
+            }
+            final double stddev = measureIterations > 1 ? Math.sqrt(variance / (measureIterations - 1)) : 0;
+
+            out.printf("%-48s %16.1f +- %-14.1f %s/s%n", entry.name, mean, stddev, entry.unit);
+        }
+    }
+
+    /** @return the throughput of one iteration, in operations per second */
+    private double iteration(Benchmark benchmark, Blackhole blackhole) {
+        final long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        final long start = System.nanoTime();
+        long operations = 0;
+        long now;
+        do {
+            operations += benchmark.run(blackhole);
+            now = System.nanoTime();
+        } while (now < deadline);
+
+        blackhole.publish();
+        return operations * 1e9 / (now - start);
+    }
+}
@@ -0,0 +1,93 @@
+package sim.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import sim.compiler.lexer.Scanner;
+import sim.compiler.lexer.Token;
+import sim.compiler.lexer.Tokenizer;
+
+/**
+ * Tokens per second of the {@link Tokenizer} over a large generated program, once from text in memory and once
+ * streamed from a file. One invocation tokenizes the whole program.
+ */
+final class TokenizerBenchmarks {
+
+    /** Instances in the generated program, every instance adds a connection statement */
+    private static final int INSTANCES = 20_000;
+
+    /** Characters decoded at a time when streaming */
+    private static final int WINDOW = 1 << 16;
+
+    static void add(Harness harness) throws IOException {
+        final char[] source = generate(INSTANCES).toCharArray();
+
+        final File file = File.createTempFile("bench", ".sb");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), new String(source), StandardCharsets.UTF_8);
+
+        harness.add("tokenizer.memory:" + source.length / 1024 + "k", "tokens", blackhole ->
+            tokenize(new Scanner("bench.sb", source), blackhole)
+        );
+        harness.add("tokenizer.stream:" + source.length / 1024 + "k", "tokens", blackhole -> {
+            try {
+                return tokenize(new Scanner(file, WINDOW), blackhole);
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static long tokenize(Scanner scanner, Harness.Blackhole blackhole) {
+        final Tokenizer tokenizer = new Tokenizer(scanner);
+        long tokens = 0;
+        Token token;
+        do {
+            token = tokenizer.nextToken();
+            blackhole.consume(token);
+            tokens++;
+        } while (token.category != Token.Category.EOF);
+        return tokens;
+    }
+
+    /**
+     * Generate a program chaining full adders, with the statements and comments a hand written program has.
+     */
+    static String generate(int instances) {
+        final StringBuilder s = new StringBuilder(instances * 64);
+        s.append("""
+            /* Generated benchmark program */
+            DEVICE And { INPUT a, b OUTPUT o TABLE [ a b o 000 100 010 111 ] }
+            DEVICE Xor { INPUT a b OUTPUT o TABLE [ 0 1 1 0 ] }
+            DEVICE Or  { INPUT a b OUTPUT o TABLE [ 0 1 1 1 ] }
+
+            CIRCUIT FullAdder {
+                INPUT a b cin
+                OUTPUT s cout
+                INSTANTIATE Xor AS x1
+                INSTANTIATE Xor AS x2
+                INSTANTIATE And AS n1
+                INSTANTIATE And AS n2
+                INSTANTIATE Or AS o
+                x2(x1(a, b), cin) --> s   // sum
+                o(n1(a, b), n2(x1, cin)) --> cout
+            }
+
+            MAIN {
+                INPUT a b
+                OUTPUT s
+            """);
+        s.append("    INSTANTIATE ").append(instances).append(" FullAdder AS fa\n");
+        for (int i = 1; i < instances; i++) {
+            s.append("    fa_").append(i).append("(a = fa_").append(i - 1).append("::s, b = b, cin = fa_")
+             .append(i - 1).append("[1])\n");
+        }
+        s.append("    fa_0(a, b, a) --> s\n}\n");
+        return s.toString();
+    }
+
+    private TokenizerBenchmarks() {}
+}
@@ -1,8 +1,11 @@
 package sim.blueprint;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 
 import sim.component.System;
+import sim.metrics.BlueprintRegistrationEvent;
 
 /**
  * Blueprints store the internal configurations of systems, allowing mass creations of any system type
@@ -11,14 +14,34 @@ import sim.component.System;
  * <p>For circuits, this includes all internal systems and connections between each other and the circuit's IO busses.
  *
  * <p>No 2 blueprints may have the same name (aka type).
+ *
+ * <h2>Collapsing</h2>
+ * A circuit of at most {@linkplain #setCollapseLimit(int) a few} inputs and without state, no clocks and no feedback
+ * loops, is collapsed into a table device when registered: its truth table is computed once, and the circuits
+ * instantiating it build the table device in its place. Building the circuit itself, or
+ * {@linkplain CircuitBlueprint#buildExpanded() expanding} it, still gives the full topology to debug or probe.
  */
 public abstract sealed class Blueprint permits DeviceBlueprint, CircuitBlueprint, ClockBlueprint {
 
     /**
-     * Maps {@code types ==> Blueprint}
+     * Maps {@code types ==> Blueprint}, in registration order
      */
-    protected static final HashMap<String, Blueprint> blueprints = new HashMap<>();
+    protected static final LinkedHashMap<String, Blueprint> blueprints = new LinkedHashMap<>();
+
+    /** Maximum number of inputs of a circuit collapsed when registered, 0 to collapse nothing */
+    private static int collapseLimit = 0;
 
+    /**
+     * Register a blueprint, collapsing it if it is a stateless circuit of at most {@link #getCollapseLimit()}
+     * inputs.
+     *
+     * @param blueprint the blueprint to register
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_ALREADY_REGISTERED} if a blueprint of the same type is registered
+     *  <li>any status of {@link sim.flat.FlatNetlist#of(Blueprint)} but {@link StatusCodesBlp#COMBINATIONAL_LOOP}, if
+     *      a circuit to collapse cannot be flattened. The blueprint is not registered then
+     * </ul>
+     */
     public static void register(Blueprint blueprint) {
         if (blueprint == null) {
             throw new NullPointerException("Cannot register a null blueprint");
@@ -26,7 +49,48 @@ public abstract sealed class Blueprint permits DeviceBlueprint, CircuitBlueprint
         if (blueprints.containsKey(blueprint.getType())) {
             throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_ALREADY_REGISTERED, blueprint.getType());
         }
+        final BlueprintRegistrationEvent event = new BlueprintRegistrationEvent();
+        event.begin();
+        if (blueprint instanceof CircuitBlueprint circuit && collapseLimit > 0
+            && circuit.getNumInputs() <= collapseLimit) {
+            circuit.collapse();
+        }
         blueprints.put(blueprint.getType(), blueprint);
+
+        if (event.shouldCommit()) {
+            event.type = blueprint.getType();
+            if (blueprint instanceof CircuitBlueprint circuit) {
+                event.kind = "circuit";
+                event.systems = circuit.getNumSystems();
+                event.connections = circuit.getNumConnections();
+                event.collapsed = circuit.getCollapsed() != null;
+            }
+            else {
+                event.kind = blueprint instanceof DeviceBlueprint ? "device" : "clock";
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Set the maximum number of inputs of the circuits collapsed into table devices when registered. Circuits
+     * registered before are left as they are. Each input doubles the size of the table, 12 to 16 inputs keep tables
+     * within a few kilobytes per output.
+     *
+     * @param limit the maximum number of inputs, 0 to collapse nothing
+     * @throws IllegalArgumentException if {@code limit} is negative or above {@link DeviceBlueprint#MAX_INPUTS}
+     */
+    public static void setCollapseLimit(int limit) {
+        if (limit < 0 || limit > DeviceBlueprint.MAX_INPUTS) {
+            throw new IllegalArgumentException("Collapse limit must be between 0 and " + DeviceBlueprint.MAX_INPUTS
+                                               + ", received " + limit);
+        }
+        collapseLimit = limit;
+    }
+
+    /** @return the maximum number of inputs of the circuits collapsed when registered, 0 if none are */
+    public static int getCollapseLimit() {
+        return collapseLimit;
     }
 
     /**
@@ -39,6 +103,26 @@ public abstract sealed class Blueprint permits DeviceBlueprint, CircuitBlueprint
         return blueprints.containsKey(type);
     }
 
+    /**
+     * Get the blueprint associated with a type.
+     *
+     * @param type the type of the blueprint
+     * @return the blueprint, or {@code null} if the type has no associated blueprint
+     */
+    public static Blueprint get(String type) {
+        return blueprints.get(type);
+    }
+
+    /**
+     * Get all registered blueprints. The registration order is kept, so the blueprints can be registered again in
+     * the same order (for example after being stored in a {@link BlueprintArchive}).
+     *
+     * @return an unmodifiable view of all registered blueprints, in registration order
+     */
+    public static Collection<Blueprint> getRegistered() {
+        return Collections.unmodifiableCollection(blueprints.values());
+    }
+
     /**
      * Create a new system of the given type and return it.
      *
@@ -52,12 +136,11 @@ public abstract sealed class Blueprint permits DeviceBlueprint, CircuitBlueprint
      * @return the newly created system
      */
     public static System build(String type) {
-        try {
-            return blueprints.get(type).build();
-        }
-        catch (NullPointerException e) {
+        final Blueprint blueprint = blueprints.get(type);
+        if (blueprint == null) {
             throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_NOT_RECOGNIZED, type);
         }
+        return blueprint.build();
     }
 
 
@@ -0,0 +1,456 @@
+package sim.blueprint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sim.exception.StatusException;
+import sim.metrics.BlueprintArchiveEvent;
+
+/**
+ * A compact binary format for blueprints, meant to be memory-mapped.
+ *
+ * <p>Loading an archive does not parse the blueprints into objects. Every blueprint becomes a small object over views
+ * of the mapped file: connections stay int-encoded and truth tables stay packed, exactly as they are stored. Strings
+ * are only decoded when they are first asked for. Loading is therefore bounded by the number of blueprints, not by
+ * their size, the rest is paged in by the OS as the blueprints are used.
+ *
+ * <h2>Layout</h2>
+ * All values are little-endian, offsets are in bytes from the start of the file.
+ * <pre>
+ * Header       int magic, int version, int stringCount, int blueprintCount, long stringDataOffset, long indexOffset
+ * Strings      int[stringCount + 1] offsets relative to stringDataOffset, followed by the UTF-8 bytes of all strings
+ * Index        per blueprint: int kind, int type (string index), long bodyOffset
+ * Device body  int numInputs, int numOutputs, int[numInputs + numOutputs] aliases, padding, long[] truth table
+ * Circuit body int numInputs, int numOutputs, int numSystems, int numConnections,
+ *              int[numInputs + numOutputs + 2 * numSystems] names, int[4 * numConnections] connections
+ * </pre>
+ * The index and every body start at a multiple of 8, so are the truth tables. The body layouts mirror the in-memory
+ * representation of {@link DeviceBlueprint} and {@link CircuitBlueprint}.
+ */
+public final class BlueprintArchive {
+
+    /** "SBBA" */
+    private static final int MAGIC = 0x53424241;
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private static final int KIND_DEVICE = 1;
+    private static final int KIND_CIRCUIT = 2;
+
+    /** Size of the buffer used when writing */
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+
+    //*>> -------------------- Writing -------------------- */
+
+    /**
+     * Write all registered blueprints, in registration order.
+     *
+     * @param target the file to write, replaced if it exists
+     * @throws StatusException see {@link #write(Path, Collection)}
+     */
+    public static void writeRegistered(Path target) throws StatusException {
+        write(target, Blueprint.getRegistered());
+    }
+
+    /**
+     * Write blueprints to an archive. The blueprints are stored in iteration order.
+     *
+     * @param target the file to write, replaced if it exists
+     * @param blueprints the blueprints to store
+     * @throws UnsupportedOperationException if one of the blueprints is a {@link ClockBlueprint}
+     * @throws StatusException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#ARCHIVE_UNWRITABLE} if an IOException occurs
+     *  <li>{@link StatusCodesBlp#ARCHIVE_TOO_LARGE} if the archive would exceed 2GB, which cannot be mapped at once
+     *      when loading. Nothing is written then
+     * </ul>
+     */
+    public static void write(Path target, Collection<? extends Blueprint> blueprints) throws StatusException {
+        final BlueprintArchiveEvent event = new BlueprintArchiveEvent();
+        event.begin();
+
+        //>> Intern all strings, so each is stored once
+
+        final Map<String, Integer> stringIndex = new LinkedHashMap<>();
+        for (Blueprint blueprint : blueprints) {
+            intern(stringIndex, blueprint.getType());
+            switch (blueprint) {
+                case DeviceBlueprint device -> {
+                    for (int i = 0; i < device.getNumInputs(); i++)  { intern(stringIndex, device.getInputAlias(i)); }
+                    for (int i = 0; i < device.getNumOutputs(); i++) { intern(stringIndex, device.getOutputAlias(i)); }
+                }
+                case CircuitBlueprint circuit -> {
+                    for (int i = 0; i < circuit.getNumInputs(); i++)  { intern(stringIndex, circuit.getInputAlias(i)); }
+                    for (int i = 0; i < circuit.getNumOutputs(); i++) { intern(stringIndex, circuit.getOutputAlias(i)); }
+                    for (int i = 0; i < circuit.getNumSystems(); i++) {
+                        intern(stringIndex, circuit.getSystemType(i));
+                        intern(stringIndex, circuit.getSystemAlias(i));
+                    }
+                }
+                case ClockBlueprint clock ->
+                    throw new UnsupportedOperationException("Clock blueprints cannot be stored in an archive");
+            }
+        }
+
+        final byte[][] stringBytes = new byte[stringIndex.size()][];
+        long stringDataSize = 0;
+        int s = 0;
+        for (String string : stringIndex.keySet()) {
+            stringBytes[s] = string.getBytes(StandardCharsets.UTF_8);
+            stringDataSize += stringBytes[s++].length;
+        }
+
+        //>> Compute the layout
+
+        final long stringDataOffset = HEADER_SIZE + 4L * (stringBytes.length + 1);
+        final long indexOffset = align(stringDataOffset + stringDataSize);
+        final long[] bodyOffsets = new long[blueprints.size()];
+
+        long offset = align(indexOffset + (long) INDEX_ENTRY_SIZE * blueprints.size());
+        int b = 0;
+        for (Blueprint blueprint : blueprints) {
+            bodyOffsets[b++] = offset;
+            offset = align(offset + bodySize(blueprint));
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_TOO_LARGE, target, offset);
+        }
+
+        //>> Write
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Output out = new Output(channel);
+
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(stringBytes.length);
+            out.putInt(blueprints.size());
+            out.putLong(stringDataOffset);
+            out.putLong(indexOffset);
+
+            int relative = 0;
+            for (byte[] bytes : stringBytes) {
+                out.putInt(relative);
+                relative += bytes.length;
+            }
+            out.putInt(relative);
+            for (byte[] bytes : stringBytes) {
+                out.putBytes(bytes);
+            }
+
+            out.padTo(indexOffset);
+            b = 0;
+            for (Blueprint blueprint : blueprints) {
+                out.putInt(blueprint instanceof DeviceBlueprint ? KIND_DEVICE : KIND_CIRCUIT);
+                out.putInt(stringIndex.get(blueprint.getType()));
+                out.putLong(bodyOffsets[b++]);
+            }
+
+            b = 0;
+            for (Blueprint blueprint : blueprints) {
+                out.padTo(bodyOffsets[b++]);
+                writeBody(out, blueprint, stringIndex);
+            }
+
+            out.flush();
+            offset = out.position;
+        }
+        catch (IOException e) {
+            throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_UNWRITABLE, e, target);
+        }
+
+        if (event.shouldCommit()) {
+            event.path = target.toString();
+            event.operation = "write";
+            event.blueprints = blueprints.size();
+            event.bytes = offset;
+            event.commit();
+        }
+    }
+
+    private static void intern(Map<String, Integer> stringIndex, String string) {
+        stringIndex.putIfAbsent(string, stringIndex.size());
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static long bodySize(Blueprint blueprint) {
+        return switch (blueprint) {
+            case DeviceBlueprint device -> align(8L + 4L * (device.getNumInputs() + device.getNumOutputs()))
+                                           + 8L * device.getTable().remaining();
+            case CircuitBlueprint circuit -> 16L
+                + 4L * (circuit.getNumInputs() + circuit.getNumOutputs() + 2L * circuit.getNumSystems())
+                + 4L * CircuitBlueprint.CONNECTION_SIZE * circuit.getNumConnections();
+            case ClockBlueprint clock -> throw new UnsupportedOperationException();
+        };
+    }
+
+    private static void writeBody(Output out, Blueprint blueprint, Map<String, Integer> stringIndex) throws IOException {
+        switch (blueprint) {
+            case DeviceBlueprint device -> {
+                final long start = out.position;
+                out.putInt(device.getNumInputs());
+                out.putInt(device.getNumOutputs());
+                for (int i = 0; i < device.getNumInputs(); i++)  { out.putInt(stringIndex.get(device.getInputAlias(i))); }
+                for (int i = 0; i < device.getNumOutputs(); i++) { out.putInt(stringIndex.get(device.getOutputAlias(i))); }
+                out.padTo(start + align(out.position - start));
+
+                final LongBuffer table = device.getTable();
+                while (table.hasRemaining()) {
+                    out.putLong(table.get());
+                }
+            }
+            case CircuitBlueprint circuit -> {
+                out.putInt(circuit.getNumInputs());
+                out.putInt(circuit.getNumOutputs());
+                out.putInt(circuit.getNumSystems());
+                out.putInt(circuit.getNumConnections());
+                for (int i = 0; i < circuit.getNumInputs(); i++)  { out.putInt(stringIndex.get(circuit.getInputAlias(i))); }
+                for (int i = 0; i < circuit.getNumOutputs(); i++) { out.putInt(stringIndex.get(circuit.getOutputAlias(i))); }
+                for (int i = 0; i < circuit.getNumSystems(); i++) { out.putInt(stringIndex.get(circuit.getSystemType(i))); }
+                for (int i = 0; i < circuit.getNumSystems(); i++) { out.putInt(stringIndex.get(circuit.getSystemAlias(i))); }
+
+                final IntBuffer connections = circuit.connections();
+                while (connections.hasRemaining()) {
+                    out.putInt(connections.get());
+                }
+            }
+            case ClockBlueprint clock -> throw new UnsupportedOperationException();
+        }
+    }
+
+    /** Sequential little-endian writer over a channel, keeping track of the file position */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int written = 0; written < bytes.length; ) {
+                ensure(1);
+                final int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+            position += bytes.length;
+        }
+
+        void padTo(long offset) throws IOException {
+            while (position < offset) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+
+    //*>> -------------------- Loading -------------------- */
+
+    /**
+     * Load an archive and register all of its blueprints, in the order they are stored.
+     *
+     * @param source the archive to load
+     * @return the number of blueprints registered
+     * @throws StatusException see {@link #load(Path)}
+     * @throws StatusRuntimeException see {@link Blueprint#register(Blueprint)}
+     */
+    public static int loadAndRegister(Path source) throws StatusException {
+        final List<Blueprint> loaded = load(source);
+        for (Blueprint blueprint : loaded) {
+            Blueprint.register(blueprint);
+        }
+        return loaded.size();
+    }
+
+    /**
+     * Map an archive into memory and create its blueprints. The blueprints are backed by the mapping, which stays
+     * valid for as long as any of them is reachable.
+     *
+     * @param source the archive to load
+     * @return the stored blueprints, in the order they are stored
+     * @throws StatusException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#ARCHIVE_UNREADABLE} if an IOException occurs
+     *  <li>{@link StatusCodesBlp#ARCHIVE_UNSUPPORTED_VERSION} if the archive is of another format version
+     *  <li>{@link StatusCodesBlp#ARCHIVE_BAD_FORMAT} if the file is not an archive, or is truncated
+     *  <li>{@link StatusCodesBlp#ARCHIVE_TOO_LARGE} if the file exceeds 2GB
+     * </ul>
+     */
+    public static List<Blueprint> load(Path source) throws StatusException {
+        final BlueprintArchiveEvent event = new BlueprintArchiveEvent();
+        event.begin();
+        final ByteBuffer file;
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_TOO_LARGE, source, channel.size());
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        catch (IOException e) {
+            throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_UNREADABLE, e, source);
+        }
+
+        try {
+            if (file.limit() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+                throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_BAD_FORMAT, source, "missing header");
+            }
+            if (file.getInt(4) != FORMAT_VERSION) {
+                throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_UNSUPPORTED_VERSION, source, file.getInt(4),
+                                               FORMAT_VERSION);
+            }
+
+            final int stringCount = file.getInt(8);
+            final int blueprintCount = file.getInt(12);
+            final int stringDataOffset = Math.toIntExact(file.getLong(16));
+            final int indexOffset = Math.toIntExact(file.getLong(24));
+
+            final StringTable strings = new MappedStringTable(
+                slice(file, HEADER_SIZE, 4 * (stringCount + 1)).asIntBuffer(),
+                slice(file, stringDataOffset, indexOffset - stringDataOffset));
+
+            final List<Blueprint> blueprints = new ArrayList<>(blueprintCount);
+            for (int b = 0; b < blueprintCount; b++) {
+                final int entry = indexOffset + b * INDEX_ENTRY_SIZE;
+                final int kind = file.getInt(entry);
+                final String type = strings.get(file.getInt(entry + 4));
+                final int body = Math.toIntExact(file.getLong(entry + 8));
+
+                blueprints.add(switch (kind) {
+                    case KIND_DEVICE -> loadDevice(file, body, type, strings);
+                    case KIND_CIRCUIT -> loadCircuit(file, body, type, strings);
+                    default -> throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_BAD_FORMAT, source,
+                                                              "unknown blueprint kind " + kind);
+                });
+            }
+
+            if (event.shouldCommit()) {
+                event.path = source.toString();
+                event.operation = "load";
+                event.blueprints = blueprintCount;
+                event.bytes = file.limit();
+                event.commit();
+            }
+            return blueprints;
+        }
+        catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException e) {
+            throw StatusCodesBlp.exception(StatusCodesBlp.ARCHIVE_BAD_FORMAT, e, source, "truncated or corrupted");
+        }
+    }
+
+    private static DeviceBlueprint loadDevice(ByteBuffer file, int body, String type, StringTable strings) {
+        final int numInputs = file.getInt(body);
+        final int numOutputs = file.getInt(body + 4);
+        final int numAliases = numInputs + numOutputs;
+        final int tableOffset = (int) align(body + 8L + 4L * numAliases);
+        final int tableWords = numOutputs * DeviceBlueprint.wordsPerOutput(numInputs);
+
+        return new DeviceBlueprint(type, strings, numInputs, numOutputs,
+                                   slice(file, body + 8, 4 * numAliases).asIntBuffer(),
+                                   slice(file, tableOffset, 8 * tableWords).asLongBuffer());
+    }
+
+    private static CircuitBlueprint loadCircuit(ByteBuffer file, int body, String type, StringTable strings) {
+        final int numInputs = file.getInt(body);
+        final int numOutputs = file.getInt(body + 4);
+        final int numSystems = file.getInt(body + 8);
+        final int numConnections = file.getInt(body + 12);
+        final int numNames = numInputs + numOutputs + 2 * numSystems;
+        final int connectionOffset = body + 16 + 4 * numNames;
+
+        return new CircuitBlueprint(type, strings, numInputs, numOutputs, numSystems,
+                                    slice(file, body + 16, 4 * numNames).asIntBuffer(),
+                                    slice(file, connectionOffset, Math.multiplyExact(
+                                        4 * CircuitBlueprint.CONNECTION_SIZE, numConnections)).asIntBuffer());
+    }
+
+    private static ByteBuffer slice(ByteBuffer file, int offset, int length) {
+        return file.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * String table over the mapped archive, strings are decoded the first time they are asked for.
+     */
+    private static final class MappedStringTable implements StringTable {
+        private final IntBuffer offsets;
+        private final ByteBuffer data;
+
+        /** Decoded strings, racing threads decode the same string at worst */
+        private final String[] decoded;
+
+        MappedStringTable(IntBuffer offsets, ByteBuffer data) {
+            this.offsets = offsets;
+            this.data = data;
+            this.decoded = new String[offsets.remaining() - 1];
+        }
+
+        @Override
+        public String get(int index) {
+            String string = decoded[index];
+            if (string == null) {
+                final int start = offsets.get(index);
+                final byte[] bytes = new byte[offsets.get(index + 1) - start];
+                data.get(start, bytes);
+                string = new String(bytes, StandardCharsets.UTF_8);
+                decoded[index] = string;
+            }
+            return string;
+        }
+
+        @Override
+        public int size() {
+            return decoded.length;
+        }
+    }
+
+
+    private BlueprintArchive() {}
+}
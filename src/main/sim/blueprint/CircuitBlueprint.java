@@ -1,57 +1,399 @@
 package sim.blueprint;
 
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import sim.component.Circuit;
+import sim.component.System;
 import sim.component.connection.OutputPointer;
+import sim.exception.StatusRuntimeException;
+import sim.flat.FlatNetlist;
+import sim.flat.TruthTable;
+import sim.metrics.BlueprintBuildEvent;
 
+/**
+ * A blueprint of a circuit: its IO buses, the systems it instantiates, and the connections between them.
+ *
+ * <h2>Connections</h2>
+ * Connections are int-encoded, 4 ints per connection {@code [target, targetBus, source, sourceBus]}. A connection
+ * feeds output bus {@code sourceBus} of system {@code source} into input bus {@code targetBus} of system
+ * {@code target}. Systems are referred to by their index in the list of internal systems, the circuit itself is
+ * referred to as {@link #SELF}:
+ * <ul>
+ *  <li>{@code source == SELF} reads from input bus {@code sourceBus} of the circuit
+ *  <li>{@code target == SELF} drives output bus {@code targetBus} of the circuit
+ * </ul>
+ * Buses are always referred to by index, aliases are resolved when the blueprint is created.
+ *
+ * <h2>Collapsing</h2>
+ * A stateless circuit may be {@linkplain Blueprint#setCollapseLimit(int) collapsed} into a table device when
+ * registered. The circuits instantiating it then build the table device, of the same type and bus aliases, in its
+ * place. The blueprint keeps its systems and connections, {@link #build()} and {@link #buildExpanded()} still give
+ * the full circuit.
+ */
 public final class CircuitBlueprint extends Blueprint {
 
+    /** System index referring to the circuit itself in a connection */
+    public static final int SELF = -1;
+
+    /** Number of ints used to encode one connection */
+    public static final int CONNECTION_SIZE = 4;
+
     private final String type;
-    private final String[] inputAliases;
-    private final String[] outputAliases;
+    private final int numInputs;
+    private final int numOutputs;
+    private final int numSystems;
+
+    /** Strings referred to by {@link #names} */
+    private final StringTable strings;
+
+    /**
+     * String indices of, in order, the input aliases, output aliases, internal system types, and internal system
+     * aliases
+     */
+    private final IntBuffer names;
+
+    /** The int-encoded connections, see the class description */
+    private final IntBuffer connections;
+
+    /** The table device the internal instances of this circuit are built as, {@code null} if not collapsed */
+    private DeviceBlueprint collapsed;
+
+
+    /**
+     * Create a circuit blueprint.
+     *
+     * @param type the circuit type
+     * @param inputAliases alias of each input bus
+     * @param outputAliases alias of each output bus
+     * @param systemTypes type of each internal system
+     * @param systemAliases alias of each internal system, in the same order as {@code systemTypes}
+     * @param connections the int-encoded connections, see the class description. The array is used as is
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#MALFORMED_BLUEPRINT} if the system arrays differ in length or a connection refers
+     *      to a system, or a bus of this circuit, that does not exist
+     * </ul>
+     */
+    public CircuitBlueprint(String type, String[] inputAliases, String[] outputAliases,
+                            String[] systemTypes, String[] systemAliases, int[] connections) {
+        this(type, DeviceBlueprint.concatenated(inputAliases, outputAliases, systemTypes, systemAliases),
+             inputAliases.length, outputAliases.length, systemTypes.length,
+             DeviceBlueprint.identity(inputAliases.length + outputAliases.length + 2 * systemTypes.length),
+             IntBuffer.wrap(connections));
+
+        if (systemTypes.length != systemAliases.length) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.MALFORMED_BLUEPRINT, type,
+                systemTypes.length + " system types but " + systemAliases.length + " system aliases");
+        }
+        validateConnections();
+    }
+
+    /**
+     * Create a blueprint over existing buffers, used when loading an archive. Nothing is copied or validated beyond
+     * the sizes of the buffers.
+     */
+    CircuitBlueprint(String type, StringTable strings, int numInputs, int numOutputs, int numSystems,
+                     IntBuffer names, IntBuffer connections) {
+        this.type = type;
+        this.strings = strings;
+        this.numInputs = numInputs;
+        this.numOutputs = numOutputs;
+        this.numSystems = numSystems;
+        this.names = names;
+        this.connections = connections;
+
+        if (names.remaining() != numInputs + numOutputs + 2 * numSystems
+            || connections.remaining() % CONNECTION_SIZE != 0) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.MALFORMED_BLUEPRINT, type,
+                "inconsistent number of names or connection fields");
+        }
+    }
+
+    /**
+     * Capture the blueprint of a circuit: its IO buses, the type and alias of each internal system, and the
+     * connections between them. Input buses left unconnected are left undriven in the blueprint as well.
+     *
+     * @param circuit the circuit to capture, whose internal systems are of registered types if it is to be built
+     * @return the blueprint of the circuit
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#MALFORMED_BLUEPRINT} if an internal system, or an output bus of the circuit, reads
+     *      a system that is neither internal nor an input bus of the circuit
+     * </ul>
+     */
+    public static CircuitBlueprint of(Circuit circuit) {
+        final String type = circuit.getType();
+        final Map<System, Integer> index = new IdentityHashMap<>();
+        final String[] systemTypes = new String[circuit.getInternalSystems().size()];
+        final String[] systemAliases = new String[systemTypes.length];
+        for (Map.Entry<String, System> entry : circuit.getInternalSystems().entrySet()) {
+            systemTypes[index.size()] = entry.getValue().getType();
+            systemAliases[index.size()] = entry.getKey();
+            index.put(entry.getValue(), index.size());
+        }
+
+        final int numInputs = circuit.getAllInputAlias().length;
+        final int numOutputs = circuit.getAllOutputAlias().length;
+        for (int i = 0; i < numInputs; i++) {
+            index.put(circuit.getInputBuffer(i), SELF - 1 - i);
+        }
+
+        final List<Integer> connections = new ArrayList<>();
+        int target = 0;
+        for (System system : circuit.getInternalSystems().values()) {
+            final OutputPointer[] pointers = system.getInputBus();
+            for (int bus = 0; bus < pointers.length; bus++) {
+                addConnection(connections, type, index, target, bus, pointers[bus]);
+            }
+            target++;
+        }
+        for (int bus = 0; bus < numOutputs; bus++) {
+            addConnection(connections, type, index, SELF, bus, circuit.getOutputDriver(bus));
+        }
+
+        final int[] encoded = new int[connections.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = connections.get(i);
+        }
+        return new CircuitBlueprint(type, circuit.getAllInputAlias(), circuit.getAllOutputAlias(), systemTypes,
+                                    systemAliases, encoded);
+    }
 
-    private final List<InternalSysReference> InternalSystems;
-    private final List<InternalConnection> internalConnections;
+    /**
+     * Encode the connection into a bus, {@code index} mapping internal systems to their index and the input buffer
+     * of input bus {@code i} to {@code SELF - 1 - i}.
+     */
+    private static void addConnection(List<Integer> connections, String type, Map<System, Integer> index,
+                                      int target, int targetBus, OutputPointer pointer) {
+        if (pointer == null) {
+            return;
+        }
+        final Integer source = index.get(pointer.system);
+        if (source == null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.MALFORMED_BLUEPRINT, type,
+                "bus " + targetBus + " of " + (target == SELF ? "the circuit" : "system " + target) + " reads " +
+                pointer.system.getType() + " which is not part of the circuit");
+        }
+        connections.add(target);
+        connections.add(targetBus);
+        connections.add(source < SELF ? SELF : source);
+        connections.add(source < SELF ? SELF - 1 - source : pointer.outBus);
+    }
 
-    public CircuitBlueprint(Circuit circuit) {
-        this.type = circuit.getType();
-        this.inputAliases = circuit.getAllInputAlias();
-        this.outputAliases = circuit.getAllOutputAlias();
+    private void validateConnections() {
+        for (int c = 0; c < getNumConnections(); c++) {
+            final int target = getConnectionTarget(c);
+            final int source = getConnectionSource(c);
+            final int targetBus = getConnectionTargetBus(c);
+            final int sourceBus = getConnectionSourceBus(c);
 
-        throw new UnsupportedOperationException();
+            if (target < SELF || target >= numSystems || source < SELF || source >= numSystems
+                || targetBus < 0 || sourceBus < 0
+                || (target == SELF && targetBus >= numOutputs)
+                || (source == SELF && sourceBus >= numInputs)) {
+                throw StatusCodesBlp.runtimeException(StatusCodesBlp.MALFORMED_BLUEPRINT, type,
+                    "connection " + c + " [" + target + ", " + targetBus + ", " + source + ", " + sourceBus + "]" +
+                    " refers to a system or bus that does not exist");
+            }
+        }
     }
 
+
+    //*>> -------------------- Blueprint -------------------- */
+
+    /**
+     * Build the circuit, building every internal system from its registered blueprint and connecting them. Internal
+     * circuits that were {@linkplain #getCollapsed() collapsed} are built as their table device.
+     *
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_NOT_RECOGNIZED} if the type of an internal system is not registered
+     * </ul>
+     */
     @Override
     public Circuit build() {
-        throw new UnsupportedOperationException("Blueprint.build() is not implemented");
+        return build(false);
     }
 
-    @Override
-    public String getType() {
-        throw new UnsupportedOperationException("Blueprint.getName() is not implemented");
+    /**
+     * Build the circuit like {@link #build()}, but with every internal circuit built as a circuit at every depth,
+     * collapsed or not.
+     *
+     * @throws StatusRuntimeException see {@link #build()}
+     */
+    public Circuit buildExpanded() {
+        return build(true);
     }
 
-    private static class InternalSysReference {
-        /** Blueprint name */
-        final String type;
+    private Circuit build(boolean expanded) {
+        final BlueprintBuildEvent event = new BlueprintBuildEvent();
+        event.begin();
+
+        final String[] inputAliases = new String[numInputs];
+        final String[] outputAliases = new String[numOutputs];
+        for (int i = 0; i < numInputs; i++) {
+            inputAliases[i] = getInputAlias(i);
+        }
+        for (int i = 0; i < numOutputs; i++) {
+            outputAliases[i] = getOutputAlias(i);
+        }
+        final Circuit circuit = new Circuit(type, numInputs, numOutputs, null, inputAliases, outputAliases);
+
+        final System[] systems = new System[numSystems];
+        for (int i = 0; i < numSystems; i++) {
+            systems[i] = buildInternal(getSystemType(i), expanded);
+            circuit.addInternalSystem(getSystemAlias(i), systems[i]);
+        }
+
+        for (int c = 0; c < getNumConnections(); c++) {
+            final int target = getConnectionTarget(c);
+            final int source = getConnectionSource(c);
+            circuit.connectInternal(source == SELF ? circuit : systems[source], getConnectionSourceBus(c),
+                                    target == SELF ? circuit : systems[target], getConnectionTargetBus(c));
+        }
 
-        /** Alias given to instantiated system */
-        final String alias;
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.systems = numSystems;
+            event.connections = getNumConnections();
+            event.devices = circuit.countDevices();
+            event.commit();
+        }
+        return circuit;
+    }
 
-        InternalSysReference(String type, String alias) {
-            this.type = type;
-            this.alias = alias;
+    private static System buildInternal(String type, boolean expanded) {
+        final Blueprint blueprint = Blueprint.get(type);
+        if (blueprint == null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_NOT_RECOGNIZED, type);
         }
+        return switch (blueprint) {
+            case CircuitBlueprint circuit when expanded -> circuit.build(true);
+            case CircuitBlueprint circuit when circuit.collapsed != null -> circuit.collapsed.build();
+            default -> blueprint.build();
+        };
     }
 
-    private static class InternalConnection {
-        final String target;
-        final OutputPointer[] connections;
+    /**
+     * Compute the truth table of the circuit, if it is stateless, for its internal instances to be built as a table
+     * device. Circuits with clocks or feedback loops are left as they are.
+     *
+     * @throws StatusRuntimeException if the circuit cannot be flattened for another reason, see
+     *                                {@link FlatNetlist#of(Blueprint)}
+     */
+    void collapse() {
+        if (instantiatesClock(this, new HashSet<>())) {
+            return;
+        }
+        final FlatNetlist netlist;
+        try {
+            netlist = FlatNetlist.of(this);
+        }
+        catch (StatusRuntimeException e) {
+            if (e.getCode() == StatusCodesBlp.COMBINATIONAL_LOOP) {
+                return;
+            }
+            throw e;
+        }
+        collapsed = TruthTable.of(netlist, ForkJoinPool.commonPool()).toBlueprint(type);
+    }
 
-        InternalConnection(String target, OutputPointer[] connections) {
-            this.target = target;
-            this.connections = connections;
+    /**
+     * @param visited the circuit types already searched, each is searched once
+     * @return whether the circuit instantiates a clock at any depth, types not registered are left to flattening
+     */
+    private static boolean instantiatesClock(CircuitBlueprint circuit, Set<String> visited) {
+        for (int s = 0; s < circuit.numSystems; s++) {
+            final String systemType = circuit.getSystemType(s);
+            if (!visited.add(systemType)) {
+                continue;
+            }
+            final boolean clock = switch (Blueprint.get(systemType)) {
+                case ClockBlueprint c -> true;
+                case CircuitBlueprint nested -> instantiatesClock(nested, visited);
+                case null, default -> false;
+            };
+            if (clock) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public int getNumInputs() {
+        return numInputs;
+    }
+
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    public String getInputAlias(int index) {
+        return strings.get(names.get(index));
+    }
+
+    public String getOutputAlias(int index) {
+        return strings.get(names.get(numInputs + index));
+    }
+
+    /**
+     * @return the table device internal instances of this circuit are built as, {@code null} if the circuit was not
+     *         collapsed when registered
+     */
+    public DeviceBlueprint getCollapsed() {
+        return collapsed;
+    }
+
+    public int getNumSystems() {
+        return numSystems;
+    }
+
+    public String getSystemType(int index) {
+        return strings.get(names.get(numInputs + numOutputs + index));
+    }
+
+    public String getSystemAlias(int index) {
+        return strings.get(names.get(numInputs + numOutputs + numSystems + index));
+    }
+
+    public int getNumConnections() {
+        return connections.remaining() / CONNECTION_SIZE;
+    }
+
+    /** @return the int-encoded connections, positioned at the first connection */
+    IntBuffer connections() {
+        return connections.duplicate();
+    }
+
+    /** @return index of the system receiving connection {@code c}, or {@link #SELF} */
+    public int getConnectionTarget(int c) {
+        return connections.get(c * CONNECTION_SIZE);
+    }
+
+    /** @return index of the input bus receiving connection {@code c} (output bus if the target is {@link #SELF}) */
+    public int getConnectionTargetBus(int c) {
+        return connections.get(c * CONNECTION_SIZE + 1);
+    }
+
+    /** @return index of the system driving connection {@code c}, or {@link #SELF} */
+    public int getConnectionSource(int c) {
+        return connections.get(c * CONNECTION_SIZE + 2);
+    }
+
+    /** @return index of the output bus driving connection {@code c} (input bus if the source is {@link #SELF}) */
+    public int getConnectionSourceBus(int c) {
+        return connections.get(c * CONNECTION_SIZE + 3);
     }
 }
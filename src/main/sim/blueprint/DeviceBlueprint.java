@@ -1,24 +1,162 @@
 package sim.blueprint;
 
-import sim.component.Circuit;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 
+import sim.component.TableDevice;
+
+/**
+ * A blueprint of a device whose behaviour is given by a truth table.
+ *
+ * <h2>Table layout</h2>
+ * The table is packed one output at a time, each output taking {@link #wordsPerOutput(int)} longs. Bit {@code i} of
+ * an output is the value of that output when the input buses, read as a binary number with input 0 as the least
+ * significant bit, equal {@code i}. More formally, output {@code o} for inputs {@code i} is
+ * {@code (table[o * wordsPerOutput + (i >>> 6)] >>> (i & 63)) & 1}.
+ *
+ * <p>Devices with fewer than 6 inputs still use a whole long per output, only the lowest {@code 2^numInputs}
+ * bits are meaningful.
+ */
 public final class DeviceBlueprint extends Blueprint {
 
-    private final String name;
-    private final String[] inputPinAlias;
-    private final String[] outputPinAlias;
+    /** Maximum number of input buses a table device may have, the table has {@code 2^numInputs} rows */
+    public static final int MAX_INPUTS = 30;
+
+    private final String type;
+    private final int numInputs;
+    private final int numOutputs;
+
+    /** Strings referred to by {@link #aliases} */
+    private final StringTable strings;
+
+    /** String indices of the input aliases followed by the output aliases */
+    private final IntBuffer aliases;
+
+    /** The packed truth table, see the class description for its layout */
+    private final LongBuffer table;
+
+
+    /**
+     * Create a table device blueprint.
+     *
+     * @param type the device type
+     * @param inputAliases alias of each input bus
+     * @param outputAliases alias of each output bus
+     * @param table the packed truth table, see the class description. The array is used as is, not copied
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#MALFORMED_BLUEPRINT} if there are more than {@link #MAX_INPUTS} inputs or the
+     *      table does not have exactly {@code numOutputs * wordsPerOutput(numInputs)} elements
+     * </ul>
+     */
+    public DeviceBlueprint(String type, String[] inputAliases, String[] outputAliases, long[] table) {
+        this(type, concatenated(inputAliases, outputAliases), inputAliases.length, outputAliases.length,
+             identity(inputAliases.length + outputAliases.length), LongBuffer.wrap(table));
+    }
+
+    /**
+     * Create a blueprint over existing buffers, used when loading an archive. Nothing is copied.
+     */
+    DeviceBlueprint(String type, StringTable strings, int numInputs, int numOutputs, IntBuffer aliases, LongBuffer table) {
+        this.type = type;
+        this.strings = strings;
+        this.numInputs = numInputs;
+        this.numOutputs = numOutputs;
+        this.aliases = aliases;
+        this.table = table;
+
+        if (numInputs < 0 || numInputs > MAX_INPUTS || numOutputs < 0) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.MALFORMED_BLUEPRINT, type,
+                "device with " + numInputs + " inputs and " + numOutputs + " outputs");
+        }
+        if (table.remaining() != (long) numOutputs * wordsPerOutput(numInputs)) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.MALFORMED_BLUEPRINT, type,
+                "truth table has " + table.remaining() + " words, expected " + numOutputs * wordsPerOutput(numInputs));
+        }
+    }
+
+    /**
+     * @param numInputs the number of inputs of a device
+     * @return the number of longs each output of the device takes up in the truth table
+     */
+    public static int wordsPerOutput(int numInputs) {
+        return numInputs <= 6 ? 1 : 1 << (numInputs - 6);
+    }
+
+    static StringTable concatenated(String[]... arrays) {
+        int length = 0;
+        for (String[] array : arrays) {
+            length += array.length;
+        }
+
+        String[] all = new String[length];
+        int offset = 0;
+        for (String[] array : arrays) {
+            System.arraycopy(array, 0, all, offset, array.length);
+            offset += array.length;
+        }
+        return StringTable.of(all);
+    }
+
+    static IntBuffer identity(int length) {
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        return IntBuffer.wrap(indices);
+    }
+
+
+    //*>> -------------------- Table lookup -------------------- */
 
-    public DeviceBlueprint() {
-        throw new UnsupportedOperationException();
+    /**
+     * Look up the value of a single output.
+     *
+     * @param output index of the output bus
+     * @param inputs the input bus values, input {@code k} is bit {@code k}
+     * @return the value of the output bus for these inputs
+     */
+    public boolean lookup(int output, int inputs) {
+        final int word = output * wordsPerOutput(numInputs) + (inputs >>> 6);
+        return ((table.get(word) >>> (inputs & 63)) & 1L) != 0;
     }
 
+
+    //*>> -------------------- Blueprint -------------------- */
+
+    /**
+     * @return a new {@link TableDevice} of this blueprint
+     */
     @Override
-    public Circuit build() {
-        throw new UnsupportedOperationException("Blueprint.build() is not implemented");
+    public TableDevice build() {
+        return new TableDevice(this);
     }
 
     @Override
     public String getType() {
-        throw new UnsupportedOperationException("Blueprint.getName() is not implemented");
+        return type;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public int getNumInputs() {
+        return numInputs;
+    }
+
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    public String getInputAlias(int index) {
+        return strings.get(aliases.get(index));
+    }
+
+    public String getOutputAlias(int index) {
+        return strings.get(aliases.get(numInputs + index));
+    }
+
+    /** @return a read-only view of the packed truth table, see the class description for its layout */
+    public LongBuffer getTable() {
+        return table.asReadOnlyBuffer();
     }
 }
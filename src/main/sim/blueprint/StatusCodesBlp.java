@@ -5,6 +5,7 @@ import java.util.IllegalFormatConversionException;
 import java.util.Map;
 
 import sim.exception.Status;
+import sim.exception.StatusException;
 import sim.exception.StatusRuntimeException;
 
 public final class StatusCodesBlp {
@@ -14,11 +15,32 @@ public final class StatusCodesBlp {
     //region; status codes
     public static final int BLUEPRINT_TYPE_ALREADY_REGISTERED = 332;
     public static final int BLUEPRINT_TYPE_NOT_RECOGNIZED = 334;
+    public static final int MALFORMED_BLUEPRINT = 336;
+
+    public static final int ARCHIVE_UNREADABLE = 340;
+    public static final int ARCHIVE_UNWRITABLE = 341;
+    public static final int ARCHIVE_BAD_FORMAT = 342;
+    public static final int ARCHIVE_UNSUPPORTED_VERSION = 343;
+    public static final int ARCHIVE_TOO_LARGE = 344;
+
+    public static final int COMBINATIONAL_LOOP = 351;
+    public static final int UNDRIVEN_BUS = 352;
     //endregion
 
     //TODO add messages 
     static {
+        detailTemplate.put(BLUEPRINT_TYPE_ALREADY_REGISTERED, "A blueprint of type <%s> is already registered");
+        detailTemplate.put(BLUEPRINT_TYPE_NOT_RECOGNIZED, "No blueprint of type <%s> is registered");
+        detailTemplate.put(MALFORMED_BLUEPRINT, "Malformed blueprint <%s>: %s");
 
+        detailTemplate.put(ARCHIVE_UNREADABLE, "Failed to read blueprint archive <%s>");
+        detailTemplate.put(ARCHIVE_UNWRITABLE, "Failed to write blueprint archive <%s>");
+        detailTemplate.put(ARCHIVE_BAD_FORMAT, "File <%s> is not a valid blueprint archive: %s");
+        detailTemplate.put(ARCHIVE_UNSUPPORTED_VERSION, "Blueprint archive <%s> has format version %d, only %d is supported");
+        detailTemplate.put(ARCHIVE_TOO_LARGE, "Blueprint archive <%s> takes %d bytes, archives are limited to 2GB");
+
+        detailTemplate.put(UNDRIVEN_BUS, "Cannot flatten <%s>, %s is not driven");
+        detailTemplate.put(COMBINATIONAL_LOOP, "Cannot levelize <%s>, %s is part of a combinational loop");
     }
 
     public static Status message(int code, Object... o) {
@@ -40,6 +62,14 @@ public final class StatusCodesBlp {
         return new Status(Status.Location.SYS, code, detail);
     }
 
+    public static StatusException exception(int code, Object... o) {
+        return exception(code, null, o);
+    }
+
+    public static StatusException exception(int code, Throwable cause, Object... o) {
+        return new StatusException(message(code, o), cause);
+    }
+
     public static StatusRuntimeException runtimeException(int code, Object... o) {
         return runtimeException(code, null, o);
     }
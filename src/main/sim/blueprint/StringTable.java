@@ -0,0 +1,41 @@
+package sim.blueprint;
+
+/**
+ * Strings shared by blueprints, referred to by index. Blueprints store aliases and type references as indices into
+ * a string table, so a table read from a {@linkplain BlueprintArchive binary archive} only has to decode the strings
+ * that are actually used.
+ */
+public interface StringTable {
+
+    /**
+     * Get a string of the table.
+     *
+     * @param index the index of the string
+     * @return the string at that index
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than {@link #size()}
+     */
+    String get(int index);
+
+    /** @return the number of strings in the table */
+    int size();
+
+    /**
+     * Create a table holding the given strings, the array is used as is.
+     *
+     * @param strings the strings of the table
+     * @return a table where {@code get(i) == strings[i]}
+     */
+    static StringTable of(String... strings) {
+        return new StringTable() {
+            @Override
+            public String get(int index) {
+                return strings[index];
+            }
+
+            @Override
+            public int size() {
+                return strings.length;
+            }
+        };
+    }
+}
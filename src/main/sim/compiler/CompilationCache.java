@@ -0,0 +1,496 @@
+package sim.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.BlueprintArchive;
+import sim.compiler.lexer.Token;
+import sim.exception.StatusException;
+
+/**
+ * An on-disk cache of {@link CompilationUnit}s, so files that did not change since the last compilation are loaded
+ * instead of compiled again.
+ *
+ * <h2>Keys</h2>
+ * Every file has 2 hashes (SHA-256)
+ * <ul>
+ *  <li><b>Content hash:</b> the hash of the file's path and bytes. Entries are stored under this name, so an entry
+ *      can be found before the file has been compiled, which is also how the file's includes become known.
+ *  <li><b>Dependency key:</b> the hash of the content hash and the dependency keys of all included files. It is
+ *      recorded in the entry, an entry is only used if the recorded key matches the current one.
+ * </ul>
+ * A change to any transitively included file changes the dependency key of every file including it, which
+ * invalidates their entries.
+ *
+ * <h2>Entries</h2>
+ * <ul>
+ *  <li><b>{@code <content hash>.unit}:</b> the {@link CompilationUnit} of a file, its tokens and includes.
+ *  <li><b>{@code <dependency key>.blueprints}:</b> the blueprints the file declares, as a {@link BlueprintArchive}.
+ *      They are only valid for the exact includes they were built against, hence the key. Files are only parsed
+ *      when this entry is missing.
+ * </ul>
+ *
+ * <p>The cache is best effort, entries that cannot be read are treated as missing and entries that cannot be written
+ * are skipped. Hit and miss counts accumulate over all compilations using this cache.
+ */
+public final class CompilationCache {
+
+    /** "SBCU", marks the start of every entry */
+    private static final int MAGIC = 0x53424355;
+
+    /** Must be incremented whenever the entry layout or the {@link Token.Category} enum changes */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String ENTRY_SUFFIX = ".unit";
+    private static final String BLUEPRINTS_SUFFIX = ".blueprints";
+
+    private final Path directory;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder blueprintHits = new LongAdder();
+    private final LongAdder blueprintMisses = new LongAdder();
+
+    /**
+     * Create a cache storing entries in the given directory. The directory is created when the first entry is written.
+     *
+     * @param directory where entries are stored
+     */
+    public CompilationCache(String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Start using the cache for a single compilation.
+     *
+     * @return a session tracking the files looked up by one compilation
+     */
+    public Session openSession() {
+        return new Session(null);
+    }
+
+    /**
+     * Start using the cache for a single compilation, recording the statistics of files that have to be lexed.
+     *
+     * @param statistics where to record statistics, may be {@code null}
+     * @return a session tracking the files looked up by one compilation
+     */
+    public Session openSession(CompilationStatistics statistics) {
+        return new Session(statistics);
+    }
+
+
+    //*>> -------------------- Session -------------------- */
+
+    /**
+     * The cache as seen by a single compilation. Files are {@linkplain #load loaded} while the include graph is being
+     * discovered, possibly concurrently. Once the graph is known the session is {@linkplain #commit committed}, which
+     * decides which loaded entries are still valid. The blueprints of committed files can then be
+     * {@linkplain #loadBlueprints loaded} and {@linkplain #storeBlueprints stored}, possibly concurrently.
+     */
+    public final class Session {
+
+        /** Maps {@code path ==> what was found when the file was loaded} */
+        private final Map<String, Lookup> lookups = new ConcurrentHashMap<>();
+        /** Maps {@code path ==> dependency key}, set on {@link #commit}, only read afterwards */
+        private final Map<String, String> dependencyKeys = new HashMap<>();
+
+        private final CompilationStatistics statistics;
+
+        private Session(CompilationStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        /**
+         * Get the unit of a file, from its cache entry if one exists for the current contents, otherwise by lexing it.
+         * Whether a cached unit can be used is only decided on {@link #commit}. Safe to call concurrently.
+         *
+         * @param path normalized path of the file
+         * @return the unit of the file
+         */
+        public CompilationUnit load(String path) {
+            final String contentHash = contentHash(path);
+            if (contentHash == null) {
+                return CompilationUnit.lex(path, statistics);
+            }
+
+            final Entry entry = read(entryPath(contentHash));
+            if (entry != null && entry.unit.path.equals(path)) {
+                lookups.put(path, new Lookup(contentHash, entry.dependencyKey, true));
+                return entry.unit;
+            }
+
+            lookups.put(path, new Lookup(contentHash, null, false));
+            return CompilationUnit.lex(path, statistics);
+        }
+
+        /**
+         * Compute the dependency keys of all units, count hits and misses, and write entries for new or changed files.
+         * Units loaded from an entry whose dependency key no longer matches are compiled again.
+         *
+         * @param order units in dependency order, see {@link IncludeGraph#dependencyOrder()}
+         * @return the units in the same order, stale units replaced
+         */
+        public List<CompilationUnit> commit(List<CompilationUnit> order) {
+            final List<CompilationUnit> committed = new ArrayList<>(order.size());
+
+            for (CompilationUnit unit : order) {
+                final Lookup lookup = lookups.get(unit.path);
+                if (lookup == null) {
+                    committed.add(unit);
+                    continue;
+                }
+
+                final MessageDigest digest = sha256();
+                digest.update(lookup.contentHash.getBytes(StandardCharsets.UTF_8));
+                for (CompilationUnit.Include include : unit.getIncludes()) {
+                    digest.update(dependencyKeys.getOrDefault(include.path, "-").getBytes(StandardCharsets.UTF_8));
+                }
+                final String dependencyKey = HexFormat.of().formatHex(digest.digest());
+                dependencyKeys.put(unit.path, dependencyKey);
+
+                if (lookup.cached && dependencyKey.equals(lookup.dependencyKey)) {
+                    hits.increment();
+                    committed.add(unit);
+                    continue;
+                }
+
+                misses.increment();
+                final CompilationUnit compiled = lookup.cached ? CompilationUnit.lex(unit.path, statistics) : unit;
+                write(entryPath(lookup.contentHash), new Entry(dependencyKey, compiled));
+                committed.add(compiled);
+            }
+
+            lookups.clear();
+            return committed;
+        }
+
+        /**
+         * Get the blueprints a committed file declared when it was last parsed with the same contents and includes.
+         * Safe to call concurrently.
+         *
+         * @param path normalized path of the file
+         * @return the blueprints in declaration order, {@code null} if they are not cached
+         */
+        public List<Blueprint> loadBlueprints(String path) {
+            final String dependencyKey = dependencyKeys.get(path);
+            final Path source = dependencyKey == null ? null : blueprintsPath(dependencyKey);
+
+            if (source != null && Files.isRegularFile(source)) {
+                try {
+                    final List<Blueprint> blueprints = BlueprintArchive.load(source);
+                    blueprintHits.increment();
+                    return blueprints;
+                }
+                catch (StatusException e) {
+                    // Treated as missing, the file is parsed again and its entry replaced
+                }
+            }
+
+            blueprintMisses.increment();
+            return null;
+        }
+
+        /**
+         * Store the blueprints a committed file declares. Safe to call concurrently.
+         *
+         * @param path normalized path of the file
+         * @param blueprints the blueprints in declaration order
+         */
+        public void storeBlueprints(String path, List<Blueprint> blueprints) {
+            final String dependencyKey = dependencyKeys.get(path);
+            if (dependencyKey == null) {
+                return;
+            }
+
+            final Path target = blueprintsPath(dependencyKey);
+            writeAtomically(target, temporary -> {
+                try {
+                    BlueprintArchive.write(temporary, blueprints);
+                }
+                catch (StatusException e) {
+                    throw new IOException(e);
+                }
+            });
+        }
+    }
+
+    /** What was found for a file when it was loaded */
+    private static final class Lookup {
+        final String contentHash;
+        /** The dependency key recorded in the entry, {@code null} if there was no entry */
+        final String dependencyKey;
+        final boolean cached;
+
+        Lookup(String contentHash, String dependencyKey, boolean cached) {
+            this.contentHash = contentHash;
+            this.dependencyKey = dependencyKey;
+            this.cached = cached;
+        }
+    }
+
+    private static final class Entry {
+        final String dependencyKey;
+        final CompilationUnit unit;
+
+        Entry(String dependencyKey, CompilationUnit unit) {
+            this.dependencyKey = dependencyKey;
+            this.unit = unit;
+        }
+    }
+
+
+    //*>> -------------------- Statistics -------------------- */
+
+    /** @return the number of files loaded from the cache */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return the number of files that had to be compiled, because they had no entry or a stale one */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** @return {@code hits / (hits + misses)}, or 0 if the cache has not been used */
+    public double getHitRate() {
+        final long h = getHits();
+        final long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /** @return the number of files whose blueprints were loaded from the cache instead of parsed */
+    public long getBlueprintHits() {
+        return blueprintHits.sum();
+    }
+
+    /** @return the number of files that had to be parsed */
+    public long getBlueprintMisses() {
+        return blueprintMisses.sum();
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        blueprintHits.reset();
+        blueprintMisses.reset();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+
+    //*>> -------------------- Hashing -------------------- */
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every Java platform", e);
+        }
+    }
+
+    /**
+     * Hash the path and contents of a file. The file is memory-mapped, so it is not copied onto the heap.
+     *
+     * @param path normalized path of the file
+     * @return the hex encoded hash, or {@code null} if the file cannot be read
+     */
+    private static String contentHash(String path) {
+        final MessageDigest digest = sha256();
+        digest.update(path.getBytes(StandardCharsets.UTF_8));
+
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path entryPath(String contentHash) {
+        return directory.resolve(contentHash + ENTRY_SUFFIX);
+    }
+
+    private Path blueprintsPath(String dependencyKey) {
+        return directory.resolve(dependencyKey + BLUEPRINTS_SUFFIX);
+    }
+
+
+    //*>> -------------------- Entry serialization -------------------- */
+
+    /**
+     * Write an entry, through a temporary file so concurrent readers never see a partially written entry.
+     */
+    private void write(Path target, Entry entry) {
+        writeAtomically(target, temporary -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, entry.dependencyKey);
+
+                final CompilationUnit unit = entry.unit;
+                writeString(out, unit.path);
+
+                out.writeInt(unit.getTokens().size());
+                for (Token token : unit.getTokens()) {
+                    out.writeByte(token.category.ordinal());
+                    writeString(out, token.data);
+                    out.writeInt(token.position.line);
+                    out.writeInt(token.position.column);
+                }
+
+                out.writeInt(unit.getIncludes().size());
+                for (CompilationUnit.Include include : unit.getIncludes()) {
+                    writeString(out, include.path);
+                    out.writeInt(include.position.line);
+                    out.writeInt(include.position.column);
+                }
+
+                out.writeInt(unit.getDeclaredTypes().size());
+                for (Map.Entry<String, Position> declaration : unit.getDeclaredTypes().entrySet()) {
+                    writeString(out, declaration.getKey());
+                    out.writeInt(declaration.getValue().line);
+                    out.writeInt(declaration.getValue().column);
+                }
+
+                out.writeInt(unit.getErrorMessages().size());
+                for (String message : unit.getErrorMessages()) {
+                    writeString(out, message);
+                }
+            }
+        });
+    }
+
+    /** Writes a file of the cache, given the temporary file to write */
+    @FunctionalInterface
+    private interface Writer {
+        void write(Path temporary) throws IOException;
+    }
+
+    /**
+     * Write a file through a temporary one, which is then moved over the target. Failures are ignored, the temporary
+     * file is deleted.
+     */
+    private void writeAtomically(Path target, Writer writer) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, "entry", ".tmp");
+            writer.write(temporary);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            // Best effort, the file is simply compiled again next time
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                }
+                catch (IOException ignored) {
+                    // Left behind, harmless as it is never read
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an entry.
+     *
+     * @return the entry, or {@code null} if it does not exist, is of another format version, or is corrupted
+     */
+    private static Entry read(Path source) {
+        if (!Files.isRegularFile(source)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            final String dependencyKey = readString(in);
+            final String path = readString(in);
+
+            final Token.Category[] categories = Token.Category.values();
+            final int numTokens = in.readInt();
+            final List<Token> tokens = new ArrayList<>(numTokens);
+            for (int i = 0; i < numTokens; i++) {
+                final Token.Category category = categories[in.readUnsignedByte()];
+                tokens.add(new Token(category, readString(in), in.readInt(), in.readInt()));
+            }
+
+            final int numIncludes = in.readInt();
+            final List<CompilationUnit.Include> includes = new ArrayList<>(numIncludes);
+            for (int i = 0; i < numIncludes; i++) {
+                includes.add(new CompilationUnit.Include(readString(in), new Position(in.readInt(), in.readInt())));
+            }
+
+            final int numDeclarations = in.readInt();
+            final Map<String, Position> declaredTypes = new LinkedHashMap<>();
+            for (int i = 0; i < numDeclarations; i++) {
+                declaredTypes.put(readString(in), new Position(in.readInt(), in.readInt()));
+            }
+
+            final int numErrors = in.readInt();
+            final List<String> errors = new ArrayList<>(numErrors);
+            for (int i = 0; i < numErrors; i++) {
+                errors.add(readString(in));
+            }
+
+            return new Entry(dependencyKey, new CompilationUnit(path,
+                Collections.unmodifiableList(tokens), Collections.unmodifiableList(includes),
+                Collections.unmodifiableMap(declaredTypes), Collections.unmodifiableList(errors)));
+        }
+        catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Strings are written as their UTF-8 length followed by the bytes, {@code writeUTF} is limited to 64KB */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s.isEmpty()) {
+            out.writeInt(0);
+            return;
+        }
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == 0) {
+            return "";
+        }
+        final byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,70 @@
+package sim.compiler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link PassStatistics} of every pass of one or more compilations, combined per pass. Passes running
+ * concurrently (lexing files on a worker pool) record their statistics here when they finish, so their wall times
+ * add up to more than the wall time of the compilation, which is recorded under {@link #COMPILATION}.
+ *
+ * <p>Safe to use from multiple threads.
+ */
+public final class CompilationStatistics {
+
+    /** Name under which the statistics of the compilation as a whole are recorded */
+    public static final String COMPILATION = "Compilation";
+
+    /** Maps {@code pass ==> combined statistics}, in the order passes first finished */
+    private final Map<String, PassStatistics> passes = new LinkedHashMap<>();
+
+    /**
+     * Add the statistics of a run of a pass.
+     *
+     * @param statistics statistics of the run, not modified
+     */
+    public synchronized void record(PassStatistics statistics) {
+        passes.computeIfAbsent(statistics.getPass(), PassStatistics::new).add(statistics);
+    }
+
+    /**
+     * @param pass name of the pass
+     * @return a copy of the combined statistics of the pass, or {@code null} if it did not run
+     */
+    public synchronized PassStatistics get(String pass) {
+        final PassStatistics statistics = passes.get(pass);
+        return statistics == null ? null : statistics.copy();
+    }
+
+    /** @return copies of the combined statistics of all passes, in the order they first finished */
+    public synchronized List<PassStatistics> getPasses() {
+        final List<PassStatistics> copies = new ArrayList<>(passes.size());
+        for (PassStatistics statistics : passes.values()) {
+            copies.add(statistics.copy());
+        }
+        return copies;
+    }
+
+    public synchronized void reset() {
+        passes.clear();
+    }
+
+    /**
+     * @return a human readable report with one block per pass: runs, wall time, allocations, item counts with
+     *         their throughput, and peaks
+     */
+    public synchronized String summary() {
+        final List<String> blocks = new ArrayList<>(passes.size());
+        for (PassStatistics statistics : passes.values()) {
+            blocks.add(statistics.toString());
+        }
+        return String.join(System.lineSeparator(), blocks);
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
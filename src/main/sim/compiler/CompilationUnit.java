@@ -0,0 +1,228 @@
+package sim.compiler;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sim.compiler.lexer.Scanner;
+import sim.compiler.lexer.Token;
+import sim.compiler.lexer.TokenSource;
+import sim.compiler.lexer.Tokenizer;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * The result of lexing a single source file: its tokens, the files it includes, and the types it declares.
+ *
+ * <p>A unit only depends on its own source file, so units of different files can be produced concurrently. Combining
+ * them (resolving includes, checking type names are unique) is left to the caller, see {@link IncludeGraph}.
+ */
+public final class CompilationUnit {
+
+    /** Number of characters a streaming {@link Scanner} decodes at a time */
+    static final int STREAM_WINDOW = 1 << 16;
+
+    /** An {@code #include} directive, the path has been resolved relative to the including file */
+    public static final class Include {
+
+        /** Normalized absolute path of the included file */
+        public final String path;
+
+        /** Position of the directive in the including file */
+        public final Position position;
+
+        public Include(String path, Position position) {
+            this.path = path;
+            this.position = position;
+        }
+    }
+
+    /** Normalized absolute path of the source file */
+    public final String path;
+
+    private final List<Token> tokens;
+    private final List<Include> includes;
+
+    /** Maps {@code declared type ==> position of the declaration}, in declaration order */
+    private final Map<String, Position> declaredTypes;
+
+    private final List<String> errorMessages;
+
+
+    public CompilationUnit(String path, List<Token> tokens, List<Include> includes,
+                           Map<String, Position> declaredTypes, List<String> errorMessages) {
+        this.path = path;
+        this.tokens = tokens;
+        this.includes = includes;
+        this.declaredTypes = declaredTypes;
+        this.errorMessages = errorMessages;
+    }
+
+    /**
+     * Normalize a path the same way unit paths are, so the same file is always referred to by the same string.
+     *
+     * @param path the path to normalize
+     * @return the absolute, normalized path
+     */
+    public static String normalize(String path) {
+        return Path.of(path).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Lex a source file and scan the token stream for include directives and top level type declarations.
+     *
+     * <p>Problems with the file (unreadable, lexing errors, malformed directives) are recorded as error messages
+     * of the unit rather than thrown, so one bad file does not stop the others from being processed.
+     *
+     * @param path normalized absolute path of the file
+     * @return the lexed unit
+     */
+    public static CompilationUnit lex(String path) {
+        return lex(path, true, null);
+    }
+
+    /**
+     * Same as {@link #lex(String)}, recording the statistics of the {@link Tokenizer}.
+     *
+     * @param path normalized absolute path of the file
+     * @param statistics where to record the statistics, may be {@code null}
+     * @return the lexed unit
+     */
+    public static CompilationUnit lex(String path, CompilationStatistics statistics) {
+        return lex(path, true, statistics);
+    }
+
+    /**
+     * Same as {@link #lex}, but the tokens are not kept. The file is streamed through a {@link Scanner} window, so
+     * memory use does not depend on the size of the file. Used when the tokens are going to be read again straight
+     * from the file, see {@link Compiler.Options#sink}.
+     *
+     * @param path normalized absolute path of the file
+     * @param statistics where to record the statistics of the {@link Tokenizer}, may be {@code null}
+     * @return the lexed unit, without tokens
+     */
+    public static CompilationUnit scan(String path, CompilationStatistics statistics) {
+        return lex(path, false, statistics);
+    }
+
+    private static CompilationUnit lex(String path, boolean keepTokens, CompilationStatistics statistics) {
+        final List<Token> tokens = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final List<Include> includes = new ArrayList<>();
+        final Map<String, Position> declaredTypes = new LinkedHashMap<>();
+
+        try {
+            final Tokenizer tokenizer = new Tokenizer(keepTokens ? new Scanner(new File(path))
+                                                                 : new Scanner(new File(path), STREAM_WINDOW));
+            final TokenSource source = !keepTokens ? tokenizer : () -> {
+                final Token token = tokenizer.nextToken();
+                tokens.add(token);
+                return token;
+            };
+            tokenizer.getStatistics().start();
+            scanTopLevel(path, source, includes, declaredTypes, errors);
+            tokenizer.getStatistics().stop();
+
+            errors.addAll(0, tokenizer.getErrorMessages());
+            if (statistics != null) {
+                statistics.record(tokenizer.getStatistics());
+            }
+        }
+        catch (FileNotFoundException e) {
+            errors.add("Source file <" + path + "> not found");
+        }
+        catch (StatusRuntimeException e) {
+            errors.add(e.getMessage());
+        }
+
+        return new CompilationUnit(path, Collections.unmodifiableList(tokens), Collections.unmodifiableList(includes),
+                                   Collections.unmodifiableMap(declaredTypes), Collections.unmodifiableList(errors));
+    }
+
+    /**
+     * Read all tokens of a file, collecting the include directives and the names of the types declared outside of
+     * any braces.
+     */
+    private static void scanTopLevel(String path, TokenSource source, List<Include> includes,
+                                     Map<String, Position> declaredTypes, List<String> errors) {
+        final File directory = new File(path).getParentFile();
+        int depth = 0;
+
+        Token token = source.nextToken();
+        while (token.category != Token.Category.EOF) {
+            final Token next = source.nextToken();
+
+            switch (token.category) {
+                case LBRA -> depth++;
+                case RBRA -> depth = Math.max(0, depth - 1);
+                case INCLUDE -> {
+                    if (next.category != Token.Category.STRING_LITERAL && next.category != Token.Category.IDENTIFIER) {
+                        errors.add("Expected a file path after #include at " + path + ":" + token.position);
+                        break;
+                    }
+                    includes.add(new Include(normalize(new File(directory, next.data).getPath()), token.position));
+                    token = source.nextToken();
+                    continue;
+                }
+                case DEVICE, CIRCUIT, CLOCK -> {
+                    if (depth > 0 || next.category != Token.Category.IDENTIFIER) {
+                        break;
+                    }
+                    declareType(path, next.data, token.position, declaredTypes, errors);
+                    token = source.nextToken();
+                    continue;
+                }
+                case MAIN -> {
+                    if (depth == 0) {
+                        declareType(path, "MAIN", token.position, declaredTypes, errors);
+                    }
+                }
+                default -> {}
+            }
+
+            token = next;
+        }
+    }
+
+    private static void declareType(String path, String type, Position position,
+                                    Map<String, Position> declaredTypes, List<String> errors) {
+        final Position previous = declaredTypes.putIfAbsent(type, position);
+        if (previous != null) {
+            errors.add("Type <" + type + "> declared at " + path + ":" + position +
+                       " is already declared at " + path + ":" + previous);
+        }
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /**
+     * @return the tokens of the file, ending with an {@code EOF} token. Empty if the file could not be read, or if
+     *         the unit was created by {@link #scan}
+     */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /** @return the include directives of the file, in the order they appear */
+    public List<Include> getIncludes() {
+        return includes;
+    }
+
+    /** @return a map of {@code declared type ==> position of the declaration}, in declaration order */
+    public Map<String, Position> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    public boolean hasErrors() {
+        return !errorMessages.isEmpty();
+    }
+
+    public List<String> getErrorMessages() {
+        return errorMessages;
+    }
+}
@@ -1,6 +1,25 @@
 package sim.compiler;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.lexer.Scanner;
+import sim.compiler.lexer.TokenSource;
+import sim.compiler.lexer.Tokenizer;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.compiler.parser.NetlistSink;
+import sim.compiler.parser.Parser;
 import sim.exception.StatusException;
+import sim.exception.StatusRuntimeException;
 
 public final class Compiler {
 
@@ -9,9 +28,336 @@ public final class Compiler {
         COMPILE_MAIN
     }
 
+    /**
+     * Settings of a compilation. All settings have defaults, so {@code new Options()} is a valid configuration.
+     */
+    public static final class Options {
+
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private CompilationCache cache = null;
+        private NetlistSink sink = null;
+        private CompilationStatistics statistics = null;
+
+        /**
+         * Set the number of threads source files are lexed and parsed on.
+         *
+         * @param workers the number of worker threads, must be positive
+         * @return these options
+         * @throws IllegalArgumentException if {@code workers < 1}
+         */
+        public Options workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("A compilation needs at least 1 worker, received " + workers);
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Set the cache compiled files are stored in and loaded from. Both the tokens and the blueprints of a file
+         * are cached, see {@link CompilationCache}.
+         *
+         * @param cache the cache to use, or {@code null} to compile every file
+         * @return these options
+         */
+        public Options cache(CompilationCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Stream the program into a sink instead of keeping the tokens of every file. Each file is read twice, once
+         * while the include graph is discovered and once more, in dependency order, by a {@link Parser} passing the
+         * records on to the sink as they are read. Neither pass keeps more than a window of the file in memory.
+         *
+         * <p>A {@link BlueprintRegistrar} registers the blueprints of the program. Streaming compilations parse the
+         * files one after the other on the calling thread, and do not use the {@linkplain #cache cache}, as its
+         * entries hold the tokens of whole files and the sink expects records, not blueprints.
+         *
+         * @param sink receives the records of the program, or {@code null} to parse the kept tokens of every file
+         *             and register their blueprints, see {@link Compiler#compile(String, Mode, Options)}
+         * @return these options
+         */
+        public Options sink(NetlistSink sink) {
+            this.sink = sink;
+            return this;
+        }
+
+        /**
+         * Record the {@link PassStatistics} of every pass of the compilation. The statistics of a sink that is a
+         * {@link CompilerPass} are recorded too, and then reset.
+         *
+         * @param statistics where to record statistics, or {@code null} to not record them
+         * @return these options
+         */
+        public Options statistics(CompilationStatistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        /** @return the cache used by compilations, {@code null} if caching is disabled */
+        public CompilationCache getCache() {
+            return cache;
+        }
+
+        /** @return the sink the program is streamed into, {@code null} if the tokens of every file are kept */
+        public NetlistSink getSink() {
+            return sink;
+        }
+
+        /** @return where statistics are recorded, {@code null} if they are not */
+        public CompilationStatistics getStatistics() {
+            return statistics;
+        }
+    }
+
+
+    public static List<CompilationUnit> compile(String sourceFile, Mode mode) throws StatusException {
+        return compile(sourceFile, mode, new Options());
+    }
+
+    /**
+     * Compile a source file and every file it (transitively) includes.
+     *
+     * <p>The include graph is discovered while files are being lexed on a pool of {@link Options#getWorkers()}
+     * threads, each file is lexed once no matter how often it is included. The units are then merged in dependency
+     * order, a type declared in more than one file is reported against every declaration after the first.
+     *
+     * <p>The units are then parsed on the same pool, each as soon as the units it includes are. Every unit gets its
+     * own {@link BlueprintRegistrar}, which sees the blueprints of the units the unit (transitively) includes. Once
+     * every unit is parsed, the blueprints are registered in dependency order, and only if no unit has errors.
+     *
+     * <p>If the options have a {@link CompilationCache}, files whose contents and includes did not change since they
+     * were last compiled are loaded from the cache instead, their blueprints included.
+     *
+     * <p>If the options have a {@link NetlistSink}, the files are instead parsed in dependency order and their records
+     * passed on to the sink, see {@link Options#sink}. Either way, the program must declare {@code MAIN}.
+     *
+     * @param sourceFile path to the root source file
+     * @param mode what is being compiled
+     * @param options settings of this compilation
+     * @return the compiled units, every file after all the files it includes. Without tokens if a sink is used
+     * @throws StatusException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#COMPILATION_FAILED} if any file has errors, or a type is already registered. The
+     *      message lists all of them
+     *  <li>{@link StatusCodesCpl#COMPILATION_INTERRUPTED} if the thread was interrupted while waiting on workers
+     * </ul>
+     */
+    public static List<CompilationUnit> compile(String sourceFile, Mode mode, Options options) throws StatusException {
+        final NetlistSink sink = options.getSink();
+        final CompilationStatistics statistics = options.getStatistics();
+        final PassStatistics compilation = new PassStatistics(CompilationStatistics.COMPILATION);
+        compilation.start();
+
+        final CompilationCache.Session session = options.getCache() == null || sink != null
+                                                 ? null : options.getCache().openSession(statistics);
+        List<CompilationUnit> order = List.of();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(options.getWorkers())) {
+            final IncludeGraph graph = IncludeGraph.discover(CompilationUnit.normalize(sourceFile), executor,
+                                          sink != null ? path -> CompilationUnit.scan(path, statistics)
+                                          : session == null ? path -> CompilationUnit.lex(path, statistics)
+                                          : session::load);
+
+            order = graph.dependencyOrder();
+            if (session != null) {
+                order = session.commit(order);
+            }
+            graph.checkTypeNames(order);
+            if (statistics != null) {
+                statistics.record(graph.getStatistics());
+            }
+
+            if (graph.hasErrors()) {
+                throw failed(sourceFile, graph.getErrorMessages());
+            }
+            if (order.stream().noneMatch(unit -> unit.getDeclaredTypes().containsKey("MAIN"))) {
+                throw failed(sourceFile, List.of("No MAIN declared in <" + sourceFile + "> or any file it includes"));
+            }
+
+            if (sink != null) {
+                stream(sourceFile, order, sink, statistics);
+            }
+            else {
+                register(sourceFile, order, session, executor, statistics);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw StatusCodesCpl.exception(StatusCodesCpl.COMPILATION_INTERRUPTED, e, sourceFile);
+        }
+        finally {
+            compilation.count(compilation.item("files"), order.size());
+            compilation.stop();
+            if (statistics != null) {
+                statistics.record(compilation);
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Parse every unit on the pool and register the blueprints of all of them. A unit is parsed as soon as the units
+     * it includes are, by its own {@link BlueprintRegistrar} collecting its blueprints. Once all units are parsed,
+     * their errors and statistics are merged and their blueprints registered in dependency order, so the outcome
+     * does not depend on the order the workers finish in. Nothing is registered if any unit has errors.
+     *
+     * <p>With a cache, the blueprints of units whose contents and includes did not change are loaded instead of
+     * parsed, and the blueprints of parsed units are stored.
+     *
+     * @throws StatusException see {@link #compile(String, Mode, Options)}
+     * @throws InterruptedException if the thread was interrupted while waiting on workers
+     */
+    private static void register(String sourceFile, List<CompilationUnit> order, CompilationCache.Session session,
+                                 ExecutorService executor, CompilationStatistics statistics)
+            throws StatusException, InterruptedException {
+        final Map<String, CompletableFuture<Declarations>> declarations = new HashMap<>();
+        for (CompilationUnit unit : order) {
+            final List<CompletableFuture<Declarations>> includes = new ArrayList<>();
+            for (CompilationUnit.Include include : unit.getIncludes()) {
+                includes.add(declarations.get(include.path));
+            }
+            declarations.put(unit.path, CompletableFuture.allOf(includes.toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(ignored -> Declarations.of(unit, includes, session), executor));
+        }
+
+        final List<String> errors = new ArrayList<>();
+        final List<Declarations> merged = new ArrayList<>(order.size());
+        for (CompilationUnit unit : order) {
+            final Declarations declared;
+            try {
+                declared = declarations.get(unit.path).get();
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw (Error) e.getCause();
+            }
+
+            errors.addAll(declared.errors);
+            if (statistics != null) {
+                declared.statistics.forEach(statistics::record);
+            }
+            merged.add(declared);
+        }
+        if (!errors.isEmpty()) {
+            throw failed(sourceFile, errors);
+        }
+
+        for (Declarations declared : merged) {
+            for (Blueprint blueprint : declared.blueprints) {
+                try {
+                    Blueprint.register(blueprint);
+                }
+                catch (StatusRuntimeException e) {
+                    errors.add(declared.path + ": " + e.getMessage());
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw failed(sourceFile, errors);
+        }
+    }
+
+    /** The outcome of parsing a single unit */
+    private static final class Declarations {
+        final String path;
+        /** The blueprints the unit declares, in declaration order */
+        final List<Blueprint> blueprints;
+        /** Maps {@code type ==> blueprint} of the types the unit and the units it (transitively) includes declare */
+        final Map<String, Blueprint> visible;
+        final List<String> errors;
+        final List<PassStatistics> statistics;
+
+        private Declarations(String path, List<Blueprint> blueprints, Map<String, Blueprint> visible,
+                             List<String> errors, List<PassStatistics> statistics) {
+            this.path = path;
+            this.blueprints = blueprints;
+            this.visible = visible;
+            this.errors = errors;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Parse a unit, or load its blueprints from the cache.
+         *
+         * @param includes the completed declarations of the units it includes
+         * @param session the cache, may be {@code null}
+         */
+        static Declarations of(CompilationUnit unit, List<CompletableFuture<Declarations>> includes,
+                               CompilationCache.Session session) {
+            final Map<String, Blueprint> visible = new HashMap<>();
+            for (CompletableFuture<Declarations> include : includes) {
+                visible.putAll(include.join().visible);
+            }
+
+            List<Blueprint> blueprints = session == null ? null : session.loadBlueprints(unit.path);
+            if (blueprints != null) {
+                blueprints.forEach(blueprint -> visible.put(blueprint.getType(), blueprint));
+                return new Declarations(unit.path, blueprints, visible, List.of(), List.of());
+            }
+
+            final BlueprintRegistrar registrar = new BlueprintRegistrar(visible);
+            final Parser parser = new Parser(unit.path, TokenSource.of(unit.getTokens()), registrar);
+            parser.parse();
+
+            blueprints = registrar.getDeclared();
+            blueprints.forEach(blueprint -> visible.put(blueprint.getType(), blueprint));
+            if (session != null && parser.getErrorMessages().isEmpty()) {
+                session.storeBlueprints(unit.path, blueprints);
+            }
+            return new Declarations(unit.path, blueprints, visible, parser.getErrorMessages(),
+                                    List.of(parser.getStatistics(), registrar.getStatistics()));
+        }
+    }
+
+    /**
+     * Parse the units in order and pass their records on to the sink.
+     *
+     * @throws StatusException see {@link #compile(String, Mode, Options)}
+     */
+    private static void stream(String sourceFile, List<CompilationUnit> order, NetlistSink sink,
+                               CompilationStatistics statistics) throws StatusException {
+        final List<String> errors = new ArrayList<>();
+
+        for (CompilationUnit unit : order) {
+            try {
+                final Tokenizer tokenizer = new Tokenizer(new Scanner(new File(unit.path), CompilationUnit.STREAM_WINDOW));
+                final Parser parser = new Parser(unit.path, tokenizer, sink);
+                parser.parse();
+
+                errors.addAll(tokenizer.getErrorMessages());
+                errors.addAll(parser.getErrorMessages());
+                if (statistics != null) {
+                    statistics.record(parser.getStatistics());
+                }
+            }
+            catch (FileNotFoundException e) {
+                errors.add("Source file <" + unit.path + "> not found");
+            }
+            catch (StatusRuntimeException e) {
+                errors.add(unit.path + ": " + e.getMessage());
+            }
+        }
+
+        if (statistics != null && sink instanceof CompilerPass pass) {
+            statistics.record(pass.getStatistics());
+            pass.getStatistics().reset();
+        }
+        if (!errors.isEmpty()) {
+            throw failed(sourceFile, errors);
+        }
+    }
 
-    public static void compile(String sourceFile, Mode mode) throws StatusException {
-        
+    private static StatusException failed(String sourceFile, List<String> errors) {
+        return StatusCodesCpl.exception(StatusCodesCpl.COMPILATION_FAILED, sourceFile, errors.size(),
+                                        String.join(System.lineSeparator(), errors));
     }
 
 
@@ -8,6 +8,9 @@ public abstract class CompilerPass {
     protected int numErrors = 0;
     protected final List<String> errorMessages = new ArrayList<String>();
 
+    /** Time, allocations and item counts of this pass, named after the class of the pass */
+    protected final PassStatistics statistics = new PassStatistics(getClass().getSimpleName());
+
 
     protected void error(String message) {
         errorMessages.add(message);
@@ -21,4 +24,6 @@ public abstract class CompilerPass {
     public final List<String> getErrorMessages() {
         return new ArrayList<>(errorMessages);
     }
-}
\ No newline at end of file
+
+    public final PassStatistics getStatistics() { return statistics; }
+}
@@ -0,0 +1,183 @@
+package sim.compiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * The include DAG of a program: every source file reachable from the root file through {@code #include} directives,
+ * lexed into a {@link CompilationUnit}.
+ *
+ * <p>Files are lexed on a worker pool as soon as they are discovered. The order in which workers finish does not
+ * matter, everything observable (the dependency order, error messages and their order) is derived afterwards from
+ * the order of the include directives, so repeated compilations report the same result.
+ *
+ * <p>The {@linkplain #getStatistics() statistics} of the graph cover discovering the files, which is mostly waiting
+ * for the workers, ordering them, and checking type names. They count the files, include directives and declared
+ * types, and the peak number of files being lexed at once.
+ */
+public final class IncludeGraph extends CompilerPass {
+
+    /** Normalized path of the root file */
+    private final String root;
+
+    /** Maps {@code normalized path ==> unit} for all files that could be found */
+    private final Map<String, CompilationUnit> units;
+
+    private IncludeGraph(String root, Map<String, CompilationUnit> units) {
+        this.root = root;
+        this.units = units;
+    }
+
+    /**
+     * Discover and lex all files reachable from the root. A file's includes are submitted to the executor as soon as
+     * the file itself has been lexed, so independent files are processed concurrently.
+     *
+     * @param rootPath normalized path of the root file, see {@link CompilationUnit#normalize}
+     * @param executor the executor to lex files on
+     * @param loader produces the unit of a file given its normalized path, called concurrently on the executor.
+     *               Usually {@link CompilationUnit#lex}, or a {@link CompilationCache.Session#load cache lookup}
+     * @return the graph of all discovered files
+     * @throws InterruptedException if interrupted while waiting for a worker
+     */
+    public static IncludeGraph discover(String rootPath, ExecutorService executor,
+                                        Function<String, CompilationUnit> loader) throws InterruptedException {
+        final CompletionService<CompilationUnit> completion = new ExecutorCompletionService<>(executor);
+        final Set<String> submitted = new HashSet<>();
+        final Map<String, CompilationUnit> units = new HashMap<>();
+
+        final PassStatistics statistics = new PassStatistics(IncludeGraph.class.getSimpleName());
+        final int files = statistics.item("files");
+        final int includes = statistics.item("includes");
+        final int pendingFiles = statistics.peak("pending files");
+        statistics.start();
+
+        submitted.add(rootPath);
+        completion.submit(() -> loader.apply(rootPath));
+        int pending = 1;
+
+        while (pending > 0) {
+            final CompilationUnit unit;
+            try {
+                unit = completion.take().get();
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Lexing a source file failed unexpectedly", e.getCause());
+            }
+            statistics.peak(pendingFiles, pending);
+            pending--;
+            units.put(unit.path, unit);
+            statistics.count(files, 1);
+            statistics.count(includes, unit.getIncludes().size());
+
+            for (CompilationUnit.Include include : unit.getIncludes()) {
+                // Missing files are reported when the graph is ordered, where the order of messages is fixed
+                if (new File(include.path).isFile() && submitted.add(include.path)) {
+                    completion.submit(() -> loader.apply(include.path));
+                    pending++;
+                }
+            }
+        }
+
+        statistics.stop();
+        final IncludeGraph graph = new IncludeGraph(rootPath, units);
+        graph.statistics.add(statistics);
+        return graph;
+    }
+
+    /**
+     * Order the units such that every file comes after all files it includes. Errors of the units, missing includes
+     * and include cycles are collected along the way, see {@link #getErrorMessages()}.
+     *
+     * <p>The order is a depth first post-order from the root, visiting includes in the order they are written.
+     *
+     * @return all units reachable from the root, dependencies first
+     */
+    public List<CompilationUnit> dependencyOrder() {
+        final List<CompilationUnit> order = new ArrayList<>(units.size());
+        final Set<String> finished = new HashSet<>();
+        final List<String> path = new ArrayList<>();
+
+        statistics.start();
+        if (!units.containsKey(root)) {
+            error("Source file <" + root + "> not found");
+        }
+        else {
+            visit(root, path, finished, order);
+        }
+        statistics.stop();
+        return order;
+    }
+
+    private void visit(String file, List<String> path, Set<String> finished, List<CompilationUnit> order) {
+        final CompilationUnit unit = units.get(file);
+        path.add(file);
+
+        for (CompilationUnit.Include include : unit.getIncludes()) {
+            if (finished.contains(include.path)) {
+                continue;
+            }
+            if (!units.containsKey(include.path)) {
+                error("Included file <" + include.path + "> not found, included at " +
+                                  file + ":" + include.position);
+                continue;
+            }
+
+            final int cycleStart = path.indexOf(include.path);
+            if (cycleStart >= 0) {
+                error("Include cycle " + String.join(" -> ", path.subList(cycleStart, path.size())) +
+                                  " -> " + include.path + " at " + file + ":" + include.position);
+                continue;
+            }
+
+            visit(include.path, path, finished, order);
+        }
+
+        path.remove(path.size() - 1);
+        finished.add(file);
+        order.add(unit);
+
+        for (String message : unit.getErrorMessages()) {
+            error(file + ": " + message);
+        }
+    }
+
+    /**
+     * Check no type is declared by more than one file. Units are checked in the given order, the first declaration
+     * of a type wins and every later one is reported as an error, see {@link #getErrorMessages()}.
+     *
+     * @param order the units in dependency order, as returned by {@link #dependencyOrder()}
+     */
+    public void checkTypeNames(List<CompilationUnit> order) {
+        final Map<String, String> declaredAt = new HashMap<>();
+        final int types = statistics.item("declared types");
+        statistics.start();
+
+        for (CompilationUnit unit : order) {
+            statistics.count(types, unit.getDeclaredTypes().size());
+            for (Map.Entry<String, Position> declaration : unit.getDeclaredTypes().entrySet()) {
+                final String location = unit.path + ":" + declaration.getValue();
+                final String previous = declaredAt.putIfAbsent(declaration.getKey(), location);
+                if (previous != null) {
+                    error("Type <" + declaration.getKey() + "> declared at " + location +
+                                      " is already declared at " + previous);
+                }
+            }
+        }
+        statistics.stop();
+    }
+
+    /** @return the number of files in the graph */
+    public int size() {
+        return units.size();
+    }
+}
@@ -0,0 +1,242 @@
+package sim.compiler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measurements of a {@link CompilerPass}: wall time and bytes allocated while it ran, how many items (tokens,
+ * declarations, connections, ...) it processed, and the peak size of its queues and buffers.
+ *
+ * <p>A pass is measured between {@link #start()} and {@link #stop()}, which may be called any number of times, the
+ * measurements add up. Both must be called on the same thread, allocations are those of the calling thread.
+ *
+ * <p>Items and peaks are registered by name once, and then updated through the returned slot so counting stays a
+ * single array access. An instance is not thread safe, passes running concurrently each have their own, which are
+ * combined through {@link #add}.
+ */
+public final class PassStatistics {
+
+    /** Allocated bytes of the current thread, {@code null} if the JVM cannot measure them */
+    private static final com.sun.management.ThreadMXBean threads = allocationBean();
+
+    private final String pass;
+
+    private long wallNanos = 0;
+    private long allocatedBytes = 0;
+    private int runs = 0;
+
+    private long startNanos;
+    private long startAllocated;
+    private boolean running = false;
+
+    private String[] itemNames = new String[0];
+    private long[] items = new long[0];
+
+    private String[] peakNames = new String[0];
+    private long[] peaks = new long[0];
+
+
+    /**
+     * @param pass name of the measured pass
+     */
+    public PassStatistics(String pass) {
+        this.pass = pass;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+
+
+    //*>> -------------------- Measuring -------------------- */
+
+    /**
+     * Start measuring. Has no effect if already started.
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        startAllocated = threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring and add the time and allocations since {@link #start()}. Has no effect if not started.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        wallNanos += System.nanoTime() - startNanos;
+        if (threads != null) {
+            allocatedBytes += threads.getCurrentThreadAllocatedBytes() - startAllocated;
+        }
+        running = false;
+        runs++;
+    }
+
+    /**
+     * Register a count of processed items.
+     *
+     * @param name what is counted, for example {@code "tokens"}
+     * @return the slot to pass to {@link #count(int, long)}
+     */
+    public int item(String name) {
+        final int slot = indexOf(itemNames, name);
+        if (slot >= 0) {
+            return slot;
+        }
+        itemNames = Arrays.copyOf(itemNames, itemNames.length + 1);
+        itemNames[itemNames.length - 1] = name;
+        items = Arrays.copyOf(items, items.length + 1);
+        return items.length - 1;
+    }
+
+    /**
+     * Register the peak size of a queue or buffer.
+     *
+     * @param name what is measured, for example {@code "pending files"}
+     * @return the slot to pass to {@link #peak(int, long)}
+     */
+    public int peak(String name) {
+        final int slot = indexOf(peakNames, name);
+        if (slot >= 0) {
+            return slot;
+        }
+        peakNames = Arrays.copyOf(peakNames, peakNames.length + 1);
+        peakNames[peakNames.length - 1] = name;
+        peaks = Arrays.copyOf(peaks, peaks.length + 1);
+        return peaks.length - 1;
+    }
+
+    public void count(int slot, long n) {
+        items[slot] += n;
+    }
+
+    public void peak(int slot, long size) {
+        if (size > peaks[slot]) {
+            peaks[slot] = size;
+        }
+    }
+
+    /**
+     * Add the measurements of another run of the same pass. Items are summed, peaks take the maximum.
+     *
+     * @param other the measurements to add
+     */
+    public void add(PassStatistics other) {
+        wallNanos += other.wallNanos;
+        allocatedBytes += other.allocatedBytes;
+        runs += other.runs;
+
+        for (int i = 0; i < other.itemNames.length; i++) {
+            count(item(other.itemNames[i]), other.items[i]);
+        }
+        for (int i = 0; i < other.peakNames.length; i++) {
+            peak(peak(other.peakNames[i]), other.peaks[i]);
+        }
+    }
+
+    /**
+     * Clear all measurements, registered slots stay valid.
+     */
+    public void reset() {
+        wallNanos = 0;
+        allocatedBytes = 0;
+        runs = 0;
+        running = false;
+        Arrays.fill(items, 0);
+        Arrays.fill(peaks, 0);
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public String getPass() {
+        return pass;
+    }
+
+    /** @return total wall time measured, in nanoseconds */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /** @return total bytes allocated while measured, or -1 if the JVM cannot measure allocations */
+    public long getAllocatedBytes() {
+        return threads == null ? -1 : allocatedBytes;
+    }
+
+    /** @return the number of times the pass was measured, for example the number of files lexed */
+    public int getRuns() {
+        return runs;
+    }
+
+    /** @return a map of {@code item ==> count}, in registration order */
+    public Map<String, Long> getItems() {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < itemNames.length; i++) {
+            map.put(itemNames[i], items[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /** @return a map of {@code queue ==> peak size}, in registration order */
+    public Map<String, Long> getPeaks() {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < peakNames.length; i++) {
+            map.put(peakNames[i], peaks[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @param name a registered item
+     * @return the number of items processed per second of wall time, 0 if nothing was measured
+     */
+    public double getThroughput(String name) {
+        final int slot = indexOf(itemNames, name);
+        return slot < 0 || wallNanos == 0 ? 0 : items[slot] * 1e9 / wallNanos;
+    }
+
+    /** @return a copy of these measurements */
+    public PassStatistics copy() {
+        final PassStatistics copy = new PassStatistics(pass);
+        copy.add(this);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder s = new StringBuilder();
+        s.append(String.format("%-20s %6d run(s) %10.2f ms %10.1f MB allocated",
+                               pass, runs, wallNanos / 1e6, getAllocatedBytes() / 1e6));
+        for (int i = 0; i < itemNames.length; i++) {
+            s.append(String.format("%n    %-24s %14d  (%.0f/s)", itemNames[i], items[i], getThroughput(itemNames[i])));
+        }
+        for (int i = 0; i < peakNames.length; i++) {
+            s.append(String.format("%n    peak %-19s %14d", peakNames[i], peaks[i]));
+        }
+        return s.toString();
+    }
+}
@@ -5,6 +5,7 @@ import java.util.IllegalFormatConversionException;
 import java.util.Map;
 
 import sim.exception.Status;
+import sim.exception.StatusException;
 import sim.exception.StatusRuntimeException;
 
 public class StatusCodesCpl {
@@ -13,12 +14,28 @@ public class StatusCodesCpl {
 
     //region; status codes
     public static final int BAD_READ = 130;
+    public static final int SOURCE_TOO_LARGE = 131;
+    public static final int BAD_WRITE = 132;
+
+    public static final int COMPILATION_FAILED = 140;
+    public static final int COMPILATION_INTERRUPTED = 141;
+
+    public static final int UNDECLARED_TYPE = 150;
+    public static final int DUPLICATE_ALIAS = 151;
+    public static final int INVALID_DECLARATION = 152;
 
     //endregion
 
     //TODO add messages
     static {
-
+        detailTemplate.put(BAD_READ, "Failed to read source file <%s> at %d:%d");
+        detailTemplate.put(SOURCE_TOO_LARGE, "Source file <%s> is too large to be scanned (%d bytes)");
+        detailTemplate.put(BAD_WRITE, "Failed to write source file <%s>");
+        detailTemplate.put(COMPILATION_FAILED, "Compilation of <%s> failed with %d error(s):%n%s");
+        detailTemplate.put(COMPILATION_INTERRUPTED, "Compilation of <%s> was interrupted");
+        detailTemplate.put(UNDECLARED_TYPE, "Type <%s> of <%s> must be declared before the circuit using it");
+        detailTemplate.put(DUPLICATE_ALIAS, "Alias <%s> is already used in <%s>");
+        detailTemplate.put(INVALID_DECLARATION, "Invalid declaration of <%s>:%n%s");
     }
 
     public static Status message(int code, Object... o) {
@@ -40,6 +57,14 @@ public class StatusCodesCpl {
         return new Status(Status.Location.SYS, code, detail);
     }
 
+    public static StatusException exception(int code, Object... o) {
+        return exception(code, null, o);
+    }
+
+    public static StatusException exception(int code, Throwable cause, Object... o) {
+        return new StatusException(message(code, o), cause);
+    }
+
     public static StatusRuntimeException runtimeException(int code, Object... o) {
         return runtimeException(code, null, o);
     }
@@ -1,78 +1,201 @@
 package sim.compiler.lexer;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import sim.compiler.StatusCodesCpl;
 import sim.exception.StatusRuntimeException;
 
 /**
  * A simple scanner to read through a file character by character.
+ *
+ * <p>The whole source is decoded into a single {@code char[]} when the scanner is created. The file is memory-mapped
+ * so the decoder reads straight from the page cache instead of going through an intermediate reader. Consuming and
+ * peeking characters is plain index arithmetic over that array.
+ *
+ * <p>A scanner can also be created in streaming mode, see {@link #Scanner(File, int)}. The array is then a window
+ * over the source that is refilled as characters are consumed, so memory use does not depend on the file size.
  */
 public class Scanner {
 
     private final String filePath;
     private final String fileName;
 
-    private final BufferedReader input;
+    /** The decoded source, only the characters in {@code [0, limit)} are part of the file */
+    private char[] buffer;
 
-    private LinkedList<Integer> peeked;
+    /** Number of valid characters in {@link #buffer} */
+    private int limit;
+
+    /** Index in {@link #buffer} of the next character to be consumed */
+    private int offset;
 
     private int line;
     private int column;
 
+    //>> Streaming mode only, see #Scanner(File, int)
+
+    /** The file being decoded, {@code null} once all of it has been decoded or if not streaming */
+    private FileChannel channel;
+    private CharsetDecoder decoder;
+
+    /** Bytes read from {@link #channel} but not decoded yet, kept in write mode between refills */
+    private ByteBuffer bytes;
+    private boolean endOfInput;
+
+    /** Offset in the source of {@code buffer[0]}, wraps around for sources of more than 2^31 characters */
+    private int base;
+
+    /** Index in {@link #buffer} of the first character that must survive a refill, see {@link #mark()} */
+    private int mark;
+
+    /**
+     * Create a scanner over the contents of a file. The file is read in full, decoded as UTF-8.
+     *
+     * @param source the file to scan
+     * @throws FileNotFoundException if the source does not exist or is not a regular file
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#BAD_READ} if an IOException occurs while reading the file
+     *  <li>{@link StatusCodesCpl#SOURCE_TOO_LARGE} if the file cannot be held in a single array
+     * </ul>
+     */
     public Scanner(File source) throws FileNotFoundException {
-        this.input = new BufferedReader(new FileReader(source));
+        if (!source.isFile()) {
+            throw new FileNotFoundException(source.getPath() + " (No such file)");
+        }
+
         this.filePath = source.getPath();
         this.fileName = source.getName();
-        this.peeked = new LinkedList<>();
+
+        CharBuffer decoded = decode(source);
+        if (decoded.hasArray() && decoded.arrayOffset() == 0 && decoded.position() == 0) {
+            this.buffer = decoded.array();
+            this.limit = decoded.limit();
+        }
+        else {
+            this.buffer = new char[decoded.remaining()];
+            this.limit = buffer.length;
+            decoded.get(buffer);
+        }
+
+        this.offset = 0;
         this.line = 1;
         this.column = 1;
     }
 
     /**
-     * Get the the line number of the scanner's position in the source file
+     * Create a scanner that decodes a file incrementally (UTF-8) instead of all at once. Only a window of about
+     * {@code window} characters is held in memory, plus whatever has been consumed since the last {@link #mark()}.
+     * There is no limit on the size of the file.
      *
-     * @return the current line the scanner is at
+     * <p>Offsets (see {@link #getOffset()}) wrap around past 2^31 characters. The difference of 2 offsets is still
+     * correct, and {@link #charAt} and {@link #substring} only accept offsets at or after the mark anyway.
+     *
+     * @param source the file to scan
+     * @param window number of characters decoded at a time, must be positive
+     * @throws FileNotFoundException if the source does not exist or is not a regular file
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#BAD_READ} if an IOException occurs while opening or reading the file
+     * </ul>
      */
-    public int getLine() {
-        return line;
+    public Scanner(File source, int window) throws FileNotFoundException {
+        if (!source.isFile()) {
+            throw new FileNotFoundException(source.getPath() + " (No such file)");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("Scanner window must be positive, received " + window);
+        }
+
+        this.filePath = source.getPath();
+        this.fileName = source.getName();
+
+        try {
+            this.channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+        }
+        catch (IOException e) {
+            throw StatusCodesCpl.runtimeException(StatusCodesCpl.BAD_READ, e, fileName, 1, 1);
+        }
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+                                             .onMalformedInput(CodingErrorAction.REPLACE)
+                                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate(window);
+        this.buffer = new char[window];
+        this.limit = 0;
+        this.offset = 0;
+        this.line = 1;
+        this.column = 1;
     }
 
     /**
-     * Get the the column number of the scanner's position in the source file
+     * Create a scanner over source text already held in memory. The array is used as is, not copied.
      *
-     * @return the current column the scanner is at
+     * @param filePath the path reported for this source, used in messages only
+     * @param source the characters to scan
      */
-
-    public int getColumn() {
-        return column;
+    public Scanner(String filePath, char[] source) {
+        this.filePath = filePath;
+        this.fileName = new File(filePath).getName();
+        this.buffer = source;
+        this.limit = source.length;
+        this.offset = 0;
+        this.line = 1;
+        this.column = 1;
     }
 
     /**
-     * Read the next character in file.
+     * Map the file and decode it in one pass.
      *
-     * @return the character read, as an integer from [0 : 65535], or -1 if end of file is reached
-     *          (same as {@code BufferedReader.read()})
-     * @throws StatusRuntimeException with status codes, <ul>
-     *  <li>{@link StatusCodesCpl#BAD_READ} if an IOException occurs
-     * </ul>
+     * @param source the file to decode
+     * @return a buffer holding the decoded characters of the whole file
+     * @throws StatusRuntimeException see {@link #Scanner(File)}
      */
-    private int read() {
-        int i;
+    private CharBuffer decode(File source) {
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                             .onMalformedInput(CodingErrorAction.REPLACE)
+                                                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
 
-        try {
-            i = input.read();
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw StatusCodesCpl.runtimeException(StatusCodesCpl.SOURCE_TOO_LARGE, fileName, size);
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decoder.decode(mapped);
         }
         catch (IOException e) {
-            throw StatusCodesCpl.runtimeException(StatusCodesCpl.BAD_READ, e, fileName, line, column);
+            throw StatusCodesCpl.runtimeException(StatusCodesCpl.BAD_READ, e, fileName, 1, 1);
         }
+    }
 
-        return i;
+    /**
+     * Get the the line number of the scanner's position in the source file
+     *
+     * @return the current line the scanner is at
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Get the the column number of the scanner's position in the source file
+     *
+     * @return the current column the scanner is at
+     */
+
+    public int getColumn() {
+        return column;
     }
 
     /**
@@ -86,30 +209,26 @@ public class Scanner {
      * @return the next character in the input stream
      */
     public char peek(int n) {
-        if (peeked.size() == n+1) {
-            return (char) (int) peeked.remove(n);
-        }
-
-        do {
-            peeked.add(read());
-        } while (peeked.size() <= n);
-        if (peeked.peek() == -1) {
+        final int ahead = Math.max(n, 0);
+        if (offset + ahead >= limit && !fill(ahead)) {
             return '\u0000';
         }
-
-        return (char) (int) peeked.remove(n);
+        return buffer[offset + ahead];
     }
 
     /**
      * Consume and return the next character
      *
+     * <p>At end of file nothing is consumed and a null character (\u0000) is returned, same as {@code peek(0)}.
+     *
      * @return the next character in the input stream
-     *  @throws StatusRuntimeException with status codes, <ul>
-     *  <li>{@link StatusCodesCpl#BAD_READ} if at end of file
-     * </ul>
      */
     public char next() {
-        char p = peek(0);
+        if (offset >= limit && !fill(0)) {
+            return '\u0000';
+        }
+
+        char p = buffer[offset++];
 
         if (p == '\n') {
             line++;
@@ -128,16 +247,108 @@ public class Scanner {
      * @return true if there is a next character, false if EOF
      */
     public boolean hasNext() {
-        if (peeked.peek() != -1) {
-            return true;
+        return offset < limit || fill(0);
+    }
+
+    /**
+     * Get the offset of the scanner's position in the source, counted in characters from the start of the file.
+     * Together with {@link #charAt} and {@link #substring} this lets callers refer back to consumed text without
+     * having to copy it character by character.
+     *
+     * @return the index of the next character to be consumed
+     */
+    public int getOffset() {
+        return base + offset;
+    }
+
+    /**
+     * Mark the scanner's position. In streaming mode, consumed characters before the mark may be discarded when the
+     * window is refilled, so ranges passed to {@link #charAt} and {@link #substring} must not start before it. Has no
+     * effect on a scanner holding the whole source.
+     */
+    public void mark() {
+        mark = offset;
+    }
+
+    /**
+     * Get the character at the given offset in the source, regardless of the scanner's position.
+     *
+     * @param index offset of the character, as returned by {@link #getOffset()}
+     * @return the character at that offset, or a null character (\u0000) if it is outside the source
+     */
+    public char charAt(int index) {
+        final int i = index - base;
+        return (i >= 0 && i < limit) ? buffer[i] : '\u0000';
+    }
+
+    /**
+     * Copy a range of the source into a string.
+     *
+     * @param start offset of the first character (inclusive)
+     * @param end offset of the last character (exclusive)
+     * @return the source text in {@code [start, end)}
+     * @throws IndexOutOfBoundsException if the range is not within the source
+     */
+    public String substring(int start, int end) {
+        final int from = start - base;
+        final int to = end - base;
+        if (from < 0 || to > limit || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") outside of the scanned source");
         }
+        return new String(buffer, from, to - from);
+    }
 
-        peeked.add(read());
+    /**
+     * Decode more of the source in streaming mode, until the character {@code ahead} positions after the current one
+     * is in the window or the source is exhausted. Characters before the {@linkplain #mark() mark} are discarded to
+     * make room, the window only grows if a single token does not fit in it.
+     *
+     * @param ahead how far past the current character the window must reach
+     * @return {@code true} if that character is now in the window
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#BAD_READ} if an IOException occurs while reading the file
+     * </ul>
+     */
+    private boolean fill(int ahead) {
+        while (channel != null && offset + ahead >= limit) {
+            final int discard = Math.min(mark, offset);
+            if (discard > 0) {
+                System.arraycopy(buffer, discard, buffer, 0, limit - discard);
+                limit -= discard;
+                offset -= discard;
+                mark -= discard;
+                base += discard;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
 
-        if (peeked.peek() == -1) {
-            return false;
+            final CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+            try {
+                if (!endOfInput && channel.read(bytes) < 0) {
+                    endOfInput = true;
+                }
+                bytes.flip();
+                final CoderResult result = decoder.decode(bytes, out, endOfInput);
+                bytes.compact();
+
+                if (endOfInput && result.isUnderflow() && decoder.flush(out).isUnderflow()) {
+                    channel.close();
+                    channel = null;
+                }
+            }
+            catch (IOException e) {
+                throw StatusCodesCpl.runtimeException(StatusCodesCpl.BAD_READ, e, fileName, line, column);
+            }
+            limit = out.position();
         }
-        return true;
+
+        return offset + ahead < limit;
+    }
+
+    /** @return the number of characters the scanner holds in memory, the whole source unless streaming */
+    public int getBufferSize() {
+        return buffer.length;
     }
 
     public String getFileName() {
@@ -151,11 +362,19 @@ public class Scanner {
 
 
     /**
-     * Close the scanner
+     * Close the scanner, releasing the decoded source. Afterwards the scanner behaves as if it is at end of file.
      *
      * @throws IOException if an IOException occurs
      */
     public void close() throws IOException {
-        input.close();
+        buffer = new char[0];
+        limit = 0;
+        offset = 0;
+        mark = 0;
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
     }
 }
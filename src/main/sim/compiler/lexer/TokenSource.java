@@ -0,0 +1,45 @@
+package sim.compiler.lexer;
+
+import java.util.List;
+
+/**
+ * Anything tokens can be read from one at a time, either straight from a {@link Tokenizer} or from tokens that were
+ * lexed earlier.
+ */
+public interface TokenSource {
+
+    /**
+     * Read the next token.
+     *
+     * @return the next token, {@code EOF} once the end of the source is reached. Further calls keep returning
+     *         {@code EOF}
+     */
+    Token nextToken();
+
+    /**
+     * Read tokens from a list.
+     *
+     * @param tokens the tokens to read, if the list does not end with an {@code EOF} token one is returned after the
+     *               last token
+     * @return a source reading the list from the start
+     */
+    static TokenSource of(List<Token> tokens) {
+        return new TokenSource() {
+            private int next = 0;
+
+            @Override
+            public Token nextToken() {
+                if (next < tokens.size()) {
+                    return tokens.get(next++);
+                }
+                if (tokens.isEmpty()) {
+                    return new Token(Token.Category.EOF, 1, 1);
+                }
+                final Token last = tokens.get(tokens.size() - 1);
+                return last.category == Token.Category.EOF
+                    ? last
+                    : new Token(Token.Category.EOF, last.position.line, last.position.column);
+            }
+        };
+    }
+}
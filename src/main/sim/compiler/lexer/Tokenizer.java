@@ -2,11 +2,12 @@ package sim.compiler.lexer;
 
 // cspell:disable
 
+import java.util.Arrays;
 import java.util.Map;
 
 import sim.compiler.CompilerPass;
 
-public class Tokenizer extends CompilerPass {
+public class Tokenizer extends CompilerPass implements TokenSource {
 
     private final Scanner scanner;
 
@@ -16,9 +17,9 @@ public class Tokenizer extends CompilerPass {
 
 
     //*>> ---------------------- Mappings: Source text ==> Token.Category ---------------------- */
-    //      All supported tokens (of consistent length) must appear in a map exactly once.       //
-    //      Within each map the entries are arranged in the same order the tokens are            //
-    //      declared within the Token class.                                                     //
+    //      All supported word-like tokens must appear in a map exactly once. Within each map    //
+    //      the entries are arranged in the same order the tokens are declared within the        //
+    //      Token class. Special character tokens are matched directly in nextToken().           //
 
     /**
      * All supported directives
@@ -55,37 +56,62 @@ public class Tokenizer extends CompilerPass {
     );
 
 
+    //*>> ------------------------------- Keyword perfect hash ------------------------------- */
+    //      Reserved identifiers are looked up through a perfect hash so that an identifier is       //
+    //      hashed while it is being read, and compared against at most one keyword afterwards.      //
+
+    /** Number of slots in the keyword table, must be a power of 2 */
+    private static final int KEYWORD_TABLE_SIZE = 64;
+
+    /** Reserved identifiers, stored at the slot given by their hash. Empty slots are {@code null} */
+    private static final String[] keywordText = new String[KEYWORD_TABLE_SIZE];
+
+    /** Token category of the reserved identifier in the same slot of {@link #keywordText} */
+    private static final Token.Category[] keywordCategory = new Token.Category[KEYWORD_TABLE_SIZE];
+
+    /** Initial value of the keyword hash, chosen on class load such that no 2 reserved identifiers collide */
+    private static final int keywordSeed = findKeywordSeed();
+
+    static {
+        for (Map.Entry<String, Token.Category> entry : reservedIdentifierTokens.entrySet()) {
+            final int slot = keywordSlot(keywordHash(entry.getKey(), keywordSeed));
+            keywordText[slot] = entry.getKey();
+            keywordCategory[slot] = entry.getValue();
+        }
+    }
+
+
+    //*>> ------------------------------- Character classification ------------------------------- */
+    //      ASCII characters are classified through a lookup table, anything outside of ASCII        //
+    //      falls back to the corresponding {@code Character} method                                 //
+
+    private static final byte WHITESPACE        = 0b0001;
+    private static final byte IDENTIFIER_START  = 0b0010;
+    private static final byte IDENTIFIER_PART   = 0b0100;
+    private static final byte DIGIT             = 0b1000;
+
+    private static final byte[] asciiClass = new byte[128];
+
+    static {
+        for (char c = 0; c < asciiClass.length; c++) {
+            if (Character.isWhitespace(c))  { asciiClass[c] |= WHITESPACE; }
+            if (Character.isLetter(c))      { asciiClass[c] |= IDENTIFIER_START | IDENTIFIER_PART; }
+            if (Character.isDigit(c))       { asciiClass[c] |= DIGIT | IDENTIFIER_PART; }
+        }
+        asciiClass['_'] |= IDENTIFIER_START | IDENTIFIER_PART;
+        asciiClass['-'] |= IDENTIFIER_PART;
+    }
+
+    /** Statistics slots, see {@link #getStatistics()} */
+    private final int tokensItem = statistics.item("tokens");
+    private final int bufferPeak = statistics.peak("scanner buffer chars");
+
     /**
-     * Map of all tokens consisting of only non-alphanumeric characters. The longest token is 2 characters long
+     * Create a tokenizer reading from a scanner. The {@linkplain #getStatistics() statistics} of the tokenizer count
+     * the tokens read and the largest the scanner's buffer got, timing is left to whoever drives the tokenizer.
+     *
+     * @param scanner the source to tokenize
      */
-    private static final Map<String, Token.Category> specialCharTokens = Map.ofEntries(
-        Map.entry("{", Token.Category.LBRA),
-        Map.entry("}", Token.Category.RBRA),
-        Map.entry("(", Token.Category.LPAR),
-        Map.entry(")", Token.Category.RPAR),
-        Map.entry("[", Token.Category.LSBR),
-        Map.entry("]", Token.Category.RSBR),
-        Map.entry("=", Token.Category.ASSIGN),
-        Map.entry(",", Token.Category.COMMA),
-        Map.entry("-->", Token.Category.ARROW),
-        Map.entry("|->", Token.Category.MAPSTO),
-        Map.entry(":", Token.Category.COLON),
-        Map.entry("::", Token.Category.DOUBLE_COLON),
-
-        // Binary Operators
-        Map.entry("||", Token.Category.LOGOR),
-        Map.entry("&&", Token.Category.LOGAND),
-        Map.entry("<", Token.Category.LT),
-        Map.entry("<=", Token.Category.LE),
-        Map.entry(">", Token.Category.GT),
-        Map.entry(">=", Token.Category.GE),
-        Map.entry("+", Token.Category.PLUS),
-        Map.entry("-", Token.Category.MINUS),
-        Map.entry("*", Token.Category.MULT),
-        Map.entry("/", Token.Category.DIV),
-        Map.entry("%", Token.Category.MODULO)
-    );
-
     public Tokenizer(Scanner scanner) {
         this.scanner = scanner;
     }
@@ -99,86 +125,171 @@ public class Tokenizer extends CompilerPass {
     //            Main functionality of this class is the next token method. This method         //
     //               relies on a number of helper methods defined  below this method             //
 
+    /**
+     * Read the next token from the source.
+     *
+     * <p>Tokens made up of special characters are matched by switching on the first character and then checking at
+     * most 2 characters of lookahead, so no text is copied for them. Comments are skipped in place, a long run of
+     * comments does not grow the call stack.
+     *
+     * @return the next token, {@code EOF} once the end of the source is reached
+     */
+    @Override
     public Token nextToken() {
-        final int line = scanner.getLine();
-        final int column = scanner.getColumn();
-
-        if (!scanner.hasNext()) {
-            return new Token(Token.Category.EOF, line, column);
-        }
-
-        char currentChar = scanner.next();
-
-        // Skip white space between lexems
-        while (Character.isWhitespace(currentChar)) {
-            currentChar = scanner.next();
+        final Token token = readToken();
+        statistics.count(tokensItem, 1);
+        if (token.category == Token.Category.EOF) {
+            statistics.peak(bufferPeak, scanner.getBufferSize());
         }
+        return token;
+    }
 
-        // Max length for special tokens is 3
-        String lookAheadToken = ""  + currentChar + scanner.peek(0) + scanner.peek(1);
-
-        // Check if we have a comment
-        if (lookAheadToken.startsWith(COMMENT_START)) {
-            while (scanner.hasNext() && scanner.peek(0) != '\n') {
+    private Token readToken() {
+        while (true) {
+            // Skip white space between lexems
+            while (isWhitespace(scanner.peek(0))) {
                 scanner.next();
             }
-            return nextToken();
-        }
-        if (lookAheadToken.startsWith(BLOCK_COMMENT_START)) {
-            char prev = ' ';
-            while (scanner.hasNext() && !(("" + prev + scanner.peek(0)).equals("*/"))) {
-                prev = scanner.next();
-            }
-            if (scanner.hasNext()) { // Consume div character (/) for the end of comment, wrapped around if block
-                scanner.next();     // incase we reached end of file
+            scanner.mark();
+
+            final int line = scanner.getLine();
+            final int column = scanner.getColumn();
+
+            if (!scanner.hasNext()) {
+                return new Token(Token.Category.EOF, line, column);
             }
 
-            return nextToken();
-        }
+            final char currentChar = scanner.next();
+
+            // By longest matching rule the longer tokens are checked first
+            switch (currentChar) {
+                case '{': return new Token(Token.Category.LBRA, line, column);
+                case '}': return new Token(Token.Category.RBRA, line, column);
+                case '(': return new Token(Token.Category.LPAR, line, column);
+                case ')': return new Token(Token.Category.RPAR, line, column);
+                case '[': return new Token(Token.Category.LSBR, line, column);
+                case ']': return new Token(Token.Category.RSBR, line, column);
+                case '=': return new Token(Token.Category.ASSIGN, line, column);
+                case ',': return new Token(Token.Category.COMMA, line, column);
+                case '+': return new Token(Token.Category.PLUS, line, column);
+                case '*': return new Token(Token.Category.MULT, line, column);
+                case '%': return new Token(Token.Category.MODULO, line, column);
+
+                case '-':
+                    if (scanner.peek(0) == '-' && scanner.peek(1) == '>') {
+                        scanner.next(); scanner.next();
+                        return new Token(Token.Category.ARROW, line, column);
+                    }
+                    return new Token(Token.Category.MINUS, line, column);
+
+                case '|':
+                    if (scanner.peek(0) == '-' && scanner.peek(1) == '>') {
+                        scanner.next(); scanner.next();
+                        return new Token(Token.Category.MAPSTO, line, column);
+                    }
+                    if (accept('|')) {
+                        return new Token(Token.Category.LOGOR, line, column);
+                    }
+                    break;
+
+                case '&':
+                    if (accept('&')) {
+                        return new Token(Token.Category.LOGAND, line, column);
+                    }
+                    break;
+
+                case ':':
+                    return new Token(accept(':') ? Token.Category.DOUBLE_COLON : Token.Category.COLON, line, column);
+                case '<':
+                    return new Token(accept('=') ? Token.Category.LE : Token.Category.LT, line, column);
+                case '>':
+                    return new Token(accept('=') ? Token.Category.GE : Token.Category.GT, line, column);
+
+                case '/':
+                    if (scanner.peek(0) == '/') {
+                        skipLineComment();
+                        continue;
+                    }
+                    if (scanner.peek(0) == '*') {
+                        skipBlockComment(line, column);
+                        continue;
+                    }
+                    return new Token(Token.Category.DIV, line, column);
+
+                case '"':
+                    return readStringLiteralToken(line, column);
+
+                case '#':
+                    return readDirectiveToken(line, column);
+
+                default:
+                    if (isIdentifierStart(currentChar)) {
+                        return readIdentifierToken(currentChar, line, column);
+                    }
+                    if (isDigit(currentChar)) {
+                        return readNumberToken(line, column);
+                    }
+            }
 
-        // Check if we can match a special char token. By longest matching rule we check the 3 character version first
-        if (specialCharTokens.containsKey(lookAheadToken)) {
-            scanner.next(); scanner.next(); // We are using the 2nd and 3rd character but haven't consumed it yet
-            return new Token(specialCharTokens.get(lookAheadToken), line, column);
-        }
-        if (specialCharTokens.containsKey(lookAheadToken.substring(0,2))) {
-            scanner.next(); // We are using the 2nd character but haven't consumed it yet
-            return new Token(specialCharTokens.get(lookAheadToken), line, column);
-        }
-        if (specialCharTokens.containsKey(String.valueOf(currentChar))) {
-            return new Token(specialCharTokens.get(String.valueOf(currentChar)), line, column);
+            // If we reach this point it means the current character is not the start of any recognized token
+            String errorMessage = "Lexing error: character (" + currentChar +
+                                    ") not recognized as the start of any valid token "+line+":"+column;
+            error(errorMessage);
+            return new Token(Token.Category.INVALID, errorMessage, line, column);
         }
+    }
 
 
-        if (currentChar == '"'){
-            return readStringLiteralToken(line, column);
-        }
+    //*>> ----------------------------------- Helper Methods ----------------------------------- */
+    //      Parsing logic for different types of tokens have been factored into their own        //
+    //      methods. Methods below should only be called when it is ok to assume the next        //
+    //      token must be of that type                                                           //
 
-        if (currentChar == '#') {
-            return readDirectiveToken(line, column);
-        }
 
-        if (Character.isLetter(currentChar) || currentChar == '_') {
-            return readIdentifierToken(currentChar, line, column);
+    /**
+     * Consume the next character if it is the expected one.
+     *
+     * @param expected the character to match
+     * @return {@code true} if the character was matched and consumed
+     */
+    private boolean accept(char expected) {
+        if (scanner.hasNext() && scanner.peek(0) == expected) {
+            scanner.next();
+            return true;
         }
+        return false;
+    }
 
-        if (Character.isDigit(currentChar)) {
-            return readNumberToken(currentChar, line, column);
+    /**
+     * Skip a line comment, the comment start ({@value #COMMENT_START}) has only been partially consumed.
+     * The terminating new line is left for the whitespace skipping.
+     */
+    private void skipLineComment() {
+        while (scanner.hasNext() && scanner.peek(0) != '\n') {
+            scanner.next();
+            scanner.mark(); // Comments are never looked at again, a streaming scanner may drop them
         }
-
-        // If we reach this point it means the current character is not the start of any recognized token
-        String errorMessage = "Lexing error: character (" + currentChar +
-                                ") not recognized as the start of any valid token "+line+":"+column;
-        error(errorMessage);
-        return new Token(Token.Category.INVALID, errorMessage, line, column);
     }
 
+    /**
+     * Skip a block comment, the comment start ({@value #BLOCK_COMMENT_START}) has only been partially consumed.
+     *
+     * @param line the line number where the comment starts
+     * @param column the column number where the comment starts
+     */
+    private void skipBlockComment(int line, int column) {
+        scanner.next(); // Consume the '*' of the comment start, so "/*/" does not end the comment
 
-    //*>> ----------------------------------- Helper Methods ----------------------------------- */
-    //      Parsing logic for different types of tokens have been factored into their own        //
-    //      methods. Methods below should only be called when it is ok to assume the next        //
-    //      token must be of that type                                                           //
+        while (scanner.hasNext()) {
+            scanner.mark();
+            if (scanner.next() == '*' && scanner.peek(0) == '/') {
+                scanner.next();
+                return;
+            }
+        }
 
+        error("Non-terminated block comment starting at "+line+":"+column);
+    }
 
     /**
      * Assume the next token is a directive, attempt to parse it.
@@ -188,16 +299,19 @@ public class Tokenizer extends CompilerPass {
      * @return a token of the corresponding directive, or invalid if its not a recognized directive
      */
     private Token readDirectiveToken(int line, int column) {
-        final StringBuilder sb = new StringBuilder("#");
+        final int start = scanner.getOffset() - 1;
 
-        while (scanner.hasNext() && Character.isLetter(scanner.peek(0))) {
-            sb.append(scanner.next());
-            if (directiveTokens.containsKey(sb.toString())) {
-                return new Token(directiveTokens.get(sb.toString()), line, column);
-            }
+        while (isIdentifierStart(scanner.peek(0))) {
+            scanner.next();
         }
 
-        String errorMessage = "Unrecognized directive <"+sb+"> at "+line+":"+column;
+        final String directive = scanner.substring(start, scanner.getOffset());
+        final Token.Category category = directiveTokens.get(directive);
+        if (category != null) {
+            return new Token(category, line, column);
+        }
+
+        String errorMessage = "Unrecognized directive <"+directive+"> at "+line+":"+column;
         error(errorMessage);
         return new Token(Token.Category.INVALID, errorMessage, line, column);
     }
@@ -213,17 +327,14 @@ public class Tokenizer extends CompilerPass {
      *          before a closing quote
      */
     private Token readStringLiteralToken(int line, int column) {
-        StringBuilder sb = new StringBuilder();
+        final int start = scanner.getOffset();
 
         while (scanner.hasNext()) {
-            char c = scanner.next();
-
             // Terminate String
-            if (c == '"') {
-                return new Token(Token.Category.STRING_LITERAL, sb.toString(), line, column);
+            if (scanner.next() == '"') {
+                return new Token(Token.Category.STRING_LITERAL, scanner.substring(start, scanner.getOffset() - 1),
+                                 line, column);
             }
-
-            sb.append(c);
         }
 
         String errorMessage = "Non-terminated string literal starting at "+line+":"+column;
@@ -235,6 +346,10 @@ public class Tokenizer extends CompilerPass {
     /**
      * Assume the next token is an identifier, parse it.
      *
+     * <p>The identifier is hashed as it is read, so checking whether it is reserved costs one table probe and at
+     * most one comparison. Text is only copied out of the source for non-reserved identifiers. A {@code -} that
+     * starts an arrow ({@code -->}) ends the identifier.
+     *
      * @param firstChar the first character of the identifier
      * @param line the line number where the character of the directive is found
      * @param column the column number where the character of the directive is found
@@ -242,47 +357,130 @@ public class Tokenizer extends CompilerPass {
      *          an identifier token whose data field is the name of the identifier
      */
     private Token readIdentifierToken(char firstChar, int line, int column) {
-        StringBuilder sb = new StringBuilder(Character.toString(firstChar));
+        final int start = scanner.getOffset() - 1;
+        int hash = keywordHashStep(keywordSeed, firstChar);
 
-        while (scanner.hasNext() && (Character.isLetterOrDigit(scanner.peek(0))
-                                    || scanner.peek(0) == '_'
-                                    || scanner.peek(0) == '-')) {
-            sb.append(scanner.next());
+        while (isIdentifierPart(scanner.peek(0))) {
+            if (scanner.peek(0) == '-' && scanner.peek(1) == '-' && scanner.peek(2) == '>') {
+                break;
+            }
+            hash = keywordHashStep(hash, scanner.next());
         }
 
-        String str = sb.toString();
-        if (reservedIdentifierTokens.containsKey(str)) {
-            return new Token(reservedIdentifierTokens.get(str), line, column);
+        final int end = scanner.getOffset();
+        final int slot = keywordSlot(hash);
+        if (keywordText[slot] != null && sourceEquals(start, end, keywordText[slot])) {
+            return new Token(keywordCategory[slot], line, column);
         }
-        return new Token(Token.Category.IDENTIFIER, str, line, column);
+        return new Token(Token.Category.IDENTIFIER, scanner.substring(start, end), line, column);
     }
 
 
     /**
      * Assume the next token is an integer/number, parse it.
      *
-     * @param firstDigit the first digit
      * @param line the line number where the character of the directive is found
      * @param column the column number where the character of the directive is found
      * @return an int literal token is parsed an int, if a decimal is fonud in the number then a number literal
      *          token is returned instead. Both will have the value stored in the data field
      */
-    private Token readNumberToken(char firstDigit, int line, int column) {
-        StringBuilder sb = new StringBuilder();
+    private Token readNumberToken(int line, int column) {
+        final int start = scanner.getOffset() - 1;
 
-        sb.append(firstDigit);
-        while (scanner.hasNext() && Character.isDigit(scanner.peek(0))) {
-            sb.append(scanner.next());
+        while (isDigit(scanner.peek(0))) {
+            scanner.next();
         }
-        if (scanner.hasNext() && scanner.peek(0) != '.') { // End of integer
-            return new Token(Token.Category.INT_LITERAL, sb.toString(), line, column);
+        if (scanner.peek(0) != '.') { // End of integer
+            return new Token(Token.Category.INT_LITERAL, scanner.substring(start, scanner.getOffset()), line, column);
         }
 
         // We have a decimal point as the next number, continue parsing as a number
-        sb.append(scanner.next());
-        while (scanner.hasNext() && Character.isDigit(scanner.peek(0))) {
-            sb.append(scanner.next());
+        scanner.next();
+        while (isDigit(scanner.peek(0))) {
+            scanner.next();
+        }
+        return new Token(Token.Category.NUMBER_LITERAL, scanner.substring(start, scanner.getOffset()), line, column);
+    }
+
+    /**
+     * Compare a consumed range of the source with a string without copying the range.
+     *
+     * @param start offset of the first character (inclusive)
+     * @param end offset of the last character (exclusive)
+     * @param text the string to compare with
+     * @return {@code true} if the range holds exactly the characters of {@code text}
+     */
+    private boolean sourceEquals(int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (scanner.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    //*>> --------------------------------- Static Helpers --------------------------------- */
+
+    private static boolean isWhitespace(char c) {
+        return c < 128 ? (asciiClass[c] & WHITESPACE) != 0 : Character.isWhitespace(c);
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return c < 128 ? (asciiClass[c] & IDENTIFIER_START) != 0 : Character.isLetter(c);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c < 128 ? (asciiClass[c] & IDENTIFIER_PART) != 0 : Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c < 128 ? (asciiClass[c] & DIGIT) != 0 : Character.isDigit(c);
+    }
+
+    /** One step of the keyword hash (FNV-1a), folding in the next character of an identifier */
+    private static int keywordHashStep(int hash, char c) {
+        return (hash ^ c) * 0x01000193;
+    }
+
+    private static int keywordHash(String text, int seed) {
+        int hash = seed;
+        for (int i = 0; i < text.length(); i++) {
+            hash = keywordHashStep(hash, text.charAt(i));
         }
-        return new Token(Token.Category.NUMBER_LITERAL, sb.toString(), line, column);
+        return hash;
+    }
+
+    private static int keywordSlot(int hash) {
+        return (hash ^ (hash >>> 16)) & (KEYWORD_TABLE_SIZE - 1);
+    }
+
+    /**
+     * Search for a hash seed under which all reserved identifiers fall into distinct slots.
+     *
+     * @return the first collision free seed
+     * @throws IllegalStateException if no seed was found, the table is then too small for the number of keywords
+     */
+    private static int findKeywordSeed() {
+        final boolean[] used = new boolean[KEYWORD_TABLE_SIZE];
+
+        search:
+        for (int seed = 0x811C9DC5, attempt = 0; attempt < (1 << 20); seed++, attempt++) {
+            Arrays.fill(used, false);
+            for (String keyword : reservedIdentifierTokens.keySet()) {
+                final int slot = keywordSlot(keywordHash(keyword, seed));
+                if (used[slot]) {
+                    continue search;
+                }
+                used[slot] = true;
+            }
+            return seed;
+        }
+
+        throw new IllegalStateException("No perfect hash found for " + reservedIdentifierTokens.size() +
+                                        " reserved identifiers in a table of size " + KEYWORD_TABLE_SIZE);
     }
 }
@@ -0,0 +1,423 @@
+package sim.compiler.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.CircuitBlueprint;
+import sim.blueprint.ClockBlueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.blueprint.StatusCodesBlp;
+import sim.compiler.CompilerPass;
+import sim.compiler.Position;
+import sim.compiler.StatusCodesCpl;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A sink registering a {@link Blueprint} for every declaration it receives.
+ *
+ * <p>The records of a circuit are int-encoded as they arrive, names are stored once no matter how often they are
+ * referred to. References are resolved when the circuit ends, as the statements of a circuit may come in any order.
+ * Only the circuit being received is held in memory, so memory use is bounded by the largest declaration.
+ *
+ * <p>The types a circuit instantiates must already be registered when the circuit ends, so they must be declared
+ * earlier in the same file or in an included file.
+ *
+ * <h2>Collecting</h2>
+ * A registrar {@linkplain #BlueprintRegistrar(Map) given the blueprints of the included files} collects the
+ * blueprints it creates instead of registering them, see {@link #getDeclared()}. Files can then be received
+ * concurrently, each by its own registrar, and their blueprints registered afterwards in a deterministic order. Types
+ * are looked up among the blueprints collected, then the included ones, then the registered ones.
+ *
+ * <p>The {@linkplain #getStatistics() statistics} of the registrar cover creating and registering blueprints, the
+ * time spent receiving records is part of the time of the parser. Rejected records are thrown, not collected as
+ * errors of the pass.
+ */
+public class BlueprintRegistrar extends CompilerPass implements NetlistSink {
+
+    /** Ints per connection record, {@code [target, targetBus, source, sourceBus, line, column]} */
+    private static final int RECORD_SIZE = 6;
+
+    /** Bus code of a reference without a bus. Other codes are a bus index, or {@code -2 - name} for an alias */
+    private static final int NO_BUS = -1;
+
+    /** Maximum number of problems listed when a circuit cannot be resolved */
+    private static final int MAX_REPORTED = 20;
+
+    //>> The circuit being received, type is null between circuits
+    private String type;
+    private String[] inputs;
+    private String[] outputs;
+    private final Map<String, Integer> inputIndices = new HashMap<>();
+    private final Map<String, Integer> outputIndices = new HashMap<>();
+
+    /** Maps {@code alias ==> index} of the systems instantiated so far */
+    private final Map<String, Integer> systems = new HashMap<>();
+    private final List<String> systemTypes = new ArrayList<>();
+    private final List<String> systemAliases = new ArrayList<>();
+
+    /** Names referred to by connection records, {@code name ==> index in nameList} */
+    private final Map<String, Integer> names = new HashMap<>();
+    private final List<String> nameList = new ArrayList<>();
+
+    private int[] records = new int[RECORD_SIZE * 64];
+    private int numRecords;
+
+    /** Maps {@code type ==> its buses}, for all types instantiated so far */
+    private final Map<String, Buses> buses = new HashMap<>();
+
+    //>> Collecting, both null when registering
+    /** Maps {@code type ==> blueprint} of the types declared by the included files */
+    private final Map<String, Blueprint> included;
+    /** Maps {@code type ==> blueprint} of the types received, in declaration order */
+    private final Map<String, Blueprint> declared;
+
+    /** Statistics slots, see {@link #getStatistics()} */
+    private final int blueprintsItem = statistics.item("blueprints");
+    private final int systemsItem = statistics.item("systems");
+    private final int connectionsItem = statistics.item("connections");
+    private final int connectionsPeak = statistics.peak("connections in a circuit");
+
+
+    //*>> -------------------- Constructors -------------------- */
+
+    /**
+     * A registrar registering every blueprint as soon as its declaration is received.
+     */
+    public BlueprintRegistrar() {
+        included = null;
+        declared = null;
+    }
+
+    /**
+     * A registrar collecting the blueprints of a single file instead of registering them, see
+     * {@link #getDeclared()}.
+     *
+     * @param included maps {@code type ==> blueprint} of the types declared by the files the file includes, not
+     *                 copied
+     */
+    public BlueprintRegistrar(Map<String, Blueprint> included) {
+        this.included = included;
+        this.declared = new LinkedHashMap<>();
+    }
+
+
+    //*>> -------------------- NetlistSink -------------------- */
+
+    @Override
+    public void device(String type, String[] inputs, String[] outputs, long[] table, Position position) {
+        statistics.start();
+        try {
+            add(new DeviceBlueprint(type, inputs, outputs, table));
+            statistics.count(blueprintsItem, 1);
+        }
+        finally {
+            statistics.stop();
+        }
+    }
+
+    @Override
+    public void beginCircuit(String type, String[] inputs, String[] outputs, Position position) {
+        if (lookup(type) != null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_ALREADY_REGISTERED, type);
+        }
+        this.type = type;
+        this.inputs = inputs;
+        this.outputs = outputs;
+
+        for (int i = 0; i < inputs.length; i++) {
+            inputIndices.putIfAbsent(inputs[i], i);
+        }
+        for (int i = 0; i < outputs.length; i++) {
+            outputIndices.putIfAbsent(outputs[i], i);
+        }
+    }
+
+    /**
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#UNDECLARED_TYPE} if the type is not registered
+     *  <li>{@link StatusCodesCpl#DUPLICATE_ALIAS} if another system of the circuit has the same alias
+     * </ul>
+     */
+    @Override
+    public void instance(String type, String alias, Position position) {
+        if (lookup(type) == null) {
+            throw StatusCodesCpl.runtimeException(StatusCodesCpl.UNDECLARED_TYPE, type, alias);
+        }
+        if (systems.putIfAbsent(alias, systemTypes.size()) != null) {
+            throw StatusCodesCpl.runtimeException(StatusCodesCpl.DUPLICATE_ALIAS, alias, this.type);
+        }
+        systemTypes.add(type);
+        systemAliases.add(alias);
+    }
+
+    @Override
+    public void connection(String target, String targetBus, String source, String sourceBus, Position position) {
+        if (numRecords * RECORD_SIZE == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+
+        final int r = numRecords++ * RECORD_SIZE;
+        records[r] = target == null ? CircuitBlueprint.SELF : name(target);
+        records[r + 1] = busCode(targetBus);
+        records[r + 2] = name(source);
+        records[r + 3] = busCode(sourceBus);
+        records[r + 4] = position.line;
+        records[r + 5] = position.column;
+    }
+
+    /**
+     * Resolve all references of the circuit and register it.
+     *
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#INVALID_DECLARATION} if a connection refers to a system or bus that does not
+     *      exist, the message lists the first {@value #MAX_REPORTED} such connections
+     *  <li>{@link sim.blueprint.StatusCodesBlp#MALFORMED_BLUEPRINT} if the blueprint cannot be created
+     * </ul>
+     */
+    @Override
+    public void endCircuit() {
+        statistics.start();
+        statistics.peak(connectionsPeak, numRecords);
+        try {
+            final int[] connections = new int[numRecords * CircuitBlueprint.CONNECTION_SIZE];
+            final List<String> problems = new ArrayList<>();
+            int numProblems = 0;
+
+            for (int c = 0; c < numRecords; c++) {
+                final String problem = resolve(c, connections);
+                if (problem != null && numProblems++ < MAX_REPORTED) {
+                    problems.add(records[c * RECORD_SIZE + 4] + ":" + records[c * RECORD_SIZE + 5] + ": " + problem);
+                }
+            }
+
+            if (numProblems > 0) {
+                if (numProblems > MAX_REPORTED) {
+                    problems.add("... and " + (numProblems - MAX_REPORTED) + " more");
+                }
+                throw StatusCodesCpl.runtimeException(StatusCodesCpl.INVALID_DECLARATION, type,
+                                                      String.join(System.lineSeparator(), problems));
+            }
+
+            add(new CircuitBlueprint(type, inputs, outputs, systemTypes.toArray(new String[0]),
+                                     systemAliases.toArray(new String[0]), connections));
+            statistics.count(blueprintsItem, 1);
+            statistics.count(systemsItem, systemTypes.size());
+            statistics.count(connectionsItem, numRecords);
+        }
+        finally {
+            clear();
+            statistics.stop();
+        }
+    }
+
+    @Override
+    public void abortCircuit() {
+        clear();
+    }
+
+
+    //*>> -------------------- Blueprints -------------------- */
+
+    /**
+     * @return the blueprints collected, in declaration order
+     * @throws IllegalStateException if the registrar registers the blueprints it creates
+     */
+    public List<Blueprint> getDeclared() {
+        if (declared == null) {
+            throw new IllegalStateException("Blueprints are registered, not collected, by this registrar");
+        }
+        return new ArrayList<>(declared.values());
+    }
+
+    /**
+     * Register a blueprint, or collect it.
+     *
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_ALREADY_REGISTERED} if the type is already declared
+     *  <li>see {@link Blueprint#register(Blueprint)} when registering
+     * </ul>
+     */
+    private void add(Blueprint blueprint) {
+        if (declared == null) {
+            Blueprint.register(blueprint);
+            return;
+        }
+        if (lookup(blueprint.getType()) != null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_ALREADY_REGISTERED,
+                                                  blueprint.getType());
+        }
+        declared.put(blueprint.getType(), blueprint);
+    }
+
+    /** @return the blueprint of a type, {@code null} if the type is neither collected, included nor registered */
+    private Blueprint lookup(String type) {
+        if (declared != null) {
+            final Blueprint blueprint = declared.getOrDefault(type, included.get(type));
+            if (blueprint != null) {
+                return blueprint;
+            }
+        }
+        return Blueprint.get(type);
+    }
+
+
+    //*>> -------------------- Resolution -------------------- */
+
+    /** The buses of a type, looked up once per type */
+    private static final class Buses {
+        final Map<String, Integer> inputs = new HashMap<>();
+        final Map<String, Integer> outputs = new HashMap<>();
+        int numInputs;
+        int numOutputs;
+    }
+
+    /**
+     * Resolve connection record {@code c} into {@code connections}.
+     *
+     * @return a description of the problem, or {@code null} if the connection was resolved
+     */
+    private String resolve(int c, int[] connections) {
+        final int r = c * RECORD_SIZE;
+        final int out = c * CircuitBlueprint.CONNECTION_SIZE;
+
+        //>> Target, a system or an output bus of this circuit
+        if (records[r] == CircuitBlueprint.SELF) {
+            final int bus = bus(records[r + 1], outputIndices);
+            if (bus < 0 || bus >= outputs.length) {
+                return "Circuit " + type + " has no output bus " + busName(records[r + 1]);
+            }
+            connections[out] = CircuitBlueprint.SELF;
+            connections[out + 1] = bus;
+        }
+        else {
+            final String alias = nameList.get(records[r]);
+            final Integer target = systems.get(alias);
+            if (target == null) {
+                return "No system <" + alias + "> in " + type;
+            }
+            final Buses targetBuses = buses(systemTypes.get(target));
+            final int bus = bus(records[r + 1], targetBuses.inputs);
+            if (bus < 0 || bus >= targetBuses.numInputs) {
+                return "System <" + alias + "> has no input bus " + busName(records[r + 1]);
+            }
+            connections[out] = target;
+            connections[out + 1] = bus;
+        }
+
+        //>> Source, a system or an input bus of this circuit
+        final String alias = nameList.get(records[r + 2]);
+        final Integer source = systems.get(alias);
+        if (source != null) {
+            final Buses sourceBuses = buses(systemTypes.get(source));
+            final int bus = records[r + 3] == NO_BUS ? 0 : bus(records[r + 3], sourceBuses.outputs);
+            if (bus < 0 || bus >= sourceBuses.numOutputs) {
+                return "System <" + alias + "> has no output bus " + busName(records[r + 3]);
+            }
+            connections[out + 2] = source;
+            connections[out + 3] = bus;
+            return null;
+        }
+
+        final int input = inputIndices.getOrDefault(alias, -1);
+        if (input < 0) {
+            return "No system or input bus <" + alias + "> in " + type;
+        }
+        if (records[r + 3] != NO_BUS) {
+            return "Input bus <" + alias + "> of " + type + " has no buses of its own";
+        }
+        connections[out + 2] = CircuitBlueprint.SELF;
+        connections[out + 3] = input;
+        return null;
+    }
+
+    /**
+     * Resolve a bus code against the aliases of the buses.
+     *
+     * @param indices maps {@code alias ==> bus index}
+     * @return the bus index, or -1 if the alias is not found. Indices are returned as is, the caller checks they are
+     *         in range
+     */
+    private int bus(int code, Map<String, Integer> indices) {
+        if (code >= 0) {
+            return code;
+        }
+        if (code == NO_BUS) {
+            return -1;
+        }
+        return indices.getOrDefault(nameList.get(-2 - code), -1);
+    }
+
+    private String busName(int code) {
+        return code >= 0 ? String.valueOf(code) : code == NO_BUS ? "(none given)" : "<" + nameList.get(-2 - code) + ">";
+    }
+
+    private Buses buses(String type) {
+        return buses.computeIfAbsent(type, t -> {
+            final Buses b = new Buses();
+            switch (lookup(t)) {
+                case DeviceBlueprint device -> {
+                    b.numInputs = device.getNumInputs();
+                    b.numOutputs = device.getNumOutputs();
+                    for (int i = 0; i < b.numInputs; i++) {
+                        b.inputs.putIfAbsent(device.getInputAlias(i), i);
+                    }
+                    for (int i = 0; i < b.numOutputs; i++) {
+                        b.outputs.putIfAbsent(device.getOutputAlias(i), i);
+                    }
+                }
+                case CircuitBlueprint circuit -> {
+                    b.numInputs = circuit.getNumInputs();
+                    b.numOutputs = circuit.getNumOutputs();
+                    for (int i = 0; i < b.numInputs; i++) {
+                        b.inputs.putIfAbsent(circuit.getInputAlias(i), i);
+                    }
+                    for (int i = 0; i < b.numOutputs; i++) {
+                        b.outputs.putIfAbsent(circuit.getOutputAlias(i), i);
+                    }
+                }
+                case ClockBlueprint clock -> {}
+            }
+            return b;
+        });
+    }
+
+    private int name(String name) {
+        final Integer index = names.putIfAbsent(name, nameList.size());
+        if (index != null) {
+            return index;
+        }
+        nameList.add(name);
+        return nameList.size() - 1;
+    }
+
+    private int busCode(String bus) {
+        if (bus == null) {
+            return NO_BUS;
+        }
+        if (Character.isDigit(bus.charAt(0))) {
+            return Integer.parseInt(bus);
+        }
+        return -2 - name(bus);
+    }
+
+    /** Forget the circuit being received */
+    private void clear() {
+        type = null;
+        inputs = null;
+        outputs = null;
+        inputIndices.clear();
+        outputIndices.clear();
+        systems.clear();
+        systemTypes.clear();
+        systemAliases.clear();
+        names.clear();
+        nameList.clear();
+        records = new int[RECORD_SIZE * 64];
+        numRecords = 0;
+    }
+}
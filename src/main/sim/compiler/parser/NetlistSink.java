@@ -0,0 +1,83 @@
+package sim.compiler.parser;
+
+import sim.compiler.Position;
+
+/**
+ * Receives the flat netlist records of a program as the {@link Parser} reads them: device tables, and for every
+ * circuit its instances and connections. No syntax tree is built, a record is passed on as soon as the statement it
+ * comes from has been read.
+ *
+ * <h2>References</h2>
+ * Records refer to systems and buses by the names written in the source, resolving them is up to the sink.
+ * <ul>
+ *  <li>A system is referred to by its alias. In the source of a connection the alias may also be an input bus of
+ *      the circuit itself.
+ *  <li>A bus is referred to by its alias, or by its index written in decimal. Aliases never start with a digit so
+ *      the 2 cannot be confused. {@code null} means no bus was given.
+ * </ul>
+ *
+ * <p>Records of a circuit are always passed between {@link #beginCircuit} and either {@link #endCircuit} or
+ * {@link #abortCircuit}. A sink may throw a {@link sim.exception.StatusRuntimeException} from any method to reject a
+ * record, the parser reports the message at the position of the record and carries on.
+ */
+public interface NetlistSink {
+
+    /**
+     * Called before the records of a file are passed.
+     *
+     * @param path path of the file
+     */
+    default void beginFile(String path) {}
+
+    /**
+     * A device declaration.
+     *
+     * @param type the device type
+     * @param inputs alias of each input bus
+     * @param outputs alias of each output bus
+     * @param table the packed truth table, laid out as described in {@link sim.blueprint.DeviceBlueprint}
+     * @param position position of the declaration
+     */
+    void device(String type, String[] inputs, String[] outputs, long[] table, Position position);
+
+    /**
+     * Start of a circuit declaration, {@code MAIN} included.
+     *
+     * @param type the circuit type, {@code "MAIN"} for the main program
+     * @param inputs alias of each input bus
+     * @param outputs alias of each output bus
+     * @param position position of the declaration
+     */
+    void beginCircuit(String type, String[] inputs, String[] outputs, Position position);
+
+    /**
+     * A system instantiated by the current circuit.
+     *
+     * @param type the type of the system
+     * @param alias the alias of the system within the circuit
+     * @param position position of the statement
+     */
+    void instance(String type, String alias, Position position);
+
+    /**
+     * A connection within the current circuit, output bus {@code sourceBus} of {@code source} drives input bus
+     * {@code targetBus} of {@code target}.
+     *
+     * @param target alias of the receiving system, {@code null} if an output bus of the circuit is driven
+     * @param targetBus the receiving bus, an output bus of the circuit if {@code target} is {@code null}
+     * @param source alias of the driving system, or an input bus of the circuit
+     * @param sourceBus the driving bus, {@code null} if none was given
+     * @param position position of the statement
+     */
+    void connection(String target, String targetBus, String source, String sourceBus, Position position);
+
+    /**
+     * End of the current circuit, all its records have been passed.
+     */
+    void endCircuit();
+
+    /**
+     * End of the current circuit, which had syntax errors. The records passed for it are incomplete.
+     */
+    void abortCircuit();
+}
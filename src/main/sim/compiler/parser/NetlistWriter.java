@@ -0,0 +1,209 @@
+package sim.compiler.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import sim.blueprint.DeviceBlueprint;
+import sim.compiler.Position;
+import sim.compiler.StatusCodesCpl;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A sink writing the records it receives back out as source text, which the {@link Parser} reads into the same
+ * records. Used to produce programs that are too large to be written by hand.
+ *
+ * <p>Records are written as they arrive. Consecutive connections to the same system are written as a single
+ * statement, connections to an output bus of the circuit as a statement of their own, so the order of the records
+ * is kept and nothing but the statement being written is held in memory.
+ *
+ * <p>Device tables are written one row per input combination with only the output columns, in order. Declarations
+ * are separated by an empty line.
+ */
+public class NetlistWriter implements NetlistSink, Closeable {
+
+    /** Rows of a device table written per line */
+    private static final int ROWS_PER_LINE = 16;
+
+    private static final String INDENT = "    ";
+
+    private final Writer out;
+    private final String path;
+
+    /** The connection statement being written, empty if there is none */
+    private final StringBuilder statement = new StringBuilder();
+    private String statementTarget;
+
+    private boolean inCircuit;
+
+
+    /**
+     * @param out where the source text is written, closed by {@link #close()}
+     * @param path path of the written file, used in messages only
+     */
+    public NetlistWriter(Writer out, String path) {
+        this.out = out;
+        this.path = path;
+    }
+
+
+    //*>> -------------------- NetlistSink -------------------- */
+
+    /**
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesCpl#BAD_WRITE} if an IOException occurs while writing
+     * </ul>
+     */
+    @Override
+    public void device(String type, String[] inputs, String[] outputs, long[] table, Position position) {
+        final StringBuilder s = new StringBuilder();
+        s.append("DEVICE ").append(type).append(" {").append(System.lineSeparator());
+        aliases(s.append(INDENT).append("INPUT"), inputs);
+        aliases(s.append(INDENT).append("OUTPUT"), outputs);
+        s.append(INDENT).append("TABLE [");
+
+        final int numRows = 1 << inputs.length;
+        final int words = DeviceBlueprint.wordsPerOutput(inputs.length);
+        for (int row = 0; row < numRows; row++) {
+            if (row % ROWS_PER_LINE == 0 && numRows > ROWS_PER_LINE) {
+                s.append(System.lineSeparator()).append(INDENT).append(INDENT);
+            }
+            else {
+                s.append(' ');
+            }
+            for (int o = 0; o < outputs.length; o++) {
+                s.append((table[o * words + (row >>> 6)] >>> (row & 63) & 1L) != 0 ? '1' : '0');
+            }
+        }
+        if (numRows > ROWS_PER_LINE) {
+            s.append(System.lineSeparator()).append(INDENT);
+        }
+        else {
+            s.append(' ');
+        }
+        s.append(']').append(System.lineSeparator()).append('}').append(System.lineSeparator())
+         .append(System.lineSeparator());
+        write(s);
+    }
+
+    /**
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void beginCircuit(String type, String[] inputs, String[] outputs, Position position) {
+        final StringBuilder s = new StringBuilder();
+        s.append(type.equals("MAIN") ? "MAIN" : "CIRCUIT " + type).append(" {").append(System.lineSeparator());
+        if (inputs.length > 0) {
+            aliases(s.append(INDENT).append("INPUT"), inputs);
+        }
+        if (outputs.length > 0) {
+            aliases(s.append(INDENT).append("OUTPUT"), outputs);
+        }
+        write(s);
+        inCircuit = true;
+    }
+
+    /**
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void instance(String type, String alias, Position position) {
+        flushStatement();
+        write(INDENT + "INSTANTIATE " + type + " AS " + alias + System.lineSeparator());
+    }
+
+    /**
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void connection(String target, String targetBus, String source, String sourceBus, Position position) {
+        if (target == null) {
+            flushStatement();
+            write(INDENT + source + "()" + (sourceBus == null ? "" : "::" + sourceBus) + " --> " + targetBus +
+                  System.lineSeparator());
+            return;
+        }
+
+        if (!target.equals(statementTarget)) {
+            flushStatement();
+            statementTarget = target;
+            statement.append(INDENT).append(target).append('(');
+        }
+        else {
+            statement.append(", ");
+        }
+        statement.append(targetBus).append(" = ").append(source);
+        if (sourceBus != null) {
+            statement.append("::").append(sourceBus);
+        }
+    }
+
+    /**
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void endCircuit() {
+        flushStatement();
+        write("}" + System.lineSeparator() + System.lineSeparator());
+        inCircuit = false;
+    }
+
+    /**
+     * The circuit is closed as is, the source written for it is as incomplete as the records received.
+     *
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void abortCircuit() {
+        endCircuit();
+    }
+
+
+    //*>> -------------------- Writing -------------------- */
+
+    /**
+     * Write the statement being written, if any.
+     */
+    private void flushStatement() {
+        if (statementTarget == null) {
+            return;
+        }
+        statement.append(')').append(System.lineSeparator());
+        write(statement);
+        statement.setLength(0);
+        statementTarget = null;
+    }
+
+    private static void aliases(StringBuilder s, String[] aliases) {
+        for (String alias : aliases) {
+            s.append(' ').append(alias);
+        }
+        s.append(System.lineSeparator());
+    }
+
+    private void write(CharSequence text) {
+        try {
+            out.append(text);
+        }
+        catch (IOException e) {
+            throw StatusCodesCpl.runtimeException(StatusCodesCpl.BAD_WRITE, e, path);
+        }
+    }
+
+    /**
+     * Close an unfinished circuit, if any, and close the writer.
+     *
+     * @throws IOException if the writer cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inCircuit) {
+                endCircuit();
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package sim.compiler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sim.blueprint.DeviceBlueprint;
+import sim.compiler.CompilerPass;
+import sim.compiler.Position;
+import sim.compiler.lexer.Token;
+import sim.compiler.lexer.TokenSource;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A single pass parser reading the tokens of one file and passing the flat netlist records it contains on to a
+ * {@link NetlistSink}, see {@code sb_syntax/syntax_grammar.txt} for the grammar.
+ *
+ * <p>Tokens are read one at a time and nothing is kept once a statement has been passed on, so the memory used does
+ * not depend on the size of the file. Only the records of a device table are gathered before being passed on, as the
+ * table is a single record.
+ *
+ * <p>On a syntax error the rest of the statement is skipped and parsing resumes at the next statement. A circuit with
+ * syntax errors is ended with {@link NetlistSink#abortCircuit()}.
+ *
+ * <p>The {@linkplain #getStatistics() statistics} of the parser count the tokens, declarations, instances and
+ * connections read. As tokens are pulled from the source and records pushed into the sink while parsing, the time
+ * of the parser includes the time spent in the source and the sink.
+ */
+public class Parser extends CompilerPass {
+
+    private final String filePath;
+    private final TokenSource source;
+    private final NetlistSink sink;
+
+    /** The token being looked at */
+    private Token current;
+
+    /** The token after {@link #current} */
+    private Token lookahead;
+
+    /** Number of braces opened and not closed before {@link #current} */
+    private int depth;
+
+    /** Statistics slots, see {@link #getStatistics()} */
+    private final int tokensItem = statistics.item("tokens");
+    private final int declarationsItem = statistics.item("declarations");
+    private final int instancesItem = statistics.item("instances");
+    private final int connectionsItem = statistics.item("connections");
+    private final int argumentsPeak = statistics.peak("connection arguments");
+
+    /**
+     * @param filePath path of the file, used in messages
+     * @param source the tokens of the file
+     * @param sink receives the records of the file
+     */
+    public Parser(String filePath, TokenSource source, NetlistSink sink) {
+        this.filePath = filePath;
+        this.source = source;
+        this.sink = sink;
+    }
+
+    /** Thrown on a syntax error, unwinds to the statement being parsed */
+    private static final class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SyntaxError(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+
+    //*>> -------------------- Declarations -------------------- */
+
+    /**
+     * Parse the whole file.
+     */
+    public void parse() {
+        statistics.start();
+        current = source.nextToken();
+        lookahead = source.nextToken();
+        statistics.count(tokensItem, 2);
+        sink.beginFile(filePath);
+
+        while (current.category != Token.Category.EOF) {
+            final Token start = current;
+            depth = 0;
+            try {
+                switch (current.category) {
+                    case INCLUDE -> {
+                        advance();
+                        expect(Token.Category.STRING_LITERAL, Token.Category.IDENTIFIER);
+                    }
+                    case DEVICE -> parseDevice();
+                    case CIRCUIT -> parseCircuit(false);
+                    case MAIN -> parseCircuit(true);
+                    case CLOCK -> {
+                        error(start.position, "CLOCK declarations cannot be compiled yet");
+                        advance();
+                        skipDeclaration();
+                    }
+                    default -> throw syntaxError("a declaration");
+                }
+            }
+            catch (SyntaxError e) {
+                error(e.getMessage());
+                skipDeclaration();
+            }
+            catch (StatusRuntimeException e) {
+                error(start.position, e.getMessage());
+                skipDeclaration();
+            }
+        }
+        statistics.stop();
+    }
+
+    /**
+     * {@code "DEVICE" new-type "{" input output table "}"}
+     */
+    private void parseDevice() {
+        final Position position = current.position;
+        advance();
+        final String type = expect(Token.Category.IDENTIFIER).data;
+        expect(Token.Category.LBRA);
+
+        final String[] inputs = parseAliases(Token.Category.INPUT);
+        final String[] outputs = parseAliases(Token.Category.OUTPUT);
+
+        if (current.category == Token.Category.FUNCTION || current.category == Token.Category.MAPSTO
+            || current.category == Token.Category.IDENTIFIER) {
+            throw syntaxError("a TABLE, devices defined by functions cannot be compiled yet");
+        }
+        expect(Token.Category.TABLE);
+        final long[] table = parseTable(inputs, outputs);
+        expect(Token.Category.RBRA);
+
+        sink.device(type, inputs, outputs, table, position);
+        statistics.count(declarationsItem, 1);
+    }
+
+    /**
+     * {@code "CIRCUIT" new-type "{" input output {instantiate* connection+} "}"}, or the main program
+     * {@code "MAIN" "{" [input] [output] {instantiate* connection+} "}"}
+     */
+    private void parseCircuit(boolean main) {
+        final Position position = current.position;
+        advance();
+        final String type = main ? "MAIN" : expect(Token.Category.IDENTIFIER).data;
+        expect(Token.Category.LBRA);
+
+        final String[] inputs = parseAliases(Token.Category.INPUT);
+        final String[] outputs = parseAliases(Token.Category.OUTPUT);
+        sink.beginCircuit(type, inputs, outputs, position);
+
+        final int errorsBefore = getNumErrors();
+        while (current.category != Token.Category.RBRA && current.category != Token.Category.EOF) {
+            if (isDeclarationStart(current.category)) {
+                break; // Missing closing brace, reported below
+            }
+
+            final Token start = current;
+            try {
+                switch (current.category) {
+                    case INSTANTIATE, INSTANTIATE_COUNT, INSTANTIATE_LAZY -> parseInstantiate();
+                    case IDENTIFIER -> parseConnection();
+                    default -> throw syntaxError("INSTANTIATE or a connection");
+                }
+            }
+            catch (SyntaxError e) {
+                error(e.getMessage());
+                skipStatement();
+            }
+            catch (StatusRuntimeException e) {
+                error(start.position, e.getMessage());
+            }
+        }
+
+        if (current.category != Token.Category.RBRA) {
+            error(current.position, "Expected } to close " + type + " declared at " + position);
+        }
+        else {
+            advance();
+        }
+
+        statistics.count(declarationsItem, 1);
+        if (getNumErrors() == errorsBefore) {
+            sink.endCircuit();
+        }
+        else {
+            sink.abortCircuit();
+        }
+    }
+
+    /**
+     * {@code [keyword ident ([","] ident)*]}
+     *
+     * @return the aliases, empty if the keyword is not there
+     */
+    private String[] parseAliases(Token.Category keyword) {
+        final List<String> aliases = new ArrayList<>();
+        if (!accept(keyword)) {
+            return new String[0];
+        }
+
+        while (current.category == Token.Category.IDENTIFIER) {
+            aliases.add(current.data);
+            advance();
+            accept(Token.Category.COMMA);
+        }
+        return aliases.toArray(new String[0]);
+    }
+
+    /**
+     * {@code "[" ident* int* "]"}, the {@code TABLE} keyword has been consumed.
+     *
+     * <p>The identifiers name the columns, they must be the input aliases followed by the output aliases. Each int is
+     * one row written as binary digits, either the values of all columns, or only of the outputs in which case the
+     * rows are in order ({@code 0, 1, 2, ...} with input 0 as the least significant bit).
+     *
+     * @return the packed table, see {@link DeviceBlueprint}
+     */
+    private long[] parseTable(String[] inputs, String[] outputs) {
+        final Position position = current.position;
+        expect(Token.Category.LSBR);
+
+        int column = 0;
+        while (current.category == Token.Category.IDENTIFIER) {
+            final String expected = column < inputs.length ? inputs[column]
+                                  : column - inputs.length < outputs.length ? outputs[column - inputs.length] : null;
+            if (!current.data.equals(expected)) {
+                throw syntaxError("column " + (expected == null ? "to end" : expected));
+            }
+            column++;
+            advance();
+        }
+        if (column != 0 && column != inputs.length + outputs.length) {
+            throw syntaxError("column " + (column < inputs.length ? inputs[column] : outputs[column - inputs.length]));
+        }
+        if (inputs.length > DeviceBlueprint.MAX_INPUTS) {
+            throw new SyntaxError(location(position) + "A TABLE has at most " + DeviceBlueprint.MAX_INPUTS +
+                                  " inputs, found " + inputs.length);
+        }
+
+        final int numRows = 1 << inputs.length;
+        final int words = DeviceBlueprint.wordsPerOutput(inputs.length);
+        final long[] table = new long[outputs.length * words];
+        final long[] seen = new long[(numRows + 63) >>> 6];
+
+        int rows = 0;
+        while (current.category == Token.Category.INT_LITERAL) {
+            final String digits = current.data;
+            final boolean full = digits.length() == inputs.length + outputs.length;
+            if (!full && digits.length() != outputs.length) {
+                throw syntaxError("a row of " + (inputs.length + outputs.length) + " or " + outputs.length + " digits");
+            }
+            if (rows == numRows) {
+                throw syntaxError("] after " + numRows + " rows");
+            }
+
+            int row = rows;
+            if (full) {
+                row = 0;
+                for (int i = 0; i < inputs.length; i++) {
+                    row |= digit(digits.charAt(i)) << i;
+                }
+                if ((seen[row >>> 6] & (1L << row)) != 0) {
+                    throw new SyntaxError(location(current.position) + "Row for inputs " +
+                                          digits.substring(0, inputs.length) + " given more than once");
+                }
+            }
+            seen[row >>> 6] |= 1L << row;
+
+            final int firstOutput = full ? inputs.length : 0;
+            for (int o = 0; o < outputs.length; o++) {
+                if (digit(digits.charAt(firstOutput + o)) != 0) {
+                    table[o * words + (row >>> 6)] |= 1L << row;
+                }
+            }
+            rows++;
+            advance();
+        }
+
+        if (rows != numRows) {
+            throw syntaxError(numRows + " rows, found " + rows + " and then");
+        }
+        expect(Token.Category.RSBR);
+        return table;
+    }
+
+    private int digit(char c) {
+        if (c != '0' && c != '1') {
+            throw syntaxError("a row of binary digits");
+        }
+        return c - '0';
+    }
+
+
+    //*>> -------------------- Statements -------------------- */
+
+    /**
+     * {@code ("INSTANTIATE" | "INSTANTIATE_LAZY") type "AS" alias}, or {@code "INSTANTIATE_COUNT" type int alias}
+     * which instantiates {@code alias_0, alias_1, ...}
+     */
+    private void parseInstantiate() {
+        final Position position = current.position;
+        final Token.Category kind = current.category;
+        advance();
+        final String type = expect(Token.Category.IDENTIFIER).data;
+
+        if (kind != Token.Category.INSTANTIATE_COUNT) {
+            expect(Token.Category.AS);
+            sink.instance(type, expect(Token.Category.IDENTIFIER).data, position);
+            statistics.count(instancesItem, 1);
+            return;
+        }
+
+        final Token count = expect(Token.Category.INT_LITERAL);
+        final String alias = expect(Token.Category.IDENTIFIER).data;
+        final int n = parseInt(count);
+        for (int i = 0; i < n; i++) {
+            sink.instance(type, alias + "_" + i, position);
+        }
+        statistics.count(instancesItem, n);
+    }
+
+    /**
+     * {@code ident "(" [arg ("," arg)*] ")" [["::" (int | ident) | "[" int "]"] "-->" (int | ident)]}
+     *
+     * <p>An argument without an input bus feeds the input bus at its position in the argument list.
+     */
+    private void parseConnection() {
+        final Position position = current.position;
+        final String target = expect(Token.Category.IDENTIFIER).data;
+        expect(Token.Category.LPAR);
+
+        // The statement is read in full before anything is passed on, a syntax error passes on nothing
+        final List<String> references = new ArrayList<>();
+        int argument = 0;
+        if (current.category != Token.Category.RPAR) {
+            do {
+                String targetBus = String.valueOf(argument);
+                if (current.category == Token.Category.INT_LITERAL || current.category == Token.Category.LSBR
+                    || (current.category == Token.Category.IDENTIFIER && lookahead.category == Token.Category.ASSIGN)) {
+                    targetBus = parseBus(false);
+                    expect(Token.Category.ASSIGN);
+                }
+                else if (accept(Token.Category.ASSIGN)) {
+                    // Empty input reference, positional
+                }
+
+                references.add(targetBus);
+                references.add(expect(Token.Category.IDENTIFIER).data);
+                references.add(parseBus(true));
+                argument++;
+            } while (accept(Token.Category.COMMA));
+        }
+        expect(Token.Category.RPAR);
+
+        String outputBus = null;
+        String circuitOutput = null;
+        if (current.category == Token.Category.DOUBLE_COLON || current.category == Token.Category.LSBR) {
+            outputBus = parseBus(true);
+            if (current.category != Token.Category.ARROW) {
+                throw syntaxError("--> after the output bus of " + target);
+            }
+        }
+        if (accept(Token.Category.ARROW)) {
+            circuitOutput = expect(Token.Category.INT_LITERAL, Token.Category.IDENTIFIER).data;
+        }
+
+        for (int i = 0; i < references.size(); i += 3) {
+            sink.connection(target, references.get(i), references.get(i + 1), references.get(i + 2), position);
+        }
+        if (circuitOutput != null) {
+            sink.connection(null, circuitOutput, target, outputBus, position);
+        }
+        statistics.count(connectionsItem, argument + (circuitOutput != null ? 1 : 0));
+        statistics.peak(argumentsPeak, argument);
+    }
+
+    /**
+     * An input bus {@code (int | ident | "[" int "]")}, or an output bus selector
+     * {@code [("::" (int | ident)) | ("[" int "]")]} following a system alias.
+     *
+     * @param selector whether to parse an output bus selector, which may be absent
+     * @return the bus, {@code null} if an optional selector is absent
+     */
+    private String parseBus(boolean selector) {
+        if (accept(Token.Category.LSBR)) {
+            final String index = String.valueOf(parseInt(expect(Token.Category.INT_LITERAL)));
+            expect(Token.Category.RSBR);
+            return index;
+        }
+        if (selector && !accept(Token.Category.DOUBLE_COLON)) {
+            return null;
+        }
+
+        final Token bus = expect(Token.Category.INT_LITERAL, Token.Category.IDENTIFIER);
+        return bus.category == Token.Category.INT_LITERAL ? String.valueOf(parseInt(bus)) : bus.data;
+    }
+
+    private int parseInt(Token token) {
+        try {
+            return Integer.parseInt(token.data);
+        }
+        catch (NumberFormatException e) {
+            throw new SyntaxError(location(token.position) + "Integer " + token.data + " is out of range");
+        }
+    }
+
+
+    //*>> -------------------- Token handling -------------------- */
+
+    private void advance() {
+        if (current.category == Token.Category.LBRA) {
+            depth++;
+        }
+        else if (current.category == Token.Category.RBRA) {
+            depth = Math.max(0, depth - 1);
+        }
+
+        current = lookahead;
+        if (lookahead.category != Token.Category.EOF) {
+            lookahead = source.nextToken();
+            statistics.count(tokensItem, 1);
+        }
+    }
+
+    private boolean accept(Token.Category category) {
+        if (current.category == category) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume the current token, which must be of one of the given categories.
+     *
+     * @return the consumed token
+     * @throws SyntaxError if the current token is of another category
+     */
+    private Token expect(Token.Category... categories) {
+        for (Token.Category category : categories) {
+            if (current.category == category) {
+                final Token token = current;
+                advance();
+                return token;
+            }
+        }
+
+        final List<String> expected = new ArrayList<>();
+        for (Token.Category category : categories) {
+            expected.add(category.name());
+        }
+        throw syntaxError(String.join(" or ", expected));
+    }
+
+    private SyntaxError syntaxError(String expected) {
+        final String found = current.category == Token.Category.IDENTIFIER
+                             || current.category == Token.Category.INT_LITERAL
+                             ? current.category + " <" + current.data + ">" : current.category.name();
+        return new SyntaxError(location(current.position) + "Expected " + expected + " but found " + found);
+    }
+
+    private String location(Position position) {
+        return filePath + ":" + position + ": ";
+    }
+
+    private void error(Position position, String message) {
+        error(location(position) + message);
+    }
+
+    private static boolean isDeclarationStart(Token.Category category) {
+        return switch (category) {
+            case DEVICE, CIRCUIT, CLOCK, MAIN, INCLUDE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Skip to the start of the next statement in a circuit body: an instantiation, a system alias followed by
+     * {@code (}, or the end of the body.
+     */
+    private void skipStatement() {
+        while (current.category != Token.Category.EOF && current.category != Token.Category.RBRA
+               && !isDeclarationStart(current.category)) {
+            switch (current.category) {
+                case INSTANTIATE, INSTANTIATE_COUNT, INSTANTIATE_LAZY -> { return; }
+                case IDENTIFIER -> {
+                    if (lookahead.category == Token.Category.LPAR) {
+                        return;
+                    }
+                }
+                default -> {}
+            }
+            advance();
+        }
+    }
+
+    /**
+     * Skip past the end of the current declaration, the brace closing its body. Stops early at the start of another
+     * declaration outside of any braces.
+     */
+    private void skipDeclaration() {
+        while (current.category != Token.Category.EOF) {
+            if (depth == 0 && isDeclarationStart(current.category)) {
+                return;
+            }
+
+            final boolean closesBody = current.category == Token.Category.RBRA && depth == 1;
+            advance();
+            if (closesBody) {
+                return;
+            }
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package sim.component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import sim.adt.BiMap;
 import sim.blueprint.Blueprint;
@@ -10,6 +16,9 @@ import sim.component.connection.OutputPointer;
 import sim.component.gates.BufferGate;
 import sim.controller.IdGenerator;
 import sim.exception.StatusRuntimeException;
+import sim.metrics.SettleEvent;
+import sim.metrics.SimulationMetrics;
+import sim.metrics.ToggleCounts;
 
 /**
  * A circuit is a composite system. Unlike devices it has an internal state (beyond the values of IO buses) and its
@@ -59,6 +68,62 @@ public class Circuit implements System {
      */
     // protected final HashSet<System> unstableSystems;
 
+    /** Maps {@code alias ==> system} of the internal systems, in the order they were added */
+    protected final Map<String, System> internalSystems;
+
+    /** Maximum number of update rounds per {@link #update} call before the circuit is considered unstable */
+    public static final int MAX_UPDATE_ROUNDS = 1 << 16;
+
+    //>> Propagation network, built on the first update after the internal systems or connections change
+
+    /** Input buffer gates, then internal systems, then output buffer gates. {@code null} if not built */
+    private System[] nodes;
+
+    /** {@code node ==> indices of the nodes reading its outputs}, each listed once */
+    private int[][] dependents;
+
+    /** Output words of every node as of the last round, the outputs of node n start at {@code stateOffset[n]} */
+    private long[] state;
+    private int[] stateOffset;
+
+    /** Unknown planes of the outputs in {@link #state}, {@code null} outside four-state mode or if not built */
+    private long[] unknownState;
+
+    //>> Work lists of an update, a node is queued at most once per round
+    private int[] current;
+    private int[] next;
+    private int[] queuedRound;
+    private int round;
+
+    /** Indices of the nodes that are circuits, left unsettled when their own update is cut off */
+    private int[] nestedNodes;
+
+    /** Number of devices evaluated by an update that updates everything, nested circuits included */
+    private long numDevices;
+
+    //>> Activity of the last update, nested circuits included, read by the parent circuit
+    private long lastEvaluations;
+    private long lastToggles;
+    private long lastEvents;
+
+    /** Where the activity of every update is recorded, {@code null} if not recorded */
+    private SimulationMetrics metrics;
+
+    /** Where the transitions of every output bus are counted, {@code null} if not counted */
+    private ToggleCounts toggleCounts;
+
+    /** The net of every state slot in {@link #toggleCounts}, {@code null} if not counted or not built */
+    private int[] toggleNets;
+
+    /** Number of nodes left queued by the last update, at the start of {@link #current}, 0 if it settled */
+    private int pending;
+
+    /** Whether this circuit was added to another, its updates are then part of the ticks of the outermost circuit */
+    private boolean isNested;
+
+    /** Whether this circuit and every system in it are in four-state mode */
+    private boolean fourState;
+
 
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                                 Constructor                                                 <<*//
@@ -131,6 +196,7 @@ public class Circuit implements System {
         this.inputAlias = new BiMap<Integer, String>();
         this.outputAlias = new BiMap<Integer, String>();
         this.id = IdGenerator.get();
+        this.internalSystems = new LinkedHashMap<>();
 
         //>> Set Aliases
 
@@ -152,7 +218,7 @@ public class Circuit implements System {
             this.inputAlias.put(i, inputPinAlias[i]);
         }
         for (int i = 0; i < outputPinAlias.length; i++) {
-            this.inputAlias.put(i, outputPinAlias[i]);
+            this.outputAlias.put(i, outputPinAlias[i]);
         }
 
         //>> Create input buffer gates
@@ -182,8 +248,8 @@ public class Circuit implements System {
      */
     public static final String[] generateDefaultPinAliases(int numberOfPins) {
         String[] defaultPinAlias = new String[numberOfPins];
-        for(int i = 1; i < numberOfPins + 1; i++) {
-            defaultPinAlias[i] = Integer.toString(i);
+        for(int i = 0; i < numberOfPins; i++) {
+            defaultPinAlias[i] = Integer.toString(i + 1);
         }
         return defaultPinAlias;
     }
@@ -193,12 +259,61 @@ public class Circuit implements System {
     //*>>                                            Blueprint Management                                             <<*//
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
 
+    /**
+     * Register the blueprint of this circuit, see {@link CircuitBlueprint#of(Circuit)}. The internal systems and
+     * connections are fixed from then on.
+     *
+     * @throws StatusRuntimeException see {@link CircuitBlueprint#of(Circuit)} and {@link Blueprint#register}
+     */
     public void register() {
-        Blueprint.register(new CircuitBlueprint(this));
+        Blueprint.register(CircuitBlueprint.of(this));
         this.isRegistered = true;
     }
 
 
+    //*>> ----------------------------------------------------------------------------------------------------------- <<*//
+    //*>>                                              Internal Systems                                               <<*//
+    //*>> ----------------------------------------------------------------------------------------------------------- <<*//
+
+    /**
+     * Add a system to the inside of this circuit. Only internal systems are updated by {@link #update}, a system
+     * connected to this circuit's IO buses without being added is read but never updated.
+     *
+     * @param alias the alias of the system within this circuit
+     * @param system the system to add, must not be part of another circuit
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#DUPLICATE_SYSTEM_ALIAS} if another internal system has the same alias
+     *  <li>{@link StatusCodesSys#REGISTERED_CIRCUIT_MODIFIED} if this circuit is {@linkplain #register registered}
+     * </ul>
+     */
+    public void addInternalSystem(String alias, System system) {
+        checkNotRegistered();
+        if (internalSystems.putIfAbsent(alias, system) != null) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.DUPLICATE_SYSTEM_ALIAS, alias, type);
+        }
+        if (system instanceof Circuit circuit) {
+            circuit.isNested = true;
+        }
+        if (fourState) {
+            system.setFourState(true);
+        }
+        nodes = null;
+    }
+
+    /**
+     * @param alias the alias of an internal system
+     * @return the internal system, or {@code null} if there is no such system
+     */
+    public System getInternalSystem(String alias) {
+        return internalSystems.get(alias);
+    }
+
+    /** @return an unmodifiable map of {@code alias ==> system} of the internal systems, in the order they were added */
+    public Map<String, System> getInternalSystems() {
+        return Collections.unmodifiableMap(internalSystems);
+    }
+
+
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                               Connect systems                                               <<*//
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
@@ -219,6 +334,17 @@ public class Circuit implements System {
         inputBus[this.inAliasToIndex(toBus)].connectInput(fromSystem, fromBus, "0");
     }
 
+    /**
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void connectInput(System fromSystem, int fromBus, int toBus) {
+        if (toBus < 0 || toBus >= inputBus.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, toBus);
+        }
+        inputBus[toBus].connectInput(fromSystem, fromBus, 0);
+    }
+
     /**
      * Establish a unidirectional connection between an internal system and a circuit's IO bus.
      *
@@ -241,13 +367,14 @@ public class Circuit implements System {
      * @throws IllegalArgumentException if one of the given buses do not exist or the circuit is not one of the
      *                                  system input
      * @throws ExistingConnectionException if the receiving bus has an existing connection
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#REGISTERED_CIRCUIT_MODIFIED} if this circuit is {@linkplain #register registered}
+     * </ul>
      * @see #connectInput
      */
     public void connectInternalBus(System sourceSystem, String sourceBus,
                                    System targetSystem, String targetBus) {
-        if (isRegistered) {
-            //TODO error
-        }
+        checkNotRegistered();
 
         // To make a connection from a circuit IO bus to a system, the circuit must be passed as one of the devices
         if (!((sourceSystem == this) ^ (targetSystem == this))) {
@@ -267,15 +394,198 @@ public class Circuit implements System {
             int targetBusConverted = this.outAliasToIndex(targetBus);
             this.outputBus[targetBusConverted].connectInput(sourceSystem, sourceBus, "0");
         }
+        nodes = null;
+    }
+
+    /**
+     * Establish a unidirectional connection inside this circuit, referring to buses by index. Either system may be
+     * this circuit, where the source bus is then an input bus of the circuit and the target bus an output bus. Both
+     * may be this circuit, passing an input bus straight through to an output bus.
+     *
+     * <p>Unlike {@link #connectInternalBus} this also connects 2 internal systems to each other, which is the same as
+     * calling {@link System#connectInput(System, int, int)} on the target, apart from this circuit noting the change.
+     *
+     * @param sourceSystem  the system containing the {@code sourceBus}
+     * @param sourceBus     index of the output bus from which the signal originates from
+     * @param targetSystem  the system containing the {@code targetBus}
+     * @param targetBus     index of the input bus to receive the signal
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#EXISTING_CONNECTION} if the receiving bus has an existing connection
+     *  <li>{@link StatusCodesSys#UNKNOWN_INPUT_INDEX} if the {@code targetBus} does not exist
+     *  <li>{@link StatusCodesSys#UNKNOWN_OUTPUT_INDEX} if the {@code sourceBus} does not exist
+     *  <li>{@link StatusCodesSys#REGISTERED_CIRCUIT_MODIFIED} if this circuit is {@linkplain #register registered}
+     * </ul>
+     */
+    public void connectInternal(System sourceSystem, int sourceBus, System targetSystem, int targetBus) {
+        checkNotRegistered();
+        System from = sourceSystem;
+        int fromBus = sourceBus;
+        if (sourceSystem == this) {
+            if (sourceBus < 0 || sourceBus >= inputBus.length) {
+                throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_INDEX, sourceBus);
+            }
+            from = inputBus[sourceBus];
+            fromBus = 0;
+        }
+
+        if (targetSystem == this) {
+            if (targetBus < 0 || targetBus >= outputBus.length) {
+                throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, targetBus);
+            }
+            outputBus[targetBus].connectInput(from, fromBus, 0);
+        }
+        else {
+            targetSystem.connectInput(from, fromBus, targetBus);
+        }
+        nodes = null;
+    }
+
+    private void checkNotRegistered() {
+        if (isRegistered) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.REGISTERED_CIRCUIT_MODIFIED, type);
+        }
     }
 
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                              Update Operations                                              <<*//
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
 
+    /**
+     * Propagate the input buses through the internal systems until the circuit is stable.
+     *
+     * <p>Propagation runs in rounds. Every round first loads the input buffers of all systems whose inputs may have
+     * changed, then updates them, so systems within a round see the same values no matter the order they are
+     * updated in. The systems reading an output that changed are updated in the next round. The first update after
+     * the internal systems or connections change updates every system, later updates start from the input buses
+     * that changed.
+     *
+     * <p>Feedback loops that never settle, such as an odd ring of inverters, are cut off after
+     * {@value #MAX_UPDATE_ROUNDS} rounds, leaving the circuit unstable. The next update resumes the systems still
+     * queued. A nested circuit cut off this way leaves every circuit containing it unstable as well, and is resumed
+     * by their next update.
+     *
+     * @return {@code true} if the circuit was stable and nothing changed, {@code false} otherwise
+     * @throws NullPointerException if an internal system has an input bus that is not connected
+     */
     @Override
     public boolean update() {
-        throw new UnsupportedOperationException();
+        //>> Nested circuits are part of the tick of the outermost circuit, only that one is recorded
+        final SettleEvent event = isNested ? null : new SettleEvent();
+        if (event != null) {
+            event.begin();
+        }
+
+        if (!inputBufferLoaded) {
+            loadInputBuffer();
+        }
+        inputBufferLoaded = false;
+
+        boolean changed = false;
+        int size = 0;
+        int rounds = 0;
+        long evaluations = 0;
+        long toggles = 0;
+        long events = 0;
+        round++;
+
+        if (nodes == null) {
+            buildNetwork();
+            for (int n = inputBus.length; n < nodes.length; n++) {
+                queuedRound[n] = round;
+                current[size++] = n;
+            }
+            changed = true;
+        }
+        else {
+            //>> Resume the nodes left queued by an update that was cut off
+            for (int i = 0; i < pending; i++) {
+                queuedRound[current[i]] = round;
+                next[size++] = current[i];
+            }
+            for (int n = 0; n < inputBus.length; n++) {
+                if (recordOutputs(n)) {
+                    size = queueDependents(n, next, size);
+                }
+            }
+            final int[] swap = current;
+            current = next;
+            next = swap;
+        }
+
+        events += size;
+        int peak = size;
+
+        for (; size > 0 && rounds < MAX_UPDATE_ROUNDS; rounds++) {
+            for (int i = 0; i < size; i++) {
+                nodes[current[i]].loadInputBuffer();
+            }
+
+            round++;
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                final int n = current[i];
+                if (!nodes[n].update()) {
+                    changed = true;
+                }
+                final boolean toggled = recordOutputs(n);
+                if (toggled) {
+                    changed = true;
+                    nextSize = queueDependents(n, next, nextSize);
+                }
+
+                if (nodes[n] instanceof Circuit nested) {
+                    evaluations += nested.lastEvaluations;
+                    toggles += nested.lastToggles;
+                    events += nested.lastEvents;
+                }
+                else {
+                    evaluations++;
+                    toggles += toggled ? 1 : 0;
+                }
+            }
+
+            final int[] swap = current;
+            current = next;
+            next = swap;
+            size = nextSize;
+            events += size;
+            peak = Math.max(peak, size);
+        }
+
+        //>> A nested circuit that was cut off stays queued, leaving this circuit unsettled until it settles
+        for (int n : nestedNodes) {
+            if (!((Circuit) nodes[n]).isSettled() && queuedRound[n] != round) {
+                queuedRound[n] = round;
+                current[size++] = n;
+            }
+        }
+
+        lastEvaluations = evaluations;
+        lastToggles = toggles;
+        lastEvents = events;
+        pending = size;
+        if (metrics != null) {
+            metrics.recordTick(evaluations, toggles, events, rounds, peak, numDevices);
+        }
+        if (event != null && event.shouldCommit()) {
+            event.type = type;
+            event.id = id;
+            event.gateEvaluations = evaluations;
+            event.toggles = toggles;
+            event.eventsProcessed = events;
+            event.iterations = rounds;
+            event.stable = size == 0;
+            event.commit();
+        }
+        return !changed && size == 0;
+    }
+
+    /**
+     * @return {@code true} if the last {@link #update} settled, {@code false} if it was cut off after
+     *         {@value #MAX_UPDATE_ROUNDS} rounds
+     */
+    public boolean isSettled() {
+        return pending == 0;
     }
 
     /**
@@ -291,6 +601,232 @@ public class Circuit implements System {
     }
 
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The mode is switched for the IO buses and every internal system, including those added later. Every
+     * internal system must support four-state mode.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     */
+    @Override
+    public void setFourState(boolean fourState) {
+        for (System system : internalSystems.values()) {
+            system.setFourState(fourState);
+        }
+        for (BufferGate pin : inputBus) {
+            pin.setFourState(fourState);
+        }
+        for (BufferGate pin : outputBus) {
+            pin.setFourState(fourState);
+        }
+        this.fourState = fourState;
+        nodes = null;
+    }
+
+    @Override
+    public boolean isFourState() {
+        return fourState;
+    }
+
+    /**
+     * Index the input buses, internal systems and output buses, and find the systems reading each of them from the
+     * input bus pointers of every system.
+     */
+    private void buildNetwork() {
+        final List<System> list = new ArrayList<>(inputBus.length + internalSystems.size() + outputBus.length);
+        list.addAll(Arrays.asList(inputBus));
+        list.addAll(internalSystems.values());
+        list.addAll(Arrays.asList(outputBus));
+        nodes = list.toArray(new System[0]);
+
+        final Map<System, Integer> index = new IdentityHashMap<>();
+        for (int n = 0; n < nodes.length; n++) {
+            index.put(nodes[n], n);
+        }
+
+        //>> Reverse the input pointers into dependents, skipping sources outside the circuit
+
+        final int[] count = new int[nodes.length];
+        final int[][] sources = new int[nodes.length][];
+        for (int n = inputBus.length; n < nodes.length; n++) {
+            final OutputPointer[] pointers = nodes[n].getInputBus();
+            final int[] from = new int[pointers.length];
+            int size = 0;
+            for (OutputPointer pointer : pointers) {
+                final Integer source = pointer == null ? null : index.get(pointer.system);
+                if (source != null && !contains(from, size, source)) {
+                    from[size++] = source;
+                    count[source]++;
+                }
+            }
+            sources[n] = Arrays.copyOf(from, size);
+        }
+
+        dependents = new int[nodes.length][];
+        for (int n = 0; n < nodes.length; n++) {
+            dependents[n] = new int[count[n]];
+            count[n] = 0;
+        }
+        for (int n = inputBus.length; n < nodes.length; n++) {
+            for (int source : sources[n]) {
+                dependents[source][count[source]++] = n;
+            }
+        }
+
+        //>> Record the current outputs of every node
+
+        stateOffset = new int[nodes.length + 1];
+        for (int n = 0; n < nodes.length; n++) {
+            stateOffset[n + 1] = stateOffset[n] + nodes[n].getOut().length;
+        }
+        state = new long[stateOffset[nodes.length]];
+        unknownState = fourState ? new long[state.length] : null;
+        toggleNets = null;
+        for (int n = 0; n < nodes.length; n++) {
+            recordOutputs(n);
+        }
+        if (toggleCounts != null) {
+            assignNets();
+        }
+
+        numDevices = 0;
+        int numNested = 0;
+        final int[] nested = new int[nodes.length];
+        for (int n = inputBus.length; n < nodes.length; n++) {
+            if (nodes[n] instanceof Circuit circuit) {
+                numDevices += circuit.countDevices();
+                nested[numNested++] = n;
+            }
+            else {
+                numDevices++;
+            }
+        }
+        nestedNodes = Arrays.copyOf(nested, numNested);
+
+        current = new int[nodes.length];
+        next = new int[nodes.length];
+        queuedRound = new int[nodes.length];
+        round = 0;
+    }
+
+    private static boolean contains(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of devices updated by an update that updates everything, which are the internal devices
+     *         and output buses of this circuit and of the circuits nested in it
+     */
+    public long countDevices() {
+        long count = outputBus.length;
+        for (System system : internalSystems.values()) {
+            count += system instanceof Circuit nested ? nested.countDevices() : 1;
+        }
+        return count;
+    }
+
+    /**
+     * Store the outputs of node {@code n} in the state array. Word buses are compared as a whole, and every bit of the
+     * value plane that changed is counted as a toggle of the bus.
+     *
+     * @return {@code true} if any output differs from the stored value
+     */
+    private boolean recordOutputs(int n) {
+        boolean changed = false;
+        for (int s = stateOffset[n], bus = 0; s < stateOffset[n + 1]; s++, bus++) {
+            final long value = nodes[n].getOutWord(bus);
+            boolean differs = value != state[s];
+            if (unknownState != null) {
+                final long unknown = nodes[n].getOutUnknown(bus);
+                differs |= unknown != unknownState[s];
+                unknownState[s] = unknown;
+            }
+            if (differs) {
+                final long old = state[s];
+                state[s] = value;
+                changed = true;
+                if (toggleNets != null) {
+                    toggleCounts.record(toggleNets[s], Long.bitCount(~old & value), Long.bitCount(old & ~value));
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Append the dependents of node {@code n} not yet queued for the next round to {@code queue}.
+     *
+     * @return the new size of the queue
+     */
+    private int queueDependents(int n, int[] queue, int size) {
+        for (int dependent : dependents[n]) {
+            if (queuedRound[dependent] != round) {
+                queuedRound[dependent] = round;
+                queue[size++] = dependent;
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * Record the activity of every {@link #update} of this circuit, each update being one tick. The activity of
+     * nested circuits is included in the activity of this one, they do not need metrics of their own.
+     *
+     * @param metrics where to record, or {@code null} to stop recording
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Count the transitions of every output bus of the systems of this circuit, its IO buffers and the circuits
+     * nested in it included. The outputs systems have when counting starts are not transitions.
+     *
+     * @param toggleCounts where to count, or {@code null} to stop counting
+     */
+    public void setToggleCounts(ToggleCounts toggleCounts) {
+        this.toggleCounts = toggleCounts;
+        toggleNets = null;
+        if (nodes != null && toggleCounts != null) {
+            assignNets();
+        }
+        for (System system : internalSystems.values()) {
+            if (system instanceof Circuit nested) {
+                nested.setToggleCounts(toggleCounts);
+            }
+        }
+    }
+
+    public ToggleCounts getToggleCounts() {
+        return toggleCounts;
+    }
+
+    /** Look up the net of every state slot, nested circuits added since counting started are counted too */
+    private void assignNets() {
+        toggleNets = new int[state.length];
+        for (int n = 0; n < nodes.length; n++) {
+            final int first = toggleCounts.nets(nodes[n]);
+            for (int s = stateOffset[n]; s < stateOffset[n + 1]; s++) {
+                toggleNets[s] = first + s - stateOffset[n];
+            }
+            if (nodes[n] instanceof Circuit nested && nested.toggleCounts != toggleCounts) {
+                nested.setToggleCounts(toggleCounts);
+            }
+        }
+    }
+
+
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                         Index and Alias Conversion                                          <<*//
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
@@ -358,7 +894,11 @@ public class Circuit implements System {
      * @return array of input aliases, as described above
      */
     public String[] getAllInputAlias() {
-
+        String[] aliases = new String[inputBus.length];
+        for (int i = 0; i < aliases.length; i++) {
+            aliases[i] = inputAlias.getValue(i);
+        }
+        return aliases;
     }
 
     /**
@@ -368,7 +908,11 @@ public class Circuit implements System {
      * @return array of output aliases, as described above
      */
     public String[] getAllOutputAlias() {
-
+        String[] aliases = new String[outputBus.length];
+        for (int i = 0; i < aliases.length; i++) {
+            aliases[i] = outputAlias.getValue(i);
+        }
+        return aliases;
     }
 
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
@@ -397,6 +941,28 @@ public class Circuit implements System {
         return outputBus[bus].getOut(0);
     }
 
+    @Override
+    public long getOutUnknown(int bus) {
+        return outputBus[bus].getOutUnknown(0);
+    }
+
+    /**
+     * @param bus index of an input bus
+     * @return the buffer gate of the input bus, which internal systems read the input bus from
+     */
+    public System getInputBuffer(int bus) {
+        return inputBus[bus];
+    }
+
+    /**
+     * @param bus index of an output bus
+     * @return pointer to the bus driving the output bus, {@code null} if not driven. An input bus passed straight
+     *         through is driven by its {@linkplain #getInputBuffer buffer gate}
+     */
+    public OutputPointer getOutputDriver(int bus) {
+        return outputBus[bus].getInputBus()[0];
+    }
+
     @Override
     public OutputPointer[] getInputBus() {
         OutputPointer[] inputs = new OutputPointer[inputBus.length];
@@ -43,6 +43,18 @@ public abstract class Device implements System {
      */
     protected final boolean[] outputBuffer;
 
+    /**
+     * The unknown plane of each input bus as of the last input buffer load, {@code null} outside four-state mode.
+     * See {@link LogicValue}, the value plane is in {@link #inputBuffer}.
+     */
+    protected long[] inputUnknown;
+
+    /**
+     * The unknown plane of each output bus, {@code null} outside four-state mode. See {@link LogicValue}, the value
+     * plane is in {@link #outputBuffer}.
+     */
+    protected long[] outputUnknown;
+
     /**
      * Unique integer to identify the device amongst other systems
      */
@@ -118,10 +130,36 @@ public abstract class Device implements System {
         if (inputBus[toBusConverted] != null) {
             throw StatusCodesSys.runtimeException(StatusCodesSys.EXISTING_CONNECTION, toBus);
         }
+        checkWidth(fromSystem, fromBusConverted, toBusConverted);
 
         inputBus[toBusConverted] = new OutputPointer(fromSystem, fromBusConverted);
     }
 
+    /**
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public void connectInput(System fromSystem, int fromBus, int toBus) {
+        if (toBus < 0 || toBus >= inputBus.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, toBus);
+        }
+        fromSystem.outIndexToAlias(fromBus); // Validates the output bus exists
+
+        if (inputBus[toBus] != null) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.EXISTING_CONNECTION, inIndexToAlias(toBus));
+        }
+        checkWidth(fromSystem, fromBus, toBus);
+
+        inputBus[toBus] = new OutputPointer(fromSystem, fromBus);
+    }
+
+    private void checkWidth(System fromSystem, int fromBus, int toBus) {
+        if (fromSystem.getOutWidth(fromBus) != getInWidth(toBus)) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.BUS_WIDTH_MISMATCH, fromSystem.getOutWidth(fromBus),
+                                                  getInWidth(toBus), inIndexToAlias(toBus));
+        }
+    }
+
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                              Update Operations                                              <<*//
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
@@ -133,12 +171,17 @@ public abstract class Device implements System {
     @Override
     public boolean update() {
         // A null in the inputBuffer means it is not loaded
-        if (inputBuffer[0] == null) {
+        if (inputBuffer.length > 0 && inputBuffer[0] == null) {
             loadInputBuffer();
         }
 
         // Update the device's output buses
-        deviceLogic();
+        if (outputUnknown == null) {
+            deviceLogic();
+        }
+        else {
+            fourStateLogic();
+        }
 
         // Invalidate the cached buffer
         for (int i = 0; i < inputBuffer.length; i++) {
@@ -154,6 +197,26 @@ public abstract class Device implements System {
      */
     protected abstract void deviceLogic();
 
+    /**
+     * This method should only be called by {@link Device#update()} in four-state mode, update both planes of the
+     * output buses based on both planes of the input buffer, {@link #inputBuffer} and {@link #inputUnknown}.
+     *
+     * <p>By default the {@linkplain #deviceLogic device logic} computes the outputs, which are then all X while any
+     * input bit is X or Z. Devices with finer rules override this.
+     */
+    protected void fourStateLogic() {
+        deviceLogic();
+
+        boolean unknown = false;
+        for (long word : inputUnknown) {
+            unknown |= word != 0;
+        }
+        for (int i = 0; i < outputBuffer.length; i++) {
+            outputUnknown[i] = unknown ? 1 : 0;
+            outputBuffer[i] |= unknown;
+        }
+    }
+
     /**
      * {@inheritDoc}
      * @throws NullPointerException {@inheritDoc}
@@ -163,6 +226,39 @@ public abstract class Device implements System {
         for (int i = 0; i < inputBus.length; i++) {
             inputBuffer[i] = inputBus[i].getValue();
         }
+        if (inputUnknown != null) {
+            for (int i = 0; i < inputBus.length; i++) {
+                inputUnknown[i] = inputBus[i].getUnknown();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Devices support four-state mode, switching it on sets every output bus to X.
+     */
+    @Override
+    public void setFourState(boolean fourState) {
+        if (fourState == (outputUnknown != null)) {
+            return;
+        }
+        if (!fourState) {
+            inputUnknown = null;
+            outputUnknown = null;
+            return;
+        }
+        inputUnknown = new long[inputBus.length];
+        outputUnknown = new long[outputBuffer.length];
+        for (int i = 0; i < outputBuffer.length; i++) {
+            outputUnknown[i] = -1L >>> Long.SIZE - getOutWidth(i);
+            outputBuffer[i] = true;
+        }
+    }
+
+    @Override
+    public boolean isFourState() {
+        return outputUnknown != null;
     }
 
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
@@ -202,6 +298,22 @@ public abstract class Device implements System {
         return outputBuffer[bus];
     }
 
+    /**
+     * @throws ArrayIndexOutOfBoundsException {@inheritDoc}
+     */
+    @Override
+    public long getOutWord(int bus) {
+        return outputBuffer[bus] ? 1 : 0;
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException {@inheritDoc}
+     */
+    @Override
+    public long getOutUnknown(int bus) {
+        return outputUnknown == null ? 0 : outputUnknown[bus];
+    }
+
     @Override
     public OutputPointer[] getInputBus() {
         OutputPointer[] inputs = new OutputPointer[inputBus.length];
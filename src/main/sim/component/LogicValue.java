@@ -0,0 +1,45 @@
+package sim.component;
+
+/**
+ * The value of a single bit in four-state mode, see {@link System#setFourState(boolean)}.
+ *
+ * <p>Four-state buses are stored as two bit-planes: the value plane, read by {@link System#getOutWord(int)}, and the
+ * unknown plane, read by {@link System#getOutUnknown(int)}. A bit set in the unknown plane is {@link #X} if also set
+ * in the value plane and {@link #Z} otherwise, so two-state code reading the value plane sees X as high and Z as
+ * low.
+ */
+public enum LogicValue {
+    ZERO(false, false),
+    ONE(true, false),
+    /** High impedance, an undriven bus */
+    Z(false, true),
+    /** Unknown, either 0 or 1 */
+    X(true, true);
+
+    private final boolean value;
+    private final boolean unknown;
+
+    LogicValue(boolean value, boolean unknown) {
+        this.value = value;
+        this.unknown = unknown;
+    }
+
+    /**
+     * @param value the bit of the value plane
+     * @param unknown the bit of the unknown plane
+     * @return the logic value encoded by the bits
+     */
+    public static LogicValue of(boolean value, boolean unknown) {
+        return unknown ? (value ? X : Z) : (value ? ONE : ZERO);
+    }
+
+    /** @return the bit of the value plane */
+    public boolean getValue() {
+        return value;
+    }
+
+    /** @return the bit of the unknown plane, {@code true} for {@link #X} and {@link #Z} */
+    public boolean isUnknown() {
+        return unknown;
+    }
+}
@@ -0,0 +1,122 @@
+package sim.component;
+
+import sim.component.connection.SingleOutputBus;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A device without input buses whose single output bus is set from outside the simulation, such as a switch or a
+ * test vector. The value is only driven onto the output bus on {@link #update()}, like any other device. In
+ * four-state mode it can also drive X or Z.
+ */
+public class SignalSource extends Device implements SingleOutputBus {
+
+    public static final String TYPE = "Signal-Source";
+
+    private boolean value;
+    private boolean unknown = false;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a signal source with its output bus initialized to {@code value}
+     *
+     * @param value the initial value of the output bus
+     */
+    public SignalSource(boolean value) {
+        super(TYPE, 0, 1, new boolean[] {value});
+        this.value = value;
+    }
+
+    /**
+     * Construct a signal source with its output bus initialized to {@code false}
+     */
+    public SignalSource() {
+        this(false);
+    }
+
+
+    //*>> -------------------- Connect systems -------------------- */
+
+    /**
+     * Not supported, a signal source has no input buses.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void connectInput(System fromSystem, String fromBus, String toBus) {
+        throw new UnsupportedOperationException(TYPE + " has no input buses");
+    }
+
+    /**
+     * Not supported, a signal source has no input buses.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void connectInput(System fromSystem, int fromBus, int toBus) {
+        throw new UnsupportedOperationException(TYPE + " has no input buses");
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    /**
+     * Set the value driven onto the output bus on the next update
+     *
+     * @param value the new value
+     */
+    public void set(boolean value) {
+        this.value = value;
+        this.unknown = false;
+    }
+
+    /**
+     * Set the value driven onto the output bus on the next update. Outside four-state mode only the value plane of
+     * {@code value} is driven, X as high and Z as low.
+     *
+     * @param value the new value
+     */
+    public void set(LogicValue value) {
+        this.value = value.getValue();
+        this.unknown = value.isUnknown();
+    }
+
+    @Override
+    protected void deviceLogic() {
+        outputBuffer[0] = value;
+    }
+
+    @Override
+    protected void fourStateLogic() {
+        outputBuffer[0] = value;
+        outputUnknown[0] = unknown ? 1 : 0;
+    }
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * @throws StatusRuntimeException always, a signal source has no input buses
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+    }
+
+    /**
+     * @throws StatusRuntimeException always, a signal source has no input buses
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+}
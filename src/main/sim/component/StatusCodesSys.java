@@ -24,11 +24,25 @@ public final class StatusCodesSys {
 
     public static final int EXISTING_CONNECTION = 330;
     public static final int BUS_DNE = 331;
+    public static final int BUS_WIDTH_MISMATCH = 333;
+
+    public static final int DUPLICATE_SYSTEM_ALIAS = 345;
+    public static final int REGISTERED_CIRCUIT_MODIFIED = 346;
+
+    public static final int METRICS_NOT_REGISTERED = 350;
+
+    public static final int MEMORY_IMAGE_UNMAPPABLE = 360;
     //endregion
 
     //TODO add messages
     static {
         detailTemplate.put(UNKNOWN_INPUT_ALIAS, "Unknown ");
+        detailTemplate.put(DUPLICATE_SYSTEM_ALIAS, "Circuit %2$s already has an internal system with alias <%1$s>");
+        detailTemplate.put(REGISTERED_CIRCUIT_MODIFIED, "Circuit %s is registered, its internal systems and " +
+                                                        "connections can no longer change");
+        detailTemplate.put(BUS_WIDTH_MISMATCH, "Cannot connect a %d bit output bus to %d bit input bus <%s>");
+        detailTemplate.put(METRICS_NOT_REGISTERED, "Failed to register simulation metrics <%s>: %s");
+        detailTemplate.put(MEMORY_IMAGE_UNMAPPABLE, "Cannot map memory image <%s>: %s");
     }
 
     public static Status message(int code, Object... o) {
@@ -56,10 +56,31 @@ public interface System {
      * @throws StatusRuntimeException with status codes, <ul>
      *  <li>{@link StatusCodesSys#EXISTING_CONNECTION} if {@code toBus} is already connected
      *  <li>{@link StatusCodesSys#BUS_DNE} if at least one of the specified buses does not exist
+     *  <li>{@link StatusCodesSys#BUS_WIDTH_MISMATCH} if the buses are not {@linkplain #getOutWidth as wide}
      * </ul>
      */
     void connectInput(System fromSystem, String fromBus, String toBus);
 
+    /**
+     * Establish a unidirectional connection originating from the specified external bus to the specified bus on this
+     * system, referring to both buses by index. Behaves the same as {@link #connectInput(System, String, String)},
+     * which it defaults to, implementors may skip converting the indices to aliases and back.
+     *
+     * @param  fromSystem  the system containing the {@code fromBus}
+     * @param  fromBus index of the output bus from which the signal originates from
+     * @param  toBus   index of the input bus to receive the signal
+     * @throws UnsupportedOperationException if this system does not have input buses
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#EXISTING_CONNECTION} if {@code toBus} is already connected
+     *  <li>{@link StatusCodesSys#UNKNOWN_INPUT_INDEX} if {@code toBus} does not exist
+     *  <li>{@link StatusCodesSys#UNKNOWN_OUTPUT_INDEX} if {@code fromBus} does not exist
+     *  <li>{@link StatusCodesSys#BUS_WIDTH_MISMATCH} if the buses are not {@linkplain #getOutWidth as wide}
+     * </ul>
+     */
+    default void connectInput(System fromSystem, int fromBus, int toBus) {
+        connectInput(fromSystem, fromSystem.outIndexToAlias(fromBus), inIndexToAlias(toBus));
+    }
+
 
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                              Update Operations                                              <<*//
@@ -101,6 +122,29 @@ public interface System {
      */
     void loadInputBuffer();
 
+    /**
+     * Switch four-state mode on or off. In four-state mode every bus carries an {@linkplain #getOutUnknown unknown
+     * plane} alongside its value, so that buses can be {@link LogicValue#X} or {@link LogicValue#Z}. Switching it on
+     * sets every output, and any internal state, to X until it is driven, which is what reset analysis starts from.
+     *
+     * <p>Systems are two-state unless they say otherwise, only switching four-state mode off is supported by default.
+     *
+     * @param fourState {@code true} to switch four-state mode on
+     * @throws UnsupportedOperationException if {@code fourState} and the system has no four-state mode
+     */
+    default void setFourState(boolean fourState) {
+        if (fourState) {
+            throw new UnsupportedOperationException(getType() + " has no four-state mode");
+        }
+    }
+
+    /**
+     * @return {@code true} if the system is in four-state mode, see {@link #setFourState(boolean)}
+     */
+    default boolean isFourState() {
+        return false;
+    }
+
 
     //*>> ----------------------------------------------------------------------------------------------------------- <<*//
     //*>>                                                 Validation                                                  <<*//
@@ -193,6 +237,63 @@ public interface System {
      */
     boolean getOut(int bus);
 
+    /**
+     * Get the value of a specific output bus as a word, bit i of the word being bit i of the bus. Bits at and above
+     * the {@linkplain #getOutWidth width} of the bus are 0, and {@link #getOut(int)} is {@code true} if and only if
+     * the word is not 0. Defaults to the value of a single bit bus.
+     *
+     * @param bus the output bus to read from
+     * @return the value of the output bus
+     * @throws ArrayIndexOutOfBoundsException if index is not valid
+     */
+    default long getOutWord(int bus) {
+        return getOut(bus) ? 1 : 0;
+    }
+
+    /**
+     * Get the unknown plane of a specific output bus, see {@link LogicValue}. Bit i is set if bit i of the bus is X
+     * or Z, the bit of the {@linkplain #getOutWord value plane} telling which. Always 0 outside four-state mode.
+     *
+     * @param bus the output bus to read from
+     * @return the unknown plane of the output bus
+     * @throws ArrayIndexOutOfBoundsException if index is not valid
+     */
+    default long getOutUnknown(int bus) {
+        return 0;
+    }
+
+    /**
+     * Get the value of the lowest bit of a specific output bus as a logic value, see {@link #getOutUnknown(int)}.
+     *
+     * @param bus the output bus to read from
+     * @return the logic value of the output bus
+     * @throws ArrayIndexOutOfBoundsException if index is not valid
+     */
+    default LogicValue getOutLogic(int bus) {
+        return LogicValue.of((getOutWord(bus) & 1) != 0, (getOutUnknown(bus) & 1) != 0);
+    }
+
+    /**
+     * Get the width of a specific output bus, the number of bits it carries. Only buses of the same width can be
+     * connected. Buses are single bits unless a system says otherwise.
+     *
+     * @param bus the output bus
+     * @return the width of the bus, between 1 and 64
+     */
+    default int getOutWidth(int bus) {
+        return 1;
+    }
+
+    /**
+     * Get the width of a specific input bus, see {@link #getOutWidth(int)}.
+     *
+     * @param bus the input bus
+     * @return the width of the bus, between 1 and 64
+     */
+    default int getInWidth(int bus) {
+        return 1;
+    }
+
     /**
      * Get all {@link OutputPointer} to the input of this system.
      *
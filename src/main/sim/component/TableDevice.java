@@ -0,0 +1,144 @@
+package sim.component;
+
+import sim.blueprint.DeviceBlueprint;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A device whose logic is the truth table of a {@link DeviceBlueprint}. The input buses form the row of the table,
+ * with input bus {@code i} as bit {@code i}, and each output bus reads its column.
+ *
+ * <p>Bus aliases are those of the blueprint.
+ */
+public class TableDevice extends Device {
+
+    /** Most unknown inputs whose rows are looked up in four-state mode */
+    public static final int MAX_UNKNOWN_INPUTS = 10;
+
+    private final DeviceBlueprint blueprint;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a device from a blueprint, with all output buses initialized to {@code false}
+     *
+     * @param blueprint the blueprint of the device
+     */
+    public TableDevice(DeviceBlueprint blueprint) {
+        super(blueprint.getType(), blueprint.getNumInputs(), blueprint.getNumOutputs(), null);
+        this.blueprint = blueprint;
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    @Override
+    protected void deviceLogic() {
+        int row = 0;
+        for (int i = 0; i < inputBuffer.length; i++) {
+            if (inputBuffer[i]) {
+                row |= 1 << i;
+            }
+        }
+        for (int i = 0; i < outputBuffer.length; i++) {
+            outputBuffer[i] = blueprint.lookup(i, row);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>An output is known if it is the same in every row the unknown inputs could select, up to
+     * {@value #MAX_UNKNOWN_INPUTS} of them. With more every output is X.
+     */
+    @Override
+    protected void fourStateLogic() {
+        int row = 0;
+        int unknownInputs = 0;
+        for (int i = 0; i < inputBuffer.length; i++) {
+            if (inputUnknown[i] != 0) {
+                unknownInputs |= 1 << i;
+            }
+            else if (inputBuffer[i]) {
+                row |= 1 << i;
+            }
+        }
+
+        for (int i = 0; i < outputBuffer.length; i++) {
+            final boolean out = blueprint.lookup(i, row);
+            boolean known = Integer.bitCount(unknownInputs) <= MAX_UNKNOWN_INPUTS;
+            for (int rows = unknownInputs; rows != 0 && known; rows = (rows - 1) & unknownInputs) {
+                known = blueprint.lookup(i, row | rows) == out;
+            }
+            outputBuffer[i] = out || !known;
+            outputUnknown[i] = known ? 0 : 1;
+        }
+    }
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        for (int i = 0; i < inputBus.length; i++) {
+            if (blueprint.getInputAlias(i).equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        if (index < 0 || index >= inputBus.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+        }
+        return blueprint.getInputAlias(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int outAliasToIndex(String alias) {
+        for (int i = 0; i < outputBuffer.length; i++) {
+            if (blueprint.getOutputAlias(i).equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String outIndexToAlias(int index) {
+        if (index < 0 || index >= outputBuffer.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_INDEX, index);
+        }
+        return blueprint.getOutputAlias(index);
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public DeviceBlueprint getBlueprint() {
+        return blueprint;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+}
@@ -34,4 +34,22 @@ public final class OutputPointer {
     public boolean getValue() {
         return system.getOut(outBus);
     }
+
+    /**
+     * Get the value of the stored output bus as a word, see {@link System#getOutWord(int)}.
+     *
+     * @return the value of the stored output bus
+     */
+    public long getWord() {
+        return system.getOutWord(outBus);
+    }
+
+    /**
+     * Get the unknown plane of the stored output bus, see {@link System#getOutUnknown(int)}.
+     *
+     * @return the unknown plane of the stored output bus
+     */
+    public long getUnknown() {
+        return system.getOutUnknown(outBus);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package sim.component.gates;
 
+import sim.component.LogicValue;
 
 /**
  * An And-Gate is a logical gate that outputs a high if all inputs are high.
@@ -56,6 +57,16 @@ public final class AndGate extends Gate {
         return numTrues == this.inputBus.length;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>An and-gate is low if an input is low, X if an input is unknown and high otherwise
+     */
+    @Override
+    protected LogicValue gateLogic(boolean anyHigh, boolean anyLow, boolean anyUnknown, boolean oddHigh) {
+        return anyLow ? LogicValue.ZERO : anyUnknown ? LogicValue.X : LogicValue.ONE;
+    }
+
     @Override
     public String getType() {
         return TYPE;
@@ -1,5 +1,7 @@
 package sim.component.gates;
 
+import sim.component.LogicValue;
+
 /**
  * A Buffer-Gate is a logical gate with 1 input and the output always has the same output of the input.
  */
@@ -42,6 +44,28 @@ public final class BufferGate extends Gate {
         return numTrues == 1;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Unlike other gates, a buffer-gate passes Z on as is: circuits use buffer-gates for their IO buses, which
+     * must not turn an undriven bus into an unknown one.
+     */
+    @Override
+    protected void fourStateLogic() {
+        outputBuffer[0] = inputBuffer[0];
+        outputUnknown[0] = inputUnknown[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A buffer-gate is X if its input is unknown, used by the gates inverting it
+     */
+    @Override
+    protected LogicValue gateLogic(boolean anyHigh, boolean anyLow, boolean anyUnknown, boolean oddHigh) {
+        return anyUnknown ? LogicValue.X : anyHigh ? LogicValue.ONE : LogicValue.ZERO;
+    }
+
     @Override
     public String getType() {
         return TYPE;
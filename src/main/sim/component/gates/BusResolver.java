@@ -0,0 +1,127 @@
+package sim.component.gates;
+
+import sim.component.Device;
+import sim.component.LogicValue;
+import sim.component.StatusCodesSys;
+import sim.component.connection.SingleOutputBus;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A Bus-Resolver merges the drivers of a shared bus, such as the outputs of several {@link TriStateBuffer}s, into the
+ * value of the bus. An input bus accepts a single driver, so each driver of a shared bus is connected to an input of
+ * its own and the bus is read from the output.
+ *
+ * <p>In four-state mode, undriven inputs, {@link LogicValue#Z}, are ignored: the output is Z if every input is Z, the
+ * value of the drivers if they all agree, and {@link LogicValue#X} if any of them is X or two drivers conflict.
+ * Outside four-state mode an undriven output is low, so the output is high if any input is high.
+ */
+public final class BusResolver extends Device implements SingleOutputBus {
+
+    public static final String TYPE = "Bus-Resolver";
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a Bus-Resolver with an output initialized to false
+     *
+     * @param numDrivers the number of input buses, one per driver of the bus
+     * @throws IllegalArgumentException if given <1 input buses
+     */
+    public BusResolver(int numDrivers) {
+        super(TYPE, checkDrivers(numDrivers), 1, null);
+    }
+
+    private static int checkDrivers(int numDrivers) {
+        if (numDrivers < 1) {
+            throw new IllegalArgumentException("Bus resolvers must have at least 1 input bus, received " + numDrivers);
+        }
+        return numDrivers;
+    }
+
+
+    //*>> -------------------- Logic/getType implementations -------------------- */
+
+    @Override
+    protected void deviceLogic() {
+        boolean value = false;
+        for (boolean input : inputBuffer) {
+            value |= input;
+        }
+        outputBuffer[0] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Resolves the drivers as described in the {@linkplain BusResolver class description}.
+     */
+    @Override
+    protected void fourStateLogic() {
+        boolean driven = false;
+        boolean high = false;
+        boolean low = false;
+        boolean unknown = false;
+        for (int i = 0; i < inputBuffer.length; i++) {
+            if (inputUnknown[i] == 0) {
+                driven = true;
+                high |= inputBuffer[i];
+                low |= !inputBuffer[i];
+            }
+            else if (inputBuffer[i]) {
+                driven = true;
+                unknown = true;
+            }
+        }
+
+        if (!driven) {
+            outputBuffer[0] = false;
+            outputUnknown[0] = 1;
+        }
+        else if (unknown || (high && low)) {
+            outputBuffer[0] = true;
+            outputUnknown[0] = 1;
+        }
+        else {
+            outputBuffer[0] = high;
+            outputUnknown[0] = 0;
+        }
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        try {
+            final int index = Integer.parseInt(alias);
+            if (index >= 0 && index < inputBus.length) {
+                return index;
+            }
+        }
+        catch (NumberFormatException e) {}
+
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        if (index >= 0 && index < inputBus.length) {
+            return Integer.toString(index);
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+    }
+}
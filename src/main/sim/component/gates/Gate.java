@@ -1,6 +1,7 @@
 package sim.component.gates;
 
 import sim.component.Device;
+import sim.component.LogicValue;
 import sim.component.StatusCodesSys;
 import sim.component.connection.SingleOutputBus;
 
@@ -12,7 +13,8 @@ import sim.component.connection.SingleOutputBus;
  *
  * <p>The {@code Gate} abstract class only requires implementors to complete the {@code gateLogic(int)} method,
  * which receives as input the number of high input buses read. The method returns what the gate's output bus
- * should be based on this number.
+ * should be based on this number. In four-state mode the {@code gateLogic(boolean, boolean, boolean, boolean)}
+ * method gives the output from whether any input is known high, known low or unknown.
  */
 public abstract sealed class Gate extends Device implements SingleOutputBus
                 permits AndGate, OrGate, XorGate, BufferGate, InverterGate {
@@ -58,6 +60,53 @@ public abstract sealed class Gate extends Device implements SingleOutputBus
         this.outputBuffer[0] = this.gateLogic(numTrues);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Packs the inputs into words of 64, bit i of the value and unknown planes being input i, and reduces the
+     * planes word-wide into the known high, known low and unknown inputs, see {@link #gateLogic(boolean, boolean,
+     * boolean, boolean)}.
+     */
+    @Override
+    protected void fourStateLogic() {
+        long high = 0;
+        long low = 0;
+        long unknown = 0;
+        long parity = 0;
+        for (int from = 0; from < inputBuffer.length; from += Long.SIZE) {
+            final int to = Math.min(from + Long.SIZE, inputBuffer.length);
+            long valuePlane = 0;
+            long unknownPlane = 0;
+            for (int i = from; i < to; i++) {
+                valuePlane |= (inputBuffer[i] ? 1L : 0L) << i - from;
+                unknownPlane |= (inputUnknown[i] & 1L) << i - from;
+            }
+            final long known = ~unknownPlane & -1L >>> Long.SIZE - (to - from);
+            high |= valuePlane & known;
+            low |= ~valuePlane & known;
+            unknown |= unknownPlane;
+            parity ^= valuePlane & known;
+        }
+
+        final LogicValue out = gateLogic(high != 0, low != 0, unknown != 0, (Long.bitCount(parity) & 1) != 0);
+        outputBuffer[0] = out.getValue();
+        outputUnknown[0] = out.isUnknown() ? 1 : 0;
+    }
+
+    /**
+     * Computes the value of the gate's output in four-state mode. Inputs that are X or Z could be either high or low,
+     * the output is X unless it is the same either way. This gives the usual rules, an and-gate with a low input is
+     * low whatever its other inputs are, any unknown input of a xor-gate makes its output X.
+     *
+     * @param anyHigh whether an input is known to be high
+     * @param anyLow whether an input is known to be low
+     * @param anyUnknown whether an input is X or Z
+     * @param oddHigh whether an odd number of inputs is known to be high
+     * @return new value of the (only) output bus, {@link LogicValue#ZERO}, {@link LogicValue#ONE} or
+     *         {@link LogicValue#X}
+     */
+    protected abstract LogicValue gateLogic(boolean anyHigh, boolean anyLow, boolean anyUnknown, boolean oddHigh);
+
     /**
      * Computes the value of the gate's output based on the input.
      *
@@ -1,5 +1,7 @@
 package sim.component.gates;
 
+import sim.component.LogicValue;
+
 /**
  * Provides the not-variation of a logic gate. It copies the current configuration of the supplied {@code gate}
  * instance. The user should use the returned gate instance instead of the original.
@@ -34,7 +36,7 @@ public final class InverterGate extends Gate {
         );
         this.gate = gate;
 
-        type = getType();
+        type = super.type;
     }
 
 
@@ -51,6 +53,20 @@ public final class InverterGate extends Gate {
         return !this.gate.gateLogic(numTrues);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A negated version of the stored gate's logic, X staying X
+     */
+    @Override
+    protected LogicValue gateLogic(boolean anyHigh, boolean anyLow, boolean anyUnknown, boolean oddHigh) {
+        return switch (this.gate.gateLogic(anyHigh, anyLow, anyUnknown, oddHigh)) {
+            case ZERO -> LogicValue.ONE;
+            case ONE -> LogicValue.ZERO;
+            default -> LogicValue.X;
+        };
+    }
+
     @Override
     public String getType() {
         return type;
@@ -1,5 +1,7 @@
 package sim.component.gates;
 
+import sim.component.LogicValue;
+
 /**
  * An Or-Gate is a logical gate that outputs a high if at least 1 input is high.
  */
@@ -56,6 +58,16 @@ public final class OrGate extends Gate {
         return numTrues > 0;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>An or-gate is high if an input is high, X if an input is unknown and low otherwise
+     */
+    @Override
+    protected LogicValue gateLogic(boolean anyHigh, boolean anyLow, boolean anyUnknown, boolean oddHigh) {
+        return anyHigh ? LogicValue.ONE : anyUnknown ? LogicValue.X : LogicValue.ZERO;
+    }
+
     @Override
     public String getType() {
         return TYPE;
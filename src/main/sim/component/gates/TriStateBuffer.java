@@ -0,0 +1,95 @@
+package sim.component.gates;
+
+import sim.component.Device;
+import sim.component.LogicValue;
+import sim.component.StatusCodesSys;
+import sim.component.connection.SingleOutputBus;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A Tri-State-Buffer drives its input {@code A} onto its output while its enable input {@code EN} is high, and
+ * leaves the output undriven, {@link LogicValue#Z}, while it is low. Outside four-state mode an undriven output is
+ * low. Buffers sharing a bus each drive an input of a {@link BusResolver}.
+ *
+ * <p>Not a {@link Gate}, as its output depends on which input is high and not only on how many are.
+ */
+public final class TriStateBuffer extends Device implements SingleOutputBus {
+
+    public static final String TYPE = "Tri-State-Buffer";
+
+    /** Index of the enable input */
+    public static final int EN = 1;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a Tri-State-Buffer with an output initialized to false
+     */
+    public TriStateBuffer() {
+        super(TYPE, 2, 1, null);
+    }
+
+
+    //*>> -------------------- Logic/getType implementations -------------------- */
+
+    @Override
+    protected void deviceLogic() {
+        outputBuffer[0] = inputBuffer[EN] && inputBuffer[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The output is Z while {@code EN} is low, X while it is X or Z, and {@code A} otherwise with Z read as X.
+     */
+    @Override
+    protected void fourStateLogic() {
+        if (inputUnknown[EN] != 0) {
+            outputBuffer[0] = true;
+            outputUnknown[0] = 1;
+        }
+        else if (!inputBuffer[EN]) {
+            outputBuffer[0] = false;
+            outputUnknown[0] = 1;
+        }
+        else {
+            outputBuffer[0] = inputBuffer[0] || inputUnknown[0] != 0;
+            outputUnknown[0] = inputUnknown[0];
+        }
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        return switch (alias) {
+            case "A", "0" -> 0;
+            case "EN", "1" -> EN;
+            default -> throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        return switch (index) {
+            case 0 -> "A";
+            case EN -> "EN";
+            default -> throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+        };
+    }
+}
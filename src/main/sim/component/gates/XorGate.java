@@ -1,5 +1,7 @@
 package sim.component.gates;
 
+import sim.component.LogicValue;
+
 /**
  * An Xor-Gate is a logical gate that outputs a high if an odd number of inputs are high.
  */
@@ -55,6 +57,16 @@ public final class XorGate extends Gate {
         return (numTrues % 2) == 1;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A xor-gate is X if an input is unknown, and high if an odd number of inputs is high otherwise
+     */
+    @Override
+    protected LogicValue gateLogic(boolean anyHigh, boolean anyLow, boolean anyUnknown, boolean oddHigh) {
+        return anyUnknown ? LogicValue.X : oddHigh ? LogicValue.ONE : LogicValue.ZERO;
+    }
+
     @Override
     public String getType() {
         return TYPE;
@@ -1,6 +1,7 @@
 /**
  * The {@code gates} package contains implementations for the And-Gate, Or-Gate, Xor-Gate, Buffer-Gate, as well as
  * a decorator to invert them to achieve the not variations. The {@code Gate} abstract class can be used to receive
- * an instance of any gate type.
+ * an instance of any gate type. The Tri-State-Buffer, which can leave its output undriven, and the Bus-Resolver,
+ * which merges the drivers of a shared bus, are here too though they are not gates.
  */
 package sim.component.gates;
@@ -0,0 +1,423 @@
+package sim.component.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import sim.component.Device;
+import sim.component.StatusCodesSys;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Completes the implementation needs from {@link Device} for a memory of {@code 2^addressWidth} words of
+ * {@code dataWidth} bits, read through one or more ports. Each port has address inputs {@code A0, A1, ...} and data
+ * outputs {@code Q0, Q1, ...}, and always outputs the word at its address. With several ports the aliases of port p
+ * are prefixed by {@code P<p>.}, for example {@code P1.A0}.
+ *
+ * <h2>Storage</h2>
+ * Words are stored outside the Java heap, in direct or memory-mapped {@link ByteBuffer}s of up to 1GB each, so
+ * memories of many gigabytes cost the heap nothing. A word takes 1, 2, 4 or 8 bytes, the smallest holding
+ * {@code dataWidth} bits, little-endian, word a at byte {@code a * wordBytes}. A memory image is a file in that
+ * layout. It is mapped rather than read, so loading it copies nothing and only the pages read are ever loaded. Words
+ * past the end of an image, or of storage that was never written, read 0. Written storage grows with the highest
+ * address written: a buffer starts at 4KB, or the capacity of a smaller memory, and doubles as needed.
+ *
+ * <h2>Four-state mode</h2>
+ * Stored words start out known. A port whose address has an X or Z bit outputs X on every data bit. Words are given an
+ * unknown plane only once written with one, held apart from storage since few words ever are. A write to an unknown
+ * address makes the whole memory X, after which only words written again at a known address become known.
+ */
+public abstract sealed class Memory extends Device permits Ram, Rom {
+
+    /** Maximum number of address inputs of a port */
+    public static final int MAX_ADDRESS_WIDTH = 40;
+
+    /** Maximum number of bits of a word */
+    public static final int MAX_DATA_WIDTH = 64;
+
+    /** log2 of the size of a storage buffer */
+    static final int CHUNK_SHIFT = 30;
+
+    /** Smallest direct storage buffer allocated, in bytes */
+    static final int MIN_CHUNK = 1 << 12;
+
+    protected final int addressWidth;
+    protected final int dataWidth;
+    protected final int numPorts;
+
+    /** Number of inputs of every port, the inputs of port p start at {@code p * portInputs} */
+    protected final int portInputs;
+
+    /** log2 of the number of bytes of a word */
+    private final int wordShift;
+
+    /** Storage, buffer c holds bytes {@code [c << CHUNK_SHIFT, (c + 1) << CHUNK_SHIFT)}. A null buffer reads 0 */
+    protected final ByteBuffer[] chunks;
+
+    //>> Four-state mode, see the class description. The map is null outside of it
+    /** {@code address ==> unknown plane of the word}, words not in it are known unless {@link #poisoned} */
+    private Map<Long, Long> unknownWords;
+    /** Whether every word not in {@link #unknownWords} is X */
+    private boolean poisoned = false;
+
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param type the device type
+     * @param addressWidth the number of address inputs of a port
+     * @param dataWidth the number of bits of a word
+     * @param numPorts the number of ports
+     * @param portAliases alias of the inputs of a port following its address inputs, {@code "D"} standing for one
+     *                    input per bit of a word
+     * @param sharedAliases alias of the inputs shared by all ports, following the inputs of the last port
+     * @throws IllegalArgumentException if a width or the number of ports is out of range
+     */
+    protected Memory(String type, int addressWidth, int dataWidth, int numPorts, String[] portAliases,
+                     String... sharedAliases) {
+        super(type, numInputs(type, addressWidth, dataWidth, numPorts, portAliases, sharedAliases),
+              numPorts * dataWidth, null);
+        this.addressWidth = addressWidth;
+        this.dataWidth = dataWidth;
+        this.numPorts = numPorts;
+        this.portInputs = (inputBus.length - sharedAliases.length) / numPorts;
+        this.wordShift = dataWidth <= 8 ? 0 : dataWidth <= 16 ? 1 : dataWidth <= 32 ? 2 : 3;
+        this.chunks = new ByteBuffer[(int) ((getCapacity() - 1 >>> CHUNK_SHIFT) + 1)];
+
+        inputAliases = new String[inputBus.length];
+        outputAliases = new String[outputBuffer.length];
+        int in = 0;
+        for (int p = 0; p < numPorts; p++) {
+            final String prefix = numPorts == 1 ? "" : "P" + p + ".";
+            for (int i = 0; i < addressWidth; i++) {
+                inputAliases[in++] = prefix + "A" + i;
+            }
+            for (String alias : portAliases) {
+                if (alias.equals("D")) {
+                    for (int i = 0; i < dataWidth; i++) {
+                        inputAliases[in++] = prefix + "D" + i;
+                    }
+                }
+                else {
+                    inputAliases[in++] = prefix + alias;
+                }
+            }
+            for (int i = 0; i < dataWidth; i++) {
+                outputAliases[p * dataWidth + i] = prefix + "Q" + i;
+            }
+        }
+        for (String alias : sharedAliases) {
+            inputAliases[in++] = alias;
+        }
+    }
+
+    private static int numInputs(String type, int addressWidth, int dataWidth, int numPorts, String[] portAliases,
+                                 String[] sharedAliases) {
+        if (addressWidth < 0 || addressWidth > MAX_ADDRESS_WIDTH || dataWidth < 1 || dataWidth > MAX_DATA_WIDTH
+            || numPorts < 1 || numPorts > 64) {
+            throw new IllegalArgumentException(type + " must have 0 to " + MAX_ADDRESS_WIDTH + " address bits, 1 to "
+                                               + MAX_DATA_WIDTH + " data bits and 1 to 64 ports, received "
+                                               + addressWidth + ", " + dataWidth + " and " + numPorts);
+        }
+        int perPort = addressWidth;
+        for (String alias : portAliases) {
+            perPort += alias.equals("D") ? dataWidth : 1;
+        }
+        return numPorts * perPort + sharedAliases.length;
+    }
+
+    /**
+     * Map a memory image into the storage buffers it covers, the last one covered possibly only in part.
+     *
+     * @param image the image file
+     * @param mode {@link FileChannel.MapMode#READ_ONLY}, or {@link FileChannel.MapMode#PRIVATE} for writes to stay
+     *             in memory
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#MEMORY_IMAGE_UNMAPPABLE} if an IOException occurs or the image is larger than the
+     *      memory
+     * </ul>
+     */
+    protected final void map(Path image, FileChannel.MapMode mode) {
+        // A private mapping needs a writable channel, though the file itself is never written
+        final boolean writable = mode == FileChannel.MapMode.PRIVATE;
+        try (FileChannel channel = writable ? FileChannel.open(image, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                                            : FileChannel.open(image, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > getCapacity()) {
+                throw StatusCodesSys.runtimeException(StatusCodesSys.MEMORY_IMAGE_UNMAPPABLE, image,
+                    size + " bytes is more than the " + getCapacity() + " bytes of the memory");
+            }
+            for (long offset = 0; offset < size; offset += 1L << CHUNK_SHIFT) {
+                final long length = Math.min(size - offset, 1L << CHUNK_SHIFT);
+                chunks[(int) (offset >>> CHUNK_SHIFT)] = channel.map(mode, offset, length)
+                                                                .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        catch (IOException e) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.MEMORY_IMAGE_UNMAPPABLE, e, image, e.getMessage());
+        }
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    /**
+     * Commit pending writes, then output the word at the address of every port.
+     */
+    @Override
+    protected final void deviceLogic() {
+        commit();
+        for (int p = 0; p < numPorts; p++) {
+            final long word = peek(address(p));
+            for (int i = 0; i < dataWidth; i++) {
+                outputBuffer[p * dataWidth + i] = (word >>> i & 1) != 0;
+            }
+        }
+    }
+
+    /**
+     * Commit pending writes, then output the word at the address of every port with its unknown plane, or X if the
+     * address is unknown.
+     */
+    @Override
+    protected final void fourStateLogic() {
+        commit();
+        for (int p = 0; p < numPorts; p++) {
+            final long unknown = addressUnknown(p) != 0 ? mask() : unknown(address(p));
+            final long word = addressUnknown(p) != 0 ? mask() : peek(address(p)) | unknown;
+            for (int i = 0; i < dataWidth; i++) {
+                outputBuffer[p * dataWidth + i] = (word >>> i & 1) != 0;
+                outputUnknown[p * dataWidth + i] = unknown >>> i & 1;
+            }
+        }
+    }
+
+    /**
+     * Apply the writes sampled when the input buffer was loaded, before the ports are read. Memories that cannot be
+     * written have nothing to commit.
+     */
+    protected void commit() {
+    }
+
+    /** @return the address at the address inputs of a port, from the input buffer */
+    protected final long address(int port) {
+        long address = 0;
+        for (int i = 0; i < addressWidth; i++) {
+            address |= inputBuffer[port * portInputs + i] ? 1L << i : 0;
+        }
+        return address;
+    }
+
+    /** @return the unknown plane of the address of a port, always 0 outside four-state mode */
+    protected final long addressUnknown(int port) {
+        long unknown = 0;
+        for (int i = 0; inputUnknown != null && i < addressWidth; i++) {
+            unknown |= inputUnknown[port * portInputs + i] != 0 ? 1L << i : 0;
+        }
+        return unknown;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Switching it on leaves every stored word known.
+     */
+    @Override
+    public void setFourState(boolean fourState) {
+        super.setFourState(fourState);
+        unknownWords = fourState ? new HashMap<>() : null;
+        poisoned = false;
+    }
+
+
+    //*>> -------------------- Storage -------------------- */
+
+    /**
+     * Read a word directly from storage.
+     *
+     * @param address the address of the word
+     * @return the word, 0 if never written or past the end of the image
+     * @throws IndexOutOfBoundsException if the address is not below {@code 2^addressWidth}
+     */
+    public final long peek(long address) {
+        if (address < 0 || address >>> addressWidth != 0) {
+            throw new IndexOutOfBoundsException("Address " + address + " out of " + addressWidth + " address bits");
+        }
+        final long offset = address << wordShift;
+        final ByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        final int position = (int) (offset & (1L << CHUNK_SHIFT) - 1);
+        if (chunk == null || position >= chunk.limit()) {
+            return 0;
+        }
+        return switch (wordShift) {
+            case 0 -> chunk.get(position) & 0xFFL;
+            case 1 -> chunk.getShort(position) & 0xFFFFL;
+            case 2 -> chunk.getInt(position) & 0xFFFFFFFFL;
+            default -> chunk.getLong(position);
+        } & mask();
+    }
+
+    /**
+     * Write a word directly to storage. Storage is allocated when first written, see {@link #grow}.
+     */
+    final void store(long address, long word) {
+        final long offset = address << wordShift;
+        final int c = (int) (offset >>> CHUNK_SHIFT);
+        final int position = (int) (offset & (1L << CHUNK_SHIFT) - 1);
+        final int end = position + (1 << wordShift);
+        if (chunks[c] == null || chunks[c].limit() < end) {
+            grow(c, end);
+        }
+        switch (wordShift) {
+            case 0 -> chunks[c].put(position, (byte) word);
+            case 1 -> chunks[c].putShort(position, (short) word);
+            case 2 -> chunks[c].putInt(position, (int) word);
+            default -> chunks[c].putLong(position, word);
+        }
+    }
+
+    /**
+     * Replace buffer c by a direct buffer holding at least its first {@code end} bytes, keeping the bytes it held.
+     * The new buffer is a power of 2 of at least {@value #MIN_CHUNK} bytes, but never exceeds the capacity or 1GB.
+     */
+    private void grow(int c, int end) {
+        final long available = Math.min(getCapacity() - ((long) c << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+        final int length = (int) Math.min(available, Math.max(MIN_CHUNK, Long.highestOneBit(end - 1L) << 1));
+        final ByteBuffer chunk = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+        if (chunks[c] != null) {
+            chunk.put(0, chunks[c], 0, chunks[c].limit());
+        }
+        chunks[c] = chunk;
+    }
+
+    /** @return the unknown plane of a stored word, always 0 outside four-state mode */
+    final long unknown(long address) {
+        if (unknownWords == null) {
+            return 0;
+        }
+        final Long unknown = unknownWords.get(address);
+        return unknown != null ? unknown : poisoned ? mask() : 0;
+    }
+
+    /** Set the unknown plane of a stored word, ignored outside four-state mode */
+    final void storeUnknown(long address, long unknown) {
+        if (unknownWords == null) {
+            return;
+        }
+        if (unknown == 0 && !poisoned) {
+            unknownWords.remove(address);
+        }
+        else {
+            unknownWords.put(address, unknown & mask());
+        }
+    }
+
+    /** Make every stored word X, after a write to an unknown address. Ignored outside four-state mode */
+    final void poison() {
+        if (unknownWords != null) {
+            unknownWords.clear();
+            poisoned = true;
+        }
+    }
+
+    final long mask() {
+        return dataWidth == 64 ? -1L : (1L << dataWidth) - 1;
+    }
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        for (int i = 0; i < inputAliases.length; i++) {
+            if (inputAliases[i].equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        if (index < 0 || index >= inputAliases.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+        }
+        return inputAliases[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int outAliasToIndex(String alias) {
+        for (int i = 0; i < outputAliases.length; i++) {
+            if (outputAliases[i].equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String outIndexToAlias(int index) {
+        if (index < 0 || index >= outputAliases.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_INDEX, index);
+        }
+        return outputAliases[index];
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public int getAddressWidth() {
+        return addressWidth;
+    }
+
+    public int getDataWidth() {
+        return dataWidth;
+    }
+
+    public int getNumPorts() {
+        return numPorts;
+    }
+
+    /** @return the size of the memory in bytes, {@code 2^addressWidth} words */
+    public long getCapacity() {
+        return 1L << addressWidth + wordShift;
+    }
+
+    /** @return the bytes of storage allocated or mapped */
+    public long getStorageSize() {
+        long size = 0;
+        for (ByteBuffer chunk : chunks) {
+            size += chunk == null ? 0 : chunk.limit();
+        }
+        return size;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+}
@@ -0,0 +1,155 @@
+package sim.component.memory;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import sim.component.StatusCodesSys;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A random-access memory with read/write ports. Each port has, after its address inputs, data inputs
+ * {@code D0, D1, ...} and a write enable {@code WE}, and all ports share the clock input {@code CLK}, the last input.
+ *
+ * <p>Reads are asynchronous: a port always outputs the word at its address. On a rising edge of the clock, every
+ * port whose write enable is high writes its data inputs at its address. Like the {@linkplain
+ * sim.component.sequential.SequentialDevice sequential devices}, the writes are sampled while the input buffer is
+ * loaded and committed when updated, so memories and registers reached by the same edge all see the values from
+ * before it. Ports writing the same address on the same edge are applied in port order, the last one wins. The clock
+ * is considered low before the first update.
+ *
+ * <p>In four-state mode, see {@link Memory}, a port may or may not write while the clock edge or its write enable is
+ * unknown: the bits of the addressed word that would change, or are or would become unknown, become X. A port writing
+ * to an unknown address makes the whole RAM X. A port only certainly does not write when the clock or its write
+ * enable is known to rule it out.
+ */
+public final class Ram extends Memory {
+
+    public static final String TYPE = "RAM";
+
+    //>> Writes sampled on the last clock edge
+    private final boolean[] writing;
+    private final long[] writeAddress;
+    private final long[] writeData;
+
+    //>> Four-state mode, writes that may or may not happen and the unknown planes of the samples
+    private final boolean[] maybeWriting;
+    private final long[] writeAddressUnknown;
+    private final long[] writeDataUnknown;
+
+    private boolean lastClock = false;
+    private boolean lastClockUnknown = false;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a RAM with every word 0. Storage is allocated off-heap when first written, growing with the highest
+     * address written.
+     *
+     * @param addressWidth the number of address inputs of a port, at most {@value #MAX_ADDRESS_WIDTH}
+     * @param dataWidth the number of bits of a word, at most {@value #MAX_DATA_WIDTH}
+     * @param numPorts the number of read/write ports, at most 64
+     * @throws IllegalArgumentException if a width or the number of ports is out of range
+     */
+    public Ram(int addressWidth, int dataWidth, int numPorts) {
+        super(TYPE, addressWidth, dataWidth, numPorts, new String[] {"D", "WE"}, "CLK");
+        writing = new boolean[numPorts];
+        writeAddress = new long[numPorts];
+        writeData = new long[numPorts];
+        maybeWriting = new boolean[numPorts];
+        writeAddressUnknown = new long[numPorts];
+        writeDataUnknown = new long[numPorts];
+    }
+
+    /**
+     * Construct a RAM initialized from an image, mapped copy-on-write: writes stay in memory and never reach the
+     * file, which must still be writable for the mapping. Only the pages written are copied, and the last gigabyte
+     * of the image once a word past its end is written.
+     *
+     * @param image the initial content of the RAM, see {@link Memory} for its layout. It may be shorter than the RAM
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#MEMORY_IMAGE_UNMAPPABLE} if the image cannot be mapped or is larger than the RAM
+     * </ul>
+     * @see #Ram(int, int, int)
+     */
+    public Ram(int addressWidth, int dataWidth, int numPorts, Path image) {
+        this(addressWidth, dataWidth, numPorts);
+        map(image, FileChannel.MapMode.PRIVATE);
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>On a rising edge of the clock, the writes of every port are sampled.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     */
+    @Override
+    public void loadInputBuffer() {
+        super.loadInputBuffer();
+        final int clockInput = inputBuffer.length - 1;
+        final boolean clock = inputBuffer[clockInput];
+        final boolean clockUnknown = inputUnknown != null && inputUnknown[clockInput] != 0;
+        final boolean rising = clock && !clockUnknown && !lastClock && !lastClockUnknown;
+        final boolean maybeRising = (clock || clockUnknown) && (!lastClock || lastClockUnknown);
+        lastClock = clock;
+        lastClockUnknown = clockUnknown;
+
+        for (int p = 0; p < numPorts; p++) {
+            final int enableInput = (p + 1) * portInputs - 1;
+            final boolean enableUnknown = inputUnknown != null && inputUnknown[enableInput] != 0;
+            writing[p] = rising && inputBuffer[enableInput] && !enableUnknown;
+            maybeWriting[p] = !writing[p] && maybeRising && (inputBuffer[enableInput] || enableUnknown);
+            if (writing[p] || maybeWriting[p]) {
+                writeAddress[p] = address(p);
+                writeAddressUnknown[p] = addressUnknown(p);
+                long data = 0;
+                long dataUnknown = 0;
+                for (int i = 0; i < dataWidth; i++) {
+                    final int input = p * portInputs + addressWidth + i;
+                    data |= inputBuffer[input] ? 1L << i : 0;
+                    dataUnknown |= inputUnknown != null && inputUnknown[input] != 0 ? 1L << i : 0;
+                }
+                writeData[p] = data;
+                writeDataUnknown[p] = dataUnknown;
+            }
+        }
+    }
+
+    @Override
+    protected void commit() {
+        for (int p = 0; p < numPorts; p++) {
+            if (writeAddressUnknown[p] != 0 && (writing[p] || maybeWriting[p])) {
+                poison();
+            }
+            else if (writing[p]) {
+                store(writeAddress[p], writeData[p]);
+                storeUnknown(writeAddress[p], writeDataUnknown[p]);
+            }
+            else if (maybeWriting[p]) {
+                final long unknown = unknown(writeAddress[p]);
+                final long word = peek(writeAddress[p]) | unknown;
+                storeUnknown(writeAddress[p], unknown | writeDataUnknown[p] | (word ^ writeData[p]));
+            }
+            writing[p] = false;
+            maybeWriting[p] = false;
+        }
+    }
+
+    /**
+     * Write a word directly to storage, to initialize the RAM. Outputs are updated on the next update.
+     *
+     * @param address the address of the word
+     * @param word the word, bits past the data width are ignored
+     * @throws IndexOutOfBoundsException if the address is not below {@code 2^addressWidth}
+     */
+    public void poke(long address, long word) {
+        if (address < 0 || address >>> addressWidth != 0) {
+            throw new IndexOutOfBoundsException("Address " + address + " out of " + addressWidth + " address bits");
+        }
+        store(address, word);
+    }
+}
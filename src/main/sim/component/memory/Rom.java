@@ -0,0 +1,35 @@
+package sim.component.memory;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import sim.component.StatusCodesSys;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A read-only memory, its content mapped from an image file. Each port outputs the word at its address.
+ */
+public final class Rom extends Memory {
+
+    public static final String TYPE = "ROM";
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a ROM over an image, mapped read-only. The image must not change while the ROM is in use.
+     *
+     * @param addressWidth the number of address inputs of a port, at most {@value #MAX_ADDRESS_WIDTH}
+     * @param dataWidth the number of bits of a word, at most {@value #MAX_DATA_WIDTH}
+     * @param numPorts the number of read ports, at most 64
+     * @param image the content of the ROM, see {@link Memory} for its layout. It may be shorter than the ROM
+     * @throws IllegalArgumentException if a width or the number of ports is out of range
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#MEMORY_IMAGE_UNMAPPABLE} if the image cannot be mapped or is larger than the ROM
+     * </ul>
+     */
+    public Rom(int addressWidth, int dataWidth, int numPorts, Path image) {
+        super(TYPE, addressWidth, dataWidth, numPorts, new String[0]);
+        map(image, FileChannel.MapMode.READ_ONLY);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * The {@code memory} package contains the RAM and ROM devices, of any address and data width and any number of
+ * ports, stored off-heap. The {@code Memory} abstract class can be used to receive an instance of either.
+ */
+package sim.component.memory;
@@ -0,0 +1,36 @@
+package sim.component.sequential;
+
+/**
+ * A D flip-flop loads its data input {@code D} on every rising edge of its clock input {@code CLK}. The clock is
+ * considered low before the first update, so a clock that starts high is a rising edge.
+ */
+public final class DFlipFlop extends SequentialDevice {
+
+    public static final String TYPE = "D-Flip-Flop";
+
+    /** Index of the clock input */
+    public static final int CLK = 1;
+
+    private boolean lastClock = false;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a D flip-flop with its output initialized to false
+     */
+    public DFlipFlop() {
+        super(TYPE, 1, "CLK");
+    }
+
+
+    //*>> -------------------- Logic/getType implementations -------------------- */
+
+    @Override
+    protected boolean shouldLoad() {
+        final boolean clock = inputBuffer[CLK];
+        final boolean rising = clock && !lastClock;
+        lastClock = clock;
+        return rising;
+    }
+}
@@ -0,0 +1,31 @@
+package sim.component.sequential;
+
+/**
+ * A D latch is transparent while its enable input {@code EN} is high, its output following its data input {@code D},
+ * and holds its last value while {@code EN} is low.
+ */
+public final class DLatch extends SequentialDevice {
+
+    public static final String TYPE = "D-Latch";
+
+    /** Index of the enable input */
+    public static final int EN = 1;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a D latch with its output initialized to false
+     */
+    public DLatch() {
+        super(TYPE, 1, "EN");
+    }
+
+
+    //*>> -------------------- Logic/getType implementations -------------------- */
+
+    @Override
+    protected boolean shouldLoad() {
+        return inputBuffer[EN];
+    }
+}
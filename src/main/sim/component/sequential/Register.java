@@ -0,0 +1,38 @@
+package sim.component.sequential;
+
+/**
+ * A register of {@code width} bits loads its data inputs {@code D0, D1, ...} on every rising edge of its clock input
+ * {@code CLK} while its enable input {@code EN} is high. The clock is considered low before the first update, so a
+ * clock that starts high is a rising edge.
+ */
+public final class Register extends SequentialDevice {
+
+    public static final String TYPE = "Register";
+
+    private boolean lastClock = false;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a register with its outputs initialized to false. The enable input is input {@code width} and the
+     * clock input {@code width + 1}.
+     *
+     * @param width the number of bits, must be positive
+     * @throws IllegalArgumentException if {@code width < 1}
+     */
+    public Register(int width) {
+        super(TYPE, width, "EN", "CLK");
+    }
+
+
+    //*>> -------------------- Logic/getType implementations -------------------- */
+
+    @Override
+    protected boolean shouldLoad() {
+        final boolean clock = inputBuffer[getWidth() + 1];
+        final boolean rising = clock && !lastClock;
+        lastClock = clock;
+        return rising && inputBuffer[getWidth()];
+    }
+}
@@ -0,0 +1,269 @@
+package sim.component.sequential;
+
+import sim.component.Device;
+import sim.component.StatusCodesSys;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Completes the implementation needs from {@link Device} for a device holding state: {@code width} data inputs
+ * followed by control inputs, and {@code width} outputs reading the state.
+ *
+ * <h2>Sample and commit</h2>
+ * A circuit loads the input buffers of every system it is about to update before updating any of them. Sequential
+ * devices decide whether to load while their input buffer is loaded, sampling their data inputs, and only commit the
+ * sample to their state once updated. All the devices a clock edge reaches in the same round thus sample the values
+ * from before the edge, no matter the order they are updated in, as if they were one register.
+ *
+ * <p>The state is packed, bit {@code i & 63} of word {@code i >>> 6} being output i, and committed a word at a time.
+ * Every device packs its own state: a clock edge updates each device it reaches, all of them in the same round.
+ * Data inputs are aliased {@code D0, D1, ...} and outputs {@code Q0, Q1, ...}, or {@code D} and {@code Q} for a
+ * width of 1.
+ *
+ * <h2>Four-state mode</h2>
+ * The state starts as X and gets an unknown plane packed the same way, a Z sampled becoming X. While a control input
+ * is X or Z, and on the first sample after, the device may or may not load: state bits that would change, or are or
+ * would become unknown, become X and the rest are kept.
+ */
+public abstract sealed class SequentialDevice extends Device permits DFlipFlop, DLatch, Register {
+
+    /** Packed state, the value of the outputs */
+    protected final long[] state;
+
+    /** Packed data inputs as of the last sample, committed on the next update if {@link #load} */
+    private final long[] sample;
+
+    /** Whether the last sample is to be committed */
+    private boolean load = false;
+
+    //>> Four-state mode, the unknown planes are null outside of it
+    private long[] unknown;
+    private long[] sampleUnknown;
+    /** Whether the last sample may or may not be committed, a control input being unknown */
+    private boolean maybe = false;
+    private boolean controlWasUnknown = false;
+
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param type the device type
+     * @param width the number of data inputs and outputs, must be positive
+     * @param controlAliases alias of each control input, following the data inputs
+     * @throws IllegalArgumentException if {@code width < 1}
+     */
+    protected SequentialDevice(String type, int width, String... controlAliases) {
+        super(type, numInputs(type, width, controlAliases), width, null);
+        state = new long[(width + 63) >>> 6];
+        sample = new long[state.length];
+        inputAliases = new String[width + controlAliases.length];
+        outputAliases = new String[width];
+        for (int i = 0; i < width; i++) {
+            inputAliases[i] = width == 1 ? "D" : "D" + i;
+            outputAliases[i] = width == 1 ? "Q" : "Q" + i;
+        }
+        java.lang.System.arraycopy(controlAliases, 0, inputAliases, width, controlAliases.length);
+    }
+
+    private static int numInputs(String type, int width, String[] controlAliases) {
+        if (width < 1) {
+            throw new IllegalArgumentException(type + " must be at least 1 bit wide, received " + width);
+        }
+        return width + controlAliases.length;
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This is the sample phase: the data inputs are sampled if the control inputs call for a load.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     */
+    @Override
+    public void loadInputBuffer() {
+        super.loadInputBuffer();
+        load = shouldLoad();
+        if (unknown != null) {
+            boolean controlUnknown = false;
+            for (int c = getWidth(); c < inputUnknown.length; c++) {
+                controlUnknown |= inputUnknown[c] != 0;
+            }
+            maybe = controlUnknown || (controlWasUnknown && !load);
+            load &= !controlUnknown;
+            controlWasUnknown = controlUnknown;
+        }
+        if (load || maybe) {
+            for (int w = 0; w < sample.length; w++) {
+                long word = 0;
+                long unknownWord = 0;
+                for (int b = 0; b < 64 && (w << 6) + b < outputBuffer.length; b++) {
+                    word |= inputBuffer[(w << 6) + b] ? 1L << b : 0;
+                    unknownWord |= unknown != null && inputUnknown[(w << 6) + b] != 0 ? 1L << b : 0;
+                }
+                sample[w] = word;
+                if (unknown != null) {
+                    sampleUnknown[w] = unknownWord;
+                }
+            }
+        }
+    }
+
+    /**
+     * The commit phase: the sample, if loaded, becomes the state.
+     */
+    @Override
+    protected final void deviceLogic() {
+        if (!load) {
+            return;
+        }
+        load = false;
+        for (int w = 0; w < state.length; w++) {
+            state[w] = sample[w];
+        }
+        for (int i = 0; i < outputBuffer.length; i++) {
+            outputBuffer[i] = (state[i >>> 6] >>> i & 1) != 0;
+        }
+    }
+
+    /**
+     * The commit phase in four-state mode, see the {@linkplain SequentialDevice class description}.
+     */
+    @Override
+    protected final void fourStateLogic() {
+        if (load) {
+            for (int w = 0; w < state.length; w++) {
+                unknown[w] = sampleUnknown[w];
+                state[w] = sample[w] | unknown[w];
+            }
+        }
+        else if (maybe) {
+            for (int w = 0; w < state.length; w++) {
+                unknown[w] |= sampleUnknown[w] | (state[w] ^ sample[w]);
+                state[w] |= unknown[w];
+            }
+        }
+        load = false;
+        maybe = false;
+        for (int i = 0; i < outputBuffer.length; i++) {
+            outputBuffer[i] = (state[i >>> 6] >>> i & 1) != 0;
+            outputUnknown[i] = unknown[i >>> 6] >>> i & 1;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Switching it on sets the state to X.
+     */
+    @Override
+    public void setFourState(boolean fourState) {
+        super.setFourState(fourState);
+        if (!fourState) {
+            unknown = null;
+            sampleUnknown = null;
+            return;
+        }
+        if (unknown == null) {
+            unknown = new long[state.length];
+            sampleUnknown = new long[state.length];
+            for (int i = 0; i < outputBuffer.length; i++) {
+                unknown[i >>> 6] |= 1L << i;
+            }
+            for (int w = 0; w < state.length; w++) {
+                state[w] |= unknown[w];
+            }
+            controlWasUnknown = false;
+        }
+    }
+
+    /**
+     * Decide whether the data inputs are loaded, called once per input buffer load. Control input {@code c} is
+     * {@code inputBuffer[getWidth() + c]}.
+     *
+     * @return {@code true} if the data inputs are to become the state
+     */
+    protected abstract boolean shouldLoad();
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        for (int i = 0; i < inputAliases.length; i++) {
+            if (inputAliases[i].equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        if (index < 0 || index >= inputAliases.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+        }
+        return inputAliases[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int outAliasToIndex(String alias) {
+        for (int i = 0; i < outputAliases.length; i++) {
+            if (outputAliases[i].equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String outIndexToAlias(int index) {
+        if (index < 0 || index >= outputAliases.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_INDEX, index);
+        }
+        return outputAliases[index];
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /** @return the number of data inputs and outputs */
+    public int getWidth() {
+        return outputBuffer.length;
+    }
+
+    /** @return a copy of the packed state, bit {@code i & 63} of word {@code i >>> 6} being output i */
+    public long[] getState() {
+        return state.clone();
+    }
+
+    /** @return a copy of the unknown plane of the packed state, all 0 outside four-state mode */
+    public long[] getUnknown() {
+        return unknown == null ? new long[state.length] : unknown.clone();
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+}
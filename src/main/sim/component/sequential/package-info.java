@@ -0,0 +1,6 @@
+/**
+ * The {@code sequential} package contains devices holding state: the D flip-flop, the D latch and the N-bit register.
+ * They replace feedback loops of gates, which take many rounds to settle, with state updated in a single round. The
+ * {@code SequentialDevice} abstract class can be used to receive an instance of any of them.
+ */
+package sim.component.sequential;
@@ -0,0 +1,48 @@
+package sim.component.word;
+
+import sim.component.connection.SingleOutputBus;
+
+/**
+ * Outputs bits {@code [lsb, lsb + count)} of its input {@code A}, bit {@code lsb} becoming bit 0. Selecting a single
+ * bit gives a bus single bit gates can read.
+ */
+public final class BitSelect extends WordDevice {
+
+    public static final String TYPE = "Bit-Select";
+
+    private final int lsb;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the input
+     * @param lsb the lowest bit selected
+     * @param count the number of bits selected, the width of the output
+     * @throws IllegalArgumentException if {@code width} or {@code count} is not between 1 and
+     *                                  {@value WordDevice#MAX_WIDTH}, or the bits are not all in the input
+     */
+    public BitSelect(int width, int lsb, int count) {
+        super(TYPE, new String[] {"A"}, new int[] {width},
+              new String[] {SingleOutputBus.OUT_BUS_ALIAS}, new int[] {count});
+        if (lsb < 0 || lsb + count > width) {
+            throw new IllegalArgumentException(TYPE + " of bits [" + lsb + ", " + (lsb + count) + ") is outside a "
+                                               + width + " bit input");
+        }
+        this.lsb = lsb;
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        outputWords[0] = inputWords[0] >>> lsb;
+    }
+
+    /** Both planes are selected, Z is passed on as is */
+    @Override
+    protected void evaluateUnknown() {
+        outputUnknown[0] = inputUnknown[0] >>> lsb;
+    }
+}
@@ -0,0 +1,70 @@
+package sim.component.word;
+
+import sim.component.connection.SingleOutputBus;
+
+/**
+ * Concatenates its inputs {@code I0, I1, ...} into a single output, {@code I0} in the lowest bits. Concatenating
+ * single bits gathers the outputs of single bit gates into a word.
+ */
+public final class Concat extends WordDevice {
+
+    public static final String TYPE = "Concat";
+
+    /** Lowest bit of the output each input is placed at */
+    private final int[] offsets;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param widths the width of each input, summing to at most {@value WordDevice#MAX_WIDTH}
+     * @throws IllegalArgumentException if there are no inputs, or a width or the sum of the widths is not between 1
+     *                                  and {@value WordDevice#MAX_WIDTH}
+     */
+    public Concat(int... widths) {
+        super(TYPE, aliases(widths.length), widths,
+              new String[] {SingleOutputBus.OUT_BUS_ALIAS}, new int[] {sum(widths)});
+        offsets = new int[widths.length];
+        for (int i = 1; i < widths.length; i++) {
+            offsets[i] = offsets[i - 1] + widths[i - 1];
+        }
+    }
+
+    private static String[] aliases(int numInputs) {
+        final String[] aliases = new String[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            aliases[i] = "I" + i;
+        }
+        return aliases;
+    }
+
+    private static int sum(int[] widths) {
+        long sum = 0;
+        for (int width : widths) {
+            sum += width;
+        }
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        long word = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            word |= inputWords[i] << offsets[i];
+        }
+        outputWords[0] = word;
+    }
+
+    /** Both planes are concatenated, Z is passed on as is */
+    @Override
+    protected void evaluateUnknown() {
+        long word = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            word |= inputUnknown[i] << offsets[i];
+        }
+        outputUnknown[0] = word;
+    }
+}
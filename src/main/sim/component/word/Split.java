@@ -0,0 +1,58 @@
+package sim.component.word;
+
+import java.util.Arrays;
+
+/**
+ * Splits its input {@code A} into single bit outputs {@code B0, B1, ...}, bit i on output {@code Bi}. The inverse of
+ * a {@link Concat} of single bits.
+ */
+public final class Split extends WordDevice {
+
+    public static final String TYPE = "Bit-Split";
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the input, and the number of outputs
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH}
+     */
+    public Split(int width) {
+        super(TYPE, new String[] {"A"}, new int[] {width}, aliases(width), bits(width));
+    }
+
+    private static String[] aliases(int width) {
+        checkWidth(TYPE, width);
+        final String[] aliases = new String[width];
+        for (int i = 0; i < width; i++) {
+            aliases[i] = "B" + i;
+        }
+        return aliases;
+    }
+
+    private static int[] bits(int width) {
+        final int[] widths = new int[width];
+        Arrays.fill(widths, 1);
+        return widths;
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        final long a = inputWords[0];
+        for (int i = 0; i < outputWords.length; i++) {
+            outputWords[i] = a >>> i;
+        }
+    }
+
+    /** Both planes are split, Z is passed on as is */
+    @Override
+    protected void evaluateUnknown() {
+        final long a = inputUnknown[0];
+        for (int i = 0; i < outputUnknown.length; i++) {
+            outputUnknown[i] = a >>> i;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package sim.component.word;
+
+/**
+ * Adds its {@code width} bit inputs {@code A} and {@code B} and its carry input {@code CIN}, outputting the sum on
+ * {@code S} and the carry out of the top bit on {@code COUT}.
+ */
+public final class WordAdder extends WordDevice {
+
+    public static final String TYPE = "Word-Adder";
+
+    private final int width;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the operands and the sum
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH}
+     */
+    public WordAdder(int width) {
+        super(TYPE, new String[] {"A", "B", "CIN"}, new int[] {width, width, 1},
+              new String[] {"S", "COUT"}, new int[] {width, 1});
+        this.width = width;
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        final long a = inputWords[0];
+        final long b = inputWords[1];
+        final long sum = a + b + inputWords[2];
+        outputWords[0] = sum;
+        outputWords[1] = width == MAX_WIDTH ? ((a & b) | ((a | b) & ~sum)) >>> 63 : sum >>> width;
+    }
+
+    /**
+     * Sum bits below the lowest unknown bit of the operands are known, every bit from it up is X, as is the carry
+     * out. An unknown carry in makes every output X.
+     */
+    @Override
+    protected void evaluateUnknown() {
+        final long unknown = inputUnknown[2] != 0 ? -1L : inputUnknown[0] | inputUnknown[1];
+        outputUnknown[0] = -Long.lowestOneBit(unknown);
+        outputUnknown[1] = unknown != 0 ? 1 : 0;
+        outputWords[0] |= outputUnknown[0];
+        outputWords[1] |= outputUnknown[1];
+    }
+}
@@ -0,0 +1,49 @@
+package sim.component.word;
+
+/**
+ * Compares its {@code width} bit inputs {@code A} and {@code B}, as unsigned or two's complement numbers, setting
+ * exactly one of its outputs {@code EQ}, {@code LT} and {@code GT}.
+ */
+public final class WordComparator extends WordDevice {
+
+    public static final String TYPE = "Word-Comparator";
+
+    private final int width;
+    private final boolean signed;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the operands
+     * @param signed {@code true} to compare two's complement numbers
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH}
+     */
+    public WordComparator(int width, boolean signed) {
+        super(TYPE, new String[] {"A", "B"}, new int[] {width, width},
+              new String[] {"EQ", "LT", "GT"}, new int[] {1, 1, 1});
+        this.width = width;
+        this.signed = signed;
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        final int order = signed
+                          ? Long.compare(inputWords[0] << MAX_WIDTH - width >> MAX_WIDTH - width,
+                                         inputWords[1] << MAX_WIDTH - width >> MAX_WIDTH - width)
+                          : Long.compareUnsigned(inputWords[0], inputWords[1]);
+        outputWords[0] = order == 0 ? 1 : 0;
+        outputWords[1] = order < 0 ? 1 : 0;
+        outputWords[2] = order > 0 ? 1 : 0;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public boolean isSigned() {
+        return signed;
+    }
+}
@@ -0,0 +1,240 @@
+package sim.component.word;
+
+import sim.component.Device;
+import sim.component.StatusCodesSys;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Completes the implementation needs from {@link Device} for a device whose buses are words of up to 64 bits, see
+ * {@link sim.component.System#getOutWord(int)}. Subclasses compute {@link #outputWords} from {@link #inputWords}, a
+ * word at a time.
+ *
+ * <p>Input words are read when the input buffer is loaded, the input buffer itself then holding whether each word is
+ * not 0. Output words are masked to the width of their bus after every evaluation, so evaluations may leave garbage
+ * in the bits above it.
+ *
+ * <p>In four-state mode, {@link #inputWords} and {@link #outputWords} are the value planes of the buses and
+ * {@link #inputUnknown} and {@link #outputUnknown} their unknown planes, evaluated a plane at a time with the same
+ * bitwise operations.
+ */
+public abstract sealed class WordDevice extends Device
+        permits WordAdder, WordComparator, WordMux, WordShifter, WordLogic, BitSelect, Split, Concat, WordSource {
+
+    /** Maximum width of a bus */
+    public static final int MAX_WIDTH = 64;
+
+    /** Value of each input bus as of the last input buffer load */
+    protected final long[] inputWords;
+
+    /** Value of each output bus */
+    protected final long[] outputWords;
+
+    private final int[] inputWidths;
+    private final int[] outputWidths;
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a device with its outputs initialized to 0.
+     *
+     * @param type the device type
+     * @param inputAliases alias of each input bus
+     * @param inputWidths width of each input bus
+     * @param outputAliases alias of each output bus
+     * @param outputWidths width of each output bus
+     * @throws IllegalArgumentException if a width is not between 1 and {@value #MAX_WIDTH}
+     */
+    protected WordDevice(String type, String[] inputAliases, int[] inputWidths,
+                         String[] outputAliases, int[] outputWidths) {
+        super(type, inputAliases.length, outputAliases.length, null);
+        for (int width : inputWidths) {
+            checkWidth(type, width);
+        }
+        for (int width : outputWidths) {
+            checkWidth(type, width);
+        }
+
+        this.inputWords = new long[inputAliases.length];
+        this.outputWords = new long[outputAliases.length];
+        this.inputWidths = inputWidths.clone();
+        this.outputWidths = outputWidths.clone();
+        this.inputAliases = inputAliases.clone();
+        this.outputAliases = outputAliases.clone();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value #MAX_WIDTH}
+     */
+    static void checkWidth(String type, int width) {
+        if (width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException(type + " buses must be 1 to " + MAX_WIDTH + " bits wide, received "
+                                               + width);
+        }
+    }
+
+    /** @return a word with the lowest {@code width} bits set */
+    static long mask(int width) {
+        return -1L >>> MAX_WIDTH - width;
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    @Override
+    public void loadInputBuffer() {
+        for (int i = 0; i < inputBus.length; i++) {
+            inputWords[i] = inputBus[i].getWord();
+            inputBuffer[i] = inputWords[i] != 0;
+        }
+        if (inputUnknown != null) {
+            for (int i = 0; i < inputBus.length; i++) {
+                inputUnknown[i] = inputBus[i].getUnknown();
+            }
+        }
+    }
+
+    @Override
+    protected final void deviceLogic() {
+        evaluate();
+        for (int o = 0; o < outputWords.length; o++) {
+            outputWords[o] &= mask(outputWidths[o]);
+            outputBuffer[o] = outputWords[o] != 0;
+        }
+    }
+
+    @Override
+    protected final void fourStateLogic() {
+        evaluate();
+        evaluateUnknown();
+        for (int o = 0; o < outputWords.length; o++) {
+            outputWords[o] &= mask(outputWidths[o]);
+            outputUnknown[o] &= mask(outputWidths[o]);
+            outputBuffer[o] = outputWords[o] != 0;
+        }
+    }
+
+    /**
+     * Compute the output words from the input words, called on every update.
+     */
+    protected abstract void evaluate();
+
+    /**
+     * Compute the unknown planes of the outputs in four-state mode, called on every update after {@link #evaluate()}
+     * computed the value planes. Value plane bits must be set where an output is X and cleared where it is Z.
+     *
+     * <p>By default every output is X while any input bit is X or Z.
+     */
+    protected void evaluateUnknown() {
+        boolean unknown = false;
+        for (long word : inputUnknown) {
+            unknown |= word != 0;
+        }
+        for (int o = 0; o < outputWords.length; o++) {
+            outputUnknown[o] = unknown ? -1L : 0;
+            outputWords[o] |= outputUnknown[o];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Switching it on sets every output bit to X.
+     */
+    @Override
+    public void setFourState(boolean fourState) {
+        super.setFourState(fourState);
+        if (fourState) {
+            for (int o = 0; o < outputWords.length; o++) {
+                outputWords[o] = mask(outputWidths[o]);
+            }
+        }
+    }
+
+
+    //*>> -------------------- Index and Alias Conversion -------------------- */
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int inAliasToIndex(String alias) {
+        for (int i = 0; i < inputAliases.length; i++) {
+            if (inputAliases[i].equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String inIndexToAlias(int index) {
+        if (index < 0 || index >= inputAliases.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_INPUT_INDEX, index);
+        }
+        return inputAliases[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public int outAliasToIndex(String alias) {
+        for (int i = 0; i < outputAliases.length; i++) {
+            if (outputAliases[i].equals(alias)) {
+                return i;
+            }
+        }
+        throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_ALIAS, alias);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws StatusRuntimeException {@inheritDoc}
+     */
+    @Override
+    public String outIndexToAlias(int index) {
+        if (index < 0 || index >= outputAliases.length) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.UNKNOWN_OUTPUT_INDEX, index);
+        }
+        return outputAliases[index];
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException {@inheritDoc}
+     */
+    @Override
+    public long getOutWord(int bus) {
+        return outputWords[bus];
+    }
+
+    @Override
+    public int getOutWidth(int bus) {
+        return outputWidths[bus];
+    }
+
+    @Override
+    public int getInWidth(int bus) {
+        return inputWidths[bus];
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+}
@@ -0,0 +1,102 @@
+package sim.component.word;
+
+import sim.component.connection.SingleOutputBus;
+
+/**
+ * Applies a bitwise operation to its {@code width} bit inputs {@code A} and {@code B}, or to {@code A} alone for
+ * {@link Op#NOT}.
+ */
+public final class WordLogic extends WordDevice {
+
+    public static final String TYPE = "Word-Logic";
+
+    /**
+     * The operation of a bitwise device.
+     */
+    public enum Op {
+        AND, OR, XOR, NAND, NOR, XNOR,
+        /** The only operation with a single input */
+        NOT
+    }
+
+    private final Op op;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the inputs and the output
+     * @param op the operation
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH}
+     */
+    public WordLogic(int width, Op op) {
+        super(TYPE, op == Op.NOT ? new String[] {"A"} : new String[] {"A", "B"},
+              op == Op.NOT ? new int[] {width} : new int[] {width, width},
+              new String[] {SingleOutputBus.OUT_BUS_ALIAS}, new int[] {width});
+        this.op = op;
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        final long a = inputWords[0];
+        final long b = op == Op.NOT ? 0 : inputWords[1];
+        outputWords[0] = switch (op) {
+            case AND -> a & b;
+            case OR -> a | b;
+            case XOR -> a ^ b;
+            case NAND -> ~(a & b);
+            case NOR -> ~(a | b);
+            case XNOR -> ~(a ^ b);
+            case NOT -> ~a;
+        };
+    }
+
+    /**
+     * Bits known to be low, or known to be high, give the output bits they decide: a low bit of {@code A} makes the
+     * same bit of {@code A AND B} low. Every other bit is X, Z being read as X.
+     */
+    @Override
+    protected void evaluateUnknown() {
+        final long aUnknown = inputUnknown[0];
+        final long bUnknown = op == Op.NOT ? 0 : inputUnknown[1];
+        final long aLow = ~inputWords[0] & ~aUnknown;
+        final long aHigh = inputWords[0] & ~aUnknown;
+        final long bLow = op == Op.NOT ? 0 : ~inputWords[1] & ~bUnknown;
+        final long bHigh = op == Op.NOT ? 0 : inputWords[1] & ~bUnknown;
+
+        final long low;
+        final long high;
+        switch (op) {
+            case AND, NAND -> {
+                low = aLow | bLow;
+                high = aHigh & bHigh;
+            }
+            case OR, NOR -> {
+                low = aLow & bLow;
+                high = aHigh | bHigh;
+            }
+            case XOR, XNOR -> {
+                low = (aLow & bLow) | (aHigh & bHigh);
+                high = (aLow & bHigh) | (aHigh & bLow);
+            }
+            default -> {
+                low = aLow;
+                high = aHigh;
+            }
+        }
+
+        final boolean inverted = op == Op.NAND || op == Op.NOR || op == Op.XNOR || op == Op.NOT;
+        outputUnknown[0] = ~(low | high);
+        outputWords[0] = (inverted ? low : high) | outputUnknown[0];
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public Op getOp() {
+        return op;
+    }
+}
@@ -0,0 +1,76 @@
+package sim.component.word;
+
+import java.util.Arrays;
+
+import sim.component.connection.SingleOutputBus;
+
+/**
+ * Outputs the input {@code I<SEL>} of its {@code n} inputs {@code I0, I1, ...}, or 0 if the select input {@code SEL}
+ * is {@code n} or more. The select input is just wide enough to count to {@code n - 1}.
+ */
+public final class WordMux extends WordDevice {
+
+    public static final String TYPE = "Word-Mux";
+
+    private final int numInputs;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the inputs and the output
+     * @param numInputs the number of inputs to select from, at least 2
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH} or
+     *                                  {@code numInputs < 2}
+     */
+    public WordMux(int width, int numInputs) {
+        super(TYPE, aliases(numInputs), widths(width, numInputs),
+              new String[] {SingleOutputBus.OUT_BUS_ALIAS}, new int[] {width});
+        this.numInputs = numInputs;
+    }
+
+    private static String[] aliases(int numInputs) {
+        if (numInputs < 2) {
+            throw new IllegalArgumentException(TYPE + " must have at least 2 inputs, received " + numInputs);
+        }
+        final String[] aliases = new String[numInputs + 1];
+        for (int i = 0; i < numInputs; i++) {
+            aliases[i] = "I" + i;
+        }
+        aliases[numInputs] = "SEL";
+        return aliases;
+    }
+
+    private static int[] widths(int width, int numInputs) {
+        final int[] widths = new int[numInputs + 1];
+        Arrays.fill(widths, width);
+        widths[numInputs] = Integer.SIZE - Integer.numberOfLeadingZeros(numInputs - 1);
+        return widths;
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        final long select = inputWords[numInputs];
+        outputWords[0] = select < numInputs ? inputWords[(int) select] : 0;
+    }
+
+    /**
+     * The selected input is passed on with Z read as X. Every output bit is X while {@code SEL} is unknown.
+     */
+    @Override
+    protected void evaluateUnknown() {
+        final long select = inputWords[numInputs];
+        outputUnknown[0] = inputUnknown[numInputs] != 0 ? -1L : select < numInputs ? inputUnknown[(int) select] : 0;
+        outputWords[0] |= outputUnknown[0];
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public int getNumInputs() {
+        return numInputs;
+    }
+}
@@ -0,0 +1,91 @@
+package sim.component.word;
+
+import sim.component.connection.SingleOutputBus;
+
+/**
+ * Shifts or rotates its {@code width} bit input {@code A} by the amount on its input {@code SH}, which is just wide
+ * enough to count to {@code width - 1}. Shifting by {@code width} or more shifts every bit out.
+ */
+public final class WordShifter extends WordDevice {
+
+    public static final String TYPE = "Word-Shifter";
+
+    /**
+     * The operation of a shifter.
+     */
+    public enum Op {
+        /** Shift towards the top bit, filling with 0 */
+        SHL,
+        /** Shift towards bit 0, filling with 0 */
+        SHR,
+        /** Shift towards bit 0, filling with the top bit */
+        SAR,
+        /** Rotate towards the top bit */
+        ROL,
+        /** Rotate towards bit 0 */
+        ROR
+    }
+
+    private final int width;
+    private final Op op;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * @param width the width of the input and the output
+     * @param op the operation
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH}
+     */
+    public WordShifter(int width, Op op) {
+        super(TYPE, new String[] {"A", "SH"}, new int[] {width, Math.max(1, amountWidth(width))},
+              new String[] {SingleOutputBus.OUT_BUS_ALIAS}, new int[] {width});
+        this.width = width;
+        this.op = op;
+    }
+
+    private static int amountWidth(int width) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(width - 1);
+    }
+
+
+    //*>> -------------------- Logic implementation -------------------- */
+
+    @Override
+    protected void evaluate() {
+        outputWords[0] = shift(inputWords[0], inputWords[1]);
+    }
+
+    /**
+     * The unknown plane of {@code A} is shifted like its value plane, with Z read as X. Every output bit is X while
+     * {@code SH} is unknown.
+     */
+    @Override
+    protected void evaluateUnknown() {
+        outputUnknown[0] = inputUnknown[1] != 0 ? -1L : shift(inputUnknown[0], inputWords[1]);
+        outputWords[0] |= outputUnknown[0];
+    }
+
+    private long shift(long a, long amount) {
+        final int shift = (int) Math.min(amount, MAX_WIDTH - 1);
+        return switch (op) {
+            case SHL -> amount < width ? a << shift : 0;
+            case SHR -> amount < width ? a >>> shift : 0;
+            case SAR -> (a << MAX_WIDTH - width >> MAX_WIDTH - width) >> Math.min(shift, width - 1);
+            case ROL -> rotate(a, (int) (amount % width));
+            case ROR -> rotate(a, (int) ((width - amount % width) % width));
+        };
+    }
+
+    /** Rotate {@code a} towards the top bit by {@code 0 <= shift < width} */
+    private long rotate(long a, int shift) {
+        return shift == 0 ? a : a << shift | a >>> width - shift;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public Op getOp() {
+        return op;
+    }
+}
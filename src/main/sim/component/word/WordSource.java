@@ -0,0 +1,87 @@
+package sim.component.word;
+
+import sim.component.System;
+import sim.component.connection.SingleOutputBus;
+
+/**
+ * The word counterpart of {@link sim.component.SignalSource}, a device without input buses whose single output bus
+ * is set from outside the simulation. The value is only driven onto the output bus on {@link #update()}.
+ */
+public final class WordSource extends WordDevice {
+
+    public static final String TYPE = "Word-Source";
+
+    private long value = 0;
+    private long unknown = 0;
+
+
+    //*>> -------------------- Constructor -------------------- */
+
+    /**
+     * Construct a word source with its output bus initialized to 0.
+     *
+     * @param width the width of the output bus
+     * @throws IllegalArgumentException if {@code width} is not between 1 and {@value WordDevice#MAX_WIDTH}
+     */
+    public WordSource(int width) {
+        super(TYPE, new String[0], new int[0], new String[] {SingleOutputBus.OUT_BUS_ALIAS}, new int[] {width});
+    }
+
+
+    //*>> -------------------- Connect systems -------------------- */
+
+    /**
+     * Not supported, a word source has no input buses.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void connectInput(System fromSystem, String fromBus, String toBus) {
+        throw new UnsupportedOperationException(TYPE + " has no input buses");
+    }
+
+    /**
+     * Not supported, a word source has no input buses.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void connectInput(System fromSystem, int fromBus, int toBus) {
+        throw new UnsupportedOperationException(TYPE + " has no input buses");
+    }
+
+
+    //*>> -------------------- Update Operations -------------------- */
+
+    /**
+     * Set the value driven onto the output bus on the next update, bits above the width of the bus are dropped.
+     *
+     * @param value the new value
+     */
+    public void set(long value) {
+        this.value = value;
+        this.unknown = 0;
+    }
+
+    /**
+     * Set both planes of the value driven onto the output bus on the next update, see
+     * {@link sim.component.LogicValue}. Outside four-state mode only the value plane is driven.
+     *
+     * @param value the new value plane
+     * @param unknown the new unknown plane
+     */
+    public void set(long value, long unknown) {
+        this.value = value;
+        this.unknown = unknown;
+    }
+
+    @Override
+    protected void evaluate() {
+        outputWords[0] = value;
+    }
+
+    @Override
+    protected void evaluateUnknown() {
+        outputUnknown[0] = unknown;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * The {@code word} package contains devices whose buses are words of up to 64 bits: an adder, a comparator, a mux, a
+ * shifter and bitwise operations, each evaluated a word at a time. {@code BitSelect}, {@code Split} and
+ * {@code Concat} convert between words and the single bits gates read and drive. The {@code WordDevice} abstract
+ * class can be used to receive an instance of any of them.
+ */
+package sim.component.word;
@@ -0,0 +1,311 @@
+package sim.controller;
+
+import java.util.Arrays;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.ClockBlueprint;
+import sim.blueprint.StatusCodesBlp;
+import sim.component.Circuit;
+import sim.component.SignalSource;
+import sim.component.System;
+import sim.exception.StatusRuntimeException;
+import sim.flat.FlatNetlist;
+
+/**
+ * Evaluates a combinational system, {@code MAIN} by default, for input vectors given as packed bits, remembering the
+ * outputs of the vectors seen recently. Input bus i is bit {@code i & 63} of word {@code i >>> 6}, outputs are packed
+ * the same way.
+ *
+ * <h2>Eviction</h2>
+ * The cache is {@value #WAYS}-way set associative: a vector may only be stored in the {@value #WAYS} entries of the
+ * set its hash selects. Each entry has a reference bit, set on every hit. On a miss in a full set, a clock hand sweeps
+ * the set, clearing reference bits, and evicts the first entry found without one.
+ *
+ * <h2>Turning off</h2>
+ * The cache is {@linkplain State#STATEFUL off from the start} if the system has state, clocks or feedback loops, as
+ * its outputs then depend on more than its inputs. It also turns itself {@linkplain State#LOW_HIT_RATE off for good}
+ * if fewer than {@linkplain #minHitRate(double) a fraction} of the lookups of a window hit, a window being as many
+ * lookups as the cache has entries. The first window is not judged, as it fills the cache. Once off, every vector is
+ * simulated and the memory of the cache is released.
+ *
+ * <p>Like the systems it evaluates, a cache is not thread-safe.
+ */
+public final class EvaluationCache {
+
+    /** Entries per set */
+    public static final int WAYS = 8;
+
+    /** Default number of entries */
+    public static final int CAPACITY = 1 << 16;
+
+    /** Default minimum fraction of lookups hitting for the cache to stay on */
+    public static final double MIN_HIT_RATE = 0.1;
+
+    /**
+     * Whether the cache is used.
+     */
+    public enum State {
+        /** Vectors are looked up before being simulated */
+        ENABLED,
+        /** Off, the system has state */
+        STATEFUL,
+        /** Off, too few lookups hit */
+        LOW_HIT_RATE
+    }
+
+    private final System system;
+    private final SignalSource[] inputs;
+    private final int inputWords;
+    private final int outputWords;
+    private final int sets;
+    private double minHitRate = MIN_HIT_RATE;
+    private State state;
+
+    //>> Entries, way w of set s is entry s * WAYS + w. Keys and values take a fixed number of words per entry
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private boolean[] referenced;
+    private byte[] hands;
+
+    //>> Statistics
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long windowLookups = 0;
+    private long windowHits = 0;
+    private boolean warm = false;
+
+
+    /**
+     * Cache the evaluations of {@code MAIN}, with {@value #CAPACITY} entries.
+     *
+     * @throws StatusRuntimeException see {@link #EvaluationCache(String, int)}
+     */
+    public EvaluationCache() {
+        this("MAIN", CAPACITY);
+    }
+
+    /**
+     * @param type the type of the system evaluated
+     * @param capacity the number of entries, rounded up to a power of 2 of at least {@value #WAYS}
+     * @throws IllegalArgumentException if {@code capacity < 1} or above {@code 2^30}
+     * @throws UnsupportedOperationException if the type is a clock
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_NOT_RECOGNIZED} if the type is not registered
+     * </ul>
+     */
+    public EvaluationCache(String type, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Cache capacity must be between 1 and 2^30, received " + capacity);
+        }
+        final Blueprint blueprint = Blueprint.get(type);
+        if (blueprint == null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_NOT_RECOGNIZED, type);
+        }
+        if (blueprint instanceof ClockBlueprint) {
+            throw new UnsupportedOperationException("Clock blueprints cannot be evaluated");
+        }
+
+        system = blueprint.build();
+        inputs = new SignalSource[system.getInputBus().length];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new SignalSource();
+            system.connectInput(inputs[i], 0, i);
+        }
+        inputWords = Math.max(1, (inputs.length + 63) >>> 6);
+        outputWords = Math.max(1, (system.getOut().length + 63) >>> 6);
+        sets = Math.max(1, Integer.highestOneBit(Math.max(capacity, WAYS) * 2 - 1) / WAYS);
+
+        state = isStateless(blueprint) ? State.ENABLED : State.STATEFUL;
+        if (state == State.ENABLED) {
+            keys = new long[sets * WAYS * inputWords];
+            values = new long[sets * WAYS * outputWords];
+            used = new boolean[sets * WAYS];
+            referenced = new boolean[sets * WAYS];
+            hands = new byte[sets];
+        }
+    }
+
+    /** A system is stateless if it can be flattened: no clocks and no feedback loops */
+    private static boolean isStateless(Blueprint blueprint) {
+        try {
+            FlatNetlist.of(blueprint);
+            return true;
+        }
+        catch (UnsupportedOperationException | StatusRuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param minHitRate the fraction of the lookups of a window that must hit for the cache to stay on, 0 to never
+     *                   turn it off
+     * @return this cache
+     * @throws IllegalArgumentException if {@code minHitRate} is not between 0 and 1
+     */
+    public EvaluationCache minHitRate(double minHitRate) {
+        if (!(minHitRate >= 0 && minHitRate <= 1)) {
+            throw new IllegalArgumentException("Minimum hit rate must be between 0 and 1, received " + minHitRate);
+        }
+        this.minHitRate = minHitRate;
+        return this;
+    }
+
+
+    //*>> -------------------- Evaluation -------------------- */
+
+    /**
+     * Evaluate the system for an input vector, from the cache if the vector was seen recently.
+     *
+     * @param inputs the packed input vector, at least {@link #getInputWords()} long. Bits past the last input bus
+     *               must be 0
+     * @param outputs receives the packed outputs, at least {@link #getOutputWords()} long
+     */
+    public void evaluate(long[] inputs, long[] outputs) {
+        if (state != State.ENABLED) {
+            simulate(inputs, outputs);
+            return;
+        }
+
+        final int set = hash(inputs) & (sets - 1);
+        final int first = set * WAYS;
+        for (int entry = first; entry < first + WAYS; entry++) {
+            if (used[entry] && Arrays.equals(keys, entry * inputWords, (entry + 1) * inputWords,
+                                              inputs, 0, inputWords)) {
+                referenced[entry] = true;
+                java.lang.System.arraycopy(values, entry * outputWords, outputs, 0, outputWords);
+                hits++;
+                windowHits++;
+                count();
+                return;
+            }
+        }
+
+        misses++;
+        final boolean settled = simulate(inputs, outputs);
+        if (settled) {
+            final int entry = victim(set);
+            used[entry] = true;
+            referenced[entry] = false;
+            java.lang.System.arraycopy(inputs, 0, keys, entry * inputWords, inputWords);
+            java.lang.System.arraycopy(outputs, 0, values, entry * outputWords, outputWords);
+        }
+        count();
+    }
+
+    /** Count a lookup, turning the cache off at the end of a window with too few hits */
+    private void count() {
+        if (++windowLookups < (long) sets * WAYS) {
+            return;
+        }
+        if (warm && windowHits < minHitRate * windowLookups) {
+            state = State.LOW_HIT_RATE;
+            keys = null;
+            values = null;
+            used = null;
+            referenced = null;
+            hands = null;
+        }
+        warm = true;
+        windowLookups = 0;
+        windowHits = 0;
+    }
+
+    /** @return an entry of the set that is free, or evicted */
+    private int victim(int set) {
+        final int first = set * WAYS;
+        for (int entry = first; entry < first + WAYS; entry++) {
+            if (!used[entry]) {
+                return entry;
+            }
+        }
+        evictions++;
+        int hand = hands[set];
+        while (referenced[first + hand]) {
+            referenced[first + hand] = false;
+            hand = (hand + 1) % WAYS;
+        }
+        hands[set] = (byte) ((hand + 1) % WAYS);
+        return first + hand;
+    }
+
+    /** Mix every input word with the finalizer of SplitMix64, so every input bit reaches the low bits of the set */
+    private int hash(long[] inputs) {
+        long h = 0;
+        for (int w = 0; w < inputWords; w++) {
+            h = (h + inputs[w]) * 0x9E3779B97F4A7C15L;
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            h ^= h >>> 31;
+        }
+        return (int) h;
+    }
+
+    /** @return {@code true} if the system settled, an unsettled result is not cached */
+    private boolean simulate(long[] packed, long[] outputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i].set((packed[i >>> 6] >>> i & 1) != 0);
+            inputs[i].update();
+        }
+        system.update();
+
+        Arrays.fill(outputs, 0, outputWords, 0);
+        final boolean[] out = system.getOut();
+        for (int o = 0; o < out.length; o++) {
+            outputs[o >>> 6] |= out[o] ? 1L << o : 0;
+        }
+        return !(system instanceof Circuit circuit) || circuit.isSettled();
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public State getState() {
+        return state;
+    }
+
+    /** @return the system evaluated, its inputs driven by the cache */
+    public System getSystem() {
+        return system;
+    }
+
+    /** @return the number of words of a packed input vector */
+    public int getInputWords() {
+        return inputWords;
+    }
+
+    /** @return the number of words of packed outputs */
+    public int getOutputWords() {
+        return outputWords;
+    }
+
+    public int getCapacity() {
+        return sets * WAYS;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /** @return the lookups that missed, vectors evaluated while the cache is off are not counted */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** @return the fraction of lookups that hit, 0 if there were none */
+    public double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s cache (%s): %d hit(s), %d miss(es), %d eviction(s), %.2f%% hit rate",
+                             system.getType(), state, hits, misses, evictions, 100 * getHitRate());
+    }
+}
@@ -1,11 +1,21 @@
 package sim.controller;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out dense system IDs. Systems may be built on many threads at once, each ID is handed out once.
+ */
 public final class IdGenerator {
 
-    private static int id = 0;
+    private static final AtomicInteger id = new AtomicInteger();
 
     public static int get() {
-        return id++;
+        return id.getAndIncrement();
+    }
+
+    /** @return the number of IDs handed out, IDs are {@code [0, count)} */
+    public static int count() {
+        return id.get();
     }
 
     private IdGenerator() {}
@@ -0,0 +1,421 @@
+package sim.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.CircuitBlueprint;
+import sim.blueprint.ClockBlueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.blueprint.StatusCodesBlp;
+import sim.component.Circuit;
+import sim.component.SignalSource;
+import sim.component.System;
+import sim.exception.StatusRuntimeException;
+import sim.metrics.Histogram;
+import sim.metrics.SimulationMetrics;
+
+/**
+ * Runs many independent randomized simulations of the same blueprint. Every instance is built from the blueprint,
+ * has a {@link SignalSource} on each input bus, and is updated for a number of ticks, its inputs driven by a
+ * {@link Stimulus} before every tick.
+ *
+ * <pre>{@code
+ * MonteCarlo.Result result = new MonteCarlo(Blueprint.get("ArrayMultiplier16"))
+ *     .instances(10_000).ticks(100).seed(42)
+ *     .run();
+ * }</pre>
+ *
+ * <h2>Reproducibility</h2>
+ * Every instance draws its stimulus from its own random stream, split from the seed in instance order before any
+ * instance runs. Results are aggregated as exact integer sums, minimums and maximums, so a run gives the same result
+ * for the same seed whatever the number of threads and the order instances finish in.
+ *
+ * <h2>Threads</h2>
+ * Instances run on a fixed pool of {@linkplain #threads(int) platform threads}, or on
+ * {@linkplain #virtualThreads() a virtual thread each}. Instances share nothing but the accumulators, which are striped
+ * {@link LongAdder}s, so throughput scales with the cores available.
+ */
+public final class MonteCarlo {
+
+    /**
+     * Drives the input buses of an instance before a tick.
+     */
+    @FunctionalInterface
+    public interface Stimulus {
+
+        /** Every input bus is 0 or 1 with equal probability, at every tick */
+        Stimulus UNIFORM = (inputs, tick, random) -> {
+            for (SignalSource input : inputs) {
+                input.set(random.nextBoolean());
+            }
+        };
+
+        /**
+         * @param inputs the source on each input bus of the instance
+         * @param tick the tick about to be simulated, from 0
+         * @param random the random stream of the instance, the only source of randomness for a reproducible run
+         */
+        void drive(SignalSource[] inputs, int tick, SplittableRandom random);
+    }
+
+    /**
+     * Measures an instance after a tick, the measurements of all ticks of all instances are aggregated.
+     */
+    @FunctionalInterface
+    public interface Probe {
+
+        /**
+         * @param system the instance, settled
+         * @param tick the tick just simulated, from 0
+         * @return the measurement
+         */
+        long measure(System system, int tick);
+    }
+
+    private final Blueprint blueprint;
+    private int instances = 1000;
+    private int ticks = 100;
+    private long seed = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean virtualThreads = false;
+    private Stimulus stimulus = Stimulus.UNIFORM;
+    private Probe probe = null;
+    private SimulationMetrics metrics = null;
+
+
+    /**
+     * @param blueprint the blueprint instances are built from
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_NOT_RECOGNIZED} if the blueprint is {@code null}, as returned by
+     *      {@link Blueprint#get} for an unknown type
+     * </ul>
+     */
+    public MonteCarlo(Blueprint blueprint) {
+        if (blueprint == null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_NOT_RECOGNIZED, "null");
+        }
+        this.blueprint = blueprint;
+    }
+
+
+    //*>> -------------------- Settings -------------------- */
+
+    /**
+     * @param instances the number of instances simulated, must be positive
+     * @return this runner
+     * @throws IllegalArgumentException if {@code instances < 1}
+     */
+    public MonteCarlo instances(int instances) {
+        if (instances < 1) {
+            throw new IllegalArgumentException("A Monte Carlo run needs at least 1 instance, received " + instances);
+        }
+        this.instances = instances;
+        return this;
+    }
+
+    /**
+     * @param ticks the number of ticks every instance is simulated for, must not be negative
+     * @return this runner
+     * @throws IllegalArgumentException if {@code ticks < 0}
+     */
+    public MonteCarlo ticks(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("The number of ticks cannot be negative, received " + ticks);
+        }
+        this.ticks = ticks;
+        return this;
+    }
+
+    /**
+     * @param seed the seed of the run, the random streams of all instances are split from it
+     * @return this runner
+     */
+    public MonteCarlo seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Run the instances on a fixed pool of platform threads.
+     *
+     * @param threads the number of threads, must be positive
+     * @return this runner
+     * @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public MonteCarlo threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A Monte Carlo run needs at least 1 thread, received " + threads);
+        }
+        this.threads = threads;
+        this.virtualThreads = false;
+        return this;
+    }
+
+    /**
+     * Run every instance on a virtual thread of its own.
+     *
+     * @return this runner
+     */
+    public MonteCarlo virtualThreads() {
+        this.virtualThreads = true;
+        return this;
+    }
+
+    /**
+     * @param stimulus drives the inputs of every instance, {@link Stimulus#UNIFORM} by default
+     * @return this runner
+     */
+    public MonteCarlo stimulus(Stimulus stimulus) {
+        this.stimulus = stimulus;
+        return this;
+    }
+
+    /**
+     * @param probe measures every instance after every tick, or {@code null} to measure nothing
+     * @return this runner
+     */
+    public MonteCarlo probe(Probe probe) {
+        this.probe = probe;
+        return this;
+    }
+
+    /**
+     * @param metrics where the activity of every circuit instance is recorded, or {@code null} to record nothing
+     * @return this runner
+     */
+    public MonteCarlo metrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+
+    //*>> -------------------- Run -------------------- */
+
+    /**
+     * Build and simulate every instance, and aggregate their outputs and measurements.
+     *
+     * @return the aggregated results
+     * @throws UnsupportedOperationException if the blueprint is a {@link ClockBlueprint}
+     * @throws StatusRuntimeException if an instance cannot be built, see {@link Blueprint#build()}
+     */
+    public Result run() {
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] streams = new SplittableRandom[instances];
+        for (int i = 0; i < instances; i++) {
+            streams[i] = root.split();
+        }
+
+        final Result result = new Result(instances, ticks, switch (blueprint) {
+            case DeviceBlueprint device -> device.getNumOutputs();
+            case CircuitBlueprint circuit -> circuit.getNumOutputs();
+            case ClockBlueprint clock -> throw new UnsupportedOperationException("Clock blueprints cannot be run");
+        });
+        final long start = java.lang.System.nanoTime();
+
+        final List<Future<?>> futures = new ArrayList<>(instances);
+        try (ExecutorService executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor()
+                                                       : Executors.newFixedThreadPool(Math.min(threads, instances))) {
+            for (int i = 0; i < instances; i++) {
+                final SplittableRandom random = streams[i];
+                futures.add(executor.submit(() -> simulate(random, result)));
+            }
+        }
+        result.elapsedNanos = java.lang.System.nanoTime() - start;
+
+        for (Future<?> future : futures) {
+            if (future.state() == Future.State.FAILED) {
+                switch (future.exceptionNow()) {
+                    case RuntimeException e -> throw e;
+                    case Error e -> throw e;
+                    case Throwable t -> throw new IllegalStateException(t);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void simulate(SplittableRandom random, Result result) {
+        final System system = blueprint.build();
+        if (metrics != null && system instanceof Circuit circuit) {
+            circuit.setMetrics(metrics);
+        }
+
+        final SignalSource[] inputs = new SignalSource[system.getInputBus().length];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new SignalSource();
+            system.connectInput(inputs[i], 0, i);
+        }
+
+        final int numOutputs = result.ones.length;
+        final long[] ones = new long[numOutputs];
+        final long[] toggles = new long[numOutputs];
+        final boolean[] previous = new boolean[numOutputs];
+        long unstable = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            stimulus.drive(inputs, tick, random);
+            for (SignalSource input : inputs) {
+                input.update();
+            }
+            system.update();
+            if (system instanceof Circuit circuit && !circuit.isSettled()) {
+                unstable++;
+            }
+
+            for (int o = 0; o < numOutputs; o++) {
+                final boolean value = system.getOut(o);
+                ones[o] += value ? 1 : 0;
+                toggles[o] += tick > 0 && value != previous[o] ? 1 : 0;
+                previous[o] = value;
+            }
+            if (probe != null) {
+                result.record(probe.measure(system, tick));
+            }
+        }
+
+        for (int o = 0; o < numOutputs; o++) {
+            result.ones[o].add(ones[o]);
+            result.toggles[o].add(toggles[o]);
+        }
+        result.unstableTicks.add(unstable);
+        result.completed.increment();
+    }
+
+
+    //*>> -------------------- Result -------------------- */
+
+    /**
+     * The aggregated outputs and measurements of a run. Accumulators are only read once the run is over.
+     */
+    public static final class Result {
+
+        private final int instances;
+        private final int ticks;
+
+        //>> Indexed by output bus, summed over all ticks of all instances
+        private final LongAdder[] ones;
+        private final LongAdder[] toggles;
+
+        private final LongAdder unstableTicks = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+
+        //>> Probe measurements
+        private final LongAdder measurements = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private final Histogram histogram = new Histogram();
+
+        private long elapsedNanos;
+
+        Result(int instances, int ticks, int numOutputs) {
+            this.instances = instances;
+            this.ticks = ticks;
+            this.ones = new LongAdder[numOutputs];
+            this.toggles = new LongAdder[numOutputs];
+            for (int o = 0; o < numOutputs; o++) {
+                ones[o] = new LongAdder();
+                toggles[o] = new LongAdder();
+            }
+        }
+
+        void record(long measurement) {
+            measurements.increment();
+            sum.add(measurement);
+            min.accumulate(measurement);
+            max.accumulate(measurement);
+            histogram.record(measurement);
+        }
+
+        public int getInstances() {
+            return instances;
+        }
+
+        public int getTicks() {
+            return ticks;
+        }
+
+        /** @return the number of ticks of all instances */
+        public long getTotalTicks() {
+            return (long) instances * ticks;
+        }
+
+        /** @return the number of ticks cut off after {@link Circuit#MAX_UPDATE_ROUNDS} rounds, over all instances */
+        public long getUnstableTicks() {
+            return unstableTicks.sum();
+        }
+
+        /** @return the fraction of ticks output bus {@code output} was 1 after */
+        public double getProbabilityOne(int output) {
+            return getTotalTicks() == 0 ? 0 : (double) ones[output].sum() / getTotalTicks();
+        }
+
+        /** @return the number of times output bus {@code output} changed between ticks, over all instances */
+        public long getToggles(int output) {
+            return toggles[output].sum();
+        }
+
+        /** @return the number of probe measurements, 0 if there is no probe */
+        public long getMeasurements() {
+            return measurements.sum();
+        }
+
+        public long getMeasurementSum() {
+            return sum.sum();
+        }
+
+        /** @return the mean of the probe measurements, 0 if there are none */
+        public double getMeasurementMean() {
+            final long n = measurements.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /** @return the smallest probe measurement, {@link Long#MAX_VALUE} if there are none */
+        public long getMeasurementMin() {
+            return min.get();
+        }
+
+        /** @return the largest probe measurement, {@link Long#MIN_VALUE} if there are none */
+        public long getMeasurementMax() {
+            return max.get();
+        }
+
+        /** @return the distribution of the probe measurements, negative measurements are counted as 0 */
+        public Histogram getMeasurementHistogram() {
+            return histogram;
+        }
+
+        /** @return the wall time of the run, building the instances included, in nanoseconds */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** @return the number of ticks simulated per second of wall time */
+        public double getTicksPerSecond() {
+            return elapsedNanos == 0 ? 0 : getTotalTicks() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder s = new StringBuilder(String.format(
+                "%d instance(s) x %d tick(s) in %.1f ms (%.0f ticks/s), %d unstable tick(s)",
+                completed.sum(), ticks, elapsedNanos / 1e6, getTicksPerSecond(), getUnstableTicks()));
+            if (getMeasurements() > 0) {
+                s.append(String.format("%n    probe: mean %.3f, min %d, max %d, p99 <= %d", getMeasurementMean(),
+                                       getMeasurementMin(), getMeasurementMax(), histogram.getPercentile(0.99)));
+            }
+            for (int o = 0; o < ones.length; o++) {
+                s.append(String.format("%n    output %-4d P(1) %.4f  %d toggle(s)", o, getProbabilityOne(o),
+                                       getToggles(o)));
+            }
+            return s.toString();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package sim.flat;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A {@link FlatNetlist} stripped down to what evaluation needs, to keep large designs at a fraction of the heap of a
+ * full netlist. Cells are evaluated the same way, a bitwise operation per cell of 1 or 2 inputs and the rows of its
+ * truth table otherwise, and nets are numbered the same.
+ *
+ * <h2>Layout</h2>
+ * Every cell is {@value #INTS_PER_CELL} consecutive ints of a single array, in level order: its operation, then the
+ * nets of its 2 inputs. A gate of up to 2 inputs thus takes 12 bytes, and its net 8 more while being evaluated. Cells
+ * of any other number of inputs store the complement of the index of their truth table instead of an operation,
+ * followed by the offset of their input nets in a separate array and their number of inputs. Truth tables are shared
+ * between the cells of the same device output.
+ *
+ * <p>Device blueprints, input buses, levels and hierarchical names are dropped, use the netlist the compact netlist
+ * was built from to name cells. A compact netlist is immutable and may be evaluated from many threads at once, each
+ * with its own value array.
+ *
+ * <h2>Building</h2>
+ * A compact netlist is copied from a flat netlist, which is flattened on the heap first: building is not streamed
+ * from the blueprints. Only what is kept shrinks, the peak heap while building is that of flattening the design, a
+ * few hundred bytes per cell, so a design must fit on the heap as a flat netlist once.
+ */
+public final class CompactNetlist {
+
+    /** Ints per cell in {@link #cells} */
+    public static final int INTS_PER_CELL = 3;
+
+    private final String type;
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+
+    /** Net driving each output bus of the circuit */
+    private final int[] outputNets;
+
+    /** Cell c is {@code cells[3c .. 3c + 3)}, see the {@linkplain CompactNetlist class description} */
+    private final int[] cells;
+
+    /** Input nets of the cells evaluated from their truth table */
+    private final int[] tableInputs;
+
+    /** Distinct truth tables of the cells evaluated from their truth table */
+    private final long[][] tables;
+
+    /** Largest number of inputs of a cell evaluated from its truth table */
+    private final int maxTableInputs;
+
+
+    /**
+     * Compact a netlist.
+     *
+     * @param netlist the circuit to compact
+     * @throws IllegalArgumentException if the netlist has too many cells for a single array
+     */
+    public CompactNetlist(FlatNetlist netlist) {
+        type = netlist.getType();
+        inputAliases = new String[netlist.getNumInputs()];
+        outputAliases = new String[netlist.getNumOutputs()];
+        outputNets = new int[outputAliases.length];
+        for (int i = 0; i < inputAliases.length; i++) {
+            inputAliases[i] = netlist.getInputAlias(i);
+        }
+        for (int o = 0; o < outputAliases.length; o++) {
+            outputAliases[o] = netlist.getOutputAlias(o);
+            outputNets[o] = netlist.getOutputNet(o);
+        }
+
+        final int numCells = netlist.getNumCells();
+        if ((long) numCells * INTS_PER_CELL > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(type + " has too many cells to compact, received " + numCells);
+        }
+        cells = new int[numCells * INTS_PER_CELL];
+
+        int numTableInputs = 0;
+        for (int c = 0; c < numCells; c++) {
+            if (netlist.getCellOperation(c) == FlatNetlist.TABLE) {
+                numTableInputs += netlist.getCellNumInputs(c);
+            }
+        }
+        tableInputs = new int[numTableInputs];
+
+        final Map<long[], Integer> tableIndex = new IdentityHashMap<>();
+        final List<long[]> distinct = new ArrayList<>();
+        int widest = 0;
+        for (int c = 0, p = 0, in = 0; c < numCells; c++, p += INTS_PER_CELL) {
+            final int operation = netlist.getCellOperation(c);
+            final int numInputs = netlist.getCellNumInputs(c);
+            if (operation != FlatNetlist.TABLE) {
+                cells[p] = operation;
+                for (int i = 0; i < numInputs; i++) {
+                    cells[p + 1 + i] = netlist.getCellInputNet(c, i);
+                }
+                continue;
+            }
+
+            final long[] table = netlist.getCellTable(c);
+            Integer index = tableIndex.get(table);
+            if (index == null) {
+                index = distinct.size();
+                tableIndex.put(table, index);
+                distinct.add(table);
+            }
+            cells[p] = ~index;
+            cells[p + 1] = in;
+            cells[p + 2] = numInputs;
+            for (int i = 0; i < numInputs; i++) {
+                tableInputs[in++] = netlist.getCellInputNet(c, i);
+            }
+            widest = Math.max(widest, numInputs);
+        }
+        tables = distinct.toArray(new long[0][]);
+        maxTableInputs = widest;
+    }
+
+    /**
+     * Flatten the blueprint registered for a type and compact it. The netlist is dropped once compacted, but its peak
+     * heap is reached all the same, see the {@linkplain CompactNetlist class description}.
+     *
+     * @param type a registered type
+     * @return the compacted circuit
+     * @throws IllegalArgumentException if the type has too many cells for a single array
+     * @throws StatusRuntimeException if the type cannot be flattened, see {@link FlatNetlist#of(String)}
+     */
+    public static CompactNetlist of(String type) {
+        return new CompactNetlist(FlatNetlist.of(type));
+    }
+
+
+    //*>> -------------------- Evaluation -------------------- */
+
+    /**
+     * Evaluate every cell in order. The input nets must be set, all other nets are overwritten.
+     *
+     * @param values the value of every net, at least {@link #getNumNets()} long
+     */
+    public void evaluate(long[] values) {
+        final int numInputs = inputAliases.length;
+        final long[] inputs = new long[maxTableInputs];
+        for (int p = 0, net = numInputs; p < cells.length; p += INTS_PER_CELL, net++) {
+            final int operation = cells[p];
+            if (operation >= FlatNetlist.OPERATION_2) {
+                values[net] = FlatNetlist.apply2(operation, values[cells[p + 1]], values[cells[p + 2]]);
+            }
+            else if (operation >= FlatNetlist.OPERATION_1) {
+                values[net] = FlatNetlist.apply1(operation, values[cells[p + 1]]);
+            }
+            else {
+                final int in = cells[p + 1];
+                final int numCellInputs = cells[p + 2];
+                for (int i = 0; i < numCellInputs; i++) {
+                    inputs[i] = values[tableInputs[in + i]];
+                }
+                values[net] = FlatNetlist.sumOfRows(tables[~operation], inputs, numCellInputs);
+            }
+        }
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public String getType() {
+        return type;
+    }
+
+    public int getNumInputs() {
+        return inputAliases.length;
+    }
+
+    public int getNumOutputs() {
+        return outputAliases.length;
+    }
+
+    public String getInputAlias(int index) {
+        return inputAliases[index];
+    }
+
+    public String getOutputAlias(int index) {
+        return outputAliases[index];
+    }
+
+    /** @return the net driving output bus {@code index} of the circuit */
+    public int getOutputNet(int index) {
+        return outputNets[index];
+    }
+
+    /** @return the number of nets, input buses of the circuit included */
+    public int getNumNets() {
+        return inputAliases.length + getNumCells();
+    }
+
+    public int getNumCells() {
+        return cells.length / INTS_PER_CELL;
+    }
+
+    /**
+     * @return the bytes taken by the elements of the arrays describing the cells, their truth tables included. Array
+     *         headers, the IO aliases and the net values are not counted
+     */
+    public long getCellBytes() {
+        long bytes = (long) (cells.length + tableInputs.length) * Integer.BYTES;
+        for (long[] table : tables) {
+            bytes += (long) table.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d cell(s) in %d byte(s), %d net(s)", type, getNumCells(), getCellBytes(),
+                             getNumNets());
+    }
+}
@@ -0,0 +1,117 @@
+package sim.flat;
+
+/**
+ * The outcome of checking two circuits against each other, see {@link EquivalenceChecker#check()}.
+ */
+public final class Equivalence {
+
+    private final FlatNetlist first;
+    private final FlatNetlist second;
+    private final boolean exhaustive;
+    private final long numVectors;
+
+    /** Value of each input of the first circuit on which the circuits differ, {@code null} if none was found */
+    private final boolean[] counterexample;
+
+
+    Equivalence(FlatNetlist first, FlatNetlist second, boolean exhaustive, long numVectors, boolean[] counterexample) {
+        this.first = first;
+        this.second = second;
+        this.exhaustive = exhaustive;
+        this.numVectors = numVectors;
+        this.counterexample = counterexample;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /** @return {@code true} if the circuits agreed on every vector checked */
+    public boolean isEquivalent() {
+        return counterexample == null;
+    }
+
+    /** @return {@code true} if the circuits were checked on every input vector, equivalence is then proven */
+    public boolean isExhaustive() {
+        return exhaustive;
+    }
+
+    /** @return the number of vectors checked, up to the batch of 64 the counterexample is in */
+    public long getNumVectors() {
+        return numVectors;
+    }
+
+    /**
+     * @return the value of each input bus of the first circuit on which the circuits differ, {@code null} if they are
+     *         equivalent
+     */
+    public boolean[] getCounterexample() {
+        return counterexample == null ? null : counterexample.clone();
+    }
+
+    /** @return the value of each output bus of the first circuit on the counterexample */
+    public boolean[] getFirstOutputs() {
+        return outputs(first);
+    }
+
+    /**
+     * @return the value of each output bus of the second circuit on the counterexample, in the order of the output
+     *         buses of the first circuit
+     */
+    public boolean[] getSecondOutputs() {
+        final boolean[] outputs = outputs(second);
+        final boolean[] ordered = new boolean[first.getNumOutputs()];
+        for (int o = 0; o < ordered.length; o++) {
+            for (int s = 0; s < outputs.length; s++) {
+                if (second.getOutputAlias(s).equals(first.getOutputAlias(o))) {
+                    ordered[o] = outputs[s];
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /** Evaluate a netlist on the counterexample, inputs matched by alias */
+    private boolean[] outputs(FlatNetlist netlist) {
+        if (counterexample == null) {
+            throw new IllegalStateException(first.getType() + " and " + second.getType() + " are equivalent");
+        }
+        final long[] values = new long[netlist.getNumNets()];
+        for (int i = 0; i < netlist.getNumInputs(); i++) {
+            for (int f = 0; f < first.getNumInputs(); f++) {
+                if (first.getInputAlias(f).equals(netlist.getInputAlias(i))) {
+                    values[i] = counterexample[f] ? -1L : 0L;
+                }
+            }
+        }
+        netlist.evaluate(values);
+
+        final boolean[] outputs = new boolean[netlist.getNumOutputs()];
+        for (int o = 0; o < outputs.length; o++) {
+            outputs[o] = values[netlist.getOutputNet(o)] != 0;
+        }
+        return outputs;
+    }
+
+    @Override
+    public String toString() {
+        if (isEquivalent()) {
+            return String.format("%s == %s on %s %d vector(s)", first.getType(), second.getType(),
+                                 exhaustive ? "all" : "corner and random", numVectors);
+        }
+
+        final StringBuilder s = new StringBuilder(first.getType() + " != " + second.getType() + " on");
+        for (int i = 0; i < counterexample.length; i++) {
+            s.append(' ').append(first.getInputAlias(i)).append('=').append(counterexample[i] ? 1 : 0);
+        }
+        final boolean[] firstOutputs = getFirstOutputs();
+        final boolean[] secondOutputs = getSecondOutputs();
+        s.append(':');
+        for (int o = 0; o < firstOutputs.length; o++) {
+            if (firstOutputs[o] != secondOutputs[o]) {
+                s.append(String.format(" %s %d/%d", first.getOutputAlias(o), firstOutputs[o] ? 1 : 0,
+                                       secondOutputs[o] ? 1 : 0));
+            }
+        }
+        return s.toString();
+    }
+}
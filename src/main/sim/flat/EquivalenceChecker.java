@@ -0,0 +1,305 @@
+package sim.flat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Checks that two circuits compute the same function by simulating both on the same input vectors, 64 at a time on
+ * {@link FlatNetlist}s. Buses are matched by alias, so the circuits may declare their buses in any order.
+ *
+ * <h2>Vectors</h2>
+ * Circuits of at most {@linkplain #exhaustiveLimit(int) a few} inputs are checked on every input vector, which proves
+ * them equivalent. Larger circuits are checked on corner cases first: all zeros, all ones, alternating bits and a
+ * single bit set or cleared for every input, then on {@linkplain #vectors(long) random vectors}, which can only show
+ * them different.
+ *
+ * <p>Vectors are checked in batches of 64 spread over {@linkplain #threads(int) worker threads}. Every batch is
+ * derived from the seed and its index alone, and workers stop taking batches past the first one that differs. The
+ * counterexample returned is thus always the first of the lowest batch that differs, no matter the number of threads.
+ */
+public final class EquivalenceChecker {
+
+    /** Default number of inputs up to which circuits are checked on every input vector */
+    public static final int EXHAUSTIVE_LIMIT = 24;
+
+    /** Default number of random vectors */
+    public static final long RANDOM_VECTORS = 1L << 20;
+
+    private final FlatNetlist first;
+    private final FlatNetlist second;
+
+    /** Input net of the second circuit for each input of the first */
+    private final int[] secondInput;
+
+    /** Output net of the second circuit for each output of the first */
+    private final int[] secondOutputNet;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int exhaustiveLimit = EXHAUSTIVE_LIMIT;
+    private long vectors = RANDOM_VECTORS;
+    private long seed = 0;
+
+
+    /**
+     * @param first the reference circuit
+     * @param second the circuit checked against it
+     * @throws IllegalArgumentException if the circuits do not have the same input and output aliases
+     */
+    public EquivalenceChecker(FlatNetlist first, FlatNetlist second) {
+        this.first = first;
+        this.second = second;
+
+        final String[] firstInputs = new String[first.getNumInputs()];
+        final String[] secondInputs = new String[second.getNumInputs()];
+        Arrays.setAll(firstInputs, first::getInputAlias);
+        Arrays.setAll(secondInputs, second::getInputAlias);
+        secondInput = match(firstInputs, secondInputs, "input");
+
+        final String[] firstOutputs = new String[first.getNumOutputs()];
+        final String[] secondOutputs = new String[second.getNumOutputs()];
+        Arrays.setAll(firstOutputs, first::getOutputAlias);
+        Arrays.setAll(secondOutputs, second::getOutputAlias);
+        secondOutputNet = match(firstOutputs, secondOutputs, "output");
+        for (int o = 0; o < secondOutputNet.length; o++) {
+            secondOutputNet[o] = second.getOutputNet(secondOutputNet[o]);
+        }
+    }
+
+    /**
+     * Flatten two registered types and check them against each other.
+     *
+     * @param first the reference type
+     * @param second the type checked against it
+     * @return the checker of the two types
+     * @throws IllegalArgumentException if the types do not have the same input and output aliases
+     * @throws UnsupportedOperationException if a type is or instantiates a clock
+     * @throws StatusRuntimeException if a type cannot be flattened, see {@link FlatNetlist#of(String)}
+     */
+    public static EquivalenceChecker of(String first, String second) {
+        return new EquivalenceChecker(FlatNetlist.of(first), FlatNetlist.of(second));
+    }
+
+    /** @return the index in {@code second} of each alias of {@code first} */
+    private int[] match(String[] firstAliases, String[] secondAliases, String kind) {
+        final Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < secondAliases.length; i++) {
+            indices.put(secondAliases[i], i);
+        }
+
+        final int[] match = new int[firstAliases.length];
+        for (int i = 0; i < match.length; i++) {
+            final Integer index = indices.remove(firstAliases[i]);
+            if (index == null) {
+                throw new IllegalArgumentException("Cannot compare " + first.getType() + " and " + second.getType()
+                                                   + ", " + kind + " " + firstAliases[i] + " is not in both");
+            }
+            match[i] = index;
+        }
+        if (!indices.isEmpty()) {
+            throw new IllegalArgumentException("Cannot compare " + first.getType() + " and " + second.getType()
+                                               + ", " + kind + " " + indices.keySet().iterator().next()
+                                               + " is not in both");
+        }
+        return match;
+    }
+
+    /**
+     * Set the number of threads vectors are checked on.
+     *
+     * @param threads the number of worker threads, must be positive
+     * @return this checker
+     * @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public EquivalenceChecker threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Equivalence checking needs at least 1 thread, received " + threads);
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Set the number of inputs up to which circuits are checked on every input vector, {@value #EXHAUSTIVE_LIMIT} by
+     * default. Each further input doubles the time taken.
+     *
+     * @param exhaustiveLimit the number of inputs, between 0 and 40
+     * @return this checker
+     * @throws IllegalArgumentException if {@code exhaustiveLimit} is out of range
+     */
+    public EquivalenceChecker exhaustiveLimit(int exhaustiveLimit) {
+        if (exhaustiveLimit < 0 || exhaustiveLimit > 40) {
+            throw new IllegalArgumentException("Exhaustive limit must be between 0 and 40, received "
+                                               + exhaustiveLimit);
+        }
+        this.exhaustiveLimit = exhaustiveLimit;
+        return this;
+    }
+
+    /**
+     * Set the number of random vectors larger circuits are checked on, rounded up to a multiple of 64.
+     *
+     * @param vectors the number of random vectors, must not be negative
+     * @return this checker
+     * @throws IllegalArgumentException if {@code vectors < 0}
+     */
+    public EquivalenceChecker vectors(long vectors) {
+        if (vectors < 0) {
+            throw new IllegalArgumentException("Number of random vectors must not be negative, received " + vectors);
+        }
+        this.vectors = vectors;
+        return this;
+    }
+
+    /**
+     * Set the seed random vectors are derived from, 0 by default.
+     *
+     * @param seed the seed
+     * @return this checker
+     */
+    public EquivalenceChecker seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+
+    //*>> -------------------- Checking -------------------- */
+
+    /**
+     * Check the circuits on every input vector if they have at most {@link #exhaustiveLimit(int)} inputs, on corner
+     * cases and random vectors otherwise.
+     *
+     * @return the outcome, with the first vector found on which the circuits differ if any
+     */
+    public Equivalence check() {
+        final int numInputs = first.getNumInputs();
+        final boolean exhaustive = numInputs <= exhaustiveLimit;
+        final long numVectors = exhaustive ? 1L << numInputs : 4 + 2L * numInputs + vectors;
+        final long numBatches = (numVectors + 63) >>> 6;
+
+        final AtomicLong next = new AtomicLong();
+        final LongAccumulator differs = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        final int workers = (int) Math.min(threads, numBatches);
+        final List<Worker> tasks = new ArrayList<>(workers);
+        final List<Future<?>> futures = new ArrayList<>(workers);
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (int w = 0; w < workers; w++) {
+                tasks.add(new Worker(exhaustive, numBatches, next, differs));
+                futures.add(executor.submit(tasks.getLast()));
+            }
+        }
+        for (Future<?> future : futures) {
+            if (future.state() == Future.State.FAILED) {
+                switch (future.exceptionNow()) {
+                    case RuntimeException e -> throw e;
+                    case Error e -> throw e;
+                    case Throwable t -> throw new IllegalStateException(t);
+                }
+            }
+        }
+
+        final long batch = differs.get();
+        if (batch == Long.MAX_VALUE) {
+            return new Equivalence(first, second, exhaustive, exhaustive ? numVectors : numBatches << 6, null);
+        }
+        for (Worker worker : tasks) {
+            if (worker.counterexample != null && worker.counterexampleBatch == batch) {
+                return new Equivalence(first, second, exhaustive, batch + 1 << 6, worker.counterexample);
+            }
+        }
+        throw new IllegalStateException("Counterexample of batch " + batch + " was lost");
+    }
+
+    /**
+     * Checks batches taken from a shared counter until one differs, or a lower batch than the next is known to.
+     */
+    private final class Worker implements Runnable {
+        private final boolean exhaustive;
+        private final long numBatches;
+        private final AtomicLong next;
+        private final LongAccumulator differs;
+
+        private final long[] firstValues = new long[first.getNumNets()];
+        private final long[] secondValues = new long[second.getNumNets()];
+
+        private boolean[] counterexample;
+        private long counterexampleBatch;
+
+        Worker(boolean exhaustive, long numBatches, AtomicLong next, LongAccumulator differs) {
+            this.exhaustive = exhaustive;
+            this.numBatches = numBatches;
+            this.next = next;
+            this.differs = differs;
+        }
+
+        @Override
+        public void run() {
+            for (long batch = next.getAndIncrement(); batch < numBatches && batch < differs.get();
+                 batch = next.getAndIncrement()) {
+                for (int i = 0; i < secondInput.length; i++) {
+                    final long value = exhaustive ? TruthTable.pattern(batch, i) : random(batch, i);
+                    firstValues[i] = value;
+                    secondValues[secondInput[i]] = value;
+                }
+                first.evaluate(firstValues);
+                second.evaluate(secondValues);
+
+                long diff = 0;
+                for (int o = 0; o < secondOutputNet.length; o++) {
+                    diff |= firstValues[first.getOutputNet(o)] ^ secondValues[secondOutputNet[o]];
+                }
+                if (exhaustive && secondInput.length < 6) {
+                    diff &= (1L << (1 << secondInput.length)) - 1;
+                }
+                if (diff != 0) {
+                    final int bit = Long.numberOfTrailingZeros(diff);
+                    counterexample = new boolean[secondInput.length];
+                    for (int i = 0; i < counterexample.length; i++) {
+                        counterexample[i] = (firstValues[i] >>> bit & 1) != 0;
+                    }
+                    counterexampleBatch = batch;
+                    differs.accumulate(batch);
+                    return;
+                }
+            }
+        }
+
+        /** The corner cases come first, followed by random vectors */
+        private long random(long batch, int input) {
+            long value = mix(seed + (batch * secondInput.length + input) * 0x9E3779B97F4A7C15L);
+            final int numInputs = secondInput.length;
+            final long numCorners = 4 + 2L * numInputs;
+            for (long v = batch << 6; v < numCorners && v < batch + 1 << 6; v++) {
+                final int bit = (int) (v & 63);
+                value = value & ~(1L << bit) | (corner(v, input, numInputs) ? 1L << bit : 0);
+            }
+            return value;
+        }
+
+        private static boolean corner(long vector, int input, int numInputs) {
+            if (vector < 4) {
+                return vector == 1 || vector == 2 + (input & 1);
+            }
+            if (vector < 4 + numInputs) {
+                return vector - 4 == input;
+            }
+            return vector - 4 - numInputs != input;
+        }
+
+        /** The SplitMix64 finalizer, every bit of the result depends on every bit of {@code z} */
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
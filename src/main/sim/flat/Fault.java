@@ -0,0 +1,61 @@
+package sim.flat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sim.blueprint.DeviceBlueprint;
+
+/**
+ * A stuck-at fault of a cell of a {@link FlatNetlist}: an input or the output of the cell reads {@code stuckAt} no
+ * matter what drives it. A fault on the output affects every cell the output fans out to, a fault on an input only
+ * the cell itself.
+ *
+ * @param cell the faulty cell
+ * @param input the faulty input of the cell, or {@link #OUTPUT}
+ * @param stuckAt the value the input or output is stuck at
+ */
+public record Fault(int cell, int input, boolean stuckAt) {
+
+    /** Input of a fault on the output of the cell */
+    public static final int OUTPUT = -1;
+
+    /**
+     * @param netlist a netlist
+     * @return a stuck-at-0 and a stuck-at-1 fault on every input and on the output of every cell, in cell order
+     */
+    public static List<Fault> all(FlatNetlist netlist) {
+        final List<Fault> faults = new ArrayList<>();
+        for (int c = 0; c < netlist.getNumCells(); c++) {
+            for (int i = 0; i < netlist.getCellNumInputs(c); i++) {
+                faults.add(new Fault(c, i, false));
+                faults.add(new Fault(c, i, true));
+            }
+            faults.add(new Fault(c, OUTPUT, false));
+            faults.add(new Fault(c, OUTPUT, true));
+        }
+        return faults;
+    }
+
+    /** @return {@code true} if the fault is on the output of the cell */
+    public boolean isOutput() {
+        return input == OUTPUT;
+    }
+
+    /**
+     * @param netlist the netlist the fault is in
+     * @return the fault with its bus named, for example {@code "adder.fa0.x1/sum stuck-at-1"}. A fault on an input of
+     *         a device of several outputs is named after the output it affects
+     */
+    public String describe(FlatNetlist netlist) {
+        final DeviceBlueprint device = netlist.getCellDevice(cell);
+        final String output = device.getOutputAlias(netlist.getCellOutputBus(cell));
+        String bus = output;
+        if (!isOutput()) {
+            bus = device.getInputAlias(netlist.getCellInputBus(cell, input));
+            if (device.getNumOutputs() > 1) {
+                bus += " -> " + output;
+            }
+        }
+        return netlist.getCellPath(cell) + "/" + bus + " stuck-at-" + (stuckAt ? 1 : 0);
+    }
+}
@@ -0,0 +1,93 @@
+package sim.flat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The faults detected by a set of test vectors, see {@link FaultSimulator#simulate}.
+ */
+public final class FaultCoverage {
+
+    private final FlatNetlist netlist;
+    private final List<Fault> faults;
+
+    /** Index of the first vector detecting each fault, -1 if undetected */
+    private final int[] detectedBy;
+
+    private final int numVectors;
+
+
+    FaultCoverage(FlatNetlist netlist, List<Fault> faults, int[] detectedBy, int numVectors) {
+        this.netlist = netlist;
+        this.faults = Collections.unmodifiableList(faults);
+        this.detectedBy = detectedBy;
+        this.numVectors = numVectors;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /** @return the simulated faults */
+    public List<Fault> getFaults() {
+        return faults;
+    }
+
+    /**
+     * @param index index of a fault in {@link #getFaults()}
+     * @return the index of the first vector detecting the fault, -1 if no vector does
+     */
+    public int getDetectedBy(int index) {
+        return detectedBy[index];
+    }
+
+    public int getNumVectors() {
+        return numVectors;
+    }
+
+    public int getNumDetected() {
+        int detected = 0;
+        for (int vector : detectedBy) {
+            detected += vector >= 0 ? 1 : 0;
+        }
+        return detected;
+    }
+
+    /** @return the fraction of the faults detected, 1 if there are no faults */
+    public double getCoverage() {
+        return faults.isEmpty() ? 1 : (double) getNumDetected() / faults.size();
+    }
+
+    /** @return the faults no vector detects, in the order they were simulated */
+    public List<Fault> getUndetected() {
+        final List<Fault> undetected = new ArrayList<>();
+        for (int f = 0; f < detectedBy.length; f++) {
+            if (detectedBy[f] < 0) {
+                undetected.add(faults.get(f));
+            }
+        }
+        return undetected;
+    }
+
+    /**
+     * @param limit the maximum number of undetected faults listed
+     * @return the coverage, and the first {@code limit} undetected faults
+     */
+    public String report(int limit) {
+        final StringBuilder s = new StringBuilder(toString());
+        final List<Fault> undetected = getUndetected();
+        for (int f = 0; f < Math.min(limit, undetected.size()); f++) {
+            s.append(String.format("%n    %s", undetected.get(f).describe(netlist)));
+        }
+        if (undetected.size() > limit) {
+            s.append(String.format("%n    ... and %d more", undetected.size() - limit));
+        }
+        return s.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d fault(s) detected (%.2f%%) by %d vector(s)", netlist.getType(),
+                             getNumDetected(), faults.size(), 100 * getCoverage(), numVectors);
+    }
+}
@@ -0,0 +1,243 @@
+package sim.flat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Grades test vectors by the stuck-at faults they detect, simulating {@value #GROUP_SIZE} faulty machines and the
+ * good machine at once on a {@link FlatNetlist}. Bit 0 of every net is the good machine, each other bit a machine with
+ * one fault injected. A fault is detected by a vector when an output bus of its machine differs from the good one.
+ *
+ * <h2>Fault dropping</h2>
+ * A fault is dropped as soon as it is detected, and its bit is given to the next fault waiting to be simulated. As
+ * every vector is simulated on its own, a fault can start at any vector: the vectors are simulated round and round,
+ * and a fault is undetected once it went through all of them. Bits are thus always busy while faults are left, no
+ * matter how early most faults of a group are detected.
+ *
+ * <p>Faults are spread over {@linkplain #threads(int) worker threads}, each taking faults from a shared queue into its
+ * own group of {@value #GROUP_SIZE}.
+ */
+public final class FaultSimulator {
+
+    /** Number of faulty machines simulated at once, the bits of a long besides the good machine */
+    public static final int GROUP_SIZE = 63;
+
+    private final FlatNetlist netlist;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * @param netlist the circuit to simulate the faults of
+     */
+    public FaultSimulator(FlatNetlist netlist) {
+        this.netlist = netlist;
+    }
+
+    /**
+     * Set the number of threads faults are simulated on.
+     *
+     * @param threads the number of worker threads, must be positive
+     * @return this simulator
+     * @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public FaultSimulator threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Fault simulation needs at least 1 thread, received " + threads);
+        }
+        this.threads = threads;
+        return this;
+    }
+
+
+    //*>> -------------------- Simulation -------------------- */
+
+    /**
+     * Simulate every stuck-at fault of the netlist, see {@link Fault#all}.
+     *
+     * @see #simulate(List, List)
+     */
+    public FaultCoverage simulate(List<boolean[]> vectors) {
+        return simulate(vectors, Fault.all(netlist));
+    }
+
+    /**
+     * Find the faults detected by a set of test vectors.
+     *
+     * @param vectors the test vectors, each giving the value of every input bus of the circuit
+     * @param faults the faults to simulate
+     * @return the faults detected, each by one of the vectors detecting it. Which one depends on when the fault was
+     *         taken up, it is the first detecting vector only if it started at vector 0
+     * @throws IllegalArgumentException if a vector does not have a value for every input bus
+     */
+    public FaultCoverage simulate(List<boolean[]> vectors, List<Fault> faults) {
+        for (boolean[] vector : vectors) {
+            if (vector.length != netlist.getNumInputs()) {
+                throw new IllegalArgumentException("Vectors of " + netlist.getType() + " need " + netlist.getNumInputs()
+                                                   + " values, received " + vector.length);
+            }
+        }
+
+        final int[] detectedBy = new int[faults.size()];
+        Arrays.fill(detectedBy, -1);
+        if (vectors.isEmpty() || faults.isEmpty()) {
+            return new FaultCoverage(netlist, faults, detectedBy, vectors.size());
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final int workers = Math.min(threads, (faults.size() + GROUP_SIZE - 1) / GROUP_SIZE);
+        final List<Future<?>> futures = new ArrayList<>(workers);
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(new Worker(vectors, faults, next, detectedBy)));
+            }
+        }
+        for (Future<?> future : futures) {
+            if (future.state() == Future.State.FAILED) {
+                switch (future.exceptionNow()) {
+                    case RuntimeException e -> throw e;
+                    case Error e -> throw e;
+                    case Throwable t -> throw new IllegalStateException(t);
+                }
+            }
+        }
+        return new FaultCoverage(netlist, faults, detectedBy, vectors.size());
+    }
+
+    /**
+     * Simulates groups of faults taken from a shared queue. Bit b of every net is the machine of the fault in slot b,
+     * slot 0 is always the good machine.
+     */
+    private final class Worker implements Runnable {
+        private final List<boolean[]> vectors;
+        private final List<Fault> faults;
+        private final AtomicInteger next;
+        private final int[] detectedBy;
+
+        private final long[] values = new long[netlist.getNumNets()];
+
+        /** Input values of a fault-free cell evaluated from its truth table */
+        private final long[] scratch = new long[netlist.getMaxTableInputs()];
+
+        /** Number of slots with a fault on each cell, cells without are evaluated as is */
+        private final int[] faultsOnCell = new int[netlist.getNumCells()];
+
+        //>> Slots, a set bit of `occupied` is a slot with a fault
+        private long occupied = 0;
+        private final int[] slotFault = new int[64];
+        private final int[] slotRemaining = new int[64];
+        private final int[] slotCell = new int[64];
+        private final int[] slotInput = new int[64];
+        private final boolean[] slotStuckAt = new boolean[64];
+
+        /** Input values of a faulty cell, by number of inputs */
+        private final long[][] inputs = new long[31][];
+
+        Worker(List<boolean[]> vectors, List<Fault> faults, AtomicInteger next, int[] detectedBy) {
+            this.vectors = vectors;
+            this.faults = faults;
+            this.next = next;
+            this.detectedBy = detectedBy;
+        }
+
+        @Override
+        public void run() {
+            fill();
+            for (int v = 0; occupied != 0; v = v + 1 == vectors.size() ? 0 : v + 1) {
+                simulate(vectors.get(v));
+
+                long detected = 0;
+                for (int o = 0; o < netlist.getNumOutputs(); o++) {
+                    final long value = values[netlist.getOutputNet(o)];
+                    detected |= value ^ -(value & 1);
+                }
+
+                for (long slots = occupied; slots != 0; slots &= slots - 1) {
+                    final int slot = Long.numberOfTrailingZeros(slots);
+                    if ((detected >>> slot & 1) != 0) {
+                        detectedBy[slotFault[slot]] = v;
+                        free(slot);
+                    }
+                    else if (--slotRemaining[slot] == 0) {
+                        free(slot);
+                    }
+                }
+                fill();
+            }
+        }
+
+        /** Give every free slot the next fault waiting, if any */
+        private void fill() {
+            for (long free = ~occupied & ~1L; free != 0; free &= free - 1) {
+                final int f = next.getAndIncrement();
+                if (f >= faults.size()) {
+                    return;
+                }
+
+                final int slot = Long.numberOfTrailingZeros(free);
+                final Fault fault = faults.get(f);
+                slotFault[slot] = f;
+                slotRemaining[slot] = vectors.size();
+                slotCell[slot] = fault.cell();
+                slotInput[slot] = fault.input();
+                slotStuckAt[slot] = fault.stuckAt();
+                faultsOnCell[fault.cell()]++;
+                occupied |= 1L << slot;
+            }
+        }
+
+        private void free(int slot) {
+            faultsOnCell[slotCell[slot]]--;
+            occupied &= ~(1L << slot);
+        }
+
+        private void simulate(boolean[] vector) {
+            for (int i = 0; i < vector.length; i++) {
+                values[i] = vector[i] ? -1L : 0L;
+            }
+            for (int c = 0; c < faultsOnCell.length; c++) {
+                if (faultsOnCell[c] == 0) {
+                    netlist.evaluate(c, values, scratch);
+                }
+                else {
+                    evaluateFaulty(c);
+                }
+            }
+        }
+
+        /** Evaluate a cell with the faults of every slot on it injected */
+        private void evaluateFaulty(int cell) {
+            final int numInputs = netlist.getCellNumInputs(cell);
+            if (inputs[numInputs] == null) {
+                inputs[numInputs] = new long[numInputs];
+            }
+            final long[] in = inputs[numInputs];
+            for (int i = 0; i < numInputs; i++) {
+                in[i] = values[netlist.getCellInputNet(cell, i)];
+            }
+            for (long slots = occupied; slots != 0; slots &= slots - 1) {
+                final int slot = Long.numberOfTrailingZeros(slots);
+                if (slotCell[slot] == cell && slotInput[slot] != Fault.OUTPUT) {
+                    in[slotInput[slot]] = inject(in[slotInput[slot]], slot);
+                }
+            }
+
+            long value = netlist.apply(cell, in);
+            for (long slots = occupied; slots != 0; slots &= slots - 1) {
+                final int slot = Long.numberOfTrailingZeros(slots);
+                if (slotCell[slot] == cell && slotInput[slot] == Fault.OUTPUT) {
+                    value = inject(value, slot);
+                }
+            }
+            values[netlist.getCellNet(cell)] = value;
+        }
+
+        private long inject(long value, int slot) {
+            return slotStuckAt[slot] ? value | 1L << slot : value & ~(1L << slot);
+        }
+    }
+}
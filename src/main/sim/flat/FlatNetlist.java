@@ -0,0 +1,828 @@
+package sim.flat;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.CircuitBlueprint;
+import sim.blueprint.ClockBlueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.blueprint.StatusCodesBlp;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A circuit flattened down to the outputs of the table devices it is made of, the cells, and levelized: every cell
+ * comes after the cells driving its inputs, so evaluating the cells once in order settles the whole circuit.
+ *
+ * <h2>Cells</h2>
+ * Every output bus of a device is a cell of its own, reading only the input buses the output depends on. Devices
+ * whose outputs depend on different inputs, like the lookahead units of a carry lookahead adder, can then feed each
+ * other without forming a loop.
+ *
+ * <h2>Nets</h2>
+ * The input buses of the circuit are nets {@code [0, numInputs)}, cell {@code c} drives net {@code numInputs + c}.
+ * The buses of nested circuits are not nets of their own, they are the nets driving them.
+ *
+ * <h2>Bit-parallel evaluation</h2>
+ * A net value is a {@code long}, each of the 64 bits being an independent copy of the circuit. Evaluating the netlist
+ * once thus simulates 64 input patterns, or 64 variants of the circuit for the same pattern. Cells of 1 or 2 inputs,
+ * which covers the usual gates, are evaluated with a single bitwise operation. Other cells are evaluated as the sum
+ * of the rows of their truth table where the output is 1.
+ *
+ * <p>Only combinational circuits can be levelized. A netlist is immutable and may be evaluated from many threads at
+ * once, each with its own value array.
+ */
+public final class FlatNetlist {
+
+    private final String type;
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+
+    /** Net driving each output bus of the circuit */
+    private final int[] outputNets;
+
+    //>> Cells, in level order
+    private final DeviceBlueprint[] devices;
+    private final int[] cellDevice;
+
+    /** Output bus of its device each cell is */
+    private final int[] cellOutputBus;
+
+    /** The inputs of cell c are the nets {@code inputNets[inputStart[c] .. inputStart[c + 1])} */
+    private final int[] inputStart;
+    private final int[] inputNets;
+
+    /** Input bus of its device each cell input is, indexed like {@link #inputNets} */
+    private final int[] inputBuses;
+
+    /** Bitwise operation of each cell, see {@link #operation}, or {@link #TABLE} */
+    private final int[] operations;
+
+    /** Truth table of each cell over its own inputs, cells of the same device output share the array */
+    private final long[][] tables;
+
+    /** The cells of level l are {@code [levelStart[l], levelStart[l + 1])} */
+    private final int[] levelStart;
+
+    /** Largest number of inputs of a cell evaluated from its truth table */
+    private final int maxTableInputs;
+
+    //>> Hierarchical names, the path of a cell is the aliases of its scopes followed by the alias of its device
+    private final String[] cellAlias;
+    private final int[] cellScope;
+    private final String[] scopeAlias;
+    private final int[] scopeParent;
+
+    /** Operation of a cell evaluated from its truth table */
+    static final int TABLE = -1;
+
+    //>> Operations are the number of inputs followed by the 2^numInputs rows of the truth table
+    static final int OPERATION_1 = 1 << 4;
+    static final int OPERATION_2 = 2 << 4;
+
+
+    private FlatNetlist(Builder b) {
+        this.type = b.type;
+        this.inputAliases = b.inputAliases;
+        this.outputAliases = b.outputAliases;
+        this.outputNets = b.outputNets;
+        this.devices = b.devices;
+        this.cellDevice = b.cellDevice;
+        this.cellOutputBus = b.cellOutputBus;
+        this.inputStart = b.inputStart;
+        this.inputNets = b.inputNets;
+        this.inputBuses = b.inputBuses;
+        this.tables = b.tables;
+        this.levelStart = b.levelStart;
+        this.cellAlias = b.cellAlias;
+        this.cellScope = b.cellScope;
+        this.scopeAlias = b.scopeAlias;
+        this.scopeParent = b.scopeParent;
+
+        this.operations = new int[cellDevice.length];
+        int widest = 0;
+        for (int c = 0; c < cellDevice.length; c++) {
+            operations[c] = operation(inputStart[c + 1] - inputStart[c], tables[c]);
+            if (operations[c] == TABLE) {
+                widest = Math.max(widest, inputStart[c + 1] - inputStart[c]);
+            }
+        }
+        this.maxTableInputs = widest;
+    }
+
+    private static int operation(int numInputs, long[] table) {
+        return switch (numInputs) {
+            case 1 -> OPERATION_1 | (int) (table[0] & 0b11);
+            case 2 -> OPERATION_2 | (int) (table[0] & 0b1111);
+            default -> TABLE;
+        };
+    }
+
+
+    //*>> -------------------- Flattening -------------------- */
+
+    /**
+     * Flatten the blueprint registered for a type.
+     *
+     * @param type a registered type
+     * @return the flattened and levelized circuit
+     * @throws StatusRuntimeException see {@link #of(Blueprint)}, and with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_NOT_RECOGNIZED} if the type is not registered
+     * </ul>
+     */
+    public static FlatNetlist of(String type) {
+        final Blueprint blueprint = Blueprint.get(type);
+        if (blueprint == null) {
+            throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_NOT_RECOGNIZED, type);
+        }
+        return of(blueprint);
+    }
+
+    /**
+     * Flatten a blueprint. A device blueprint becomes a netlist of the cells of that one device.
+     *
+     * @param blueprint the blueprint to flatten, the types it instantiates must be registered
+     * @return the flattened and levelized circuit
+     * @throws UnsupportedOperationException if the blueprint is or instantiates a {@link ClockBlueprint}
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesBlp#BLUEPRINT_TYPE_NOT_RECOGNIZED} if an instantiated type is not registered
+     *  <li>{@link StatusCodesBlp#UNDRIVEN_BUS} if an input bus of a cell or an output bus of the circuit is not driven
+     *  <li>{@link StatusCodesBlp#COMBINATIONAL_LOOP} if the circuit has a feedback loop
+     * </ul>
+     */
+    public static FlatNetlist of(Blueprint blueprint) {
+        final Builder builder = new Builder();
+        switch (blueprint) {
+            case CircuitBlueprint circuit -> builder.flatten(circuit);
+            case DeviceBlueprint device -> builder.flatten(device);
+            case ClockBlueprint clock ->
+                throw new UnsupportedOperationException("Clock blueprints cannot be flattened");
+        }
+        builder.levelize();
+        return new FlatNetlist(builder);
+    }
+
+    /**
+     * The outputs of a device, each over the inputs it depends on.
+     */
+    private static final class Split {
+        /** Input buses each output depends on, in increasing order */
+        final int[][] support;
+
+        /** Truth table of each output over its support, input {@code j} being bus {@code support[o][j]} */
+        final long[][] tables;
+
+        Split(DeviceBlueprint device) {
+            final int numInputs = device.getNumInputs();
+            final int rows = 1 << numInputs;
+            support = new int[device.getNumOutputs()][];
+            tables = new long[device.getNumOutputs()][];
+
+            for (int o = 0; o < support.length; o++) {
+                int dependsOn = 0;
+                for (int row = 0; row < rows && dependsOn != (1 << numInputs) - 1; row++) {
+                    for (int i = 0; i < numInputs; i++) {
+                        if (device.lookup(o, row) != device.lookup(o, row ^ (1 << i))) {
+                            dependsOn |= 1 << i;
+                        }
+                    }
+                }
+
+                support[o] = new int[Integer.bitCount(dependsOn)];
+                for (int i = 0, j = 0; i < numInputs; i++) {
+                    if ((dependsOn >>> i & 1) != 0) {
+                        support[o][j++] = i;
+                    }
+                }
+
+                tables[o] = new long[DeviceBlueprint.wordsPerOutput(support[o].length)];
+                for (int row = 0; row < 1 << support[o].length; row++) {
+                    int deviceRow = 0;
+                    for (int j = 0; j < support[o].length; j++) {
+                        deviceRow |= (row >>> j & 1) << support[o][j];
+                    }
+                    if (device.lookup(o, deviceRow)) {
+                        tables[o][row >>> 6] |= 1L << row;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Expands the hierarchy of a blueprint into cells. Buses are given IDs while expanding: the input buses of the
+     * circuit and the output buses of devices are drivers, every other bus is a link to the ID driving it. Links are
+     * followed to their driver once everything is expanded, as connections may come in any order.
+     */
+    private static final class Builder {
+        String type;
+        String[] inputAliases;
+        String[] outputAliases;
+
+        //>> Bus IDs, a driver links to itself and an unconnected bus to -1
+        int[] link = new int[1024];
+        int[] driverCell = new int[1024];
+        int numIds = 0;
+
+        final Map<DeviceBlueprint, Integer> deviceIndex = new IdentityHashMap<>();
+        DeviceBlueprint[] devices = new DeviceBlueprint[16];
+        Split[] splits = new Split[16];
+
+        //>> Cells in the order they are expanded, until levelized
+        int[] cellDevice = new int[256];
+        int[] cellOutputBus = new int[256];
+        int[] cellFirstInput = new int[256];
+        String[] cellAlias = new String[256];
+        int[] cellScope = new int[256];
+        int numCells = 0;
+
+        String[] scopeAlias = new String[16];
+        int[] scopeParent = new int[16];
+        int numScopes = 0;
+
+        //>> Results
+        int[] outputNets;
+        int[] inputStart;
+        int[] inputNets;
+        int[] inputBuses;
+        long[][] tables;
+        int[] levelStart;
+
+        void flatten(CircuitBlueprint circuit) {
+            type = circuit.getType();
+            inputAliases = new String[circuit.getNumInputs()];
+            outputAliases = new String[circuit.getNumOutputs()];
+            for (int i = 0; i < inputAliases.length; i++) {
+                inputAliases[i] = circuit.getInputAlias(i);
+            }
+            for (int i = 0; i < outputAliases.length; i++) {
+                outputAliases[i] = circuit.getOutputAlias(i);
+            }
+            outputNets = expand(circuit, -1, range(firstDriver(inputAliases.length, -1), inputAliases.length));
+        }
+
+        void flatten(DeviceBlueprint device) {
+            type = device.getType();
+            inputAliases = new String[device.getNumInputs()];
+            outputAliases = new String[device.getNumOutputs()];
+            for (int i = 0; i < inputAliases.length; i++) {
+                inputAliases[i] = device.getInputAlias(i);
+            }
+            for (int i = 0; i < outputAliases.length; i++) {
+                outputAliases[i] = device.getOutputAlias(i);
+            }
+
+            final int inputs = firstDriver(inputAliases.length, -1);
+            final int[] buses = device(device, -1, device.getType());
+            for (int i = 0; i < inputAliases.length; i++) {
+                link[buses[0] + i] = inputs + i;
+            }
+            outputNets = range(buses[1], outputAliases.length);
+        }
+
+        /**
+         * @param inputs IDs of the input buses of the circuit
+         * @return IDs of the output buses of the circuit
+         */
+        private int[] expand(CircuitBlueprint circuit, int scope, int[] inputs) {
+            final int numSystems = circuit.getNumSystems();
+            final int[][] systemInputs = new int[numSystems][];
+            final int[][] systemOutputs = new int[numSystems][];
+
+            for (int s = 0; s < numSystems; s++) {
+                final String systemType = circuit.getSystemType(s);
+                final Blueprint blueprint = Blueprint.get(systemType);
+                if (blueprint == null) {
+                    throw StatusCodesBlp.runtimeException(StatusCodesBlp.BLUEPRINT_TYPE_NOT_RECOGNIZED, systemType);
+                }
+
+                switch (blueprint) {
+                    case DeviceBlueprint device -> {
+                        final int[] buses = device(device, scope, circuit.getSystemAlias(s));
+                        systemInputs[s] = range(buses[0], device.getNumInputs());
+                        systemOutputs[s] = range(buses[1], device.getNumOutputs());
+                    }
+                    case CircuitBlueprint nested -> {
+                        systemInputs[s] = range(firstLink(nested.getNumInputs()), nested.getNumInputs());
+                        systemOutputs[s] = expand(nested, scope(scope, circuit.getSystemAlias(s)), systemInputs[s]);
+                    }
+                    case ClockBlueprint clock ->
+                        throw new UnsupportedOperationException("Clock blueprints cannot be flattened");
+                }
+            }
+
+            final int[] outputs = range(firstLink(circuit.getNumOutputs()), circuit.getNumOutputs());
+            for (int c = 0; c < circuit.getNumConnections(); c++) {
+                final int source = circuit.getConnectionSource(c);
+                final int target = circuit.getConnectionTarget(c);
+                final int from = source == CircuitBlueprint.SELF ? inputs[circuit.getConnectionSourceBus(c)]
+                                 : systemOutputs[source][circuit.getConnectionSourceBus(c)];
+                if (target == CircuitBlueprint.SELF) {
+                    link[outputs[circuit.getConnectionTargetBus(c)]] = from;
+                }
+                else {
+                    link[systemInputs[target][circuit.getConnectionTargetBus(c)]] = from;
+                }
+            }
+            return outputs;
+        }
+
+        /**
+         * Add a cell for every output of a device.
+         *
+         * @return the first ID of the input buses and the first ID of the output buses of the device
+         */
+        private int[] device(DeviceBlueprint device, int scope, String alias) {
+            Integer index = deviceIndex.get(device);
+            if (index == null) {
+                index = deviceIndex.size();
+                deviceIndex.put(device, index);
+                if (index == devices.length) {
+                    devices = Arrays.copyOf(devices, 2 * index);
+                    splits = Arrays.copyOf(splits, 2 * index);
+                }
+                devices[index] = device;
+                splits[index] = new Split(device);
+            }
+
+            final int firstInput = firstLink(device.getNumInputs());
+            final int firstOutput = numIds;
+            for (int o = 0; o < device.getNumOutputs(); o++) {
+                if (numCells == cellDevice.length) {
+                    final int capacity = 2 * numCells;
+                    cellDevice = Arrays.copyOf(cellDevice, capacity);
+                    cellOutputBus = Arrays.copyOf(cellOutputBus, capacity);
+                    cellFirstInput = Arrays.copyOf(cellFirstInput, capacity);
+                    cellAlias = Arrays.copyOf(cellAlias, capacity);
+                    cellScope = Arrays.copyOf(cellScope, capacity);
+                }
+                final int cell = numCells++;
+                cellDevice[cell] = index;
+                cellOutputBus[cell] = o;
+                cellFirstInput[cell] = firstInput;
+                cellAlias[cell] = alias;
+                cellScope[cell] = scope;
+                firstDriver(1, cell);
+            }
+            return new int[] {firstInput, firstOutput};
+        }
+
+        private int scope(int parent, String alias) {
+            if (numScopes == scopeAlias.length) {
+                scopeAlias = Arrays.copyOf(scopeAlias, 2 * numScopes);
+                scopeParent = Arrays.copyOf(scopeParent, 2 * numScopes);
+            }
+            scopeAlias[numScopes] = alias;
+            scopeParent[numScopes] = parent;
+            return numScopes++;
+        }
+
+        /** @return the first of {@code n} consecutive new unconnected buses */
+        private int firstLink(int n) {
+            final int first = reserve(n);
+            Arrays.fill(link, first, numIds, -1);
+            Arrays.fill(driverCell, first, numIds, -1);
+            return first;
+        }
+
+        /** @return the first of {@code n} consecutive new drivers, driven by {@code cell} or inputs of the circuit if -1 */
+        private int firstDriver(int n, int cell) {
+            final int first = reserve(n);
+            for (int id = first; id < numIds; id++) {
+                link[id] = id;
+                driverCell[id] = cell;
+            }
+            return first;
+        }
+
+        private int reserve(int n) {
+            if (numIds + n > link.length) {
+                final int capacity = Math.max(numIds + n, 2 * link.length);
+                link = Arrays.copyOf(link, capacity);
+                driverCell = Arrays.copyOf(driverCell, capacity);
+            }
+            numIds += n;
+            return numIds - n;
+        }
+
+        private static int[] range(int first, int n) {
+            final int[] ids = new int[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = first + i;
+            }
+            return ids;
+        }
+
+        /**
+         * Follow the links of a bus to its driver, and link every bus on the way to the driver directly.
+         *
+         * @return the driver, or -1 if the bus is not driven
+         */
+        private int driver(int id) {
+            int driver = id;
+            for (int steps = 0; driver >= 0 && link[driver] != driver; steps++) {
+                if (steps > numIds) {
+                    return -1;
+                }
+                driver = link[driver];
+            }
+            while (id >= 0 && link[id] != id) {
+                final int next = link[id];
+                link[id] = driver;
+                id = next;
+            }
+            return driver;
+        }
+
+        /**
+         * Resolve the buses to their drivers, sort the cells by level and number the nets.
+         */
+        void levelize() {
+            final int numInputs = inputAliases.length;
+
+            //>> Resolve every cell input, and count the fanout of every cell
+
+            final int[] fanout = new int[numCells];
+            int numCellInputs = 0;
+            for (int c = 0; c < numCells; c++) {
+                final int[] support = splits[cellDevice[c]].support[cellOutputBus[c]];
+                for (int bus : support) {
+                    final int driver = driver(cellFirstInput[c] + bus);
+                    if (driver < 0) {
+                        throw StatusCodesBlp.runtimeException(StatusCodesBlp.UNDRIVEN_BUS, type,
+                            "input bus <" + devices[cellDevice[c]].getInputAlias(bus) + "> of <" + path(c) + ">");
+                    }
+                    if (driverCell[driver] >= 0) {
+                        fanout[driverCell[driver]]++;
+                    }
+                }
+                numCellInputs += support.length;
+            }
+            for (int o = 0; o < outputNets.length; o++) {
+                final int driver = driver(outputNets[o]);
+                if (driver < 0) {
+                    throw StatusCodesBlp.runtimeException(StatusCodesBlp.UNDRIVEN_BUS, type,
+                                                          "output bus <" + outputAliases[o] + ">");
+                }
+                outputNets[o] = driver;
+            }
+
+            //>> Dependents of every cell, as consecutive runs
+
+            final int[] dependentStart = new int[numCells + 1];
+            for (int c = 0; c < numCells; c++) {
+                dependentStart[c + 1] = dependentStart[c] + fanout[c];
+            }
+            final int[] dependents = new int[dependentStart[numCells]];
+            final int[] pending = new int[numCells];
+            for (int c = 0; c < numCells; c++) {
+                for (int bus : splits[cellDevice[c]].support[cellOutputBus[c]]) {
+                    final int driver = driverCell[link[cellFirstInput[c] + bus]];
+                    if (driver >= 0) {
+                        dependents[dependentStart[driver + 1] - fanout[driver]--] = c;
+                        pending[c]++;
+                    }
+                }
+            }
+
+            //>> Kahn's algorithm, the level of a cell is one more than the highest level driving it
+
+            final int[] level = new int[numCells];
+            final int[] queue = new int[numCells];
+            int head = 0;
+            int tail = 0;
+            for (int c = 0; c < numCells; c++) {
+                if (pending[c] == 0) {
+                    queue[tail++] = c;
+                }
+            }
+            int numLevels = numCells == 0 ? 0 : 1;
+            while (head < tail) {
+                final int c = queue[head++];
+                for (int d = dependentStart[c]; d < dependentStart[c + 1]; d++) {
+                    final int dependent = dependents[d];
+                    level[dependent] = Math.max(level[dependent], level[c] + 1);
+                    numLevels = Math.max(numLevels, level[dependent] + 1);
+                    if (--pending[dependent] == 0) {
+                        queue[tail++] = dependent;
+                    }
+                }
+            }
+            if (tail < numCells) {
+                for (int c = 0; c < numCells; c++) {
+                    if (pending[c] > 0) {
+                        throw StatusCodesBlp.runtimeException(StatusCodesBlp.COMBINATIONAL_LOOP, type,
+                            "output bus <" + devices[cellDevice[c]].getOutputAlias(cellOutputBus[c]) + "> of <"
+                            + path(c) + ">");
+                    }
+                }
+            }
+
+            //>> Sort the cells by level, keeping the expansion order within a level
+
+            levelStart = new int[numLevels + 1];
+            for (int c = 0; c < numCells; c++) {
+                levelStart[level[c] + 1]++;
+            }
+            for (int l = 0; l < numLevels; l++) {
+                levelStart[l + 1] += levelStart[l];
+            }
+            final int[] position = new int[numCells];
+            final int[] order = new int[numCells];
+            final int[] filled = Arrays.copyOf(levelStart, numLevels);
+            for (int c = 0; c < numCells; c++) {
+                position[c] = filled[level[c]]++;
+                order[position[c]] = c;
+            }
+
+            //>> Lay out the cells in level order, cell p drives net numInputs + p
+
+            inputStart = new int[numCells + 1];
+            inputNets = new int[numCellInputs];
+            inputBuses = new int[numCellInputs];
+            tables = new long[numCells][];
+            for (int p = 0; p < numCells; p++) {
+                final int c = order[p];
+                final Split split = splits[cellDevice[c]];
+                final int[] support = split.support[cellOutputBus[c]];
+                inputStart[p + 1] = inputStart[p] + support.length;
+                for (int j = 0; j < support.length; j++) {
+                    inputNets[inputStart[p] + j] = net(link[cellFirstInput[c] + support[j]], position);
+                    inputBuses[inputStart[p] + j] = support[j];
+                }
+                tables[p] = split.tables[cellOutputBus[c]];
+            }
+            for (int o = 0; o < outputNets.length; o++) {
+                outputNets[o] = net(outputNets[o], position);
+            }
+
+            devices = Arrays.copyOf(devices, deviceIndex.size());
+            cellDevice = permute(cellDevice, order);
+            cellOutputBus = permute(cellOutputBus, order);
+            cellScope = permute(cellScope, order);
+            final String[] aliases = new String[numCells];
+            for (int p = 0; p < numCells; p++) {
+                aliases[p] = cellAlias[order[p]];
+            }
+            cellAlias = aliases;
+            scopeAlias = Arrays.copyOf(scopeAlias, numScopes);
+            scopeParent = Arrays.copyOf(scopeParent, numScopes);
+        }
+
+        /** @return the net of a driver, once the cells are laid out */
+        private int net(int driver, int[] position) {
+            final int cell = driverCell[driver];
+            return cell < 0 ? driver : inputAliases.length + position[cell];
+        }
+
+        private int[] permute(int[] array, int[] order) {
+            final int[] permuted = new int[numCells];
+            for (int p = 0; p < numCells; p++) {
+                permuted[p] = array[order[p]];
+            }
+            return permuted;
+        }
+
+        private String path(int cell) {
+            return FlatNetlist.path(cellAlias[cell], cellScope[cell], scopeAlias, scopeParent);
+        }
+    }
+
+    private static String path(String alias, int scope, String[] scopeAlias, int[] scopeParent) {
+        final StringBuilder path = new StringBuilder(alias);
+        for (int s = scope; s >= 0; s = scopeParent[s]) {
+            path.insert(0, '.').insert(0, scopeAlias[s]);
+        }
+        return path.toString();
+    }
+
+
+    //*>> -------------------- Evaluation -------------------- */
+
+    /**
+     * Evaluate every cell in order. The input nets must be set, all other nets are overwritten.
+     *
+     * @param values the value of every net, at least {@link #getNumNets()} long
+     */
+    public void evaluate(long[] values) {
+        final long[] inputs = new long[maxTableInputs];
+        for (int c = 0; c < operations.length; c++) {
+            evaluate(c, values, inputs);
+        }
+    }
+
+    /**
+     * Evaluate a single cell, reading its input nets and writing its net. Allocates the scratch space of a cell
+     * evaluated from its truth table, see {@link #evaluate(int, long[], long[])} to evaluate many cells.
+     *
+     * @param cell the cell
+     * @param values the value of every net
+     */
+    public void evaluate(int cell, long[] values) {
+        evaluate(cell, values, operations[cell] == TABLE ? new long[maxTableInputs] : null);
+    }
+
+    /**
+     * Evaluate a single cell, reading its input nets and writing its net.
+     *
+     * @param cell the cell
+     * @param values the value of every net
+     * @param inputs scratch space for the inputs of a cell evaluated from its truth table, at least
+     *               {@link #getMaxTableInputs()} long
+     */
+    public void evaluate(int cell, long[] values, long[] inputs) {
+        final int operation = operations[cell];
+        final int in = inputStart[cell];
+        final long value;
+        if (operation >= OPERATION_2) {
+            value = apply2(operation, values[inputNets[in]], values[inputNets[in + 1]]);
+        }
+        else if (operation >= OPERATION_1) {
+            value = apply1(operation, values[inputNets[in]]);
+        }
+        else {
+            final int numInputs = inputStart[cell + 1] - in;
+            for (int i = 0; i < numInputs; i++) {
+                inputs[i] = values[inputNets[in + i]];
+            }
+            value = sumOfRows(tables[cell], inputs, numInputs);
+        }
+        values[inputAliases.length + cell] = value;
+    }
+
+    /**
+     * Evaluate a cell for the given input values, which need not be those of its input nets.
+     *
+     * @param cell the cell
+     * @param inputs the value of each input of the cell
+     * @return the value of the cell
+     */
+    public long apply(int cell, long[] inputs) {
+        final int operation = operations[cell];
+        if (operation >= OPERATION_2) {
+            return apply2(operation, inputs[0], inputs[1]);
+        }
+        if (operation >= OPERATION_1) {
+            return apply1(operation, inputs[0]);
+        }
+        return sumOfRows(tables[cell], inputs, inputs.length);
+    }
+
+    /** Row {@code a + 2b} of the truth table is bit {@code a + 2b} of the operation */
+    static long apply2(int operation, long a, long b) {
+        return switch (operation & 0b1111) {
+            case 0b0000 -> 0L;
+            case 0b0001 -> ~(a | b);
+            case 0b0010 -> a & ~b;
+            case 0b0011 -> ~b;
+            case 0b0100 -> ~a & b;
+            case 0b0101 -> ~a;
+            case 0b0110 -> a ^ b;
+            case 0b0111 -> ~(a & b);
+            case 0b1000 -> a & b;
+            case 0b1001 -> ~(a ^ b);
+            case 0b1010 -> a;
+            case 0b1011 -> a | ~b;
+            case 0b1100 -> b;
+            case 0b1101 -> ~a | b;
+            case 0b1110 -> a | b;
+            default -> -1L;
+        };
+    }
+
+    static long apply1(int operation, long a) {
+        return switch (operation & 0b11) {
+            case 0b00 -> 0L;
+            case 0b01 -> ~a;
+            case 0b10 -> a;
+            default -> -1L;
+        };
+    }
+
+    /**
+     * Or together a term per row of the truth table where the cell is 1, each term matching the row's inputs.
+     *
+     * @param inputs the value of each input of the cell, only the first {@code numInputs} are read
+     */
+    static long sumOfRows(long[] table, long[] inputs, int numInputs) {
+        final long rows = numInputs >= 6 ? -1L : (1L << (1 << numInputs)) - 1;
+
+        long sum = 0;
+        for (int w = 0; w < table.length; w++) {
+            long bits = table[w] & rows;
+            while (bits != 0) {
+                final int row = (w << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                long term = -1L;
+                for (int i = 0; i < numInputs; i++) {
+                    term &= ((row >>> i) & 1) != 0 ? inputs[i] : ~inputs[i];
+                }
+                sum |= term;
+            }
+        }
+        return sum;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public String getType() {
+        return type;
+    }
+
+    public int getNumInputs() {
+        return inputAliases.length;
+    }
+
+    public int getNumOutputs() {
+        return outputAliases.length;
+    }
+
+    public String getInputAlias(int index) {
+        return inputAliases[index];
+    }
+
+    public String getOutputAlias(int index) {
+        return outputAliases[index];
+    }
+
+    /** @return the net driving output bus {@code index} of the circuit */
+    public int getOutputNet(int index) {
+        return outputNets[index];
+    }
+
+    /** @return the number of nets, input buses of the circuit included */
+    public int getNumNets() {
+        return inputAliases.length + cellDevice.length;
+    }
+
+    /** @return the largest number of inputs of a cell evaluated from its truth table, 0 if there is none */
+    public int getMaxTableInputs() {
+        return maxTableInputs;
+    }
+
+    public int getNumCells() {
+        return cellDevice.length;
+    }
+
+    /** @return the net driven by a cell */
+    public int getCellNet(int cell) {
+        return inputAliases.length + cell;
+    }
+
+    public DeviceBlueprint getCellDevice(int cell) {
+        return devices[cellDevice[cell]];
+    }
+
+    /** @return the output bus of its device a cell is */
+    public int getCellOutputBus(int cell) {
+        return cellOutputBus[cell];
+    }
+
+    /** @return the aliases of the circuits the device of a cell is nested in and of the device, separated by dots */
+    public String getCellPath(int cell) {
+        return path(cellAlias[cell], cellScope[cell], scopeAlias, scopeParent);
+    }
+
+    /** @return the number of inputs of a cell, the input buses of its device the cell depends on */
+    public int getCellNumInputs(int cell) {
+        return inputStart[cell + 1] - inputStart[cell];
+    }
+
+    /** @return the net driving input {@code input} of a cell */
+    public int getCellInputNet(int cell, int input) {
+        return inputNets[inputStart[cell] + input];
+    }
+
+    /** @return the bitwise operation of a cell, see {@link #apply2} and {@link #apply1}, or {@link #TABLE} */
+    int getCellOperation(int cell) {
+        return operations[cell];
+    }
+
+    /** @return the truth table of a cell over its own inputs, shared with the cells of the same device output */
+    long[] getCellTable(int cell) {
+        return tables[cell];
+    }
+
+    /** @return the input bus of its device input {@code input} of a cell is */
+    public int getCellInputBus(int cell, int input) {
+        return inputBuses[inputStart[cell] + input];
+    }
+
+    /** @return the number of levels, a cell of level l only reads nets of lower levels and the circuit's inputs */
+    public int getNumLevels() {
+        return levelStart.length - 1;
+    }
+
+    /** @return the first cell of a level, the cells of level l are {@code [getLevelStart(l), getLevelStart(l + 1))} */
+    public int getLevelStart(int level) {
+        return levelStart[level];
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + getNumCells() + " cell(s), " + getNumNets() + " net(s), " + getNumLevels() + " level(s)";
+    }
+}
@@ -0,0 +1,60 @@
+package sim.flat;
+
+/**
+ * Evaluates a group of cells sharing the same operation, see {@link GroupedNetlist}: the inputs of cell {@code k} are
+ * the nets {@code a[k]} and {@code b[k]} and it drives net {@code offset + k}, for every k of {@code [from, to)}. The
+ * masks are 0 or all ones.
+ */
+interface GroupKernel {
+
+    /** Class of the kernel using the Vector API, found on the class path only when the vector source set is */
+    String VECTOR_KERNEL = "sim.flat.VectorKernel";
+
+    /** {@code values[offset + k] = ((values[a[k]] ^ ma) & (values[b[k]] ^ mb)) ^ mo} */
+    void and(long[] values, int[] a, int[] b, int from, int to, int offset, long ma, long mb, long mo);
+
+    /** {@code values[offset + k] = values[a[k]] ^ values[b[k]] ^ mo} */
+    void xor(long[] values, int[] a, int[] b, int from, int to, int offset, long mo);
+
+    /**
+     * @return the kernel using the Vector API, or {@code null} if it is not on the class path, module
+     *         {@code jdk.incubator.vector} was not added at run time, or the platform has no SIMD lanes for longs
+     */
+    static GroupKernel vector() {
+        try {
+            return (GroupKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * A kernel evaluating a cell at a time.
+     */
+    final class Scalar implements GroupKernel {
+
+        static final Scalar INSTANCE = new Scalar();
+
+        private Scalar() {}
+
+        @Override
+        public void and(long[] values, int[] a, int[] b, int from, int to, int offset, long ma, long mb, long mo) {
+            for (int k = from; k < to; k++) {
+                values[offset + k] = ((values[a[k]] ^ ma) & (values[b[k]] ^ mb)) ^ mo;
+            }
+        }
+
+        @Override
+        public void xor(long[] values, int[] a, int[] b, int from, int to, int offset, long mo) {
+            for (int k = from; k < to; k++) {
+                values[offset + k] = values[a[k]] ^ values[b[k]] ^ mo;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+}
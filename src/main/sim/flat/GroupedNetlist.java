@@ -0,0 +1,346 @@
+package sim.flat;
+
+import java.util.Arrays;
+
+import sim.exception.StatusRuntimeException;
+
+/**
+ * A {@link FlatNetlist} whose cells are grouped by level and operation, so a group is evaluated as a single loop:
+ * gather the inputs of its cells, apply the same bitwise operation to each and store the results. The loop runs on
+ * SIMD lanes with the Vector API when available, see {@link #isVectorAvailable()}, and as scalar code otherwise.
+ *
+ * <h2>Operations</h2>
+ * Every cell of 1 or 2 inputs is rewritten as either {@code ((a ^ ma) & (b ^ mb)) ^ mo} or {@code a ^ b ^ mo}, the
+ * masks being 0 or all ones, which covers all 16 operations of 2 inputs. A cell of 1 input, or of 2 inputs but
+ * depending on 1, reads the same net as both {@code a} and {@code b}. A level thus has at most 10 groups of such cells,
+ * and a group of the remaining cells evaluated a cell at a time from their truth table.
+ *
+ * <h2>Nets</h2>
+ * The input buses of the circuit are nets {@code [0, numInputs)} as in the netlist, but cells are reordered so every
+ * group drives consecutive nets: only the inputs of a group are gathered, its results are stored in one sweep. See
+ * {@link #getCellNet(int)} for the net of a cell of the netlist.
+ *
+ * <h2>Vector API</h2>
+ * The vector kernel is a source set of its own, {@code src/vector}, compiled with
+ * {@code --add-modules jdk.incubator.vector}. It is used when it is on the class path and the JVM runs with the same
+ * option, scalar code is used otherwise. A grouped netlist is immutable and may be evaluated from many threads at
+ * once, each with its own value array.
+ */
+public final class GroupedNetlist {
+
+    /** Kernel using the Vector API, null if unavailable */
+    private static final GroupKernel VECTOR = GroupKernel.vector();
+
+    //>> Group operations, a combination of the flags, or TABLE
+    private static final int XOR = 1;
+    private static final int MA = 1 << 1;
+    private static final int MB = 1 << 2;
+    private static final int MO = 1 << 3;
+    private static final int NUM_OPERATIONS = 1 << 4;
+    private static final int TABLE = -1;
+
+    private final String type;
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+
+    /** Net driving each output bus of the circuit */
+    private final int[] outputNets;
+
+    /** The netlist grouped, holding the truth tables of the cells evaluated from them */
+    private final FlatNetlist netlist;
+
+    /** Position of each cell of the netlist */
+    private final int[] position;
+
+    /**
+     * Input nets of the cell at each position. A cell evaluated from its truth table stores its index in the
+     * netlist in {@code inputA} and the offset of its input nets in {@link #tableInputs} in {@code inputB}
+     */
+    private final int[] inputA;
+    private final int[] inputB;
+    private final int[] tableInputs;
+
+    /** The cells of group g are at positions {@code [groupStart[g], groupStart[g + 1])} */
+    private final int[] groupStart;
+    private final int[] groupOperation;
+
+    /** Largest number of inputs of a cell evaluated from its truth table */
+    private final int maxTableInputs;
+
+    private final GroupKernel kernel;
+
+
+    /**
+     * Group the cells of a netlist, evaluated with the Vector API if available.
+     *
+     * @param netlist the circuit to group
+     */
+    public GroupedNetlist(FlatNetlist netlist) {
+        this(netlist, true);
+    }
+
+    /**
+     * Group the cells of a netlist.
+     *
+     * @param netlist the circuit to group
+     * @param vector whether to evaluate with the Vector API if available, or always with scalar code
+     */
+    public GroupedNetlist(FlatNetlist netlist, boolean vector) {
+        this.netlist = netlist;
+        this.kernel = vector && VECTOR != null ? VECTOR : GroupKernel.Scalar.INSTANCE;
+        type = netlist.getType();
+        inputAliases = new String[netlist.getNumInputs()];
+        outputAliases = new String[netlist.getNumOutputs()];
+        for (int i = 0; i < inputAliases.length; i++) {
+            inputAliases[i] = netlist.getInputAlias(i);
+        }
+
+        //>> Order the cells of every level by operation, counting the cells of each operation first
+
+        final int numCells = netlist.getNumCells();
+        final int[] operation = new int[numCells];
+        for (int c = 0; c < numCells; c++) {
+            operation[c] = operation(netlist.getCellNumInputs(c), netlist.getCellOperation(c));
+        }
+
+        position = new int[numCells];
+        final int[] start = new int[numCells + 1];
+        final int[] operations = new int[numCells];
+        int numGroups = 0;
+        int numTableInputs = 0;
+        for (int l = 0; l < netlist.getNumLevels(); l++) {
+            final int first = netlist.getLevelStart(l);
+            final int last = netlist.getLevelStart(l + 1);
+            final int[] count = new int[NUM_OPERATIONS + 1];
+            for (int c = first; c < last; c++) {
+                count[operation[c] + 1]++;
+            }
+
+            final int[] fill = new int[NUM_OPERATIONS + 1];
+            for (int o = 0, p = first; o < count.length; p += count[o], o++) {
+                fill[o] = p;
+                if (count[o] > 0) {
+                    start[numGroups] = p;
+                    operations[numGroups++] = o - 1;
+                }
+            }
+            for (int c = first; c < last; c++) {
+                position[c] = fill[operation[c] + 1]++;
+                if (operation[c] == TABLE) {
+                    numTableInputs += netlist.getCellNumInputs(c);
+                }
+            }
+        }
+        start[numGroups] = numCells;
+        groupStart = Arrays.copyOf(start, numGroups + 1);
+        groupOperation = Arrays.copyOf(operations, numGroups);
+
+        //>> Inputs, renumbered after the order
+
+        inputA = new int[numCells];
+        inputB = new int[numCells];
+        tableInputs = new int[numTableInputs];
+        int widest = 0;
+        for (int c = 0, in = 0; c < numCells; c++) {
+            final int p = position[c];
+            final int numInputs = netlist.getCellNumInputs(c);
+            if (operation[c] == TABLE) {
+                inputA[p] = c;
+                inputB[p] = in;
+                for (int i = 0; i < numInputs; i++) {
+                    tableInputs[in++] = net(netlist.getCellInputNet(c, i));
+                }
+                widest = Math.max(widest, numInputs);
+            }
+            else if (numInputs == 1 || !dependsOnBoth(netlist.getCellOperation(c))) {
+                final int operand = numInputs == 2 && dependsOnB(netlist.getCellOperation(c)) ? 1 : 0;
+                inputA[p] = net(netlist.getCellInputNet(c, operand));
+                inputB[p] = inputA[p];
+            }
+            else {
+                inputA[p] = net(netlist.getCellInputNet(c, 0));
+                inputB[p] = net(netlist.getCellInputNet(c, 1));
+            }
+        }
+        maxTableInputs = widest;
+
+        outputNets = new int[outputAliases.length];
+        for (int o = 0; o < outputAliases.length; o++) {
+            outputAliases[o] = netlist.getOutputAlias(o);
+            outputNets[o] = net(netlist.getOutputNet(o));
+        }
+    }
+
+    /**
+     * Flatten the blueprint registered for a type and group its cells, evaluated with the Vector API if available.
+     *
+     * @param type a registered type
+     * @return the grouped circuit
+     * @throws StatusRuntimeException if the type cannot be flattened, see {@link FlatNetlist#of(String)}
+     */
+    public static GroupedNetlist of(String type) {
+        return new GroupedNetlist(FlatNetlist.of(type));
+    }
+
+    /** @return the net of this netlist that is net {@code net} of the flat netlist */
+    private int net(int net) {
+        final int numInputs = inputAliases.length;
+        return net < numInputs ? net : numInputs + position[net - numInputs];
+    }
+
+    //>> Dependencies of an operation of 2 inputs, see FlatNetlist.apply2, row a + 2b being bit a + 2b
+    private static boolean dependsOnA(int operation) {
+        return (operation & 0b0101) != (operation & 0b1010) >>> 1;
+    }
+
+    private static boolean dependsOnB(int operation) {
+        return (operation & 0b0011) != (operation & 0b1100) >>> 2;
+    }
+
+    private static boolean dependsOnBoth(int operation) {
+        return dependsOnA(operation) && dependsOnB(operation);
+    }
+
+    /**
+     * @param numInputs the number of inputs of a cell
+     * @param operation the operation of the cell in the netlist
+     * @return the group operation of the cell
+     */
+    private static int operation(int numInputs, int operation) {
+        if (operation == FlatNetlist.TABLE) {
+            return TABLE;
+        }
+
+        //>> Read once, or the same net read twice: only rows 0 and 3 of a + 2b, both inputs being equal, are used
+        final int rows = operation & 0b1111;
+        if (numInputs == 1 || !dependsOnBoth(operation)) {
+            final boolean zero;
+            final boolean one;
+            if (numInputs == 1) {
+                zero = (rows & 0b01) != 0;
+                one = (rows & 0b10) != 0;
+            }
+            else {
+                zero = (rows & 0b0001) != 0;
+                one = (rows & (dependsOnA(rows) ? 0b0010 : 0b0100)) != 0;
+            }
+            if (zero == one) {
+                return MB | (zero ? MO : 0);
+            }
+            return zero ? MO : 0;
+        }
+
+        if (rows == 0b0110 || rows == 0b1001) {
+            return XOR | (rows == 0b1001 ? MO : 0);
+        }
+
+        //>> A single row differs from the others: that row of the operation or of its complement is an and
+        final boolean complement = Integer.bitCount(rows) == 3;
+        final int row = Integer.numberOfTrailingZeros(complement ? ~rows & 0b1111 : rows);
+        return ((row & 1) == 0 ? MA : 0) | ((row & 2) == 0 ? MB : 0) | (complement ? MO : 0);
+    }
+
+
+    //*>> -------------------- Evaluation -------------------- */
+
+    /**
+     * Evaluate every group in order. The input nets must be set, all other nets are overwritten.
+     *
+     * @param values the value of every net, at least {@link #getNumNets()} long
+     */
+    public void evaluate(long[] values) {
+        final int offset = inputAliases.length;
+        final long[] inputs = new long[maxTableInputs];
+        for (int g = 0; g < groupOperation.length; g++) {
+            final int operation = groupOperation[g];
+            final int from = groupStart[g];
+            final int to = groupStart[g + 1];
+            if (operation == TABLE) {
+                for (int p = from; p < to; p++) {
+                    final int cell = inputA[p];
+                    final int numInputs = netlist.getCellNumInputs(cell);
+                    for (int i = 0; i < numInputs; i++) {
+                        inputs[i] = values[tableInputs[inputB[p] + i]];
+                    }
+                    values[offset + p] = FlatNetlist.sumOfRows(netlist.getCellTable(cell), inputs, numInputs);
+                }
+            }
+            else if ((operation & XOR) != 0) {
+                kernel.xor(values, inputA, inputB, from, to, offset, mask(operation, MO));
+            }
+            else {
+                kernel.and(values, inputA, inputB, from, to, offset, mask(operation, MA), mask(operation, MB),
+                           mask(operation, MO));
+            }
+        }
+    }
+
+    private static long mask(int operation, int flag) {
+        return (operation & flag) != 0 ? -1L : 0;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /**
+     * @return whether the Vector API kernel could be loaded, which takes the {@code src/vector} classes on the class
+     *         path and {@code --add-modules jdk.incubator.vector}
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /** @return whether this netlist is evaluated with the Vector API */
+    public boolean isVectorized() {
+        return kernel != GroupKernel.Scalar.INSTANCE;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getNumInputs() {
+        return inputAliases.length;
+    }
+
+    public int getNumOutputs() {
+        return outputAliases.length;
+    }
+
+    public String getInputAlias(int index) {
+        return inputAliases[index];
+    }
+
+    public String getOutputAlias(int index) {
+        return outputAliases[index];
+    }
+
+    /** @return the net driving output bus {@code index} of the circuit */
+    public int getOutputNet(int index) {
+        return outputNets[index];
+    }
+
+    /** @return the number of nets, input buses of the circuit included */
+    public int getNumNets() {
+        return inputAliases.length + position.length;
+    }
+
+    public int getNumCells() {
+        return position.length;
+    }
+
+    /** @return the net driven by cell {@code cell} of the netlist the cells were grouped from */
+    public int getCellNet(int cell) {
+        return inputAliases.length + position[cell];
+    }
+
+    /** @return the number of groups, cells of the same level and operation */
+    public int getNumGroups() {
+        return groupOperation.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d cell(s) in %d group(s), %s kernel", type, getNumCells(), getNumGroups(), kernel);
+    }
+}
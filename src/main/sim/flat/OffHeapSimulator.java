@@ -0,0 +1,399 @@
+package sim.flat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import sim.blueprint.DeviceBlueprint;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Event-driven simulation of a {@link FlatNetlist} whose state lives off the Java heap. Net values, the fanin and
+ * fanout of every cell, the truth tables and the pending events are all held in direct buffers, so the heap only
+ * holds this object, a few buffer objects and the IO aliases. Once the simulator is built, neither heap usage nor
+ * garbage collection grow with the size of the design, and the netlist can be dropped.
+ *
+ * <h2>Building</h2>
+ * The simulator is copied from a {@link FlatNetlist}, which is flattened on the heap first: building is not streamed
+ * from the blueprints. The peak heap while building is thus that of flattening the design, a few hundred bytes per
+ * cell, and a design must fit on the heap as a flat netlist once, even though the simulator then needs none of it.
+ *
+ * <h2>Events</h2>
+ * Changing an input net schedules the cells reading it. {@link #settle()} evaluates the scheduled cells a level at a
+ * time, lowest first, and schedules the readers of every net that changed. As cells only read nets of lower levels,
+ * every cell is evaluated at most once per settle, and the queue of a level is the slots of its own cells: it never
+ * overflows.
+ *
+ * <p>Like on the netlist, a net value is a {@code long} of 64 independent copies of the circuit. Every buffer is
+ * limited to 2GB, which limits a design to about 268 million nets. Direct buffers are released once the simulator is
+ * no longer reachable. A simulator is not thread-safe.
+ */
+public final class OffHeapSimulator {
+
+    private final String type;
+    private final String[] inputAliases;
+    private final String[] outputAliases;
+    private final int numCells;
+    private final int numLevels;
+
+    //>> Netlist, see FlatNetlist. Cell c drives net numInputs + c
+    private final IntBuffer outputNets;
+    private final IntBuffer operations;
+    private final IntBuffer inputStart;
+    private final IntBuffer inputNets;
+
+    /** Offset of the truth table of every cell in {@link #tables}, -1 unless evaluated from its table */
+    private final IntBuffer tableStart;
+    private final LongBuffer tables;
+
+    /** The cells reading net n are {@code fanout[fanoutStart[n] .. fanoutStart[n + 1])} */
+    private final IntBuffer fanoutStart;
+    private final IntBuffer fanout;
+
+    private final IntBuffer cellLevel;
+    private final IntBuffer levelStart;
+
+    //>> State
+    private final LongBuffer values;
+
+    /** The cells queued at level l are {@code queue[levelStart[l] .. levelStart[l] + queuedPerLevel[l])} */
+    private final IntBuffer queue;
+    private final IntBuffer queuedPerLevel;
+
+    /** Bit c is set if cell c is queued */
+    private final LongBuffer queued;
+
+    /** Bit l is set if level l has queued cells, levels between far apart events are skipped 64 at a time */
+    private final LongBuffer queuedLevels;
+
+    /** Lowest level with queued cells, {@link #numLevels} if none */
+    private int lowestLevel;
+
+    /** Number of queued cells, a settle stops at the last level with any */
+    private int numQueued = 0;
+
+    private long evaluations = 0;
+
+
+    /**
+     * Copy a netlist off the heap. Every cell is queued, the first {@link #settle()} evaluates the whole circuit from
+     * all nets at 0. The netlist is read as is, only the buffers are allocated on top of it.
+     *
+     * @param netlist the circuit to simulate
+     * @throws IllegalArgumentException if the netlist is too large for a buffer
+     */
+    public OffHeapSimulator(FlatNetlist netlist) {
+        type = netlist.getType();
+        numCells = netlist.getNumCells();
+        numLevels = netlist.getNumLevels();
+        final int numNets = netlist.getNumNets();
+        inputAliases = new String[netlist.getNumInputs()];
+        outputAliases = new String[netlist.getNumOutputs()];
+        for (int i = 0; i < inputAliases.length; i++) {
+            inputAliases[i] = netlist.getInputAlias(i);
+        }
+
+        outputNets = ints(outputAliases.length);
+        for (int o = 0; o < outputAliases.length; o++) {
+            outputAliases[o] = netlist.getOutputAlias(o);
+            outputNets.put(o, netlist.getOutputNet(o));
+        }
+
+        //>> Fanin, and the truth tables of the cells that need them, each table copied once
+
+        long numCellInputs = 0;
+        long numTableWords = 0;
+        final Map<long[], Integer> tableOffsets = new IdentityHashMap<>();
+        for (int c = 0; c < numCells; c++) {
+            numCellInputs += netlist.getCellNumInputs(c);
+            final long[] table = netlist.getCellTable(c);
+            if (netlist.getCellOperation(c) == FlatNetlist.TABLE && !tableOffsets.containsKey(table)) {
+                tableOffsets.put(table, (int) numTableWords);
+                numTableWords += table.length;
+                check(numTableWords, Long.BYTES);
+            }
+        }
+        check(numCellInputs, Integer.BYTES);
+        check(numNets, Long.BYTES);
+
+        operations = ints(numCells);
+        inputStart = ints(numCells + 1);
+        inputNets = ints((int) numCellInputs);
+        tableStart = ints(numCells);
+        tables = longs((int) numTableWords);
+        final IntBuffer fanoutCount = ints(numNets + 1);
+        for (int c = 0, in = 0; c < numCells; c++) {
+            operations.put(c, netlist.getCellOperation(c));
+            tableStart.put(c, operations.get(c) == FlatNetlist.TABLE ? tableOffsets.get(netlist.getCellTable(c)) : -1);
+            for (int i = 0; i < netlist.getCellNumInputs(c); i++, in++) {
+                inputNets.put(in, netlist.getCellInputNet(c, i));
+                fanoutCount.put(inputNets.get(in) + 1, fanoutCount.get(inputNets.get(in) + 1) + 1);
+            }
+            inputStart.put(c + 1, in);
+        }
+        for (Map.Entry<long[], Integer> table : tableOffsets.entrySet()) {
+            tables.put(table.getValue(), table.getKey());
+        }
+
+        //>> Fanout, the reverse of the fanin. The counts become the start of each net, then its fill
+
+        fanoutStart = fanoutCount;
+        for (int n = 0; n < numNets; n++) {
+            fanoutStart.put(n + 1, fanoutStart.get(n + 1) + fanoutStart.get(n));
+        }
+        fanout = ints((int) numCellInputs);
+        final IntBuffer filled = ints(numNets);
+        for (int c = 0; c < numCells; c++) {
+            for (int in = inputStart.get(c); in < inputStart.get(c + 1); in++) {
+                final int net = inputNets.get(in);
+                fanout.put(fanoutStart.get(net) + filled.get(net), c);
+                filled.put(net, filled.get(net) + 1);
+            }
+        }
+
+        //>> Levels and events, every cell starts queued
+
+        levelStart = ints(numLevels + 1);
+        cellLevel = ints(numCells);
+        for (int l = 0; l <= numLevels; l++) {
+            levelStart.put(l, netlist.getLevelStart(l));
+        }
+        for (int l = 0; l < numLevels; l++) {
+            for (int c = levelStart.get(l); c < levelStart.get(l + 1); c++) {
+                cellLevel.put(c, l);
+            }
+        }
+
+        values = longs(numNets);
+        queue = ints(numCells);
+        queuedPerLevel = ints(numLevels);
+        queued = longs((numCells + 63) >>> 6);
+        queuedLevels = longs((numLevels + 63) >>> 6);
+        lowestLevel = numLevels;
+        for (int c = 0; c < numCells; c++) {
+            schedule(c);
+        }
+    }
+
+    /**
+     * Flatten the blueprint registered for a type and copy it off the heap. The netlist is only reachable while the
+     * simulator is built, but its peak heap is reached all the same, see the {@linkplain OffHeapSimulator class
+     * description}.
+     *
+     * @param type a registered type
+     * @return a new simulator of the type
+     * @throws IllegalArgumentException if the type is too large for a buffer
+     * @throws UnsupportedOperationException if the type is or instantiates a clock
+     * @throws StatusRuntimeException if the type cannot be flattened, see {@link FlatNetlist#of(String)}
+     */
+    public static OffHeapSimulator of(String type) {
+        return new OffHeapSimulator(FlatNetlist.of(type));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code count} elements of {@code bytes} do not fit in a buffer
+     */
+    private void check(long count, int bytes) {
+        if (count * bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(type + " needs " + count + " elements of " + bytes + " bytes, more than"
+                                               + " a buffer holds");
+        }
+    }
+
+    private static IntBuffer ints(int count) {
+        return ByteBuffer.allocateDirect(count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static LongBuffer longs(int count) {
+        return ByteBuffer.allocateDirect(count * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+
+    //*>> -------------------- Simulation -------------------- */
+
+    /**
+     * Set an input net, scheduling the cells reading it if it changed. Cells are only evaluated by {@link #settle()}.
+     *
+     * @param input index of the input bus
+     * @param value the new value of the input, 64 copies of the circuit
+     * @throws IndexOutOfBoundsException if there is no such input bus
+     */
+    public void set(int input, long value) {
+        Objects.checkIndex(input, inputAliases.length);
+        if (values.get(input) != value) {
+            values.put(input, value);
+            scheduleFanout(input);
+        }
+    }
+
+    /**
+     * Evaluate the scheduled cells, and the cells reading the nets that change, until no cell is scheduled.
+     *
+     * @return the number of cells evaluated
+     */
+    public long settle() {
+        long count = 0;
+        for (int l = lowestLevel; numQueued > 0; l++) {
+            l = nextLevel(l);
+            final int start = levelStart.get(l);
+            final int size = queuedPerLevel.get(l);
+            for (int i = 0; i < size; i++) {
+                final int cell = queue.get(start + i);
+                queued.put(cell >>> 6, queued.get(cell >>> 6) & ~(1L << cell));
+
+                final int net = inputAliases.length + cell;
+                final long value = evaluate(cell);
+                if (value != values.get(net)) {
+                    values.put(net, value);
+                    scheduleFanout(net);
+                }
+            }
+            queuedPerLevel.put(l, 0);
+            queuedLevels.put(l >>> 6, queuedLevels.get(l >>> 6) & ~(1L << l));
+            numQueued -= size;
+            count += size;
+        }
+        lowestLevel = numLevels;
+        evaluations += count;
+        return count;
+    }
+
+    /** @return the lowest level from {@code level} up with queued cells, there must be one */
+    private int nextLevel(int level) {
+        int w = level >>> 6;
+        long bits = queuedLevels.get(w) & -1L << level;
+        while (bits == 0) {
+            bits = queuedLevels.get(++w);
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    private void scheduleFanout(int net) {
+        for (int f = fanoutStart.get(net); f < fanoutStart.get(net + 1); f++) {
+            schedule(fanout.get(f));
+        }
+    }
+
+    private void schedule(int cell) {
+        final long word = queued.get(cell >>> 6);
+        if ((word & 1L << cell) != 0) {
+            return;
+        }
+        queued.put(cell >>> 6, word | 1L << cell);
+        final int level = cellLevel.get(cell);
+        final int size = queuedPerLevel.get(level);
+        queue.put(levelStart.get(level) + size, cell);
+        queuedPerLevel.put(level, size + 1);
+        queuedLevels.put(level >>> 6, queuedLevels.get(level >>> 6) | 1L << level);
+        numQueued++;
+        lowestLevel = Math.min(lowestLevel, level);
+    }
+
+    private long evaluate(int cell) {
+        final int operation = operations.get(cell);
+        final int in = inputStart.get(cell);
+        if (operation >= FlatNetlist.OPERATION_2) {
+            return FlatNetlist.apply2(operation, values.get(inputNets.get(in)), values.get(inputNets.get(in + 1)));
+        }
+        if (operation >= FlatNetlist.OPERATION_1) {
+            return FlatNetlist.apply1(operation, values.get(inputNets.get(in)));
+        }
+        return sumOfRows(cell, in, inputStart.get(cell + 1) - in);
+    }
+
+    /** Or together a term per row of the truth table where the cell is 1, see {@link FlatNetlist} */
+    private long sumOfRows(int cell, int in, int numInputs) {
+        final int start = tableStart.get(cell);
+        final int words = DeviceBlueprint.wordsPerOutput(numInputs);
+        final long rows = numInputs >= 6 ? -1L : (1L << (1 << numInputs)) - 1;
+
+        long sum = 0;
+        for (int w = 0; w < words; w++) {
+            long bits = tables.get(start + w) & rows;
+            while (bits != 0) {
+                final int row = (w << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                long term = -1L;
+                for (int i = 0; i < numInputs; i++) {
+                    final long input = values.get(inputNets.get(in + i));
+                    term &= ((row >>> i) & 1) != 0 ? input : ~input;
+                }
+                sum |= term;
+            }
+        }
+        return sum;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /**
+     * @param output index of the output bus
+     * @return the value of the output bus as of the last {@link #settle()}
+     */
+    public long get(int output) {
+        return values.get(outputNets.get(output));
+    }
+
+    /**
+     * @param net a net, numbered like the nets of the netlist
+     * @return the value of the net as of the last {@link #settle()}
+     */
+    public long getNet(int net) {
+        return values.get(net);
+    }
+
+    /** @return {@code true} if no cell is scheduled */
+    public boolean isSettled() {
+        return numQueued == 0;
+    }
+
+    /** @return the number of cells evaluated since the simulator was built */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /** @return the number of bytes of the direct buffers */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (IntBuffer buffer : new IntBuffer[] {outputNets, operations, inputStart, inputNets, tableStart,
+                                                 fanoutStart, fanout, cellLevel, levelStart, queue, queuedPerLevel}) {
+            bytes += (long) buffer.capacity() * Integer.BYTES;
+        }
+        for (LongBuffer buffer : new LongBuffer[] {tables, values, queued, queuedLevels}) {
+            bytes += (long) buffer.capacity() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getNumInputs() {
+        return inputAliases.length;
+    }
+
+    public int getNumOutputs() {
+        return outputAliases.length;
+    }
+
+    public String getInputAlias(int index) {
+        return inputAliases[index];
+    }
+
+    public String getOutputAlias(int index) {
+        return outputAliases[index];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d cell(s) off-heap in %d byte(s), %d evaluation(s)", type, numCells,
+                             getOffHeapBytes(), evaluations);
+    }
+}
@@ -0,0 +1,177 @@
+package sim.flat;
+
+import java.nio.LongBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import sim.blueprint.DeviceBlueprint;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * The complete truth table of a combinational circuit, packed like the table of a {@link DeviceBlueprint} so that
+ * the circuit can be {@linkplain #toBlueprint(String) collapsed} into a single table device.
+ *
+ * <h2>Extraction</h2>
+ * The table is filled 64 rows at a time: evaluating the {@link FlatNetlist} on {@linkplain #pattern(long, int) word
+ * w} of the input space gives word w of every output directly. Words are split into chunks of {@value #CHUNK} and
+ * the chunks evaluated on a {@link ForkJoinPool}, each writing its own part of the table.
+ */
+public final class TruthTable {
+
+    /** Number of words of the table a task fills on its own */
+    static final int CHUNK = 1024;
+
+    private final FlatNetlist netlist;
+    private final long[] table;
+
+
+    private TruthTable(FlatNetlist netlist, long[] table) {
+        this.netlist = netlist;
+        this.table = table;
+    }
+
+
+    //*>> -------------------- Extraction -------------------- */
+
+    /**
+     * Extract the truth table of a registered type on the common pool.
+     *
+     * @param type a registered type of at most {@link DeviceBlueprint#MAX_INPUTS} inputs
+     * @return the truth table of the type
+     * @throws IllegalArgumentException if the type has too many inputs for a table
+     * @throws UnsupportedOperationException if the type is or instantiates a clock
+     * @throws StatusRuntimeException if the type cannot be flattened, see {@link FlatNetlist#of(String)}
+     */
+    public static TruthTable of(String type) {
+        return of(FlatNetlist.of(type), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Extract the truth table of a netlist.
+     *
+     * @param netlist a netlist of at most {@link DeviceBlueprint#MAX_INPUTS} inputs
+     * @param pool the pool the chunks of the table are filled on
+     * @return the truth table of the netlist
+     * @throws IllegalArgumentException if the netlist has too many inputs, or outputs for its inputs, for a table
+     */
+    public static TruthTable of(FlatNetlist netlist, ForkJoinPool pool) {
+        final int numInputs = netlist.getNumInputs();
+        final int words = DeviceBlueprint.wordsPerOutput(numInputs);
+        if (numInputs > DeviceBlueprint.MAX_INPUTS || (long) words * netlist.getNumOutputs() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Truth table of " + netlist.getType() + " would have "
+                                               + netlist.getNumOutputs() + " x 2^" + numInputs + " rows");
+        }
+
+        final long[] table = new long[words * netlist.getNumOutputs()];
+        pool.invoke(new Fill(netlist, table, 0, words));
+        return new TruthTable(netlist, table);
+    }
+
+    /**
+     * Input {@code input} over the 64 vectors of word {@code word} of the input space, vector {@code 64 * word + b}
+     * being bit b. Input i is bit i of a vector.
+     */
+    static long pattern(long word, int input) {
+        return switch (input) {
+            case 0 -> 0xAAAAAAAAAAAAAAAAL;
+            case 1 -> 0xCCCCCCCCCCCCCCCCL;
+            case 2 -> 0xF0F0F0F0F0F0F0F0L;
+            case 3 -> 0xFF00FF00FF00FF00L;
+            case 4 -> 0xFFFF0000FFFF0000L;
+            case 5 -> 0xFFFFFFFF00000000L;
+            default -> -(word >>> input - 6 & 1);
+        };
+    }
+
+    /**
+     * Fills words {@code [from, to)} of every output, splitting the range in halves down to {@value #CHUNK} words.
+     */
+    private static final class Fill extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FlatNetlist netlist;
+        private final long[] table;
+        private final int from;
+        private final int to;
+
+        Fill(FlatNetlist netlist, long[] table, int from, int to) {
+            this.netlist = netlist;
+            this.table = table;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Fill(netlist, table, from, middle), new Fill(netlist, table, middle, to));
+                return;
+            }
+
+            final int words = DeviceBlueprint.wordsPerOutput(netlist.getNumInputs());
+            final long rows = netlist.getNumInputs() >= 6 ? -1L : (1L << (1 << netlist.getNumInputs())) - 1;
+            final long[] values = new long[netlist.getNumNets()];
+            for (int w = from; w < to; w++) {
+                for (int i = 0; i < netlist.getNumInputs(); i++) {
+                    values[i] = pattern(w, i);
+                }
+                netlist.evaluate(values);
+                for (int o = 0; o < netlist.getNumOutputs(); o++) {
+                    table[o * words + w] = values[netlist.getOutputNet(o)] & rows;
+                }
+            }
+        }
+    }
+
+
+    //*>> -------------------- Table -------------------- */
+
+    /**
+     * Look up the value of a single output.
+     *
+     * @param output index of the output bus
+     * @param inputs the input bus values, input {@code k} is bit {@code k}
+     * @return the value of the output bus for these inputs
+     */
+    public boolean lookup(int output, int inputs) {
+        final int word = output * DeviceBlueprint.wordsPerOutput(netlist.getNumInputs()) + (inputs >>> 6);
+        return ((table[word] >>> (inputs & 63)) & 1L) != 0;
+    }
+
+    /**
+     * Create a table device computing the same function as the circuit, with the same bus aliases.
+     *
+     * @param type the type of the device
+     * @return a new device blueprint sharing this table
+     */
+    public DeviceBlueprint toBlueprint(String type) {
+        final String[] inputAliases = new String[netlist.getNumInputs()];
+        final String[] outputAliases = new String[netlist.getNumOutputs()];
+        for (int i = 0; i < inputAliases.length; i++) {
+            inputAliases[i] = netlist.getInputAlias(i);
+        }
+        for (int i = 0; i < outputAliases.length; i++) {
+            outputAliases[i] = netlist.getOutputAlias(i);
+        }
+        return new DeviceBlueprint(type, inputAliases, outputAliases, table);
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    public FlatNetlist getNetlist() {
+        return netlist;
+    }
+
+    /** @return a read-only view of the packed table, laid out like {@link DeviceBlueprint#getTable()} */
+    public LongBuffer getTable() {
+        return LongBuffer.wrap(table).asReadOnlyBuffer();
+    }
+
+    @Override
+    public String toString() {
+        return netlist.getType() + ": " + netlist.getNumOutputs() + " output(s) over " + netlist.getNumInputs()
+               + " input(s)";
+    }
+}
@@ -0,0 +1,960 @@
+package sim.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.compiler.Position;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.compiler.parser.NetlistSink;
+import sim.compiler.parser.NetlistWriter;
+import sim.component.Circuit;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Generates parametrized families of circuits for scale testing: adders, multipliers, LFSRs, barrel shifters,
+ * register files and random DAGs.
+ *
+ * <p>Circuits are generated as netlist records passed to a {@link NetlistSink}, the same records the parser produces,
+ * so the sink decides what they become.
+ * <ul>
+ *  <li>A {@link NetlistWriter} turns them into source text, see {@link #write(Path, Function)}
+ *  <li>A {@link BlueprintRegistrar} registers them as blueprints to build circuits from, see {@link #circuit(Function)}
+ * </ul>
+ * Records are passed as they are generated, nothing is held in memory, so the size of a generated circuit is only
+ * limited by the sink. Written to a file, a random DAG of {@code 10^7} gates takes constant memory.
+ *
+ * <p>Every family method declares the types it needs, primitive devices and nested circuits included, and returns
+ * the type of the generated circuit. A type is declared once per generator, later calls return it as is. The types
+ * are named after their parameters, for example {@code RippleCarryAdder32}.
+ *
+ * <p>Multi-bit buses are little endian, bus {@code a0} is the least significant bit of {@code a}. Sequential circuits
+ * are built from {@code DFlipFlop}, a positive edge triggered flip flop made of 2 multiplexers feeding back into
+ * themselves, all flip flops start out {@code false}.
+ */
+public class CircuitGenerator {
+
+    /** Largest fan-in of the gates of a random DAG */
+    public static final int MAX_FAN_IN = 8;
+
+    /** Position given to all generated records */
+    private static final Position GENERATED = new Position(0, 0);
+
+    /** Bus index of a signal that is an input bus of the circuit being generated */
+    private static final int NONE = -1;
+
+    /** Cached decimal strings of small bus indices */
+    private static final String[] BUS = new String[64];
+    static {
+        for (int i = 0; i < BUS.length; i++) {
+            BUS[i] = Integer.toString(i);
+        }
+    }
+
+    private final NetlistSink sink;
+    private final Predicate<String> isDeclared;
+
+    /** Types declared by this generator */
+    private final Set<String> declared = new HashSet<>();
+
+    /** Maps {@code type ==> [input aliases, output aliases]} of every circuit generated */
+    private final Map<String, String[][]> buses = new HashMap<>();
+
+    /** An output bus of a system in the circuit being generated, or an input bus of the circuit if bus is NONE */
+    private record Signal(String system, int bus) {}
+
+    /** Carries of a carry lookahead, and the propagate and generate of the whole group */
+    private record Lookahead(Signal[] carries, Signal propagate, Signal generate) {}
+
+    /** Truth table of a primitive device */
+    @FunctionalInterface
+    private interface Logic {
+        boolean output(int inputs, int output);
+    }
+
+    private enum Op {
+        AND("And"), OR("Or"), XOR("Xor"), NAND("Nand"), NOR("Nor");
+
+        final String name;
+
+        Op(String name) {
+            this.name = name;
+        }
+
+        boolean apply(int ones, int fanIn) {
+            return switch (this) {
+                case AND  -> ones == fanIn;
+                case OR   -> ones > 0;
+                case XOR  -> (ones & 1) == 1;
+                case NAND -> ones != fanIn;
+                case NOR  -> ones == 0;
+            };
+        }
+    }
+
+
+    //*>> -------------------- Constructors -------------------- */
+
+    /**
+     * @param sink receives the generated records
+     */
+    public CircuitGenerator(NetlistSink sink) {
+        this(sink, type -> false);
+    }
+
+    /**
+     * @param sink receives the generated records
+     * @param isDeclared tests whether a type was declared before, such types are not declared again. For a
+     *                   {@link BlueprintRegistrar} this is {@link Blueprint#hasType}
+     */
+    public CircuitGenerator(NetlistSink sink, Predicate<String> isDeclared) {
+        this.sink = sink;
+        this.isDeclared = isDeclared;
+    }
+
+    /**
+     * Generate a circuit and build it. The types generated are registered as blueprints, types already registered
+     * are reused.
+     *
+     * <pre>{@code Circuit multiplier = CircuitGenerator.circuit(g -> g.arrayMultiplier(16));}</pre>
+     *
+     * @param family generates the circuit and returns its type
+     * @return the built circuit
+     * @throws StatusRuntimeException if the circuit cannot be registered, for example if a generated type name is
+     *                                registered as something else
+     */
+    public static Circuit circuit(Function<CircuitGenerator, String> family) {
+        final String type = family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType));
+        return (Circuit) Blueprint.build(type);
+    }
+
+    /**
+     * Generate a circuit and write it as a program whose {@code MAIN} instantiates it.
+     *
+     * <pre>{@code
+     * CircuitGenerator.write(Path.of("dag.sb"), g -> g.randomDag(10_000_000, 64, 64, RandomDagShape.DEFAULT, 1));
+     * }</pre>
+     *
+     * @param path the file to write, replaced if it exists
+     * @param family generates the circuit and returns its type
+     * @throws IOException if the file cannot be opened or closed
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link sim.compiler.StatusCodesCpl#BAD_WRITE} if an IOException occurs while writing
+     * </ul>
+     */
+    public static void write(Path path, Function<CircuitGenerator, String> family) throws IOException {
+        try (NetlistWriter writer = new NetlistWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8),
+                                                      path.toString())) {
+            final CircuitGenerator generator = new CircuitGenerator(writer);
+            generator.main(family.apply(generator));
+        }
+    }
+
+
+    //*>> -------------------- Arithmetic -------------------- */
+
+    /**
+     * A ripple-carry adder of full adders, 5 gates per bit.
+     *
+     * <p>Inputs {@code a[bits], b[bits], cin}, outputs {@code s[bits], cout}.
+     *
+     * @param bits width of the operands, must be positive
+     * @return the type of the adder
+     */
+    public String rippleCarryAdder(int bits) {
+        requirePositive("bits", bits);
+        final String type = "RippleCarryAdder" + bits;
+        final String fullAdder = fullAdder();
+        if (!begin(type, concat(join(aliases("a", bits), aliases("b", bits)), "cin"),
+                   concat(aliases("s", bits), "cout"))) {
+            return type;
+        }
+
+        Signal carry = input("cin");
+        for (int i = 0; i < bits; i++) {
+            final String alias = "fa" + i;
+            instantiate(fullAdder, alias, input("a" + i), input("b" + i), carry);
+            output("s" + i, new Signal(alias, 0));
+            carry = new Signal(alias, 1);
+        }
+        output("cout", carry);
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * A carry lookahead adder. Propagate and generate signals are combined 4 at a time by lookahead units, which are
+     * combined 4 at a time again, so the carry chain is {@code log4(bits)} units deep.
+     *
+     * <p>Inputs {@code a[bits], b[bits], cin}, outputs {@code s[bits], cout}.
+     *
+     * @param bits width of the operands, must be positive
+     * @return the type of the adder
+     */
+    public String carryLookaheadAdder(int bits) {
+        requirePositive("bits", bits);
+        final String type = "CarryLookaheadAdder" + bits;
+        final String xor = gate(Op.XOR, 2);
+        final String and = gate(Op.AND, 2);
+        final String carryOut = device("CarryOut", new String[] {"p", "g", "c"}, new String[] {"o"},
+                                       (in, out) -> (in & 2) != 0 || (in & 5) == 5);
+        for (int k = 2; k <= 4; k++) {
+            lookaheadUnit(k);
+        }
+        if (!begin(type, concat(join(aliases("a", bits), aliases("b", bits)), "cin"),
+                   concat(aliases("s", bits), "cout"))) {
+            return type;
+        }
+
+        final Signal[] propagate = new Signal[bits];
+        final Signal[] generate = new Signal[bits];
+        for (int i = 0; i < bits; i++) {
+            propagate[i] = instantiate(xor, "p" + i, input("a" + i), input("b" + i));
+            generate[i] = instantiate(and, "g" + i, input("a" + i), input("b" + i));
+        }
+
+        final Lookahead lookahead = lookahead(propagate, generate, input("cin"), 0);
+        for (int i = 0; i < bits; i++) {
+            output("s" + i, instantiate(xor, "x" + i, propagate[i], lookahead.carries[i]));
+        }
+        output("cout", instantiate(carryOut, "co", lookahead.propagate, lookahead.generate, input("cin")));
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * Combine propagate and generate signals 4 at a time, recursively.
+     *
+     * @return the carry into every position, {@code carries[0]} is {@code carry}
+     */
+    private Lookahead lookahead(Signal[] propagate, Signal[] generate, Signal carry, int level) {
+        if (propagate.length == 1) {
+            return new Lookahead(new Signal[] {carry}, propagate[0], generate[0]);
+        }
+
+        final int groups = (propagate.length + 3) / 4;
+        final Signal[] groupPropagate = new Signal[groups];
+        final Signal[] groupGenerate = new Signal[groups];
+        final String[] units = new String[groups];
+
+        for (int j = 0; j < groups; j++) {
+            final int k = Math.min(4, propagate.length - 4 * j);
+            if (k == 1) {
+                groupPropagate[j] = propagate[4 * j];
+                groupGenerate[j] = generate[4 * j];
+                continue;
+            }
+            units[j] = "la" + level + "_" + j;
+            sink.instance(lookaheadUnit(k), units[j], GENERATED);
+            for (int i = 0; i < k; i++) {
+                connect(units[j], i, propagate[4 * j + i]);
+                connect(units[j], k + i, generate[4 * j + i]);
+            }
+            groupPropagate[j] = new Signal(units[j], k - 1);
+            groupGenerate[j] = new Signal(units[j], k);
+        }
+
+        final Lookahead upper = lookahead(groupPropagate, groupGenerate, carry, level + 1);
+        final Signal[] carries = new Signal[propagate.length];
+        for (int j = 0; j < groups; j++) {
+            carries[4 * j] = upper.carries[j];
+            if (units[j] == null) {
+                continue;
+            }
+            final int k = Math.min(4, propagate.length - 4 * j);
+            connect(units[j], 2 * k, upper.carries[j]);
+            for (int m = 1; m < k; m++) {
+                carries[4 * j + m] = new Signal(units[j], m - 1);
+            }
+        }
+        return new Lookahead(carries, upper.propagate, upper.generate);
+    }
+
+    /**
+     * An array multiplier, and-gates for the partial products summed row by row with half and full adders.
+     *
+     * <p>Inputs {@code a[bits], b[bits]}, outputs {@code p[2 * bits]}.
+     *
+     * @param bits width of the operands, at least 2
+     * @return the type of the multiplier
+     */
+    public String arrayMultiplier(int bits) {
+        if (bits < 2) {
+            throw new IllegalArgumentException("An array multiplier needs at least 2 bits, received " + bits);
+        }
+        final String type = "ArrayMultiplier" + bits;
+        final String and = gate(Op.AND, 2);
+        final String halfAdder = halfAdder();
+        final String fullAdder = fullAdder();
+        if (!begin(type, join(aliases("a", bits), aliases("b", bits)), aliases("p", 2 * bits))) {
+            return type;
+        }
+
+        //>> Row i of the partial products is a[j] & b[i]
+
+        final Signal[][] partial = new Signal[bits][bits];
+        for (int i = 0; i < bits; i++) {
+            for (int j = 0; j < bits; j++) {
+                partial[i][j] = instantiate(and, "pp" + i + "_" + j, input("a" + j), input("b" + i));
+            }
+        }
+
+        //>> Accumulate the rows, the lowest bit of the running sum is final after every row
+
+        Signal[] sum = new Signal[bits + 1];
+        System.arraycopy(partial[0], 0, sum, 0, bits);
+        output("p0", sum[0]);
+
+        for (int i = 1; i < bits; i++) {
+            final Signal[] next = new Signal[bits + 1];
+            Signal carry = null;
+            for (int j = 0; j < bits; j++) {
+                final Signal x = sum[j + 1];
+                final String alias;
+                if (x == null || carry == null) {
+                    alias = "ha" + i + "_" + j;
+                    instantiate(halfAdder, alias, x == null ? carry : x, partial[i][j]);
+                }
+                else {
+                    alias = "fa" + i + "_" + j;
+                    instantiate(fullAdder, alias, x, partial[i][j], carry);
+                }
+                next[j] = new Signal(alias, 0);
+                carry = new Signal(alias, 1);
+            }
+            next[bits] = carry;
+            sum = next;
+            output("p" + i, sum[0]);
+        }
+
+        for (int j = 1; j <= bits; j++) {
+            output("p" + (bits - 1 + j), sum[j]);
+        }
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * Inputs {@code a, b, cin}, outputs {@code s, cout}.
+     */
+    private String fullAdder() {
+        final String type = "FullAdder";
+        final String xor = gate(Op.XOR, 2);
+        final String and = gate(Op.AND, 2);
+        final String or = gate(Op.OR, 2);
+        if (!begin(type, new String[] {"a", "b", "cin"}, new String[] {"s", "cout"})) {
+            return type;
+        }
+
+        final Signal x1 = instantiate(xor, "x1", input("a"), input("b"));
+        output("s", instantiate(xor, "x2", x1, input("cin")));
+        final Signal n1 = instantiate(and, "n1", input("a"), input("b"));
+        final Signal n2 = instantiate(and, "n2", x1, input("cin"));
+        output("cout", instantiate(or, "o", n1, n2));
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * Inputs {@code a, b}, outputs {@code s, cout}.
+     */
+    private String halfAdder() {
+        final String type = "HalfAdder";
+        final String xor = gate(Op.XOR, 2);
+        final String and = gate(Op.AND, 2);
+        if (!begin(type, new String[] {"a", "b"}, new String[] {"s", "cout"})) {
+            return type;
+        }
+
+        output("s", instantiate(xor, "x", input("a"), input("b")));
+        output("cout", instantiate(and, "n", input("a"), input("b")));
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * A lookahead unit of {@code k} positions. Inputs {@code p[k], g[k], cin}, outputs the carries into positions
+     * 1 to {@code k - 1} followed by the group propagate {@code P} and generate {@code G}.
+     */
+    private String lookaheadUnit(int k) {
+        final String[] carries = new String[k - 1];
+        for (int i = 1; i < k; i++) {
+            carries[i - 1] = "c" + i;
+        }
+
+        return device("Lookahead" + k, concat(join(aliases("p", k), aliases("g", k)), "cin"), concat(carries, "P", "G"),
+            (in, out) -> {
+                boolean carry = (in >>> 2 * k & 1) != 0;
+                boolean generate = false;
+                boolean propagate = true;
+                for (int i = 0; i < k; i++) {
+                    if (out == i - 1) {
+                        return carry;
+                    }
+                    final boolean p = (in >>> i & 1) != 0;
+                    final boolean g = (in >>> k + i & 1) != 0;
+                    carry = g || (p && carry);
+                    generate = g || (p && generate);
+                    propagate &= p;
+                }
+                return out == k - 1 ? propagate : generate;
+            });
+    }
+
+
+    //*>> -------------------- Sequential -------------------- */
+
+    /**
+     * A Fibonacci LFSR shifting towards the higher bits, {@code q0} receives the exclusive or of the tapped bits.
+     * The register can be loaded in parallel, as it starts out all {@code false} which is a fixed point.
+     *
+     * <p>Inputs {@code clk, load, d[bits]}, outputs {@code q[bits]}. On a rising edge of {@code clk} the register
+     * loads {@code d} if {@code load}, otherwise it shifts.
+     *
+     * @param bits length of the register, must be positive
+     * @param taps bit {@code t} is set if {@code q[t]} is tapped, see {@link #maximalTaps(int)}
+     * @return the type of the LFSR
+     * @throws IllegalArgumentException if no bit or a bit past {@code bits} is tapped
+     */
+    public String lfsr(int bits, long taps) {
+        requirePositive("bits", bits);
+        if (taps == 0 || (bits < 64 && taps >>> bits != 0)) {
+            throw new IllegalArgumentException("Taps " + Long.toBinaryString(taps) + " of a " + bits +
+                                               " bit LFSR must be a non-empty subset of its bits");
+        }
+        final String type = "Lfsr" + bits + "x" + Long.toHexString(taps);
+        final String flipFlop = flipFlop();
+        final String mux = mux();
+        final String xor = gate(Op.XOR, 2);
+        if (!begin(type, join(new String[] {"clk", "load"}, aliases("d", bits)), aliases("q", bits))) {
+            return type;
+        }
+
+        final Signal[] q = new Signal[bits];
+        for (int i = 0; i < bits; i++) {
+            q[i] = new Signal("ff" + i, 0);
+        }
+
+        Signal feedback = null;
+        for (int t = 0; t < bits; t++) {
+            if ((taps >>> t & 1) != 0) {
+                feedback = feedback == null ? q[t] : instantiate(xor, "fb" + t, feedback, q[t]);
+            }
+        }
+
+        for (int i = 0; i < bits; i++) {
+            final Signal d = instantiate(mux, "ld" + i, input("load"), i == 0 ? feedback : q[i - 1], input("d" + i));
+            instantiate(flipFlop, "ff" + i, d, input("clk"));
+            output("q" + i, q[i]);
+        }
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * Taps of a maximal length LFSR, one that goes through all {@code 2^bits - 1} non-zero states.
+     *
+     * @param bits length of the register, 2 to 24
+     * @return the taps to pass to {@link #lfsr(int, long)}
+     * @throws IllegalArgumentException if {@code bits} is out of range
+     */
+    public static long maximalTaps(int bits) {
+        final int[][] taps = {
+            {2, 1}, {3, 2}, {4, 3}, {5, 3}, {6, 5}, {7, 6}, {8, 6, 5, 4}, {9, 5}, {10, 7}, {11, 9}, {12, 6, 4, 1},
+            {13, 4, 3, 1}, {14, 5, 3, 1}, {15, 14}, {16, 15, 13, 4}, {17, 14}, {18, 11}, {19, 6, 2, 1}, {20, 17},
+            {21, 19}, {22, 21}, {23, 18}, {24, 23, 22, 17}
+        };
+        if (bits < 2 || bits > 24) {
+            throw new IllegalArgumentException("Maximal taps are known for 2 to 24 bits, received " + bits);
+        }
+
+        long mask = 0;
+        for (int tap : taps[bits - 2]) {
+            mask |= 1L << (tap - 1);
+        }
+        return mask;
+    }
+
+    /**
+     * A register file with one write port and one read port. Writes happen on the rising edge of {@code clk} if
+     * {@code we}, reads are combinational.
+     *
+     * <p>Inputs {@code clk, we, wa[addressBits], wd[width], ra[addressBits]}, outputs {@code rd[width]}, where
+     * {@code addressBits = ceil(log2(registers))}. Addresses past the last register write nothing and read the last
+     * register.
+     *
+     * @param registers number of registers, must be positive
+     * @param width bits per register, must be positive
+     * @return the type of the register file
+     */
+    public String registerFile(int registers, int width) {
+        requirePositive("registers", registers);
+        requirePositive("width", width);
+        final int addressBits = 32 - Integer.numberOfLeadingZeros(registers - 1);
+        final String type = "RegisterFile" + registers + "x" + width;
+        final String flipFlop = flipFlop();
+        final String mux = mux();
+        final String not = not();
+        final String decoder = addressBits == 0 ? null : gate(Op.AND, addressBits + 1);
+        if (!begin(type, join(new String[] {"clk", "we"}, aliases("wa", addressBits), aliases("wd", width),
+                              aliases("ra", addressBits)),
+                   aliases("rd", width))) {
+            return type;
+        }
+
+        //>> Write enable of every register, we & (wa == r)
+
+        final Signal[] notAddress = new Signal[addressBits];
+        for (int k = 0; k < addressBits; k++) {
+            notAddress[k] = instantiate(not, "nwa" + k, input("wa" + k));
+        }
+
+        final Signal[][] q = new Signal[registers][width];
+        for (int r = 0; r < registers; r++) {
+            Signal enable = input("we");
+            if (addressBits > 0) {
+                final Signal[] match = new Signal[addressBits + 1];
+                match[0] = enable;
+                for (int k = 0; k < addressBits; k++) {
+                    match[k + 1] = (r >>> k & 1) != 0 ? input("wa" + k) : notAddress[k];
+                }
+                enable = instantiate(decoder, "we" + r, match);
+            }
+
+            for (int j = 0; j < width; j++) {
+                q[r][j] = new Signal("r" + r + "_" + j, 0);
+                final Signal d = instantiate(mux, "w" + r + "_" + j, enable, q[r][j], input("wd" + j));
+                instantiate(flipFlop, q[r][j].system, d, input("clk"));
+            }
+        }
+
+        //>> Read port, a tree of multiplexers per bit selecting on one address bit per level
+
+        for (int j = 0; j < width; j++) {
+            Signal[] values = new Signal[registers];
+            for (int r = 0; r < registers; r++) {
+                values[r] = q[r][j];
+            }
+            for (int k = 0; k < addressBits; k++) {
+                final Signal[] selected = new Signal[(values.length + 1) / 2];
+                for (int i = 0; i < selected.length; i++) {
+                    selected[i] = 2 * i + 1 < values.length
+                                  ? instantiate(mux, "rm" + j + "_" + k + "_" + i, input("ra" + k), values[2 * i],
+                                                values[2 * i + 1])
+                                  : values[2 * i];
+                }
+                values = selected;
+            }
+            output("rd" + j, values[0]);
+        }
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * Inputs {@code d, clk}, output {@code q}. The master latch follows {@code d} while the clock is low, the slave
+     * latch follows the master while the clock is high.
+     */
+    private String flipFlop() {
+        final String type = "DFlipFlop";
+        final String mux = mux();
+        if (!begin(type, new String[] {"d", "clk"}, new String[] {"q"})) {
+            return type;
+        }
+
+        final Signal master = new Signal("m", 0);
+        final Signal slave = new Signal("s", 0);
+        instantiate(mux, "m", input("clk"), input("d"), master);
+        instantiate(mux, "s", input("clk"), slave, master);
+        output("q", slave);
+
+        sink.endCircuit();
+        return type;
+    }
+
+
+    //*>> -------------------- Combinational -------------------- */
+
+    /**
+     * A logarithmic barrel shifter, shifting towards the higher bits and filling with {@code false}. Stage {@code k}
+     * shifts by {@code 2^k} if {@code s[k]}.
+     *
+     * <p>Inputs {@code d[bits], s[ceil(log2(bits))]}, outputs {@code q[bits]}.
+     *
+     * @param bits width of the shifted value, at least 2
+     * @return the type of the shifter
+     */
+    public String barrelShifter(int bits) {
+        if (bits < 2) {
+            throw new IllegalArgumentException("A barrel shifter needs at least 2 bits, received " + bits);
+        }
+        final int stages = 32 - Integer.numberOfLeadingZeros(bits - 1);
+        final String type = "BarrelShifter" + bits;
+        final String mux = mux();
+        final String andNot = device("AndNot", new String[] {"a", "b"}, new String[] {"o"}, (in, out) -> in == 1);
+        if (!begin(type, join(aliases("d", bits), aliases("s", stages)), aliases("q", bits))) {
+            return type;
+        }
+
+        Signal[] values = new Signal[bits];
+        for (int i = 0; i < bits; i++) {
+            values[i] = input("d" + i);
+        }
+        for (int k = 0; k < stages; k++) {
+            final int shift = 1 << k;
+            final Signal select = input("s" + k);
+            final Signal[] shifted = new Signal[bits];
+            for (int i = 0; i < bits; i++) {
+                shifted[i] = i >= shift ? instantiate(mux, "m" + k + "_" + i, select, values[i], values[i - shift])
+                                        : instantiate(andNot, "z" + k + "_" + i, values[i], select);
+            }
+            values = shifted;
+        }
+        for (int i = 0; i < bits; i++) {
+            output("q" + i, values[i]);
+        }
+
+        sink.endCircuit();
+        return type;
+    }
+
+    /**
+     * The shape of a random DAG.
+     *
+     * @param fanInWeights relative frequency of each fan-in, index {@code k} is the weight of fan-in {@code k + 1}.
+     *                     At most {@value CircuitGenerator#MAX_FAN_IN} entries
+     * @param window a gate only reads the {@code window} signals generated before it, smaller windows give deeper
+     *               circuits. Also bounds the memory used to generate the DAG
+     * @param maxFanOut a signal is not read by more gates than this, unless a gate finds no other signal to read
+     */
+    public record RandomDagShape(int[] fanInWeights, int window, int maxFanOut) {
+
+        /** Mostly 2 input gates, some 1 and 3 input gates, reading the last 1024 signals at most 8 times each */
+        public static final RandomDagShape DEFAULT = new RandomDagShape(new int[] {1, 6, 2}, 1024, 8);
+
+        public RandomDagShape {
+            if (fanInWeights.length == 0 || fanInWeights.length > MAX_FAN_IN) {
+                throw new IllegalArgumentException("A random DAG needs 1 to " + MAX_FAN_IN + " fan-in weights, " +
+                                                   "received " + fanInWeights.length);
+            }
+            int total = 0;
+            for (int weight : fanInWeights) {
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Fan-in weights must not be negative");
+                }
+                total += weight;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("At least one fan-in weight must be positive");
+            }
+            requirePositive("window", window);
+            requirePositive("maxFanOut", maxFanOut);
+            fanInWeights = fanInWeights.clone();
+        }
+
+        /** A name for this shape, distinguishing it from other shapes */
+        String key() {
+            long hash = window * 31L + maxFanOut;
+            for (int weight : fanInWeights) {
+                hash = hash * 31 + weight;
+            }
+            return Long.toHexString(hash & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * A random DAG of gates. Gate {@code g} reads signals generated before it, the input buses and the gates
+     * {@code 0} to {@code g - 1}, so the DAG is generated in topological order. Fan-in, depth and fan-out follow
+     * the {@code shape}, the gate of a given fan-in is an and, or, xor, nand or nor chosen at random, or a not for
+     * fan-in 1. A gate drawing a fan-in larger than the number of signals in its window reads all of them instead,
+     * with a gate of that fan-in.
+     *
+     * <p>Inputs {@code i[inputs]}, outputs {@code o[outputs]} which are the last {@code outputs} gates. The same
+     * parameters and seed always give the same DAG.
+     *
+     * @param gates number of gates, must be positive
+     * @param inputs number of input buses, must be positive
+     * @param outputs number of output buses, 1 to {@code gates}
+     * @param shape fan-in and fan-out of the DAG
+     * @param seed seed of the random choices
+     * @return the type of the DAG
+     */
+    public String randomDag(int gates, int inputs, int outputs, RandomDagShape shape, long seed) {
+        requirePositive("gates", gates);
+        requirePositive("inputs", inputs);
+        if (outputs < 1 || outputs > gates) {
+            throw new IllegalArgumentException("A random DAG of " + gates + " gates needs 1 to " + gates +
+                                               " outputs, received " + outputs);
+        }
+        final String type = "RandomDag" + gates + "x" + inputs + "x" + outputs + "_" + shape.key() + "_" +
+                            Long.toHexString(seed);
+
+        final int[] weights = shape.fanInWeights();
+        int maxFanIn = 0;
+        for (int k = 0; k < weights.length; k++) {
+            maxFanIn = weights[k] > 0 ? k + 1 : maxFanIn;
+        }
+
+        // Gates of fan-in f are also needed, whatever their weight, when a gate with fewer than maxFanIn signals
+        // before it in its window gets its fan-in clamped to f. Those gates have min(signal, window) signals before
+        // them, signal counting from inputs
+        final int minClamped = Math.min(inputs, shape.window());
+        final String[][] types = new String[weights.length][];
+        for (int k = 0; k < weights.length; k++) {
+            final int fanIn = k + 1;
+            final boolean clamped = fanIn < maxFanIn && fanIn >= minClamped && fanIn <= shape.window();
+            if (weights[k] == 0 && !clamped) {
+                continue;
+            }
+            if (k == 0) {
+                types[k] = new String[] {not()};
+                continue;
+            }
+            types[k] = new String[Op.values().length];
+            for (Op op : Op.values()) {
+                types[k][op.ordinal()] = gate(op, k + 1);
+            }
+        }
+        if (!begin(type, aliases("i", inputs), aliases("o", outputs))) {
+            return type;
+        }
+
+        int totalWeight = 0;
+        for (int weight : weights) {
+            totalWeight += weight;
+        }
+
+        //>> Signals are numbered inputs first, the fan-out of the last `window` signals is kept in a ring
+
+        final SplittableRandom random = new SplittableRandom(seed);
+        final int window = shape.window();
+        final int[] fanOut = new int[window];
+        final int[] sources = new int[MAX_FAN_IN];
+
+        for (int signal = 0; signal < inputs; signal++) {
+            fanOut[signal % window] = 0;
+        }
+
+        for (int g = 0; g < gates; g++) {
+            final int signal = inputs + g;
+            final int first = Math.max(0, signal - window);
+
+            int k = 0;
+            for (int pick = random.nextInt(totalWeight); pick >= weights[k]; k++) {
+                pick -= weights[k];
+            }
+            final int fanIn = Math.min(k + 1, signal - first);
+            final String[] choices = types[fanIn - 1];
+            if (choices == null) {
+                throw new IllegalStateException("No gate of fan-in " + fanIn + " was declared for " + type);
+            }
+
+            // Distinct sources below the fan-out limit, relaxing the limit if the window has none left
+            for (int i = 0; i < fanIn; i++) {
+                int source;
+                int attempts = 0;
+                do {
+                    source = first + random.nextInt(signal - first);
+                    attempts++;
+                } while ((contains(sources, i, source) || (fanOut[source % window] >= shape.maxFanOut()
+                                                          && attempts < 4 * window))
+                         && attempts < 8 * window);
+                sources[i] = source;
+                fanOut[source % window]++;
+            }
+
+            final String alias = "g" + g;
+            sink.instance(choices[random.nextInt(choices.length)], alias, GENERATED);
+            for (int i = 0; i < fanIn; i++) {
+                connect(alias, i, sources[i] < inputs ? input("i" + sources[i])
+                                                      : new Signal("g" + (sources[i] - inputs), 0));
+            }
+            fanOut[signal % window] = 0;
+        }
+
+        for (int o = 0; o < outputs; o++) {
+            output("o" + o, new Signal("g" + (gates - outputs + o), 0));
+        }
+
+        sink.endCircuit();
+        return type;
+    }
+
+    private static boolean contains(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    //*>> -------------------- Main -------------------- */
+
+    /**
+     * Generate the main program, instantiating a generated circuit with its buses as the buses of the program.
+     *
+     * @param type a type returned by this generator
+     * @throws IllegalArgumentException if the type was not generated by this generator
+     */
+    public void main(String type) {
+        final String[][] io = buses.get(type);
+        if (io == null) {
+            throw new IllegalArgumentException("Type <" + type + "> was not generated by this generator");
+        }
+
+        sink.beginCircuit("MAIN", io[0], io[1], GENERATED);
+        sink.instance(type, "top", GENERATED);
+        for (int i = 0; i < io[0].length; i++) {
+            connect("top", i, input(io[0][i]));
+        }
+        for (int o = 0; o < io[1].length; o++) {
+            output(io[1][o], new Signal("top", o));
+        }
+        sink.endCircuit();
+    }
+
+
+    //*>> -------------------- Primitives -------------------- */
+
+    private String gate(Op op, int fanIn) {
+        return device(op.name + fanIn, aliases("i", fanIn), new String[] {"o"},
+                      (in, out) -> op.apply(Integer.bitCount(in), fanIn));
+    }
+
+    private String not() {
+        return device("Not", new String[] {"a"}, new String[] {"o"}, (in, out) -> in == 0);
+    }
+
+    /** Inputs {@code s, a, b}, outputs {@code b} if {@code s} else {@code a} */
+    private String mux() {
+        return device("Mux", new String[] {"s", "a", "b"}, new String[] {"o"},
+                      (in, out) -> (in & 1) != 0 ? (in & 4) != 0 : (in & 2) != 0);
+    }
+
+    /**
+     * Declare a device, unless already declared.
+     *
+     * @return the type
+     */
+    private String device(String type, String[] inputs, String[] outputs, Logic logic) {
+        if (!declare(type)) {
+            return type;
+        }
+
+        final int words = DeviceBlueprint.wordsPerOutput(inputs.length);
+        final long[] table = new long[outputs.length * words];
+        for (int row = 0; row < 1 << inputs.length; row++) {
+            for (int o = 0; o < outputs.length; o++) {
+                if (logic.output(row, o)) {
+                    table[o * words + (row >>> 6)] |= 1L << row;
+                }
+            }
+        }
+        sink.device(type, inputs, outputs, table, GENERATED);
+        return type;
+    }
+
+
+    //*>> -------------------- Records -------------------- */
+
+    /**
+     * Begin a circuit, unless already declared.
+     *
+     * @return {@code true} if the circuit was begun and must be generated
+     */
+    private boolean begin(String type, String[] inputs, String[] outputs) {
+        buses.putIfAbsent(type, new String[][] {inputs, outputs});
+        if (!declare(type)) {
+            return false;
+        }
+        sink.beginCircuit(type, inputs, outputs, GENERATED);
+        return true;
+    }
+
+    private boolean declare(String type) {
+        if (declared.contains(type) || isDeclared.test(type)) {
+            return false;
+        }
+        declared.add(type);
+        return true;
+    }
+
+    /**
+     * Instantiate a system and connect its input buses in order.
+     *
+     * @return output bus 0 of the system
+     */
+    private Signal instantiate(String type, String alias, Signal... inputs) {
+        sink.instance(type, alias, GENERATED);
+        for (int i = 0; i < inputs.length; i++) {
+            connect(alias, i, inputs[i]);
+        }
+        return new Signal(alias, 0);
+    }
+
+    private void connect(String target, int targetBus, Signal source) {
+        sink.connection(target, bus(targetBus), source.system, source.bus == NONE ? null : bus(source.bus),
+                        GENERATED);
+    }
+
+    private void output(String alias, Signal source) {
+        sink.connection(null, alias, source.system, source.bus == NONE ? null : bus(source.bus), GENERATED);
+    }
+
+    private static Signal input(String alias) {
+        return new Signal(alias, NONE);
+    }
+
+    private static String bus(int index) {
+        return index < BUS.length ? BUS[index] : Integer.toString(index);
+    }
+
+    /** @return {@code prefix0, prefix1, ...} */
+    private static String[] aliases(String prefix, int n) {
+        final String[] aliases = new String[n];
+        for (int i = 0; i < n; i++) {
+            aliases[i] = prefix + i;
+        }
+        return aliases;
+    }
+
+    private static String[] concat(String[] first, String... rest) {
+        final String[] all = new String[first.length + rest.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(rest, 0, all, first.length, rest.length);
+        return all;
+    }
+
+    private static String[] join(String[]... parts) {
+        String[] all = new String[0];
+        for (String[] part : parts) {
+            all = concat(all, part);
+        }
+        return all;
+    }
+
+    private static void requirePositive(String name, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be positive, received " + value);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package sim.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a {@link sim.blueprint.BlueprintArchive} being written or loaded. Archives are mapped on
+ * load, so the event covers mapping the file and creating the blueprints, not paging them in.
+ */
+@Name("sim.BlueprintArchive")
+@Label("Blueprint Archive")
+@Category({"Simulation", "Blueprint"})
+@Description("Blueprints were written to or loaded from an archive")
+public final class BlueprintArchiveEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Operation")
+    @Description("write or load")
+    public String operation;
+
+    @Label("Blueprints")
+    public int blueprints;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,33 @@
+package sim.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a circuit being built from its blueprint, see
+ * {@link sim.blueprint.CircuitBlueprint#build()}. Nested circuits are built within the build of their parent, each
+ * has an event of its own.
+ */
+@Name("sim.BlueprintBuild")
+@Label("Blueprint Build")
+@Category({"Simulation", "Blueprint"})
+@Description("A circuit was built from its blueprint")
+public final class BlueprintBuildEvent extends Event {
+
+    @Label("Type")
+    public String type;
+
+    @Label("Systems")
+    @Description("Internal systems of the circuit")
+    public int systems;
+
+    @Label("Connections")
+    public int connections;
+
+    @Label("Devices")
+    @Description("Devices of the built circuit, nested circuits included")
+    public long devices;
+}
@@ -0,0 +1,39 @@
+package sim.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a blueprint being registered, see {@link sim.blueprint.Blueprint#register}.
+ *
+ * <p>Like all events of the simulator it is filled in only if {@link #shouldCommit()}, so it costs next to nothing
+ * while not recorded.
+ */
+@Name("sim.BlueprintRegistration")
+@Label("Blueprint Registration")
+@Category({"Simulation", "Blueprint"})
+@Description("A blueprint was registered")
+public final class BlueprintRegistrationEvent extends Event {
+
+    @Label("Type")
+    public String type;
+
+    @Label("Kind")
+    @Description("device or circuit")
+    public String kind;
+
+    @Label("Systems")
+    @Description("Internal systems of a circuit, 0 for a device")
+    public int systems;
+
+    @Label("Connections")
+    @Description("Internal connections of a circuit, 0 for a device")
+    public int connections;
+
+    @Label("Collapsed")
+    @Description("Whether a circuit was collapsed into a table device")
+    public boolean collapsed;
+}
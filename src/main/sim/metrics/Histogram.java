@@ -0,0 +1,122 @@
+package sim.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values over fixed power of 2 buckets, which can be recorded into from many threads at
+ * once. Bucket 0 counts the value 0, bucket {@code i > 0} counts the values in {@code [2^(i-1), 2^i)}, so a value is
+ * placed by counting its leading zeros, and recording is one increment of a striped {@link LongAdder}.
+ *
+ * <p>Reads are not atomic with respect to concurrent recording, a snapshot taken while recording may be off by the
+ * values being recorded.
+ */
+public final class Histogram {
+
+    /** Number of buckets, enough for any non-negative long */
+    public static final int NUM_BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+
+    public Histogram() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+
+    //*>> -------------------- Recording -------------------- */
+
+    /**
+     * @param value the value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+        sum.add(value);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    /**
+     * @param bucket index of a bucket
+     * @return the largest value counted by the bucket
+     */
+    public static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : bucket == NUM_BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /** @return the count of every bucket */
+    public long[] getCounts() {
+        final long[] counts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /** @return the number of values recorded */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /** @return the mean of the values recorded, 0 if none were */
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param fraction between 0 and 1, for example 0.99 for the 99th percentile
+     * @return the upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(double fraction) {
+        final long[] counts = getCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        final long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the non-empty buckets as {@code "<=bound: count"}, separated by commas
+     */
+    @Override
+    public String toString() {
+        final long[] counts = getCounts();
+        final StringBuilder s = new StringBuilder();
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (!s.isEmpty()) {
+                s.append(", ");
+            }
+            s.append("<=").append(upperBound(i)).append(": ").append(counts[i]);
+        }
+        return s.toString();
+    }
+}
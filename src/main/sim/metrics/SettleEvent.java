@@ -0,0 +1,44 @@
+package sim.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a tick, one {@link sim.component.Circuit#update()} of a circuit that is not nested in
+ * another. The activity of nested circuits is included, they have no events of their own.
+ */
+@Name("sim.Settle")
+@Label("Settle")
+@Category({"Simulation", "Update"})
+@Description("A circuit was updated until stable")
+public final class SettleEvent extends Event {
+
+    @Label("Type")
+    public String type;
+
+    @Label("Circuit Id")
+    public int id;
+
+    @Label("Gate Evaluations")
+    @Description("Devices updated, nested circuits included")
+    public long gateEvaluations;
+
+    @Label("Toggles")
+    @Description("Devices updated whose outputs changed")
+    public long toggles;
+
+    @Label("Events Processed")
+    @Description("Systems queued to be updated")
+    public long eventsProcessed;
+
+    @Label("Iterations")
+    @Description("Rounds the tick took to settle")
+    public int iterations;
+
+    @Label("Stable")
+    @Description("Whether the circuit settled before the round limit")
+    public boolean stable;
+}
@@ -0,0 +1,214 @@
+package sim.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import sim.component.StatusCodesSys;
+import sim.exception.StatusRuntimeException;
+
+/**
+ * Live metrics of simulations, a tick being one {@link sim.component.Circuit#update()} of a circuit the metrics are
+ * attached to through {@link sim.component.Circuit#setMetrics}.
+ * <ul>
+ *  <li>Ticks, and ticks per second
+ *  <li>Gate evaluations, the devices updated, nested circuits included
+ *  <li>Events enqueued, the systems queued to be updated
+ *  <li>Settle iterations, the rounds a tick took to settle
+ *  <li>Peak worklist depth, the most systems queued for one round
+ *  <li>Activity factor, the output transitions per device per tick, glitches included so it may exceed 1
+ * </ul>
+ *
+ * <p>Recording is a handful of striped {@link LongAdder} increments per tick, so one instance can be shared by
+ * circuits simulated on many threads at negligible cost. Circuits without metrics record nothing.
+ *
+ * <p>The metrics are published as an MBean by {@link #register(String)}, under
+ * {@code sim:type=SimulationMetrics,name=<name>}.
+ */
+public final class SimulationMetrics implements SimulationMetricsMBean {
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder toggles = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder devices = new LongAdder();
+    private final LongAccumulator peakWorklist = new LongAccumulator(Math::max, 0);
+
+    private final Histogram roundsPerTick = new Histogram();
+    private final Histogram evaluationsPerTick = new Histogram();
+
+    private volatile long startNanos = System.nanoTime();
+
+    private ObjectName name;
+
+
+    //*>> -------------------- Recording -------------------- */
+
+    /**
+     * Record one tick.
+     *
+     * @param evaluations devices updated
+     * @param toggles devices updated whose outputs changed
+     * @param events systems queued to be updated
+     * @param rounds rounds the tick took to settle
+     * @param peakWorklist the most systems queued for one round
+     * @param numDevices devices of the circuit
+     */
+    public void recordTick(long evaluations, long toggles, long events, int rounds, int peakWorklist, long numDevices) {
+        this.ticks.increment();
+        this.evaluations.add(evaluations);
+        this.toggles.add(toggles);
+        this.events.add(events);
+        this.rounds.add(rounds);
+        this.devices.add(numDevices);
+        this.peakWorklist.accumulate(peakWorklist);
+        this.roundsPerTick.record(rounds);
+        this.evaluationsPerTick.record(evaluations);
+    }
+
+    @Override
+    public void reset() {
+        ticks.reset();
+        evaluations.reset();
+        toggles.reset();
+        events.reset();
+        rounds.reset();
+        devices.reset();
+        peakWorklist.reset();
+        roundsPerTick.reset();
+        evaluationsPerTick.reset();
+        startNanos = System.nanoTime();
+    }
+
+
+    //*>> -------------------- JMX -------------------- */
+
+    /**
+     * Publish these metrics on the platform MBean server.
+     *
+     * @param name the name the metrics are published under, unique among registered metrics
+     * @return the object name of the MBean
+     * @throws StatusRuntimeException with status codes, <ul>
+     *  <li>{@link StatusCodesSys#METRICS_NOT_REGISTERED} if the name is invalid or taken, or these metrics are
+     *      already registered
+     * </ul>
+     */
+    public synchronized ObjectName register(String name) {
+        if (this.name != null) {
+            throw StatusCodesSys.runtimeException(StatusCodesSys.METRICS_NOT_REGISTERED, name,
+                                                  "already registered as " + this.name);
+        }
+        try {
+            this.name = new ObjectName("sim:type=SimulationMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+            return this.name;
+        }
+        catch (JMException e) {
+            this.name = null;
+            throw StatusCodesSys.runtimeException(StatusCodesSys.METRICS_NOT_REGISTERED, e, name, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove these metrics from the platform MBean server. Has no effect if not registered.
+     */
+    public synchronized void unregister() {
+        if (name == null) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        catch (JMException e) {
+            // Unregistered concurrently
+        }
+        name = null;
+    }
+
+
+    //*>> -------------------- Get Operations -------------------- */
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public double getTicksPerSecond() {
+        final long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : ticks.sum() * 1e9 / elapsed;
+    }
+
+    @Override
+    public long getGateEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public double getGateEvaluationsPerTick() {
+        return perTick(evaluations.sum());
+    }
+
+    @Override
+    public long getEventsEnqueued() {
+        return events.sum();
+    }
+
+    @Override
+    public double getEventsEnqueuedPerTick() {
+        return perTick(events.sum());
+    }
+
+    @Override
+    public double getSettleIterationsPerTick() {
+        return perTick(rounds.sum());
+    }
+
+    @Override
+    public long getSettleIterationsP99() {
+        return roundsPerTick.getPercentile(0.99);
+    }
+
+    @Override
+    public long[] getSettleIterationsHistogram() {
+        return roundsPerTick.getCounts();
+    }
+
+    @Override
+    public long[] getGateEvaluationsHistogram() {
+        return evaluationsPerTick.getCounts();
+    }
+
+    @Override
+    public long getPeakWorklistDepth() {
+        return peakWorklist.get();
+    }
+
+    @Override
+    public double getActivityFactor() {
+        final long total = devices.sum();
+        return total == 0 ? 0 : (double) toggles.sum() / total;
+    }
+
+    private double perTick(long value) {
+        final long n = ticks.sum();
+        return n == 0 ? 0 : (double) value / n;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d tick(s) %.1f/s, %.1f gate evaluations/tick, %.1f events/tick, " +
+                             "%.2f settle iterations/tick (p99 <= %d), peak worklist %d, activity %.3f",
+                             getTicks(), getTicksPerSecond(), getGateEvaluationsPerTick(), getEventsEnqueuedPerTick(),
+                             getSettleIterationsPerTick(), getSettleIterationsP99(), getPeakWorklistDepth(),
+                             getActivityFactor());
+    }
+}
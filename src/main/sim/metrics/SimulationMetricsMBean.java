@@ -0,0 +1,37 @@
+package sim.metrics;
+
+/**
+ * Management interface of {@link SimulationMetrics}, published over JMX by {@link SimulationMetrics#register}.
+ *
+ * <p>Rates are averaged since the metrics were created or last reset. Histograms are given as the count of every
+ * bucket, bucket {@code i} counting values up to {@link Histogram#upperBound(int) upperBound(i)}.
+ */
+public interface SimulationMetricsMBean {
+
+    long getTicks();
+
+    double getTicksPerSecond();
+
+    long getGateEvaluations();
+
+    double getGateEvaluationsPerTick();
+
+    long getEventsEnqueued();
+
+    double getEventsEnqueuedPerTick();
+
+    double getSettleIterationsPerTick();
+
+    long getSettleIterationsP99();
+
+    long[] getSettleIterationsHistogram();
+
+    long[] getGateEvaluationsHistogram();
+
+    long getPeakWorklistDepth();
+
+    double getActivityFactor();
+
+    /** Clear all metrics and restart the clock of the rates */
+    void reset();
+}
@@ -0,0 +1,242 @@
+package sim.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import sim.component.System;
+import sim.controller.IdGenerator;
+
+/**
+ * Counts of the 0 to 1 and 1 to 0 transitions of every output bus of a simulation, the switching activity used to
+ * estimate power. Counting is attached to a circuit through {@link sim.component.Circuit#setToggleCounts}, and covers
+ * the IO buffers and internal systems of the circuit and of every circuit nested in it.
+ *
+ * <p>Every output bus is a net, numbered densely in the order the systems are first seen. The first net of a system is
+ * looked up by its ID, which {@link IdGenerator} hands out densely, once when a circuit builds its network. Counting a
+ * transition is then a single increment of a primitive array, and buses that do not change cost nothing.
+ *
+ * <p>An instance is not thread safe, circuits simulated on different threads each need their own.
+ */
+public final class ToggleCounts {
+
+    /** {@code system ID ==> its first net}, -1 if the system has no nets yet */
+    private int[] firstNet;
+
+    //>> Indexed by net
+    private System[] owners = new System[64];
+    private long[] rises = new long[64];
+    private long[] falls = new long[64];
+    private int numNets = 0;
+
+    /** A net and its counts */
+    public record Net(System system, int bus, long rises, long falls) {
+        public long toggles() {
+            return rises + falls;
+        }
+    }
+
+    /** The counts of all nets of the systems of a type */
+    public record TypeActivity(String type, int systems, int nets, long rises, long falls) {
+        public long toggles() {
+            return rises + falls;
+        }
+    }
+
+
+    public ToggleCounts() {
+        firstNet = new int[Math.max(16, IdGenerator.count())];
+        Arrays.fill(firstNet, -1);
+    }
+
+
+    //*>> -------------------- Recording -------------------- */
+
+    /**
+     * Get the first net of a system, numbering its output buses if they have no nets yet. The nets of the system are
+     * {@code [first, first + number of output buses)}.
+     *
+     * @param system the system
+     * @return the net of output bus 0 of the system
+     */
+    public int nets(System system) {
+        final int id = system.getID();
+        if (id >= firstNet.length) {
+            final int length = firstNet.length;
+            firstNet = Arrays.copyOf(firstNet, Math.max(id + 1, 2 * length));
+            Arrays.fill(firstNet, length, firstNet.length, -1);
+        }
+        if (firstNet[id] >= 0) {
+            return firstNet[id];
+        }
+
+        final int buses = system.getOut().length;
+        if (numNets + buses > owners.length) {
+            final int capacity = Math.max(numNets + buses, 2 * owners.length);
+            owners = Arrays.copyOf(owners, capacity);
+            rises = Arrays.copyOf(rises, capacity);
+            falls = Arrays.copyOf(falls, capacity);
+        }
+        Arrays.fill(owners, numNets, numNets + buses, system);
+        firstNet[id] = numNets;
+        numNets += buses;
+        return firstNet[id];
+    }
+
+    /**
+     * Count a transition of a net.
+     *
+     * @param net the net, see {@link #nets(System)}
+     * @param value the new value of the net, {@code true} for a 0 to 1 transition
+     */
+    public void record(int net, boolean value) {
+        if (value) {
+            rises[net]++;
+        }
+        else {
+            falls[net]++;
+        }
+    }
+
+    /**
+     * Count the transitions of a net that is a word bus, every bit that changed being one transition.
+     *
+     * @param net the net, see {@link #nets(System)}
+     * @param rises the number of bits that went from 0 to 1
+     * @param falls the number of bits that went from 1 to 0
+     */
+    public void record(int net, int rises, int falls) {
+        this.rises[net] += rises;
+        this.falls[net] += falls;
+    }
+
+    /**
+     * Clear all counts, the nets stay numbered.
+     */
+    public void reset() {
+        Arrays.fill(rises, 0, numNets, 0);
+        Arrays.fill(falls, 0, numNets, 0);
+    }
+
+
+    //*>> -------------------- Reports -------------------- */
+
+    public int getNumNets() {
+        return numNets;
+    }
+
+    /**
+     * @param system a system
+     * @param bus an output bus of the system
+     * @return the counts of the bus, or {@code null} if the system has no nets
+     */
+    public Net getNet(System system, int bus) {
+        final int id = system.getID();
+        if (id >= firstNet.length || firstNet[id] < 0) {
+            return null;
+        }
+        return net(firstNet[id] + bus);
+    }
+
+    public long getTotalToggles() {
+        long total = 0;
+        for (int n = 0; n < numNets; n++) {
+            total += rises[n] + falls[n];
+        }
+        return total;
+    }
+
+    /**
+     * @param limit the maximum number of nets returned
+     * @return the nets with the most transitions, most active first
+     */
+    public List<Net> getMostActive(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        final PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, Comparator.comparingLong(this::toggles));
+        for (int n = 0; n < numNets; n++) {
+            if (top.size() < limit) {
+                top.add(n);
+            }
+            else if (toggles(n) > toggles(top.peek())) {
+                top.poll();
+                top.add(n);
+            }
+        }
+
+        final List<Net> nets = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            nets.add(net(top.poll()));
+        }
+        return nets.reversed();
+    }
+
+    /**
+     * @return a map of {@code type ==> the counts of its systems}, most active type first
+     */
+    public Map<String, TypeActivity> getByType() {
+        final Map<String, long[]> totals = new HashMap<>();
+        for (int n = 0; n < numNets; n++) {
+            final long[] total = totals.computeIfAbsent(owners[n].getType(), t -> new long[4]);
+            if (firstNet[owners[n].getID()] == n) {
+                total[0]++;
+            }
+            total[1]++;
+            total[2] += rises[n];
+            total[3] += falls[n];
+        }
+
+        final List<TypeActivity> types = new ArrayList<>(totals.size());
+        totals.forEach((type, t) -> types.add(new TypeActivity(type, (int) t[0], (int) t[1], t[2], t[3])));
+        types.sort(Comparator.comparingLong(TypeActivity::toggles).reversed());
+
+        final Map<String, TypeActivity> map = new LinkedHashMap<>();
+        for (TypeActivity activity : types) {
+            map.put(activity.type(), activity);
+        }
+        return map;
+    }
+
+    /**
+     * @param limit the maximum number of nets listed
+     * @return a report of the {@code limit} most active nets and of the activity of every type
+     */
+    public String report(int limit) {
+        final StringBuilder s = new StringBuilder();
+        s.append(String.format("%d net(s), %d toggle(s)%n", numNets, getTotalToggles()));
+
+        s.append(String.format("Most active nets%n"));
+        for (Net net : getMostActive(limit)) {
+            s.append(String.format("    %-24s #%-8d bus %-4d %12d  (%d up, %d down)%n", net.system().getType(),
+                                   net.system().getID(), net.bus(), net.toggles(), net.rises(), net.falls()));
+        }
+
+        s.append(String.format("By type%n"));
+        for (TypeActivity type : getByType().values()) {
+            s.append(String.format("    %-24s %8d system(s) %8d net(s) %12d  (%.2f per net)%n", type.type(),
+                                   type.systems(), type.nets(), type.toggles(),
+                                   type.nets() == 0 ? 0.0 : (double) type.toggles() / type.nets()));
+        }
+        return s.toString();
+    }
+
+    private long toggles(int net) {
+        return rises[net] + falls[net];
+    }
+
+    private Net net(int n) {
+        return new Net(owners[n], n - firstNet[owners[n].getID()], rises[n], falls[n]);
+    }
+
+    @Override
+    public String toString() {
+        return numNets + " net(s), " + getTotalToggles() + " toggle(s)";
+    }
+}
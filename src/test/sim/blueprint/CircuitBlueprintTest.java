@@ -0,0 +1,121 @@
+package sim.blueprint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import sim.component.Circuit;
+import sim.component.SignalSource;
+import sim.component.System;
+import sim.exception.StatusRuntimeException;
+
+class CircuitBlueprintTest {
+
+    private static final String XOR = "CBT-Xor";
+    private static final String AND = "CBT-And";
+
+    @BeforeAll
+    static void registerDevices() {
+        final String[] inputs = {"a", "b"};
+        final String[] outputs = {"y"};
+        if (!Blueprint.hasType(XOR)) {
+            Blueprint.register(new DeviceBlueprint(XOR, inputs, outputs, new long[] {0b0110}));
+            Blueprint.register(new DeviceBlueprint(AND, inputs, outputs, new long[] {0b1000}));
+        }
+    }
+
+    @AfterEach
+    void resetCollapseLimit() {
+        Blueprint.setCollapseLimit(0);
+    }
+
+    /** A half adder of table devices, inputs {@code a, b} and outputs {@code s, c} */
+    private static Circuit halfAdder(String type) {
+        final Circuit circuit = new Circuit(type, 2, 2, null, new String[] {"a", "b"}, new String[] {"s", "c"});
+        final System xor = Blueprint.build(XOR);
+        final System and = Blueprint.build(AND);
+        circuit.addInternalSystem("xor", xor);
+        circuit.addInternalSystem("and", and);
+        for (int bus = 0; bus < 2; bus++) {
+            circuit.connectInternal(circuit, bus, xor, bus);
+            circuit.connectInternal(circuit, bus, and, bus);
+        }
+        circuit.connectInternal(xor, 0, circuit, 0);
+        circuit.connectInternal(and, 0, circuit, 1);
+        return circuit;
+    }
+
+    @Test
+    void registerCapturesTheCircuit() {
+        halfAdder("CBT-Half-Adder").register();
+
+        final CircuitBlueprint blueprint = assertInstanceOf(CircuitBlueprint.class, Blueprint.get("CBT-Half-Adder"));
+        assertEquals(2, blueprint.getNumSystems());
+        assertEquals(XOR, blueprint.getSystemType(0));
+        assertEquals("and", blueprint.getSystemAlias(1));
+        assertEquals("c", blueprint.getOutputAlias(1));
+        assertEquals(6, blueprint.getNumConnections());
+
+        final Circuit built = blueprint.build();
+        final SignalSource a = new SignalSource();
+        final SignalSource b = new SignalSource();
+        built.connectInput(a, 0, 0);
+        built.connectInput(b, 0, 1);
+        for (int row = 0; row < 4; row++) {
+            a.set((row & 1) != 0);
+            b.set((row & 2) != 0);
+            a.update();
+            b.update();
+            built.update();
+            assertEquals(row == 1 || row == 2, built.getOut(0), "sum of row " + row);
+            assertEquals(row == 3, built.getOut(1), "carry of row " + row);
+        }
+    }
+
+    @Test
+    void defaultLimitCollapsesNothing() {
+        final CircuitBlueprint constant = new CircuitBlueprint("CBT-No-Inputs", new String[0], new String[] {"y"},
+                                                               new String[] {"CBT-Unregistered"}, new String[] {"u"},
+                                                               new int[] {CircuitBlueprint.SELF, 0, 0, 0});
+        assertEquals(0, Blueprint.getCollapseLimit());
+        Blueprint.register(constant);
+        assertNull(constant.getCollapsed());
+    }
+
+    @Test
+    void collapseReportsCircuitsThatCannotBeFlattened() {
+        Blueprint.setCollapseLimit(4);
+        final CircuitBlueprint undriven = new CircuitBlueprint("CBT-Undriven", new String[] {"a"}, new String[] {"y"},
+                                                               new String[0], new String[0], new int[0]);
+
+        final StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> Blueprint.register(undriven));
+        assertEquals(StatusCodesBlp.UNDRIVEN_BUS, e.getCode());
+        assertFalse(Blueprint.hasType("CBT-Undriven"));
+    }
+
+    @Test
+    void collapseLeavesFeedbackLoopsAsCircuits() {
+        Blueprint.setCollapseLimit(4);
+        final CircuitBlueprint loop = new CircuitBlueprint("CBT-Loop", new String[] {"a"}, new String[] {"y"},
+                                                           new String[] {XOR}, new String[] {"xor"},
+                                                           new int[] {0, 0, CircuitBlueprint.SELF, 0,
+                                                                      0, 1, 0, 0,
+                                                                      CircuitBlueprint.SELF, 0, 0, 0});
+        Blueprint.register(loop);
+        assertNull(loop.getCollapsed());
+
+        final CircuitBlueprint passThrough = new CircuitBlueprint("CBT-Pass", new String[] {"a"}, new String[] {"y"},
+                                                                  new String[0], new String[0],
+                                                                  new int[] {CircuitBlueprint.SELF, 0,
+                                                                             CircuitBlueprint.SELF, 0});
+        Blueprint.register(passThrough);
+        assertNotNull(passThrough.getCollapsed());
+    }
+}
@@ -0,0 +1,142 @@
+package sim.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.CircuitBlueprint;
+import sim.exception.StatusException;
+
+class CompilerTest {
+
+    // Blueprints are registered globally, so every type name is unique to this class, and only one test compiles a
+    // program that gets registered, MAIN included
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String source) throws IOException {
+        return Files.writeString(dir.resolve(name), source);
+    }
+
+    private static Compiler.Options options(CompilationCache cache) {
+        return new Compiler.Options().workers(4).cache(cache);
+    }
+
+
+    //*>> -------------------- Registration -------------------- */
+
+    @Test
+    void filesAreRegisteredInDependencyOrderAndTheirBlueprintsCached() throws IOException, StatusException {
+        write("gates.sb", """
+            DEVICE CptAnd { INPUT a b OUTPUT o TABLE [ 0 0 0 1 ] }
+            DEVICE CptXor { INPUT a b OUTPUT o TABLE [ 0 1 1 0 ] }
+            """);
+        write("adder.sb", """
+            #include "gates.sb"
+            CIRCUIT CptHalfAdder {
+                INPUT a b
+                OUTPUT s c
+                INSTANTIATE CptXor AS x
+                INSTANTIATE CptAnd AS n
+                x(a, b) --> s
+                n(a, b) --> c
+            }
+            """);
+        write("other.sb", """
+            DEVICE CptOr { INPUT a b OUTPUT o TABLE [ 0 1 1 1 ] }
+            """);
+        final Path main = write("main.sb", """
+            #include "adder.sb"
+            #include "other.sb"
+            MAIN {
+                INPUT a b
+                OUTPUT s
+                INSTANTIATE CptHalfAdder AS h
+                INSTANTIATE CptOr AS o
+                h(a, b)
+                o(h, b) --> s
+            }
+            """);
+        final CompilationCache cache = new CompilationCache(dir.resolve("cache").toString());
+
+        final List<CompilationUnit> order = Compiler.compile(main.toString(), Compiler.Mode.COMPILE_MAIN,
+                                                             options(cache));
+        assertEquals(List.of("gates.sb", "adder.sb", "other.sb", "main.sb"),
+                     order.stream().map(unit -> Path.of(unit.path).getFileName().toString()).toList());
+        assertInstanceOf(CircuitBlueprint.class, Blueprint.get("CptHalfAdder"));
+        assertTrue(Blueprint.hasType("CptAnd"));
+        assertTrue(Blueprint.hasType("CptOr"));
+        assertEquals(0, cache.getBlueprintHits());
+        assertEquals(4, cache.getBlueprintMisses());
+
+        //>> Unchanged files are not parsed again, their blueprints are then registered a second time
+        cache.resetStatistics();
+        StatusException e = assertThrows(StatusException.class, () ->
+            Compiler.compile(main.toString(), Compiler.Mode.COMPILE_MAIN, options(cache)));
+        assertTrue(e.getMessage().contains("<CptHalfAdder> is already registered"), e.getMessage());
+        assertEquals(4, cache.getBlueprintHits());
+        assertEquals(0, cache.getBlueprintMisses());
+
+        //>> A changed include invalidates every file including it, and only those
+        write("gates.sb", """
+            // changed
+            DEVICE CptAnd { INPUT a b OUTPUT o TABLE [ 0 0 0 1 ] }
+            DEVICE CptXor { INPUT a b OUTPUT o TABLE [ 0 1 1 0 ] }
+            """);
+        cache.resetStatistics();
+        e = assertThrows(StatusException.class, () ->
+            Compiler.compile(main.toString(), Compiler.Mode.COMPILE_MAIN, options(cache)));
+        assertTrue(e.getMessage().contains("already registered"), e.getMessage());
+        assertEquals(1, cache.getBlueprintHits());
+        assertEquals(3, cache.getBlueprintMisses());
+
+        try (var files = Files.list(dir.resolve("cache"))) {
+            assertFalse(files.anyMatch(file -> file.toString().endsWith(".tmp")), "no temporary file is left");
+        }
+    }
+
+    @Test
+    void nothingIsRegisteredIfAnyFileHasErrors() throws IOException {
+        write("left.sb", """
+            DEVICE CptLeft { INPUT a OUTPUT o TABLE [ 1 0 ] }
+            """);
+        write("right.sb", """
+            CIRCUIT CptRight {
+                INPUT a
+                OUTPUT o
+                INSTANTIATE CptLeft AS l
+                l(a) --> o
+            }
+            """);
+        final Path main = write("main.sb", """
+            #include "left.sb"
+            #include "right.sb"
+            MAIN {
+                INPUT a
+                OUTPUT o
+                INSTANTIATE CptLeft AS l
+                l(a) --> o
+            }
+            """);
+
+        for (int workers = 1; workers <= 4; workers += 3) {
+            final int w = workers;
+            final StatusException e = assertThrows(StatusException.class, () ->
+                Compiler.compile(main.toString(), Compiler.Mode.COMPILE_MAIN, new Compiler.Options().workers(w)));
+            assertTrue(e.getMessage().contains("Type <CptLeft> of <l> must be declared"), e.getMessage());
+            assertFalse(Blueprint.hasType("CptLeft"), "types of a sibling include are not visible");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package sim.component;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import sim.component.gates.AndGate;
+import sim.component.gates.BufferGate;
+import sim.component.gates.InverterGate;
+import sim.component.gates.OrGate;
+import sim.component.gates.XorGate;
+import sim.exception.StatusRuntimeException;
+
+class CircuitTest {
+
+    //*>> -------------------- Propagation -------------------- */
+
+    /** A full adder, inputs {@code a, b, cin} and outputs {@code s, cout}, made of 5 gates */
+    private static Circuit fullAdder() {
+        final Circuit circuit = new Circuit("Full-Adder", 3, 2, null,
+                                            new String[] {"a", "b", "cin"}, new String[] {"s", "cout"});
+        final XorGate x1 = new XorGate(2);
+        final XorGate x2 = new XorGate(2);
+        final AndGate a1 = new AndGate(2);
+        final AndGate a2 = new AndGate(2);
+        final OrGate o = new OrGate(2);
+        circuit.addInternalSystem("x1", x1);
+        circuit.addInternalSystem("x2", x2);
+        circuit.addInternalSystem("a1", a1);
+        circuit.addInternalSystem("a2", a2);
+        circuit.addInternalSystem("o", o);
+
+        circuit.connectInternal(circuit, 0, x1, 0);
+        circuit.connectInternal(circuit, 1, x1, 1);
+        circuit.connectInternal(x1, 0, x2, 0);
+        circuit.connectInternal(circuit, 2, x2, 1);
+        circuit.connectInternal(circuit, 0, a1, 0);
+        circuit.connectInternal(circuit, 1, a1, 1);
+        circuit.connectInternal(x1, 0, a2, 0);
+        circuit.connectInternal(circuit, 2, a2, 1);
+        circuit.connectInternal(a1, 0, o, 0);
+        circuit.connectInternal(a2, 0, o, 1);
+        circuit.connectInternal(x2, 0, circuit, 0);
+        circuit.connectInternal(o, 0, circuit, 1);
+        return circuit;
+    }
+
+    /** A ripple-carry adder of nested full adders, inputs {@code a[bits], b[bits]} and outputs {@code s[bits + 1]} */
+    private static Circuit rippleCarryAdder(int bits) {
+        final Circuit circuit = new Circuit("Ripple-Carry-Adder-" + bits, 2 * bits, bits + 1, null, null, null);
+        final SignalSource zero = new SignalSource();
+        circuit.addInternalSystem("zero", zero);
+
+        System carry = zero;
+        for (int i = 0; i < bits; i++) {
+            final Circuit adder = fullAdder();
+            circuit.addInternalSystem("fa" + i, adder);
+            circuit.connectInternal(circuit, i, adder, 0);
+            circuit.connectInternal(circuit, bits + i, adder, 1);
+            circuit.connectInternal(carry, carry == zero ? 0 : 1, adder, 2);
+            circuit.connectInternal(adder, 0, circuit, i);
+            carry = adder;
+        }
+        circuit.connectInternal(carry, 1, circuit, bits);
+        return circuit;
+    }
+
+    /** @return a signal source connected to every input bus of the system, index {@code i} driving bus {@code i} */
+    private static SignalSource[] drive(System system, int numInputs) {
+        final SignalSource[] sources = new SignalSource[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            sources[i] = new SignalSource();
+            system.connectInput(sources[i], 0, i);
+        }
+        return sources;
+    }
+
+    /** Set the sources to the bits of the value, bit 0 driving source 0 */
+    private static void set(SignalSource[] sources, long value) {
+        for (int i = 0; i < sources.length; i++) {
+            sources[i].set(((value >>> i) & 1) != 0);
+            sources[i].update();
+        }
+    }
+
+    /** @return the output buses of the system read as a little endian number */
+    private static long read(System system) {
+        long value = 0;
+        for (int i = 0; i < system.getOut().length; i++) {
+            if (system.getOut(i)) {
+                value |= 1L << i;
+            }
+        }
+        return value;
+    }
+
+    @Test
+    void fullAdderComputesEveryRow() {
+        final Circuit adder = fullAdder();
+        final SignalSource[] sources = drive(adder, 3);
+        for (int row = 0; row < 8; row++) {
+            set(sources, row);
+            adder.update();
+            assertEquals(Integer.bitCount(row), read(adder), "row " + row);
+            assertTrue(adder.isSettled());
+        }
+    }
+
+    @Test
+    void rippleCarryAdderAddsEveryOperandPair() {
+        final int bits = 4;
+        final Circuit adder = rippleCarryAdder(bits);
+        final SignalSource[] sources = drive(adder, 2 * bits);
+        for (int a = 0; a < 1 << bits; a++) {
+            for (int b = 0; b < 1 << bits; b++) {
+                set(sources, a | b << bits);
+                adder.update();
+                assertEquals(a + b, read(adder), a + " + " + b);
+            }
+        }
+    }
+
+    @Test
+    void updateIsStableOnceNothingChanges() {
+        final Circuit adder = rippleCarryAdder(2);
+        final SignalSource[] sources = drive(adder, 4);
+        set(sources, 0b0111);
+        assertFalse(adder.update());
+        assertTrue(adder.update());
+        assertEquals(0b100, read(adder));
+    }
+
+
+    //*>> -------------------- Round cap -------------------- */
+
+    /**
+     * @return a circuit of a ring of inverters, the first of them initially high and the others low, its single output
+     *         bus reading the last of them
+     */
+    private static Circuit inverterRing(int length) {
+        final Circuit circuit = new Circuit("Ring-" + length, 0, 1, null, null, null);
+        final InverterGate[] ring = new InverterGate[length];
+        for (int i = 0; i < length; i++) {
+            ring[i] = new InverterGate(new BufferGate(new boolean[] {i == 0}));
+            circuit.addInternalSystem("not" + i, ring[i]);
+        }
+        for (int i = 0; i < length; i++) {
+            circuit.connectInternal(ring[i], 0, ring[(i + 1) % length], 0);
+        }
+        circuit.connectInternal(ring[length - 1], 0, circuit, 0);
+        return circuit;
+    }
+
+    @Test
+    void oddInverterRingIsCutOffAfterMaxRounds() {
+        final Circuit ring = inverterRing(3);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertFalse(ring.update()));
+        assertFalse(ring.isSettled());
+
+        // The next update resumes the ring rather than reporting it stable
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertFalse(ring.update()));
+        assertFalse(ring.isSettled());
+    }
+
+    @Test
+    void nestedRingCutOffLeavesItsParentUnsettled() {
+        final Circuit parent = new Circuit("Ring-Parent", 0, 1, null, null, null);
+        final Circuit ring = inverterRing(3);
+        parent.addInternalSystem("ring", ring);
+        parent.connectInternal(ring, 0, parent, 0);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertFalse(parent.update()));
+        assertFalse(ring.isSettled());
+        assertFalse(parent.isSettled());
+
+        // No input of the parent changed, the ring is still resumed
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertFalse(parent.update()));
+        assertFalse(parent.isSettled());
+    }
+
+    @Test
+    void evenInverterRingSettles() {
+        final Circuit ring = inverterRing(2);
+        ring.update();
+        assertTrue(ring.isSettled());
+        assertTrue(ring.update());
+        assertEquals(0, read(ring));
+    }
+
+
+    //*>> -------------------- Registration -------------------- */
+
+    @Test
+    void registeredCircuitRejectsChanges() {
+        final Circuit adder = new Circuit("Registered-Circuit", 3, 2, null, null, null);
+        final XorGate xor = new XorGate(2);
+        adder.addInternalSystem("xor", xor);
+        adder.connectInternal(adder, 0, xor, 0);
+        adder.register();
+
+        final StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                                                      () -> adder.connectInternal(adder, 1, xor, 1));
+        assertEquals(StatusCodesSys.REGISTERED_CIRCUIT_MODIFIED, e.getCode());
+        assertThrows(StatusRuntimeException.class, () -> adder.addInternalSystem("and", new AndGate(2)));
+        assertThrows(StatusRuntimeException.class, () -> adder.connectInternalBus(xor, "0", adder, "1"));
+    }
+
+
+    //*>> -------------------- Aliases -------------------- */
+
+    @Test
+    void defaultPinAliasesStartAtOne() {
+        assertArrayEquals(new String[] {"1", "2", "3"}, Circuit.generateDefaultPinAliases(3));
+        assertArrayEquals(new String[0], Circuit.generateDefaultPinAliases(0));
+    }
+
+    @Test
+    void defaultAliasesMapToTheirIndex() {
+        final Circuit circuit = new Circuit("Defaults", 3, 2, null, null, null);
+        assertArrayEquals(new String[] {"1", "2", "3"}, circuit.getAllInputAlias());
+        assertArrayEquals(new String[] {"1", "2"}, circuit.getAllOutputAlias());
+        assertEquals(0, circuit.inAliasToIndex("1"));
+        assertEquals(2, circuit.inAliasToIndex("3"));
+        assertEquals("3", circuit.inIndexToAlias(2));
+        assertEquals(1, circuit.outAliasToIndex("2"));
+        assertEquals("1", circuit.outIndexToAlias(0));
+        assertThrows(StatusRuntimeException.class, () -> circuit.inAliasToIndex("0"));
+        assertThrows(StatusRuntimeException.class, () -> circuit.outAliasToIndex("3"));
+    }
+
+    @Test
+    void outputAliasesAreKeptApartFromInputAliases() {
+        final Circuit circuit = new Circuit("Named", 2, 1, null, new String[] {"a", "b"}, new String[] {"s"});
+        assertEquals(0, circuit.outAliasToIndex("s"));
+        assertEquals(1, circuit.inAliasToIndex("b"));
+        assertThrows(StatusRuntimeException.class, () -> circuit.inAliasToIndex("s"));
+        assertThrows(StatusRuntimeException.class, () -> circuit.outAliasToIndex("a"));
+    }
+}
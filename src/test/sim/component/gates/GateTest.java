@@ -0,0 +1,109 @@
+package sim.component.gates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import sim.component.LogicValue;
+import sim.component.SignalSource;
+
+class GateTest {
+
+    //*>> -------------------- Four-state rules -------------------- */
+
+    /**
+     * Drives {@code values} into a four-state gate and returns its output
+     */
+    private static LogicValue fourState(Gate gate, LogicValue[] values) {
+        gate.setFourState(true);
+        for (int i = 0; i < values.length; i++) {
+            final SignalSource source = new SignalSource();
+            source.setFourState(true);
+            source.set(values[i]);
+            source.update();
+            gate.connectInput(source, 0, i);
+        }
+        gate.update();
+        return gate.getOutLogic(0);
+    }
+
+    /**
+     * The output every way of reading the X and Z inputs as high or low agrees on in two-state mode, or X
+     */
+    private static LogicValue resolved(Supplier<Gate> gates, LogicValue[] values) {
+        LogicValue out = null;
+        for (int resolution = 0; resolution < 1 << values.length; resolution++) {
+            final Gate gate = gates.get();
+            for (int i = 0; i < values.length; i++) {
+                final SignalSource source = new SignalSource();
+                source.set(values[i].isUnknown() ? (resolution >>> i & 1) != 0 : values[i].getValue());
+                source.update();
+                gate.connectInput(source, 0, i);
+            }
+            gate.update();
+
+            final LogicValue value = gate.getOut(0) ? LogicValue.ONE : LogicValue.ZERO;
+            if (out != null && out != value) {
+                return LogicValue.X;
+            }
+            out = value;
+        }
+        return out;
+    }
+
+    /**
+     * Checks every four-state input combination of gates with up to 3 inputs against {@link #resolved}
+     */
+    private static void assertFourStateRules(Supplier<Gate> gates) {
+        final int numInputs = gates.get().getInputBus().length;
+        for (int pattern = 0; pattern < 1 << 2 * numInputs; pattern++) {
+            final LogicValue[] values = new LogicValue[numInputs];
+            for (int i = 0; i < numInputs; i++) {
+                values[i] = LogicValue.values()[pattern >>> 2 * i & 3];
+            }
+            assertEquals(resolved(gates, values), fourState(gates.get(), values), Arrays.toString(values));
+        }
+    }
+
+    @Test
+    void fourStateGatesAreXOnlyWhenTheUnknownInputsMatter() {
+        for (int numInputs = 2; numInputs <= 3; numInputs++) {
+            final int n = numInputs;
+            assertFourStateRules(() -> new AndGate(n));
+            assertFourStateRules(() -> new OrGate(n));
+            assertFourStateRules(() -> new XorGate(n));
+            assertFourStateRules(() -> new InverterGate(new AndGate(n)));
+            assertFourStateRules(() -> new InverterGate(new OrGate(n)));
+            assertFourStateRules(() -> new InverterGate(new XorGate(n)));
+        }
+        assertFourStateRules(() -> new InverterGate(new BufferGate()));
+    }
+
+    @Test
+    void bufferPassesZThrough() {
+        for (LogicValue value : LogicValue.values()) {
+            assertEquals(value, fourState(new BufferGate(), new LogicValue[] {value}));
+        }
+        assertEquals(LogicValue.X, fourState(new InverterGate(new BufferGate()), new LogicValue[] {LogicValue.Z}));
+    }
+
+    @Test
+    void fourStateRulesHoldPastOneWordOfInputs() {
+        final LogicValue[] values = new LogicValue[130];
+        Arrays.fill(values, LogicValue.ONE);
+        assertEquals(LogicValue.ONE, fourState(new AndGate(values.length), values));
+        assertEquals(LogicValue.ZERO, fourState(new XorGate(values.length), values));
+
+        values[129] = LogicValue.ZERO;
+        assertEquals(LogicValue.ZERO, fourState(new AndGate(values.length), values));
+        assertEquals(LogicValue.ONE, fourState(new XorGate(values.length), values));
+
+        values[70] = LogicValue.Z;
+        assertEquals(LogicValue.ZERO, fourState(new AndGate(values.length), values));
+        assertEquals(LogicValue.ONE, fourState(new OrGate(values.length), values));
+        assertEquals(LogicValue.X, fourState(new XorGate(values.length), values));
+    }
+}
@@ -0,0 +1,17 @@
+package sim.component.gates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class InverterGateTest {
+
+    @Test
+    void typeIsTheInvertedGate() {
+        assertEquals("Nand-Gate", new InverterGate(new AndGate(2)).getType());
+        assertEquals("Nor-Gate", new InverterGate(new OrGate(2)).getType());
+        assertEquals("Xnor-Gate", new InverterGate(new XorGate(2)).getType());
+        assertEquals("Not-Gate", new InverterGate(new BufferGate()).getType());
+        assertEquals(AndGate.TYPE, new InverterGate(new InverterGate(new AndGate(2))).getType());
+    }
+}
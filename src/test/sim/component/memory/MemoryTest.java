@@ -0,0 +1,230 @@
+package sim.component.memory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sim.component.LogicValue;
+import sim.component.SignalSource;
+import sim.exception.StatusRuntimeException;
+
+class MemoryTest {
+
+    @TempDir
+    Path dir;
+
+    /** A signal source driving every input of a memory */
+    private static SignalSource[] drive(Memory memory) {
+        final SignalSource[] sources = new SignalSource[memory.getInputBus().length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = new SignalSource();
+            sources[i].setFourState(memory.isFourState());
+            memory.connectInput(sources[i], 0, i);
+        }
+        return sources;
+    }
+
+    /** Drive {@code width} inputs from {@code first} with the bits of {@code value} */
+    private static void set(SignalSource[] in, int first, int width, long value) {
+        for (int i = 0; i < width; i++) {
+            in[first + i].set((value >>> i & 1) != 0);
+            in[first + i].update();
+        }
+    }
+
+    /** @return the word output by a port */
+    private static long read(Memory memory, int port) {
+        long word = 0;
+        for (int i = 0; i < memory.getDataWidth(); i++) {
+            word |= memory.getOut(port * memory.getDataWidth() + i) ? 1L << i : 0;
+        }
+        return word;
+    }
+
+    /** Write an image of 16-bit words */
+    private Path image(String name, int... words) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.allocate(2 * words.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int word : words) {
+            bytes.putShort((short) word);
+        }
+        return Files.write(dir.resolve(name), bytes.array());
+    }
+
+
+    //*>> -------------------- Reads and writes -------------------- */
+
+    @Test
+    void ramWritesOnRisingEdgesAndReadsAsynchronously() {
+        final Ram ram = new Ram(4, 8, 1);
+        final SignalSource[] in = drive(ram);
+        final int clk = in.length - 1;
+        final int we = 4 + 8;
+
+        set(in, 0, 4, 5);
+        set(in, 4, 8, 0xA7);
+        set(in, we, 1, 1);
+        ram.update();
+        assertEquals(0, read(ram, 0), "the clock is low");
+
+        set(in, clk, 1, 1);
+        ram.update();
+        assertEquals(0xA7, read(ram, 0), "written on the rising edge, and read in the same update");
+
+        set(in, 4, 8, 0x11);
+        ram.update();
+        assertEquals(0xA7, ram.peek(5), "the clock stays high");
+
+        set(in, 0, 4, 6);
+        ram.update();
+        assertEquals(0, read(ram, 0), "reads follow the address");
+
+        set(in, clk, 1, 0);
+        ram.update();
+        set(in, we, 1, 0);
+        set(in, clk, 1, 1);
+        ram.update();
+        assertEquals(0, ram.peek(6), "write enable low");
+    }
+
+    @Test
+    void ramPortsWritingTheSameAddressApplyInPortOrder() {
+        final Ram ram = new Ram(3, 16, 2);
+        final SignalSource[] in = drive(ram);
+        final int portInputs = 3 + 16 + 1;
+        assertEquals(2 * portInputs + 1, in.length);
+        assertEquals(portInputs + 3 + 16, ram.inAliasToIndex("P1.WE"));
+
+        for (int p = 0; p < 2; p++) {
+            set(in, p * portInputs, 3, 2);
+            set(in, p * portInputs + 3, 16, 0x1000 + p);
+            set(in, p * portInputs + 3 + 16, 1, 1);
+        }
+        set(in, in.length - 1, 1, 1);
+        ram.update();
+        assertEquals(0x1001, ram.peek(2));
+        assertEquals(0x1001, read(ram, 0));
+        assertEquals(0x1001, read(ram, 1));
+    }
+
+    @Test
+    void ramSamplesWritesBeforeAnyDeviceCommits() {
+        // Loading the input buffer samples the write, like the sequential devices reached by the same edge
+        final Ram ram = new Ram(2, 8, 1);
+        ram.poke(1, 0x3C);
+        final SignalSource[] in = drive(ram);
+        set(in, 0, 2, 1);
+        set(in, 2, 8, 0x42);
+        set(in, 2 + 8, 1, 1);
+        ram.update();
+
+        set(in, in.length - 1, 1, 1);
+        ram.loadInputBuffer();
+        assertEquals(0x3C, ram.peek(1), "writes are only committed on update");
+        ram.update();
+        assertEquals(0x42, ram.peek(1));
+    }
+
+    @Test
+    void romReadsItsImage() throws IOException {
+        final Rom rom = new Rom(4, 16, 2, image("rom.bin", 0xCAFE, 0x0001, 0xFFFF));
+        final SignalSource[] in = drive(rom);
+        assertEquals(8, in.length);
+        for (int address = 0; address < 16; address++) {
+            set(in, 0, 4, address);
+            set(in, 4, 4, 15 - address);
+            rom.update();
+            final long expected = switch (address) {
+                case 0 -> 0xCAFE;
+                case 1 -> 1;
+                case 2 -> 0xFFFF;
+                default -> 0;
+            };
+            assertEquals(expected, read(rom, 0), "address " + address);
+            assertEquals(expected, rom.peek(address));
+            assertEquals(15 - address < 3 ? rom.peek(15 - address) : 0, read(rom, 1));
+        }
+    }
+
+    @Test
+    void imagesLargerThanTheMemoryAreRejected() throws IOException {
+        final Path image = image("large.bin", 1, 2, 3, 4, 5);
+        assertThrows(StatusRuntimeException.class, () -> new Rom(2, 16, 1, image));
+    }
+
+    @Test
+    void ramImageIsCopiedOnWrite() throws IOException {
+        final Path image = image("ram.bin", 0x1111, 0x2222);
+        final byte[] before = Files.readAllBytes(image);
+        final Ram ram = new Ram(8, 16, 1, image);
+        assertEquals(0x2222, ram.peek(1));
+
+        ram.poke(1, 0x3333);
+        ram.poke(200, 0x4444);
+        assertEquals(0x1111, ram.peek(0));
+        assertEquals(0x3333, ram.peek(1));
+        assertEquals(0x4444, ram.peek(200));
+        assertArrayEquals(before, Files.readAllBytes(image), "the image file is never written");
+    }
+
+    @Test
+    void fourStateUnknownAddressReadsXAndWritingToItPoisons() {
+        final Ram ram = new Ram(2, 4, 1);
+        ram.setFourState(true);
+        ram.poke(0, 0b1010);
+        final SignalSource[] in = drive(ram);
+        set(in, 0, 2, 0);
+        set(in, 2, 4, 0b0110);
+        ram.update();
+        assertEquals(LogicValue.ONE, ram.getOutLogic(1), "stored words start out known");
+        assertEquals(LogicValue.ZERO, ram.getOutLogic(0));
+
+        in[1].set(LogicValue.X);
+        in[1].update();
+        ram.update();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(LogicValue.X, ram.getOutLogic(i));
+        }
+
+        set(in, 2 + 4, 1, 1);
+        set(in, in.length - 1, 1, 1);
+        ram.update();
+        set(in, 0, 2, 3);
+        ram.update();
+        assertEquals(LogicValue.X, ram.getOutLogic(0), "writing to an unknown address makes every word X");
+    }
+
+
+    //*>> -------------------- Storage -------------------- */
+
+    @Test
+    void storageOfASmallMemoryIsItsCapacity() {
+        final Ram ram = new Ram(4, 8, 1);
+        assertEquals(0, ram.getStorageSize());
+        ram.poke(3, 0x5A);
+        assertEquals(16, ram.getStorageSize());
+        assertEquals(0x5A, ram.peek(3));
+    }
+
+    @Test
+    void storageGrowsWithTheHighestAddressWritten() {
+        final Ram ram = new Ram(32, 16, 1);
+        ram.poke(0, 0x1234);
+        assertEquals(Memory.MIN_CHUNK, ram.getStorageSize());
+
+        ram.poke(100_000, 0xBEEF);
+        assertEquals(1 << 18, ram.getStorageSize());
+        assertEquals(0x1234, ram.peek(0));
+        assertEquals(0xBEEF, ram.peek(100_000));
+        assertEquals(0, ram.peek(99_999));
+        assertEquals(0, ram.peek((1L << 32) - 1));
+    }
+}
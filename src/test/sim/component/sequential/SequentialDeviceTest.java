@@ -0,0 +1,192 @@
+package sim.component.sequential;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import sim.component.LogicValue;
+import sim.component.SignalSource;
+
+class SequentialDeviceTest {
+
+    /** @return a signal source driving every input of the device */
+    private static SignalSource[] drive(SequentialDevice device) {
+        final SignalSource[] sources = new SignalSource[device.getInputBus().length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = new SignalSource();
+            sources[i].setFourState(device.isFourState());
+            device.connectInput(sources[i], 0, i);
+        }
+        return sources;
+    }
+
+    private static void set(SignalSource source, boolean value) {
+        source.set(value);
+        source.update();
+    }
+
+    private static void set(SignalSource source, LogicValue value) {
+        source.set(value);
+        source.update();
+    }
+
+    @Test
+    void flipFlopLoadsOnRisingEdgesOnly() {
+        final DFlipFlop flipFlop = new DFlipFlop();
+        final SignalSource[] in = drive(flipFlop);
+
+        set(in[0], true);
+        flipFlop.update();
+        assertFalse(flipFlop.getOut(0), "the clock is low");
+
+        set(in[DFlipFlop.CLK], true);
+        flipFlop.update();
+        assertTrue(flipFlop.getOut(0), "rising edge");
+
+        set(in[0], false);
+        flipFlop.update();
+        assertTrue(flipFlop.getOut(0), "the clock stays high");
+
+        set(in[DFlipFlop.CLK], false);
+        flipFlop.update();
+        assertTrue(flipFlop.getOut(0), "falling edge");
+
+        set(in[DFlipFlop.CLK], true);
+        flipFlop.update();
+        assertFalse(flipFlop.getOut(0), "rising edge");
+    }
+
+    @Test
+    void flipFlopClockStartingHighIsARisingEdge() {
+        final DFlipFlop flipFlop = new DFlipFlop();
+        final SignalSource[] in = drive(flipFlop);
+        set(in[0], true);
+        set(in[DFlipFlop.CLK], true);
+        flipFlop.update();
+        assertTrue(flipFlop.getOut(0));
+    }
+
+    @Test
+    void latchIsTransparentWhileEnabled() {
+        final DLatch latch = new DLatch();
+        final SignalSource[] in = drive(latch);
+
+        set(in[DLatch.EN], true);
+        for (boolean d : new boolean[] {true, false, true}) {
+            set(in[0], d);
+            latch.update();
+            assertEquals(d, latch.getOut(0));
+        }
+
+        set(in[DLatch.EN], false);
+        set(in[0], false);
+        latch.update();
+        assertTrue(latch.getOut(0), "held while disabled");
+    }
+
+    @Test
+    void registerLoadsEveryWordWhileEnabled() {
+        final int width = 70;
+        final Register register = new Register(width);
+        final SignalSource[] in = drive(register);
+        for (int i = 0; i < width; i++) {
+            set(in[i], i % 3 == 0);
+        }
+
+        set(in[width + 1], true);
+        register.update();
+        assertArrayEquals(new long[2], register.getState(), "not enabled on the rising edge");
+
+        set(in[width], true);
+        register.update();
+        assertArrayEquals(new long[2], register.getState(), "enabled while the clock stays high");
+
+        set(in[width + 1], false);
+        register.update();
+        set(in[width + 1], true);
+        register.update();
+        assertArrayEquals(new long[] {0x9249249249249249L, 1L << 66 - 64 | 1L << 69 - 64}, register.getState());
+        for (int i = 0; i < width; i++) {
+            assertEquals(i % 3 == 0, register.getOut(i), "Q" + i);
+        }
+        assertEquals("D69", register.inIndexToAlias(69));
+        assertEquals(width, register.inAliasToIndex("EN"));
+    }
+
+    @Test
+    void devicesOnTheSameEdgeSampleBeforeAnyCommits() {
+        for (boolean secondFirst : new boolean[] {false, true}) {
+            // A two stage shift register, the second flip-flop reading the first
+            final DFlipFlop first = new DFlipFlop();
+            final DFlipFlop second = new DFlipFlop();
+            final SignalSource d = new SignalSource();
+            final SignalSource clk = new SignalSource();
+            first.connectInput(d, 0, 0);
+            first.connectInput(clk, 0, DFlipFlop.CLK);
+            second.connectInput(first, 0, 0);
+            second.connectInput(clk, 0, DFlipFlop.CLK);
+
+            set(d, true);
+            for (int edge = 1; edge <= 2; edge++) {
+                set(clk, true);
+                first.loadInputBuffer();
+                second.loadInputBuffer();
+                if (secondFirst) {
+                    second.update();
+                    first.update();
+                }
+                else {
+                    first.update();
+                    second.update();
+                }
+                assertTrue(first.getOut(0));
+                assertEquals(edge == 2, second.getOut(0), "edge " + edge + ", second updated first: " + secondFirst);
+                set(clk, false);
+                first.update();
+                second.update();
+            }
+        }
+    }
+
+    @Test
+    void widthMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new Register(0));
+    }
+
+    @Test
+    void fourStateUnknownControlOnlyKeepsBitsThatWouldNotChange() {
+        final Register register = new Register(2);
+        register.setFourState(true);
+        assertArrayEquals(new long[] {0b11}, register.getUnknown(), "the state starts as X");
+
+        final SignalSource[] in = drive(register);
+        set(in[0], LogicValue.ONE);
+        set(in[1], LogicValue.ZERO);
+        set(in[2], LogicValue.ONE);
+        set(in[3], LogicValue.ONE);
+        register.update();
+        assertEquals(LogicValue.ONE, register.getOutLogic(0));
+        assertEquals(LogicValue.ZERO, register.getOutLogic(1));
+
+        // The register may or may not load D1 = 1 on an X clock, Q0 would not change
+        set(in[1], LogicValue.ONE);
+        set(in[3], LogicValue.X);
+        register.update();
+        assertEquals(LogicValue.ONE, register.getOutLogic(0));
+        assertEquals(LogicValue.X, register.getOutLogic(1));
+
+        // A Z sampled becomes X
+        set(in[0], LogicValue.Z);
+        set(in[1], LogicValue.ZERO);
+        set(in[3], LogicValue.ZERO);
+        register.update();
+        set(in[3], LogicValue.ONE);
+        register.update();
+        assertEquals(LogicValue.X, register.getOutLogic(0));
+        assertEquals(LogicValue.ZERO, register.getOutLogic(1));
+    }
+}
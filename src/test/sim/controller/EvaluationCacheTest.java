@@ -0,0 +1,116 @@
+package sim.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class EvaluationCacheTest {
+
+    private static CircuitGenerator generator() {
+        return new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType);
+    }
+
+    /** @return the packed inputs {@code a, b, cin} of an 8-bit ripple-carry adder */
+    private static long[] adderInputs(int a, int b, int cin) {
+        return new long[] {a | b << 8 | cin << 16};
+    }
+
+    /** Evaluate and check the packed outputs {@code s, cout} are the sum */
+    private static void assertAdds(EvaluationCache cache, int a, int b, int cin) {
+        final long[] outputs = new long[cache.getOutputWords()];
+        cache.evaluate(adderInputs(a, b, cin), outputs);
+        assertEquals(a + b + cin, outputs[0], a + " + " + b + " + " + cin);
+    }
+
+    @Test
+    void repeatedVectorsHitWithTheSameOutputs() {
+        final EvaluationCache cache = new EvaluationCache(generator().rippleCarryAdder(8), 1 << 10);
+        assertEquals(EvaluationCache.State.ENABLED, cache.getState());
+        for (int round = 0; round < 2; round++) {
+            for (int v = 0; v < 100; v++) {
+                assertAdds(cache, v, 255 - 2 * v & 255, v & 1);
+            }
+        }
+        assertEquals(100, cache.getMisses());
+        assertEquals(100, cache.getHits());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void clockHandEvictsTheFirstEntryNotReferenced() {
+        // A single set of EvaluationCache.WAYS entries
+        final EvaluationCache cache = new EvaluationCache(generator().rippleCarryAdder(8), 1).minHitRate(0);
+        assertEquals(EvaluationCache.WAYS, cache.getCapacity());
+        for (int v = 0; v < EvaluationCache.WAYS; v++) {
+            assertAdds(cache, v, 0, 0);
+        }
+        assertEquals(0, cache.getEvictions());
+
+        // Nothing is referenced, the hand evicts way 0 and moves on to way 1
+        assertAdds(cache, 100, 0, 0);
+        assertEquals(1, cache.getEvictions());
+        assertAdds(cache, 1, 0, 0);
+        assertEquals(1, cache.getHits());
+
+        // Way 1 is referenced, its bit is cleared and way 2 is evicted instead
+        assertAdds(cache, 101, 0, 0);
+        assertEquals(2, cache.getEvictions());
+        assertAdds(cache, 1, 0, 0);
+        assertAdds(cache, 3, 0, 0);
+        assertEquals(3, cache.getHits());
+        final long misses = cache.getMisses();
+        assertAdds(cache, 2, 0, 0);
+        assertAdds(cache, 0, 0, 0);
+        assertEquals(misses + 2, cache.getMisses(), "vectors 0 and 2 were evicted");
+    }
+
+    @Test
+    void highInputWordsSpreadOverTheSets() {
+        // 81 inputs, the vectors only differ in the second word
+        final EvaluationCache cache = new EvaluationCache(generator().rippleCarryAdder(40), 64).minHitRate(0);
+        assertEquals(2, cache.getInputWords());
+        final long[] outputs = new long[cache.getOutputWords()];
+        for (long v = 0; v < 16; v++) {
+            cache.evaluate(new long[] {0, v}, outputs);
+        }
+        assertTrue(cache.getEvictions() < 8, "16 vectors should not all land in the same set of " + cache);
+        for (long v = 0; v < 16; v++) {
+            cache.evaluate(new long[] {0, v}, outputs);
+        }
+        assertEquals(16 - cache.getEvictions(), cache.getHits());
+    }
+
+    @Test
+    void cacheTurnsOffAfterAWindowOfFewHits() {
+        final EvaluationCache cache = new EvaluationCache(generator().rippleCarryAdder(8), 8);
+        for (int v = 0; v < 2 * cache.getCapacity(); v++) {
+            assertAdds(cache, v, v, 0);
+        }
+        assertEquals(EvaluationCache.State.LOW_HIT_RATE, cache.getState());
+
+        // Still evaluated, by simulation only
+        final long misses = cache.getMisses();
+        assertAdds(cache, 0, 0, 0);
+        assertAdds(cache, 0, 0, 0);
+        assertEquals(misses, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void systemsWithStateAreNotCached() {
+        final String lfsr = generator().lfsr(4, CircuitGenerator.maximalTaps(4));
+        final EvaluationCache cache = new EvaluationCache(lfsr, 8);
+        assertEquals(EvaluationCache.State.STATEFUL, cache.getState());
+
+        final long[] outputs = new long[1];
+        cache.evaluate(new long[] {0}, outputs);
+        cache.evaluate(new long[] {0}, outputs);
+        assertArrayEquals(new long[] {0, 0}, new long[] {cache.getHits(), cache.getMisses()});
+    }
+}
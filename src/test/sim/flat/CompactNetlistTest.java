@@ -0,0 +1,65 @@
+package sim.flat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class CompactNetlistTest {
+
+    private static FlatNetlist netlist(Function<CircuitGenerator, String> family) {
+        return FlatNetlist.of(family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType)));
+    }
+
+    /** Check every net matches the netlist, 64 random input patterns at a time */
+    private static void assertMatchesNetlist(Function<CircuitGenerator, String> family, long seed) {
+        final FlatNetlist netlist = netlist(family);
+        final CompactNetlist compact = new CompactNetlist(netlist);
+        assertEquals(netlist.getNumNets(), compact.getNumNets());
+
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long[] expected = new long[netlist.getNumNets()];
+        final long[] actual = new long[compact.getNumNets()];
+        for (int round = 0; round < 16; round++) {
+            for (int i = 0; i < netlist.getNumInputs(); i++) {
+                expected[i] = actual[i] = random.nextLong();
+            }
+            netlist.evaluate(expected);
+            compact.evaluate(actual);
+            for (int net = 0; net < expected.length; net++) {
+                assertEquals(expected[net], actual[net], netlist.getType() + " net " + net + " in round " + round);
+            }
+            for (int o = 0; o < netlist.getNumOutputs(); o++) {
+                assertEquals(netlist.getOutputNet(o), compact.getOutputNet(o));
+            }
+        }
+    }
+
+    @Test
+    void adderAndMultiplierMatchTheNetlist() {
+        assertMatchesNetlist(g -> g.carryLookaheadAdder(16), 1);
+        assertMatchesNetlist(g -> g.arrayMultiplier(6), 2);
+        assertMatchesNetlist(g -> g.barrelShifter(16), 3);
+    }
+
+    @Test
+    void randomDagMatchesTheNetlist() {
+        for (long seed = 1; seed <= 4; seed++) {
+            final long s = seed;
+            assertMatchesNetlist(g -> g.randomDag(400, 24, 16, CircuitGenerator.RandomDagShape.DEFAULT, s), seed);
+        }
+    }
+
+    @Test
+    void twoInputCellsTakeThreeInts() {
+        final CompactNetlist compact = new CompactNetlist(netlist(g -> g.rippleCarryAdder(8)));
+        assertEquals((long) compact.getNumCells() * CompactNetlist.INTS_PER_CELL * Integer.BYTES,
+                     compact.getCellBytes());
+    }
+}
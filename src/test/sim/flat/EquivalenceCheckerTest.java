@@ -0,0 +1,130 @@
+package sim.flat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class EquivalenceCheckerTest {
+
+    private static CircuitGenerator generator() {
+        return new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType);
+    }
+
+    /**
+     * Register a table device computing the same as {@code reference} but for an output flipped on some rows
+     *
+     * @return the type of the device
+     */
+    private static String broken(String type, String reference, int output, int... rows) {
+        final TruthTable table = TruthTable.of(reference);
+        final long[] words = new long[table.getTable().capacity()];
+        table.getTable().get(words);
+        final int wordsPerOutput = DeviceBlueprint.wordsPerOutput(table.getNetlist().getNumInputs());
+        for (int row : rows) {
+            words[output * wordsPerOutput + (row >>> 6)] ^= 1L << row;
+        }
+
+        final String[] inputAliases = new String[table.getNetlist().getNumInputs()];
+        final String[] outputAliases = new String[table.getNetlist().getNumOutputs()];
+        for (int i = 0; i < inputAliases.length; i++) {
+            inputAliases[i] = table.getNetlist().getInputAlias(i);
+        }
+        for (int i = 0; i < outputAliases.length; i++) {
+            outputAliases[i] = table.getNetlist().getOutputAlias(i);
+        }
+        Blueprint.register(new DeviceBlueprint(type, inputAliases, outputAliases, words));
+        return type;
+    }
+
+    /** @return the inputs of a row, input {@code k} is bit {@code k} */
+    private static boolean[] row(int numInputs, int row) {
+        final boolean[] inputs = new boolean[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            inputs[i] = (row >>> i & 1) != 0;
+        }
+        return inputs;
+    }
+
+    @Test
+    void equivalentAddersAreProvenOnEveryVector() {
+        final CircuitGenerator generator = generator();
+        final Equivalence equivalence = EquivalenceChecker.of(generator.rippleCarryAdder(4),
+                                                              generator.carryLookaheadAdder(4)).check();
+        assertTrue(equivalence.isEquivalent(), equivalence::toString);
+        assertTrue(equivalence.isExhaustive());
+        assertEquals(1 << 9, equivalence.getNumVectors());
+        assertNull(equivalence.getCounterexample());
+    }
+
+    @Test
+    void counterexampleIsTheLowestDifferingRowForAnyNumberOfThreads() {
+        final String adder = generator().rippleCarryAdder(4);
+        final String broken = broken("ECT-Broken-Adder", adder, 2, 300, 77, 500);
+        for (int threads : new int[] {1, 3, 8}) {
+            final Equivalence equivalence = EquivalenceChecker.of(adder, broken).threads(threads).check();
+            assertFalse(equivalence.isEquivalent());
+            assertTrue(equivalence.isExhaustive());
+            assertArrayEquals(row(9, 77), equivalence.getCounterexample(), "with " + threads + " thread(s)");
+
+            final boolean[] first = equivalence.getFirstOutputs();
+            final boolean[] second = equivalence.getSecondOutputs();
+            for (int o = 0; o < first.length; o++) {
+                assertEquals(o == 2, first[o] != second[o], "output " + o);
+            }
+        }
+    }
+
+    @Test
+    void differenceInACircuitOfFewerInputsThanABatchIsFound() {
+        // 2 inputs fill only 4 bits of the single batch
+        final String dag = generator().randomDag(1, 2, 1, CircuitGenerator.RandomDagShape.DEFAULT, 1);
+        final Equivalence equivalent = EquivalenceChecker.of(dag, dag).check();
+        assertTrue(equivalent.isEquivalent());
+        assertEquals(4, equivalent.getNumVectors());
+
+        final String broken = broken("ECT-Broken-Dag", dag, 0, 3);
+        assertArrayEquals(row(2, 3), EquivalenceChecker.of(dag, broken).check().getCounterexample());
+    }
+
+    @Test
+    void randomVectorsFindAWideDifference() {
+        final CircuitGenerator generator = generator();
+        final String ripple = generator.rippleCarryAdder(8);
+        final String lookahead = generator.carryLookaheadAdder(8);
+
+        final Equivalence equivalent = EquivalenceChecker.of(ripple, lookahead).exhaustiveLimit(4).vectors(1 << 12)
+                                                         .seed(5).check();
+        assertTrue(equivalent.isEquivalent());
+        assertFalse(equivalent.isExhaustive());
+        assertTrue(equivalent.getNumVectors() >= 1 << 12);
+
+        // Flipping cout on every row with cin set is found among the corner cases or the first random vectors
+        final int[] rows = new int[1 << 16];
+        for (int r = 0; r < rows.length; r++) {
+            rows[r] = 1 << 16 | r;
+        }
+        final String broken = broken("ECT-Broken-Wide-Adder", ripple, 8, rows);
+        final Equivalence different = EquivalenceChecker.of(ripple, broken).exhaustiveLimit(4).vectors(1 << 12)
+                                                        .seed(5).check();
+        assertFalse(different.isEquivalent());
+        assertTrue(different.getCounterexample()[16], "the counterexample has cin set");
+        assertTrue(different.getFirstOutputs()[8] != different.getSecondOutputs()[8]);
+    }
+
+    @Test
+    void mismatchedAliasesAreRejected() {
+        final CircuitGenerator generator = generator();
+        assertThrows(IllegalArgumentException.class,
+                     () -> EquivalenceChecker.of(generator.rippleCarryAdder(4), generator.rippleCarryAdder(5)));
+    }
+}
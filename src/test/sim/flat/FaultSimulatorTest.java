@@ -0,0 +1,104 @@
+package sim.flat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class FaultSimulatorTest {
+
+    private static FlatNetlist netlist(Function<CircuitGenerator, String> family) {
+        return FlatNetlist.of(family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType)));
+    }
+
+    private static List<boolean[]> vectors(int count, int numInputs, long seed) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        final List<boolean[]> vectors = new ArrayList<>();
+        for (int v = 0; v < count; v++) {
+            final boolean[] vector = new boolean[numInputs];
+            for (int i = 0; i < numInputs; i++) {
+                vector[i] = random.nextBoolean();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    /** @return the outputs of one machine, the fault injected unless {@code null} */
+    private static boolean[] simulate(FlatNetlist netlist, boolean[] vector, Fault fault) {
+        final long[] values = new long[netlist.getNumNets()];
+        for (int i = 0; i < vector.length; i++) {
+            values[i] = vector[i] ? -1L : 0L;
+        }
+        for (int c = 0; c < netlist.getNumCells(); c++) {
+            final long[] inputs = new long[netlist.getCellNumInputs(c)];
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = values[netlist.getCellInputNet(c, i)];
+            }
+            if (fault != null && fault.cell() == c && !fault.isOutput()) {
+                inputs[fault.input()] = fault.stuckAt() ? -1L : 0L;
+            }
+            long value = netlist.apply(c, inputs);
+            if (fault != null && fault.cell() == c && fault.isOutput()) {
+                value = fault.stuckAt() ? -1L : 0L;
+            }
+            values[netlist.getCellNet(c)] = value;
+        }
+
+        final boolean[] outputs = new boolean[netlist.getNumOutputs()];
+        for (int o = 0; o < outputs.length; o++) {
+            outputs[o] = (values[netlist.getOutputNet(o)] & 1) != 0;
+        }
+        return outputs;
+    }
+
+    private static boolean detects(FlatNetlist netlist, boolean[] vector, Fault fault) {
+        return !Arrays.equals(simulate(netlist, vector, null), simulate(netlist, vector, fault));
+    }
+
+    /** Check the coverage against every fault simulated on its own, one vector at a time */
+    private static void assertMatchesSerial(FlatNetlist netlist, List<boolean[]> vectors, int threads) {
+        final List<Fault> faults = Fault.all(netlist);
+        final FaultCoverage coverage = new FaultSimulator(netlist).threads(threads).simulate(vectors, faults);
+
+        int detected = 0;
+        for (int f = 0; f < faults.size(); f++) {
+            final Fault fault = faults.get(f);
+            boolean expected = false;
+            for (boolean[] vector : vectors) {
+                expected |= detects(netlist, vector, fault);
+            }
+            final int by = coverage.getDetectedBy(f);
+            assertEquals(expected, by >= 0, fault.describe(netlist));
+            if (by >= 0) {
+                assertTrue(detects(netlist, vectors.get(by), fault), fault.describe(netlist) + " by vector " + by);
+                detected++;
+            }
+        }
+        assertEquals(detected, coverage.getNumDetected());
+    }
+
+    @Test
+    void adderCoverageMatchesSerialSimulation() {
+        final FlatNetlist adder = netlist(g -> g.rippleCarryAdder(4));
+        assertMatchesSerial(adder, vectors(6, adder.getNumInputs(), 1), 1);
+        assertMatchesSerial(adder, vectors(6, adder.getNumInputs(), 2), 4);
+    }
+
+    @Test
+    void tableCellCoverageMatchesSerialSimulation() {
+        final FlatNetlist dag = netlist(g -> g.randomDag(150, 10, 6, CircuitGenerator.RandomDagShape.DEFAULT, 3));
+        assertTrue(dag.getMaxTableInputs() > 0, "the random DAG should have cells evaluated from their table");
+        assertMatchesSerial(dag, vectors(12, dag.getNumInputs(), 3), 3);
+    }
+}
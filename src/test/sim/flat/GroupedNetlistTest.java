@@ -0,0 +1,65 @@
+package sim.flat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class GroupedNetlistTest {
+
+    private static FlatNetlist netlist(Function<CircuitGenerator, String> family) {
+        return FlatNetlist.of(family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType)));
+    }
+
+    /** Check both evaluate every output like the netlist, 64 random input patterns at a time */
+    private static void assertMatchesNetlist(FlatNetlist netlist, GroupedNetlist grouped, long seed) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long[] expected = new long[netlist.getNumNets()];
+        final long[] actual = new long[grouped.getNumNets()];
+        for (int round = 0; round < 16; round++) {
+            for (int i = 0; i < netlist.getNumInputs(); i++) {
+                expected[i] = actual[i] = random.nextLong();
+            }
+            netlist.evaluate(expected);
+            grouped.evaluate(actual);
+            for (int o = 0; o < netlist.getNumOutputs(); o++) {
+                assertEquals(expected[netlist.getOutputNet(o)], actual[grouped.getOutputNet(o)],
+                             netlist.getType() + " output " + netlist.getOutputAlias(o) + " in round " + round);
+            }
+        }
+    }
+
+    private static void assertMatchesNetlist(Function<CircuitGenerator, String> family, long seed) {
+        final FlatNetlist netlist = netlist(family);
+        final GroupedNetlist scalar = new GroupedNetlist(netlist, false);
+        assertFalse(scalar.isVectorized());
+        assertMatchesNetlist(netlist, scalar, seed);
+
+        // Vectorized if the Vector API kernel is on the class path, scalar again otherwise
+        final GroupedNetlist vector = new GroupedNetlist(netlist, true);
+        assertEquals(GroupedNetlist.isVectorAvailable(), vector.isVectorized());
+        assertMatchesNetlist(netlist, vector, seed);
+    }
+
+    @Test
+    void adderAndMultiplierMatchTheNetlist() {
+        assertMatchesNetlist(g -> g.carryLookaheadAdder(16), 1);
+        assertMatchesNetlist(g -> g.arrayMultiplier(6), 2);
+        assertMatchesNetlist(g -> g.barrelShifter(16), 3);
+    }
+
+    @Test
+    void randomDagMatchesTheNetlist() {
+        for (long seed = 1; seed <= 4; seed++) {
+            final long s = seed;
+            assertMatchesNetlist(g -> g.randomDag(400, 24, 16, CircuitGenerator.RandomDagShape.DEFAULT, s), seed);
+        }
+    }
+}
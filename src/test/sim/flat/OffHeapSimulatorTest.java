@@ -0,0 +1,76 @@
+package sim.flat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class OffHeapSimulatorTest {
+
+    private static FlatNetlist netlist(Function<CircuitGenerator, String> family) {
+        return FlatNetlist.of(family.apply(new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType)));
+    }
+
+    /**
+     * Check every net matches the netlist after each settle, changing every input at first and then a few of them at a
+     * time, 64 random input patterns at a time
+     */
+    private static void assertMatchesNetlist(Function<CircuitGenerator, String> family, long seed) {
+        final FlatNetlist netlist = netlist(family);
+        final OffHeapSimulator simulator = new OffHeapSimulator(netlist);
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long[] expected = new long[netlist.getNumNets()];
+        for (int round = 0; round < 32; round++) {
+            final int changes = round == 0 ? netlist.getNumInputs() : 1 + random.nextInt(3);
+            for (int c = 0; c < changes; c++) {
+                final int input = round == 0 ? c : random.nextInt(netlist.getNumInputs());
+                expected[input] = random.nextLong();
+                simulator.set(input, expected[input]);
+            }
+            netlist.evaluate(expected);
+
+            final long evaluated = simulator.settle();
+            assertTrue(simulator.isSettled());
+            assertTrue(evaluated <= netlist.getNumCells(), "every cell is evaluated at most once per settle");
+            for (int net = 0; net < expected.length; net++) {
+                assertEquals(expected[net], simulator.getNet(net), netlist.getType() + " net " + net
+                                                                   + " in round " + round);
+            }
+            for (int o = 0; o < netlist.getNumOutputs(); o++) {
+                assertEquals(expected[netlist.getOutputNet(o)], simulator.get(o));
+            }
+        }
+    }
+
+    @Test
+    void adderAndMultiplierMatchTheNetlist() {
+        assertMatchesNetlist(g -> g.carryLookaheadAdder(16), 1);
+        assertMatchesNetlist(g -> g.arrayMultiplier(6), 2);
+        assertMatchesNetlist(g -> g.barrelShifter(16), 3);
+    }
+
+    @Test
+    void randomDagMatchesTheNetlist() {
+        for (long seed = 1; seed <= 4; seed++) {
+            final long s = seed;
+            assertMatchesNetlist(g -> g.randomDag(400, 24, 16, CircuitGenerator.RandomDagShape.DEFAULT, s), seed);
+        }
+    }
+
+    @Test
+    void settleWithoutChangesEvaluatesNothing() {
+        final OffHeapSimulator simulator = new OffHeapSimulator(netlist(g -> g.rippleCarryAdder(8)));
+        assertTrue(simulator.settle() > 0, "every cell is queued when built");
+        assertEquals(0, simulator.settle());
+
+        simulator.set(0, 0);
+        assertEquals(0, simulator.settle(), "an input set to its own value schedules nothing");
+    }
+}
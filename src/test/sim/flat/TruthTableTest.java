@@ -0,0 +1,71 @@
+package sim.flat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import sim.blueprint.Blueprint;
+import sim.blueprint.DeviceBlueprint;
+import sim.compiler.parser.BlueprintRegistrar;
+import sim.generator.CircuitGenerator;
+
+class TruthTableTest {
+
+    private static CircuitGenerator generator() {
+        return new CircuitGenerator(new BlueprintRegistrar(), Blueprint::hasType);
+    }
+
+    /** Check every row of the table of a ripple-carry adder, inputs {@code a, b, cin} and outputs {@code s, cout} */
+    private static void assertAdds(TruthTable table, int bits) {
+        final int mask = (1 << bits) - 1;
+        for (int row = 0; row < 1 << 2 * bits + 1; row++) {
+            final int sum = (row & mask) + (row >>> bits & mask) + (row >>> 2 * bits);
+            for (int o = 0; o <= bits; o++) {
+                assertEquals((sum >>> o & 1) != 0, table.lookup(o, row), "output " + o + " of row " + row);
+            }
+        }
+    }
+
+    @Test
+    void adderTableAddsOnEveryRow() {
+        final FlatNetlist adder = FlatNetlist.of(generator().rippleCarryAdder(2));
+        assertAdds(TruthTable.of(adder, ForkJoinPool.commonPool()), 2);
+    }
+
+    @Test
+    void chunksFillTheirOwnPartOfTheTable() {
+        // 17 inputs are 2048 words per output, 2 chunks of TruthTable.CHUNK
+        final FlatNetlist adder = FlatNetlist.of(generator().rippleCarryAdder(8));
+        assertTrue(DeviceBlueprint.wordsPerOutput(adder.getNumInputs()) > TruthTable.CHUNK);
+
+        final TruthTable serial;
+        final TruthTable parallel;
+        try (ForkJoinPool one = new ForkJoinPool(1); ForkJoinPool four = new ForkJoinPool(4)) {
+            serial = TruthTable.of(adder, one);
+            parallel = TruthTable.of(adder, four);
+        }
+        assertEquals(serial.getTable(), parallel.getTable());
+        assertAdds(parallel, 8);
+    }
+
+    @Test
+    void tableDeviceIsEquivalentToTheCircuit() {
+        final String adder = generator().carryLookaheadAdder(4);
+        final DeviceBlueprint device = TruthTable.of(adder).toBlueprint("TTT-CarryLookaheadAdder4");
+        Blueprint.register(device);
+
+        final Equivalence equivalence = EquivalenceChecker.of(adder, device.getType()).check();
+        assertTrue(equivalence.isEquivalent(), equivalence::toString);
+        assertTrue(equivalence.isExhaustive());
+    }
+
+    @Test
+    void tooManyInputsForATableAreRejected() {
+        final FlatNetlist adder = FlatNetlist.of(generator().rippleCarryAdder(16));
+        assertThrows(IllegalArgumentException.class, () -> TruthTable.of(adder, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,60 @@
+package sim.flat;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link GroupKernel} evaluating as many cells at once as the platform has SIMD lanes for longs: the inputs of the
+ * cells are gathered into vectors, and the results stored with a single contiguous store. The remaining cells of a
+ * group, fewer than a vector, are evaluated a cell at a time.
+ *
+ * <p>Compiled and run apart from the rest of the simulator, with {@code --add-modules jdk.incubator.vector}, and loaded
+ * by name, see {@link GroupKernel#vector()}.
+ */
+final class VectorKernel implements GroupKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * @throws UnsupportedOperationException if the platform has a single lane for longs, the scalar kernel being
+     *                                       faster then
+     */
+    VectorKernel() {
+        if (LANES < 2) {
+            throw new UnsupportedOperationException("No SIMD lanes for longs, received " + SPECIES);
+        }
+    }
+
+    @Override
+    public void and(long[] values, int[] a, int[] b, int from, int to, int offset, long ma, long mb, long mo) {
+        int k = from;
+        for (; k <= to - LANES; k += LANES) {
+            final LongVector va = LongVector.fromArray(SPECIES, values, 0, a, k).lanewise(VectorOperators.XOR, ma);
+            final LongVector vb = LongVector.fromArray(SPECIES, values, 0, b, k).lanewise(VectorOperators.XOR, mb);
+            va.and(vb).lanewise(VectorOperators.XOR, mo).intoArray(values, offset + k);
+        }
+        for (; k < to; k++) {
+            values[offset + k] = ((values[a[k]] ^ ma) & (values[b[k]] ^ mb)) ^ mo;
+        }
+    }
+
+    @Override
+    public void xor(long[] values, int[] a, int[] b, int from, int to, int offset, long mo) {
+        int k = from;
+        for (; k <= to - LANES; k += LANES) {
+            final LongVector va = LongVector.fromArray(SPECIES, values, 0, a, k);
+            final LongVector vb = LongVector.fromArray(SPECIES, values, 0, b, k);
+            va.lanewise(VectorOperators.XOR, vb).lanewise(VectorOperators.XOR, mo).intoArray(values, offset + k);
+        }
+        for (; k < to; k++) {
+            values[offset + k] = values[a[k]] ^ values[b[k]] ^ mo;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "vector " + SPECIES;
+    }
+}